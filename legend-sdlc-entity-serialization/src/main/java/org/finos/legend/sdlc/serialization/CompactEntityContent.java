@@ -0,0 +1,609 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.serialization;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact immutable representation of entity content. Objects and arrays are held as immutable maps and lists backed
+ * by plain arrays, with their hash codes computed once when they are created. Keys and short string values are
+ * deduplicated through a bounded table, as are small maps and lists of scalar values (such as multiplicities), so that
+ * the many entities of a model share them rather than each holding its own copies.
+ */
+public final class CompactEntityContent
+{
+    private static final int MAX_DEDUPLICATED_STRING_LENGTH = 64;
+    private static final int MAX_DEDUPLICATED_CONTAINER_SIZE = 4;
+    private static final int MAX_LINEAR_SCAN_SIZE = 8;
+
+    private static final DeduplicationTable STRINGS = new DeduplicationTable(8192);
+    private static final DeduplicationTable SMALL_CONTAINERS = new DeduplicationTable(2048);
+
+    private CompactEntityContent()
+    {
+    }
+
+    /**
+     * Whether the given value is compact content, i.e., a map or list created by this class.
+     *
+     * @param value value
+     * @return whether the value is compact content
+     */
+    public static boolean isCompact(Object value)
+    {
+        return (value instanceof CompactMap) || (value instanceof CompactList);
+    }
+
+    /**
+     * Get an entity equal to the given entity, but with compact immutable content. If the content of the entity is
+     * already compact, the entity itself is returned.
+     *
+     * @param entity entity
+     * @return entity with compact content
+     */
+    public static Entity toCompactEntity(Entity entity)
+    {
+        Map<String, ?> content = entity.getContent();
+        if ((content == null) || isCompact(content))
+        {
+            return entity;
+        }
+        return Entity.newEntity(entity.getPath(), entity.getClassifierPath(), toCompactMap(content));
+    }
+
+    /**
+     * Get a compact immutable copy of the given content. Nested maps and lists are copied recursively; other values
+     * are shared. If the content is already compact, it is returned as is.
+     *
+     * @param content content
+     * @return compact content
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, ?> toCompactMap(Map<String, ?> content)
+    {
+        return (content == null) ? null : (Map<String, ?>) compact(content);
+    }
+
+    /**
+     * Read a JSON object from the parser as compact content. The parser should be positioned at the start of the
+     * object (or at its first field name), and is left at its end.
+     *
+     * @param parser JSON parser
+     * @return compact content
+     * @throws IOException if the object cannot be read
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, ?> readCompactMap(JsonParser parser) throws IOException
+    {
+        return (Map<String, ?>) (Map<?, ?>) readObject(parser);
+    }
+
+    // Conversion
+
+    private static Object compact(Object value)
+    {
+        if ((value instanceof CompactMap) || (value instanceof CompactList))
+        {
+            return value;
+        }
+        if (value instanceof Map)
+        {
+            Map<?, ?> map = (Map<?, ?>) value;
+            int size = map.size();
+            if (size == 0)
+            {
+                return CompactMap.EMPTY;
+            }
+            Object[] keysAndValues = new Object[size * 2];
+            int[] i = {0};
+            map.forEach((k, v) ->
+            {
+                keysAndValues[i[0]++] = deduplicateScalar(k);
+                keysAndValues[i[0]++] = compact(v);
+            });
+            return newMap(keysAndValues);
+        }
+        if (value instanceof List)
+        {
+            List<?> list = (List<?>) value;
+            int size = list.size();
+            if (size == 0)
+            {
+                return CompactList.EMPTY;
+            }
+            Object[] elements = new Object[size];
+            int i = 0;
+            for (Object element : list)
+            {
+                elements[i++] = compact(element);
+            }
+            return newList(elements);
+        }
+        return deduplicateScalar(value);
+    }
+
+    // JSON parsing
+
+    private static CompactMap readObject(JsonParser parser) throws IOException
+    {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT)
+        {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.END_OBJECT)
+        {
+            return CompactMap.EMPTY;
+        }
+
+        List<Object> keysAndValues = new ArrayList<>();
+        while (token == JsonToken.FIELD_NAME)
+        {
+            keysAndValues.add(deduplicateScalar(parser.getCurrentName()));
+            keysAndValues.add(readValue(parser, parser.nextToken()));
+            token = parser.nextToken();
+        }
+        if (token != JsonToken.END_OBJECT)
+        {
+            throw new IOException("Unexpected token in JSON object: " + token);
+        }
+        return newMap(removeDuplicateKeys(keysAndValues.toArray()));
+    }
+
+    private static CompactList readArray(JsonParser parser) throws IOException
+    {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.END_ARRAY)
+        {
+            return CompactList.EMPTY;
+        }
+
+        List<Object> elements = new ArrayList<>();
+        while (token != JsonToken.END_ARRAY)
+        {
+            if (token == null)
+            {
+                throw new IOException("Unexpected end of input in JSON array");
+            }
+            elements.add(readValue(parser, token));
+            token = parser.nextToken();
+        }
+        return newList(elements.toArray());
+    }
+
+    private static Object readValue(JsonParser parser, JsonToken token) throws IOException
+    {
+        if (token == null)
+        {
+            throw new IOException("Unexpected end of input");
+        }
+        switch (token)
+        {
+            case START_OBJECT:
+            {
+                return readObject(parser);
+            }
+            case START_ARRAY:
+            {
+                return readArray(parser);
+            }
+            case VALUE_STRING:
+            {
+                return deduplicateScalar(parser.getText());
+            }
+            case VALUE_NUMBER_INT:
+            {
+                return deduplicateScalar(parser.getNumberValue());
+            }
+            case VALUE_NUMBER_FLOAT:
+            {
+                return parser.getDoubleValue();
+            }
+            case VALUE_TRUE:
+            {
+                return Boolean.TRUE;
+            }
+            case VALUE_FALSE:
+            {
+                return Boolean.FALSE;
+            }
+            case VALUE_NULL:
+            {
+                return null;
+            }
+            case VALUE_EMBEDDED_OBJECT:
+            {
+                return parser.getEmbeddedObject();
+            }
+            default:
+            {
+                throw new IOException("Unexpected token: " + token);
+            }
+        }
+    }
+
+    private static Object[] removeDuplicateKeys(Object[] keysAndValues)
+    {
+        // JSON objects should not have duplicate keys, but if they do the last value wins (as for any map)
+        int size = keysAndValues.length / 2;
+        Map<Object, Integer> indexes = (size <= MAX_LINEAR_SCAN_SIZE) ? null : new HashMap<>(size * 2);
+        int newSize = 0;
+        for (int i = 0; i < size; i++)
+        {
+            Object key = keysAndValues[2 * i];
+            Object value = keysAndValues[(2 * i) + 1];
+            int index = (indexes == null) ? linearIndexOf(keysAndValues, newSize, key) : indexes.getOrDefault(key, -1);
+            if (index == -1)
+            {
+                if (indexes != null)
+                {
+                    indexes.put(key, newSize);
+                }
+                keysAndValues[2 * newSize] = key;
+                keysAndValues[(2 * newSize) + 1] = value;
+                newSize++;
+            }
+            else
+            {
+                keysAndValues[(2 * index) + 1] = value;
+            }
+        }
+        if (newSize == size)
+        {
+            return keysAndValues;
+        }
+        Object[] result = new Object[newSize * 2];
+        System.arraycopy(keysAndValues, 0, result, 0, result.length);
+        return result;
+    }
+
+    // Construction and deduplication
+
+    private static CompactMap newMap(Object[] keysAndValues)
+    {
+        CompactMap map = new CompactMap(keysAndValues);
+        return isDeduplicable(keysAndValues) ? (CompactMap) SMALL_CONTAINERS.deduplicate(map) : map;
+    }
+
+    private static CompactList newList(Object[] elements)
+    {
+        CompactList list = new CompactList(elements);
+        return isDeduplicable(elements) ? (CompactList) SMALL_CONTAINERS.deduplicate(list) : list;
+    }
+
+    private static boolean isDeduplicable(Object[] values)
+    {
+        if (values.length > (2 * MAX_DEDUPLICATED_CONTAINER_SIZE))
+        {
+            return false;
+        }
+        for (Object value : values)
+        {
+            if ((value != null) && !(value instanceof String) && !(value instanceof Number) && !(value instanceof Boolean))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Object deduplicateScalar(Object value)
+    {
+        if (value instanceof String)
+        {
+            String string = (String) value;
+            return (string.length() <= MAX_DEDUPLICATED_STRING_LENGTH) ? STRINGS.deduplicate(string) : string;
+        }
+        if (value instanceof Long)
+        {
+            return Long.valueOf((Long) value);
+        }
+        if (value instanceof Integer)
+        {
+            return Integer.valueOf((Integer) value);
+        }
+        return value;
+    }
+
+    private static int linearIndexOf(Object[] keysAndValues, int size, Object key)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            Object k = keysAndValues[2 * i];
+            if ((k == key) || ((k != null) && k.equals(key)))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int spread(int hash)
+    {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Bounded, lossy table of canonical instances: each slot holds the most recent value which hashed to it. This never
+     * holds on to more than a fixed number of values, and races between threads at worst lose deduplication.
+     */
+    private static class DeduplicationTable
+    {
+        private final Object[] table;
+
+        private DeduplicationTable(int size)
+        {
+            this.table = new Object[size];
+        }
+
+        private Object deduplicate(Object value)
+        {
+            int index = spread(value.hashCode()) & (this.table.length - 1);
+            Object existing = this.table[index];
+            if ((existing != null) && existing.equals(value))
+            {
+                return existing;
+            }
+            this.table[index] = value;
+            return value;
+        }
+    }
+
+    private static final class CompactMap extends AbstractMap<Object, Object>
+    {
+        private static final CompactMap EMPTY = new CompactMap(new Object[0]);
+
+        private final Object[] keysAndValues;
+        private final int[] index;
+        private final int hash;
+
+        private CompactMap(Object[] keysAndValues)
+        {
+            int size = keysAndValues.length / 2;
+            this.keysAndValues = keysAndValues;
+            this.index = (size <= MAX_LINEAR_SCAN_SIZE) ? null : buildIndex(keysAndValues, size);
+            int h = 0;
+            for (int i = 0; i < keysAndValues.length; i += 2)
+            {
+                h += Objects.hashCode(keysAndValues[i]) ^ Objects.hashCode(keysAndValues[i + 1]);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int size()
+        {
+            return this.keysAndValues.length / 2;
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return this.keysAndValues.length == 0;
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return indexOf(key) != -1;
+        }
+
+        @Override
+        public Object get(Object key)
+        {
+            int i = indexOf(key);
+            return (i == -1) ? null : this.keysAndValues[(2 * i) + 1];
+        }
+
+        @Override
+        public void forEach(BiConsumer<? super Object, ? super Object> action)
+        {
+            for (int i = 0; i < this.keysAndValues.length; i += 2)
+            {
+                action.accept(this.keysAndValues[i], this.keysAndValues[i + 1]);
+            }
+        }
+
+        @Override
+        public Set<Entry<Object, Object>> entrySet()
+        {
+            return new AbstractSet<Entry<Object, Object>>()
+            {
+                @Override
+                public Iterator<Entry<Object, Object>> iterator()
+                {
+                    return new Iterator<Entry<Object, Object>>()
+                    {
+                        private int next = 0;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return this.next < CompactMap.this.keysAndValues.length;
+                        }
+
+                        @Override
+                        public Entry<Object, Object> next()
+                        {
+                            if (!hasNext())
+                            {
+                                throw new NoSuchElementException();
+                            }
+                            Object[] array = CompactMap.this.keysAndValues;
+                            Entry<Object, Object> entry = new SimpleImmutableEntry<>(array[this.next], array[this.next + 1]);
+                            this.next += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return CompactMap.this.size();
+                }
+            };
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (other instanceof CompactMap)
+            {
+                CompactMap that = (CompactMap) other;
+                if ((this.hash != that.hash) || (this.keysAndValues.length != that.keysAndValues.length))
+                {
+                    return false;
+                }
+                for (int i = 0; i < this.keysAndValues.length; i += 2)
+                {
+                    int j = that.indexOf(this.keysAndValues[i]);
+                    if ((j == -1) || !Objects.equals(this.keysAndValues[i + 1], that.keysAndValues[(2 * j) + 1]))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.equals(other);
+        }
+
+        private int indexOf(Object key)
+        {
+            if (this.index == null)
+            {
+                return linearIndexOf(this.keysAndValues, this.keysAndValues.length / 2, key);
+            }
+            int mask = this.index.length - 1;
+            for (int slot = spread(Objects.hashCode(key)) & mask; this.index[slot] != 0; slot = (slot + 1) & mask)
+            {
+                int i = this.index[slot] - 1;
+                Object k = this.keysAndValues[2 * i];
+                if ((k == key) || ((k != null) && k.equals(key)))
+                {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static int[] buildIndex(Object[] keysAndValues, int size)
+        {
+            // open addressing table of (key index + 1), at most half full
+            int[] index = new int[Integer.highestOneBit(size * 2) << 1];
+            int mask = index.length - 1;
+            for (int i = 0; i < size; i++)
+            {
+                int slot = spread(Objects.hashCode(keysAndValues[2 * i])) & mask;
+                while (index[slot] != 0)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = i + 1;
+            }
+            return index;
+        }
+    }
+
+    private static final class CompactList extends AbstractList<Object> implements RandomAccess
+    {
+        private static final CompactList EMPTY = new CompactList(new Object[0]);
+
+        private final Object[] elements;
+        private final int hash;
+
+        private CompactList(Object[] elements)
+        {
+            this.elements = elements;
+            int h = 1;
+            for (Object element : elements)
+            {
+                h = (31 * h) + Objects.hashCode(element);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public Object get(int index)
+        {
+            return this.elements[index];
+        }
+
+        @Override
+        public int size()
+        {
+            return this.elements.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (other instanceof CompactList)
+            {
+                CompactList that = (CompactList) other;
+                if ((this.hash != that.hash) || (this.elements.length != that.elements.length))
+                {
+                    return false;
+                }
+                for (int i = 0; i < this.elements.length; i++)
+                {
+                    if (!Objects.equals(this.elements[i], that.elements[i]))
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            return super.equals(other);
+        }
+    }
+}
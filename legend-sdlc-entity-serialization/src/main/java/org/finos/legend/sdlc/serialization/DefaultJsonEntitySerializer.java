@@ -16,12 +16,17 @@ package org.finos.legend.sdlc.serialization;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import org.finos.legend.sdlc.domain.model.entity.Entity;
 
 import java.io.IOException;
@@ -33,17 +38,33 @@ import java.util.Map;
 
 public class DefaultJsonEntitySerializer implements EntityTextSerializer
 {
-    private static final JsonMapper JSON_MAPPER = JsonMapper.builder()
-            .enable(SerializationFeature.INDENT_OUTPUT)
-            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
-            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
-            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
-            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+    private static final JsonMapper JSON_MAPPER = newJsonMapperBuilder().build();
+    private static final JsonMapper COMPACT_JSON_MAPPER = newJsonMapperBuilder()
+            .addModule(new SimpleModule().addDeserializer(Map.class, new CompactContentDeserializer()))
             .build();
     private static final JavaType ENTITY_FILE_TYPE = JSON_MAPPER.getTypeFactory().constructType(EntityFile.class);
 
+    private final JsonMapper deserializationMapper;
+
     public DefaultJsonEntitySerializer()
     {
+        this(false);
+    }
+
+    /**
+     * Serializer which, if compactContent is true, deserializes entities with compact immutable content (see
+     * {@link CompactEntityContent}) rather than with generic mutable maps and lists.
+     *
+     * @param compactContent whether to deserialize compact content
+     */
+    public DefaultJsonEntitySerializer(boolean compactContent)
+    {
+        this.deserializationMapper = compactContent ? COMPACT_JSON_MAPPER : JSON_MAPPER;
+    }
+
+    public boolean isCompactContent()
+    {
+        return this.deserializationMapper == COMPACT_JSON_MAPPER;
     }
 
     @Override
@@ -95,29 +116,83 @@ public class DefaultJsonEntitySerializer implements EntityTextSerializer
     @Override
     public Entity deserialize(InputStream stream) throws IOException
     {
-        return toEntity(JSON_MAPPER.readValue(stream, ENTITY_FILE_TYPE));
+        return toEntity(this.deserializationMapper.readValue(stream, ENTITY_FILE_TYPE));
     }
 
     @Override
     public Entity deserialize(Reader reader) throws IOException
     {
-        return toEntity(JSON_MAPPER.readValue(reader, ENTITY_FILE_TYPE));
+        return toEntity(this.deserializationMapper.readValue(reader, ENTITY_FILE_TYPE));
     }
 
     @Override
     public Entity deserialize(byte[] content) throws IOException
     {
-        return toEntity(JSON_MAPPER.readValue(content, ENTITY_FILE_TYPE));
+        return toEntity(this.deserializationMapper.readValue(content, ENTITY_FILE_TYPE));
     }
 
     @Override
     public Entity deserialize(String content) throws IOException
     {
-        return toEntity(JSON_MAPPER.readValue(content, ENTITY_FILE_TYPE));
+        return toEntity(this.deserializationMapper.readValue(content, ENTITY_FILE_TYPE));
+    }
+
+    @Override
+    public String readClassifierPath(InputStream stream) throws IOException
+    {
+        try (JsonParser parser = JSON_MAPPER.getFactory().createParser(stream))
+        {
+            return readClassifierPath(parser);
+        }
+    }
+
+    @Override
+    public String readClassifierPath(byte[] content) throws IOException
+    {
+        try (JsonParser parser = JSON_MAPPER.getFactory().createParser(content))
+        {
+            return readClassifierPath(parser);
+        }
     }
 
     // Helpers
 
+    private static JsonMapper.Builder newJsonMapperBuilder()
+    {
+        return JsonMapper.builder()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .disable(StreamReadFeature.AUTO_CLOSE_SOURCE);
+    }
+
+    private static String readClassifierPath(JsonParser parser) throws IOException
+    {
+        // Read the top level object field by field, skipping values other than the classifier path. Since properties
+        // are written in alphabetical order, the classifier path comes before the content and we never visit it.
+        if (parser.nextToken() != JsonToken.START_OBJECT)
+        {
+            throw new IOException("Expected an entity object, found " + parser.currentToken());
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("classifierPath".equals(fieldName))
+            {
+                return (valueToken == JsonToken.VALUE_NULL) ? null : parser.getValueAsString();
+            }
+            parser.skipChildren();
+        }
+        if (token != JsonToken.END_OBJECT)
+        {
+            throw new IOException("Unexpected token in entity object: " + token);
+        }
+        return null;
+    }
+
     private static EntityFile toEntityFile(Entity entity)
     {
         return EntityFile.newEntityFile(entity.getClassifierPath(), entity.getContent());
@@ -170,4 +245,19 @@ public class DefaultJsonEntitySerializer implements EntityTextSerializer
             return new EntityFile(classifierPath, content);
         }
     }
+
+    @SuppressWarnings("rawtypes")
+    private static class CompactContentDeserializer extends StdDeserializer<Map>
+    {
+        private CompactContentDeserializer()
+        {
+            super(Map.class);
+        }
+
+        @Override
+        public Map deserialize(JsonParser parser, DeserializationContext context) throws IOException
+        {
+            return CompactEntityContent.readCompactMap(parser);
+        }
+    }
 }
@@ -93,4 +93,29 @@ public interface EntitySerializer
     {
         return deserialize(new ByteArrayInputStream(content));
     }
+
+    /**
+     * Read only the classifier path of an entity from an input stream. Serializers which can find the classifier path
+     * without deserializing the whole entity should override this; by default, the entity is fully deserialized.
+     *
+     * @param stream input stream
+     * @return entity classifier path
+     * @throws IOException if an I/O error occurs
+     */
+    default String readClassifierPath(InputStream stream) throws IOException
+    {
+        return deserialize(stream).getClassifierPath();
+    }
+
+    /**
+     * Read only the classifier path of an entity from a byte array.
+     *
+     * @param content input bytes
+     * @return entity classifier path
+     * @throws IOException if an I/O error occurs
+     */
+    default String readClassifierPath(byte[] content) throws IOException
+    {
+        return readClassifierPath(new ByteArrayInputStream(content));
+    }
 }
@@ -0,0 +1,133 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.serialization;
+
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestCompactEntityContent
+{
+    @Test
+    public void testEqualToOriginal()
+    {
+        Map<String, Object> original = newContent("A", "String");
+        Map<String, ?> compact = CompactEntityContent.toCompactMap(original);
+
+        Assert.assertTrue(CompactEntityContent.isCompact(compact));
+        Assert.assertFalse(CompactEntityContent.isCompact(original));
+        Assert.assertEquals(original, compact);
+        Assert.assertEquals(compact, original);
+        Assert.assertEquals(original.hashCode(), compact.hashCode());
+        Assert.assertEquals(original.toString(), compact.toString());
+        Assert.assertEquals(new ArrayList<>(original.keySet()), new ArrayList<>(compact.keySet()));
+        Assert.assertSame(compact, CompactEntityContent.toCompactMap(compact));
+
+        Assert.assertEquals(compact, CompactEntityContent.toCompactMap(newContent("A", "String")));
+        Assert.assertNotEquals(compact, CompactEntityContent.toCompactMap(newContent("A", "Integer")));
+        Assert.assertNotEquals(compact, CompactEntityContent.toCompactMap(newContent("B", "String")));
+    }
+
+    @Test
+    public void testImmutable()
+    {
+        Map<String, ?> compact = CompactEntityContent.toCompactMap(newContent("A", "String"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> compact.remove("name"));
+        Assert.assertThrows(UnsupportedOperationException.class, compact::clear);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> compact.keySet().remove("name"));
+
+        List<?> properties = (List<?>) compact.get("properties");
+        Assert.assertThrows(UnsupportedOperationException.class, () -> properties.remove(0));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> properties.add(null));
+        Map<?, ?> property = (Map<?, ?>) properties.get(0);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> property.entrySet().iterator().next().setValue(null));
+    }
+
+    @Test
+    public void testDeduplication()
+    {
+        Map<String, ?> compact1 = CompactEntityContent.toCompactMap(newContent("A", "String"));
+        Map<String, ?> compact2 = CompactEntityContent.toCompactMap(newContent("B", new String("String")));
+
+        Map<?, ?> property1 = (Map<?, ?>) ((List<?>) compact1.get("properties")).get(0);
+        Map<?, ?> property2 = (Map<?, ?>) ((List<?>) compact2.get("properties")).get(0);
+        Assert.assertSame(property1.get("type"), property2.get("type"));
+        Assert.assertSame(property1.get("multiplicity"), property2.get("multiplicity"));
+        Assert.assertSame(compact1.get("stereotypes"), compact2.get("stereotypes"));
+    }
+
+    @Test
+    public void testLargeMap()
+    {
+        Map<String, Object> original = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++)
+        {
+            original.put("key" + i, (i % 2 == 0) ? i : Collections.singletonList("value" + i));
+        }
+        original.put(null, "null key");
+        Map<String, ?> compact = CompactEntityContent.toCompactMap(original);
+
+        Assert.assertEquals(original, compact);
+        Assert.assertEquals(original.hashCode(), compact.hashCode());
+        Assert.assertEquals(101, compact.size());
+        for (int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(original.get("key" + i), compact.get("key" + i));
+        }
+        Assert.assertEquals("null key", compact.get(null));
+        Assert.assertFalse(compact.containsKey("key100"));
+        Assert.assertNull(compact.get("key100"));
+    }
+
+    @Test
+    public void testToCompactEntity()
+    {
+        Entity entity = Entity.newEntity("model::A", "meta::pure::metamodel::type::Class", newContent("A", "String"));
+        Entity compact = CompactEntityContent.toCompactEntity(entity);
+        Assert.assertEquals(entity.getPath(), compact.getPath());
+        Assert.assertEquals(entity.getClassifierPath(), compact.getClassifierPath());
+        Assert.assertEquals(entity.getContent(), compact.getContent());
+        Assert.assertTrue(CompactEntityContent.isCompact(compact.getContent()));
+        Assert.assertSame(compact, CompactEntityContent.toCompactEntity(compact));
+    }
+
+    private static Map<String, Object> newContent(String name, String propertyType)
+    {
+        Map<String, Object> multiplicity = new LinkedHashMap<>();
+        multiplicity.put("lowerBound", 1);
+        multiplicity.put("upperBound", 1);
+
+        Map<String, Object> property = new LinkedHashMap<>();
+        property.put("multiplicity", multiplicity);
+        property.put("name", "prop");
+        property.put("type", propertyType);
+
+        Map<String, Object> content = new LinkedHashMap<>();
+        content.put("_type", "class");
+        content.put("name", name);
+        content.put("package", "model");
+        content.put("properties", new ArrayList<>(Arrays.asList(property)));
+        content.put("stereotypes", new ArrayList<>());
+        content.put("taggedValues", Collections.emptyList());
+        return content;
+    }
+}
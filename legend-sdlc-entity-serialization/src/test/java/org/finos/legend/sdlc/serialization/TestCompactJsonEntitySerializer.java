@@ -0,0 +1,75 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.serialization;
+
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class TestCompactJsonEntitySerializer extends TestEntityTextSerializer<DefaultJsonEntitySerializer>
+{
+    @Override
+    protected DefaultJsonEntitySerializer getSerializer()
+    {
+        return new DefaultJsonEntitySerializer(true);
+    }
+
+    @Override
+    public String getExpectedName()
+    {
+        return "legend";
+    }
+
+    @Override
+    protected String getExpectedDefaultFileExtension()
+    {
+        return "json";
+    }
+
+    @Test
+    public void testCompactContent() throws IOException
+    {
+        Assert.assertTrue(this.serializer.isCompactContent());
+        Assert.assertFalse(new DefaultJsonEntitySerializer().isCompactContent());
+
+        String json = "{\"classifierPath\": \"meta::pure::metamodel::type::Class\", \"content\": {\"_type\": \"class\", \"name\": \"A\", \"package\": \"model\", \"properties\": [" +
+                "{\"multiplicity\": {\"lowerBound\": 1, \"upperBound\": 1}, \"name\": \"p1\", \"type\": \"String\"}, " +
+                "{\"multiplicity\": {\"lowerBound\": 1, \"upperBound\": 1}, \"name\": \"p2\", \"type\": \"String\"}], " +
+                "\"stereotypes\": [], \"taggedValues\": [], \"weight\": 1.5, \"big\": 12345678901, \"flag\": true, \"nothing\": null}}";
+        Entity entity = this.serializer.deserialize(json);
+        Entity expected = new DefaultJsonEntitySerializer().deserialize(json);
+        Assert.assertEquals("model::A", entity.getPath());
+        Assert.assertEquals(expected.getContent(), entity.getContent());
+        Assert.assertEquals(entity.getContent(), expected.getContent());
+        Assert.assertEquals(expected.getContent().hashCode(), entity.getContent().hashCode());
+
+        Map<String, ?> content = entity.getContent();
+        Assert.assertTrue(CompactEntityContent.isCompact(content));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> content.remove("name"));
+
+        List<?> properties = (List<?>) content.get("properties");
+        Assert.assertTrue(CompactEntityContent.isCompact(properties));
+        Assert.assertSame(((Map<?, ?>) properties.get(0)).get("multiplicity"), ((Map<?, ?>) properties.get(1)).get("multiplicity"));
+        Assert.assertSame(((Map<?, ?>) properties.get(0)).get("type"), ((Map<?, ?>) properties.get(1)).get("type"));
+        Assert.assertEquals(1.5, content.get("weight"));
+        Assert.assertEquals(12345678901L, content.get("big"));
+        Assert.assertTrue(content.containsKey("nothing"));
+        Assert.assertNull(content.get("nothing"));
+    }
+}
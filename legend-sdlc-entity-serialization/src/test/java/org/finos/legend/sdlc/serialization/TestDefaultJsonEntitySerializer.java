@@ -14,6 +14,12 @@
 
 package org.finos.legend.sdlc.serialization;
 
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
 public class TestDefaultJsonEntitySerializer extends TestEntityTextSerializer<DefaultJsonEntitySerializer>
 {
     @Override
@@ -33,4 +39,12 @@ public class TestDefaultJsonEntitySerializer extends TestEntityTextSerializer<De
     {
         return "json";
     }
+
+    @Test
+    public void testReadClassifierPathFromUnorderedJson() throws IOException
+    {
+        String json = "{\"content\": {\"_type\": \"class\", \"name\": \"A\", \"package\": \"model\", \"properties\": [{\"name\": \"p\"}]}, \"classifierPath\": \"meta::pure::metamodel::type::Class\"}";
+        Assert.assertEquals("meta::pure::metamodel::type::Class", this.serializer.readClassifierPath(json.getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(this.serializer.readClassifierPath("{\"content\": {\"name\": \"A\"}}".getBytes(StandardCharsets.UTF_8)));
+    }
 }
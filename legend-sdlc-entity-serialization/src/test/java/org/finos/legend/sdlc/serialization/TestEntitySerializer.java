@@ -66,6 +66,20 @@ public abstract class TestEntitySerializer<T extends EntitySerializer>
         testSerialization(this::serializeWithStream, this.serializer::deserialize);
     }
 
+    @Test
+    public void testReadClassifierPath() throws IOException
+    {
+        for (Entity entity : getTestEntities())
+        {
+            byte[] serialization = this.serializer.serializeToBytes(entity);
+            Assert.assertEquals(entity.getPath(), entity.getClassifierPath(), this.serializer.readClassifierPath(serialization));
+            try (InputStream stream = new ByteArrayInputStream(serialization))
+            {
+                Assert.assertEquals(entity.getPath(), entity.getClassifierPath(), this.serializer.readClassifierPath(stream));
+            }
+        }
+    }
+
     protected abstract T getSerializer();
 
     protected abstract String getExpectedName();
@@ -0,0 +1,139 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.application.entity;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Reads entity definitions incrementally from newline delimited JSON (one entity object, with path, classifierPath and
+ * content properties, per line). This allows large sets of entities to be processed without holding all of them in
+ * memory at once.
+ */
+public class EntityDefinitionReader
+{
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    private static final ObjectReader ENTITY_READER = JsonMapper.builder().build().readerFor(UpdateEntitiesCommand.EntityDefinition.class);
+
+    private EntityDefinitionReader()
+    {
+    }
+
+    /**
+     * Stream the entity definitions from the input. Definitions are read as the stream is consumed. Invalid JSON is
+     * reported as a bad request when it is reached. Closing the stream closes the input.
+     *
+     * @param input newline delimited JSON input
+     * @return stream of entity definitions
+     */
+    public static Stream<Entity> readNDJson(InputStream input)
+    {
+        MappingIterator<Entity> iterator;
+        try
+        {
+            iterator = ENTITY_READER.readValues(input);
+        }
+        catch (IOException e)
+        {
+            throw new LegendSDLCServerException("Error reading entity definitions: " + e.getMessage(), Status.BAD_REQUEST, e);
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new EntityIterator(iterator), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() ->
+                {
+                    try
+                    {
+                        iterator.close();
+                    }
+                    catch (IOException e)
+                    {
+                        throw new LegendSDLCServerException("Error closing entity definition input", e);
+                    }
+                });
+    }
+
+    private static class EntityIterator implements Iterator<Entity>
+    {
+        private final MappingIterator<Entity> delegate;
+
+        private EntityIterator(MappingIterator<Entity> delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            try
+            {
+                return this.delegate.hasNext();
+            }
+            catch (RuntimeException e)
+            {
+                throw invalidInput(e);
+            }
+        }
+
+        @Override
+        public Entity next()
+        {
+            try
+            {
+                return this.delegate.next();
+            }
+            catch (RuntimeException e)
+            {
+                throw invalidInput(e);
+            }
+        }
+
+        private RuntimeException invalidInput(RuntimeException e)
+        {
+            // MappingIterator reports mapping errors as RuntimeJsonMappingException and other errors (including JSON
+            // parse errors) as RuntimeException caused by the original exception
+            Throwable cause = e.getCause();
+            if (!(cause instanceof JsonProcessingException))
+            {
+                return e;
+            }
+            StringBuilder builder = new StringBuilder("Invalid entity definition");
+            JsonLocation location = ((JsonProcessingException) cause).getLocation();
+            if (location != null)
+            {
+                builder.append(" at line ").append(location.getLineNr());
+            }
+            String message = ((JsonProcessingException) cause).getOriginalMessage();
+            if (message != null)
+            {
+                builder.append(": ").append(message);
+            }
+            return new LegendSDLCServerException(builder.toString(), Status.BAD_REQUEST, e);
+        }
+    }
+}
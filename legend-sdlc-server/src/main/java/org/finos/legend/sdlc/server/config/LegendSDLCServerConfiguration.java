@@ -16,6 +16,8 @@ package org.finos.legend.sdlc.server.config;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration;
+import org.finos.legend.sdlc.server.project.config.DependencyIndexConfiguration;
+import org.finos.legend.sdlc.server.project.config.ProjectFileCacheConfiguration;
 import org.finos.legend.sdlc.server.project.config.ProjectStructureConfiguration;
 
 public class LegendSDLCServerConfiguration extends ServerConfiguration
@@ -26,6 +28,12 @@ public class LegendSDLCServerConfiguration extends ServerConfiguration
     @JsonProperty("projectStructure")
     private ProjectStructureConfiguration projectStructureConfiguration;
 
+    @JsonProperty("projectFileCache")
+    private ProjectFileCacheConfiguration projectFileCacheConfiguration;
+
+    @JsonProperty("dependencyIndex")
+    private DependencyIndexConfiguration dependencyIndexConfiguration;
+
     public GitLabConfiguration getGitLabConfiguration()
     {
         return this.gitLabConfig;
@@ -35,4 +43,14 @@ public class LegendSDLCServerConfiguration extends ServerConfiguration
     {
         return this.projectStructureConfiguration;
     }
+
+    public ProjectFileCacheConfiguration getProjectFileCacheConfiguration()
+    {
+        return this.projectFileCacheConfiguration;
+    }
+
+    public DependencyIndexConfiguration getDependencyIndexConfiguration()
+    {
+        return this.dependencyIndexConfiguration;
+    }
 }
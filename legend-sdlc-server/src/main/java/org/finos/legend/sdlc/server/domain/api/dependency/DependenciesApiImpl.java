@@ -14,8 +14,12 @@
 
 package org.finos.legend.sdlc.server.domain.api.dependency;
 
+import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.set.MutableSet;
 import org.eclipse.collections.impl.utility.Iterate;
+import org.eclipse.collections.impl.utility.ListIterate;
 import org.finos.legend.sdlc.domain.model.project.Project;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
@@ -23,23 +27,39 @@ import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.server.domain.api.project.ProjectApi;
 import org.finos.legend.sdlc.server.domain.api.project.ProjectConfigurationApi;
 import org.finos.legend.sdlc.server.domain.api.revision.RevisionApi;
+import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class DependenciesApiImpl implements DependenciesApi
 {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependenciesApiImpl.class);
+
     private final ProjectApi projectApi;
     private final ProjectConfigurationApi projectConfigurationApi;
     private final RevisionApi revisionApi;
+    private final DownstreamDependencyIndex downstreamDependencyIndex;
+    private final UpstreamDependencyResolver upstreamDependencyResolver;
 
     @Inject
-    public DependenciesApiImpl(ProjectApi projectApi, ProjectConfigurationApi projectConfigurationApi, RevisionApi revisionApi)
+    public DependenciesApiImpl(ProjectApi projectApi, ProjectConfigurationApi projectConfigurationApi, RevisionApi revisionApi, DownstreamDependencyIndex downstreamDependencyIndex, UpstreamDependencyResolver upstreamDependencyResolver)
     {
         this.projectApi = projectApi;
         this.projectConfigurationApi = projectConfigurationApi;
         this.revisionApi = revisionApi;
+        this.downstreamDependencyIndex = downstreamDependencyIndex;
+        this.upstreamDependencyResolver = upstreamDependencyResolver;
+    }
+
+    public DependenciesApiImpl(ProjectApi projectApi, ProjectConfigurationApi projectConfigurationApi, RevisionApi revisionApi)
+    {
+        this(projectApi, projectConfigurationApi, revisionApi, DownstreamDependencyIndex.newIndex(0L), UpstreamDependencyResolver.newResolver(0));
     }
 
     @Override
@@ -67,49 +87,113 @@ public class DependenciesApiImpl implements DependenciesApi
     public Set<ProjectRevision> getDownstreamProjects(String projectId)
     {
         /*
-            TODO : Maybe enable ElasticSearch for Gitlab https://docs.gitlab.com/ee/integration/elasticsearch.html ??
+            Downstream projects are served from the index, which is shared by all users. So that nothing is served
+            which the current user cannot see, the user's projects are listed and the results are restricted to them.
+            Everything is done with the user's credentials, as the index is shared but access is not, so the refresh
+            cannot be moved to a background task with service credentials. Instead, only projects which no user has
+            verified within the refresh interval are re-read, and their current revisions and (for those whose current
+            revision has changed) project configurations are each got in a single batch, which implementations may
+            fetch in parallel.
         */
-        List<Project> projects = this.projectApi.getProjects(false,  // false because downstream projects might not be owned by the current user
-                null, null, null);
+        MutableSet<String> visibleProjectIds = BackgroundTaskProcessor.callAsBackgroundWork(() ->
+        {
+            // listing and re-reading projects are bulk scans, so they are done with background priority
+            MutableSet<String> projectIds = ListIterate.collect(getVisibleProjects(), Project::getProjectId, Sets.mutable.empty());
+            refreshDownstreamDependencyIndex(projectIds);
+            return projectIds;
+        });
+        return this.downstreamDependencyIndex.getDownstreamProjects(projectId, visibleProjectIds::contains);
+    }
 
-        Set<ProjectRevision> results = Sets.mutable.empty();
-        for (Project otherProject : projects)
+    private List<Project> getVisibleProjects()
+    {
+        // false because downstream projects might not be owned by the current user
+        return this.projectApi.getProjects(false, null, null, null);
+    }
+
+    private void refreshDownstreamDependencyIndex(Set<String> projectIds)
+    {
+        MutableList<String> toVerify = Iterate.select(projectIds, this.downstreamDependencyIndex::needsVerification, Lists.mutable.empty());
+        if (toVerify.notEmpty())
         {
-            String otherProjectId = otherProject.getProjectId();
-            if (!projectId.equals(otherProjectId))
+            int updated;
+            try
             {
-                Revision otherProjectRevision = this.revisionApi.getProjectRevisionContext(otherProjectId).getCurrentRevision();
-                ProjectConfiguration projectConfiguration = this.projectConfigurationApi.getProjectRevisionProjectConfiguration(otherProjectId, otherProjectRevision.getId());
-                if (Iterate.anySatisfy(projectConfiguration.getProjectDependencies(), d -> projectId.equals(d.getProjectId())))
-                {
-                    results.add(new ProjectRevision(otherProject.getProjectId(), otherProjectRevision.getId()));
-                }
+                updated = verifyProjects(toVerify);
             }
+            catch (Exception e)
+            {
+                LOGGER.warn("Error indexing dependencies of {} projects; indexing them one at a time", toVerify.size(), e);
+                updated = toVerify.count(this::verifyProject);
+            }
+            this.downstreamDependencyIndex.saveIfModified();
+            LOGGER.debug("Refreshed downstream dependency index: {} visible projects, {} verified, {} updated", projectIds.size(), toVerify.size(), updated);
         }
-        return results;
     }
 
-    private Set<ProjectDependency> searchUpstream(ProjectConfiguration rootProjectConfiguration, boolean transitive)
+    private int verifyProjects(MutableList<String> projectIds)
     {
-        return transitive ? searchUpstreamRecursive(rootProjectConfiguration) : Sets.mutable.withAll(rootProjectConfiguration.getProjectDependencies());
-    }
-
-    private Set<ProjectDependency> searchUpstreamRecursive(ProjectConfiguration rootProjectConfiguration)
-    {
-        Set<ProjectDependency> results = Sets.mutable.empty();
-        searchUpstreamRecursive(rootProjectConfiguration, results);
-        return results;
+        Map<String, String> currentRevisionIds = this.revisionApi.getProjectCurrentRevisionIds(projectIds);
+        Map<String, String> toUpdate = new HashMap<>();
+        projectIds.forEach(projectId ->
+        {
+            String currentRevisionId = currentRevisionIds.get(projectId);
+            if (currentRevisionId == null)
+            {
+                this.downstreamDependencyIndex.remove(projectId);
+            }
+            else if (this.downstreamDependencyIndex.isIndexed(projectId, currentRevisionId))
+            {
+                this.downstreamDependencyIndex.markVerified(projectId);
+            }
+            else
+            {
+                toUpdate.put(projectId, currentRevisionId);
+            }
+        });
+        if (!toUpdate.isEmpty())
+        {
+            Map<String, ProjectConfiguration> projectConfigurations = this.projectConfigurationApi.getProjectRevisionProjectConfigurations(toUpdate);
+            toUpdate.forEach((projectId, revisionId) ->
+            {
+                ProjectConfiguration projectConfiguration = projectConfigurations.get(projectId);
+                this.downstreamDependencyIndex.update(projectId, revisionId, (projectConfiguration == null) ? null : projectConfiguration.getProjectDependencies());
+            });
+        }
+        return toUpdate.size();
     }
 
-    private void searchUpstreamRecursive(ProjectConfiguration projectConfig, Set<ProjectDependency> results)
+    private boolean verifyProject(String projectId)
     {
-        for (ProjectDependency dependency : projectConfig.getProjectDependencies())
+        try
         {
-            if (results.add(dependency))
+            Revision currentRevision = this.revisionApi.getProjectRevisionContext(projectId).getCurrentRevision();
+            if (currentRevision == null)
             {
-                ProjectConfiguration dependencyProjectConfig = this.projectConfigurationApi.getVersionProjectConfiguration(dependency.getProjectId(), dependency.getVersionId());
-                searchUpstreamRecursive(dependencyProjectConfig, results);
+                this.downstreamDependencyIndex.remove(projectId);
             }
+            else if (this.downstreamDependencyIndex.isIndexed(projectId, currentRevision.getId()))
+            {
+                this.downstreamDependencyIndex.markVerified(projectId);
+            }
+            else
+            {
+                ProjectConfiguration projectConfiguration = this.projectConfigurationApi.getProjectRevisionProjectConfiguration(projectId, currentRevision.getId());
+                this.downstreamDependencyIndex.update(projectId, currentRevision.getId(), (projectConfiguration == null) ? null : projectConfiguration.getProjectDependencies());
+                return true;
+            }
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error indexing dependencies of project {}", projectId, e);
         }
+        return false;
+    }
+
+    private Set<ProjectDependency> searchUpstream(ProjectConfiguration rootProjectConfiguration, boolean transitive)
+    {
+        return transitive ?
+                this.upstreamDependencyResolver.resolveTransitive(rootProjectConfiguration.getProjectDependencies(), this.projectConfigurationApi::getVersionProjectConfigurations, this.projectApi::getAccessibleProjectIds) :
+                Sets.mutable.withAll(rootProjectConfiguration.getProjectDependencies());
     }
 }
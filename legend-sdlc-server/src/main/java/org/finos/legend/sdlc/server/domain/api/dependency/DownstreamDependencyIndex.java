@@ -0,0 +1,361 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.domain.api.dependency;
+
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.set.ImmutableSet;
+import org.eclipse.collections.api.set.MutableSet;
+import org.eclipse.collections.impl.utility.Iterate;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
+import org.finos.legend.sdlc.server.project.config.DependencyIndexConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Process-wide reverse dependency index. For each project, this records the revision of the project which was indexed
+ * and the projects it depends on at that revision. From that, it maintains the set of downstream projects for each
+ * upstream project, so that downstream projects can be served from memory.
+ * <p>
+ * The index is shared by all users, and it may contain projects which are not visible to some of them. So it is only
+ * ever read through a filter of the projects visible to the caller (see {@link #getDownstreamProjects(String, Predicate)}),
+ * and projects are never dropped because one user cannot see them. Each project records when it was last verified
+ * against its current revision, so that a project only needs to be re-read once the refresh interval has passed since
+ * any user last verified it (see {@link DependenciesApiImpl}).
+ * <p>
+ * The index may be backed by a file, from which it is loaded when it is created and to which it is saved after it
+ * changes (see {@link #saveIfModified()}). Projects loaded from the file must be verified before they are relied on,
+ * but only those whose current revision has changed since they were saved need their project configuration re-read.
+ */
+public class DownstreamDependencyIndex
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownstreamDependencyIndex.class);
+
+    private static final int FILE_FORMAT_VERSION = 1;
+
+    private final long refreshIntervalMillis;
+    private final Path file;
+    private final Map<String, IndexedProject> projects = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> downstreamProjects = new ConcurrentHashMap<>();
+    private boolean modified = false;
+
+    private DownstreamDependencyIndex(long refreshIntervalMillis, Path file)
+    {
+        this.refreshIntervalMillis = Math.max(0L, refreshIntervalMillis);
+        this.file = file;
+    }
+
+    /**
+     * Get the projects which depend on the given project and which are accepted by the visibility filter, together
+     * with the revision of each which was indexed.
+     *
+     * @param projectId upstream project id
+     * @param isVisible filter for projects visible to the caller
+     * @return downstream projects
+     */
+    public Set<ProjectRevision> getDownstreamProjects(String projectId, Predicate<? super String> isVisible)
+    {
+        Map<String, String> downstream = this.downstreamProjects.get(projectId);
+        if (downstream == null)
+        {
+            return Collections.emptySet();
+        }
+        MutableSet<ProjectRevision> results = Sets.mutable.empty();
+        downstream.forEach((downstreamProjectId, revisionId) ->
+        {
+            if (!projectId.equals(downstreamProjectId) && isVisible.test(downstreamProjectId))
+            {
+                results.add(new ProjectRevision(downstreamProjectId, revisionId));
+            }
+        });
+        return results;
+    }
+
+    /**
+     * Whether the given project has been indexed at the given revision.
+     *
+     * @param projectId  project id
+     * @param revisionId revision id
+     * @return whether the project is indexed at the revision
+     */
+    public boolean isIndexed(String projectId, String revisionId)
+    {
+        IndexedProject indexed = this.projects.get(projectId);
+        return (indexed != null) && indexed.revisionId.equals(revisionId);
+    }
+
+    /**
+     * Whether the given project needs to be verified against its current revision. This is true if the project has
+     * not been indexed, or if it was last verified longer ago than the refresh interval.
+     *
+     * @param projectId project id
+     * @return whether the project needs to be verified
+     */
+    public boolean needsVerification(String projectId)
+    {
+        IndexedProject indexed = this.projects.get(projectId);
+        return (indexed == null) || ((System.currentTimeMillis() - indexed.verifiedTime) >= this.refreshIntervalMillis);
+    }
+
+    /**
+     * Record that the given project has been verified to be indexed at its current revision.
+     *
+     * @param projectId project id
+     */
+    public void markVerified(String projectId)
+    {
+        IndexedProject indexed = this.projects.get(projectId);
+        if (indexed != null)
+        {
+            indexed.verifiedTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Record that the given project must be verified against its current revision before the index is next relied
+     * on, for example because the project has changed in a way which may not have been recorded.
+     *
+     * @param projectId project id
+     */
+    public void invalidate(String projectId)
+    {
+        IndexedProject indexed = this.projects.get(projectId);
+        if (indexed != null)
+        {
+            indexed.verifiedTime = 0L;
+        }
+    }
+
+    /**
+     * Record the dependencies of a project at a revision, replacing any previously recorded dependencies for the
+     * project.
+     *
+     * @param projectId    project id
+     * @param revisionId   revision id
+     * @param dependencies project dependencies at the revision
+     */
+    public void update(String projectId, String revisionId, Iterable<? extends ProjectDependency> dependencies)
+    {
+        ImmutableSet<String> upstreamProjectIds = (dependencies == null) ?
+                Sets.immutable.empty() :
+                Iterate.collect(dependencies, ProjectDependency::getProjectId, Sets.mutable.empty()).toImmutable();
+        update(projectId, new IndexedProject(revisionId, upstreamProjectIds, System.currentTimeMillis()));
+    }
+
+    private synchronized void update(String projectId, IndexedProject indexed)
+    {
+        ImmutableSet<String> upstreamProjectIds = indexed.upstreamProjectIds;
+        String revisionId = indexed.revisionId;
+        IndexedProject previous = this.projects.put(projectId, indexed);
+        if (previous != null)
+        {
+            previous.upstreamProjectIds.forEach(upstreamProjectId ->
+            {
+                if (!upstreamProjectIds.contains(upstreamProjectId))
+                {
+                    removeDownstreamProject(upstreamProjectId, projectId);
+                }
+            });
+        }
+        upstreamProjectIds.forEach(upstreamProjectId -> this.downstreamProjects.computeIfAbsent(upstreamProjectId, k -> new ConcurrentHashMap<>()).put(projectId, revisionId));
+        this.modified = true;
+    }
+
+    /**
+     * Remove a project from the index.
+     *
+     * @param projectId project id
+     */
+    public synchronized void remove(String projectId)
+    {
+        IndexedProject previous = this.projects.remove(projectId);
+        if (previous != null)
+        {
+            previous.upstreamProjectIds.forEach(upstreamProjectId -> removeDownstreamProject(upstreamProjectId, projectId));
+            this.modified = true;
+        }
+    }
+
+    public int getProjectCount()
+    {
+        return this.projects.size();
+    }
+
+    /**
+     * Save the index to its file, if it has one and the index has changed since it was loaded or last saved. The file
+     * is replaced atomically, so a failure leaves the previous file in place. Errors are logged, as the index can
+     * always be rebuilt.
+     */
+    public synchronized void saveIfModified()
+    {
+        if ((this.file == null) || !this.modified)
+        {
+            return;
+        }
+        Path tempFile = null;
+        try
+        {
+            Path directory = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, this.file.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))))
+            {
+                out.writeInt(FILE_FORMAT_VERSION);
+                out.writeInt(this.projects.size());
+                for (Map.Entry<String, IndexedProject> entry : this.projects.entrySet())
+                {
+                    IndexedProject indexed = entry.getValue();
+                    out.writeUTF(entry.getKey());
+                    out.writeUTF(indexed.revisionId);
+                    out.writeInt(indexed.upstreamProjectIds.size());
+                    for (String upstreamProjectId : indexed.upstreamProjectIds)
+                    {
+                        out.writeUTF(upstreamProjectId);
+                    }
+                }
+            }
+            Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
+            this.modified = false;
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Error saving downstream dependency index to {}", this.file, e);
+        }
+        finally
+        {
+            if (tempFile != null)
+            {
+                try
+                {
+                    Files.deleteIfExists(tempFile);
+                }
+                catch (IOException e)
+                {
+                    LOGGER.debug("Error deleting temporary file {}", tempFile, e);
+                }
+            }
+        }
+    }
+
+    private synchronized void load()
+    {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file))))
+        {
+            int version = in.readInt();
+            if (version != FILE_FORMAT_VERSION)
+            {
+                throw new IOException("Unknown downstream dependency index file version: " + version);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String projectId = in.readUTF();
+                String revisionId = in.readUTF();
+                int upstreamCount = in.readInt();
+                MutableSet<String> upstreamProjectIds = Sets.mutable.ofInitialCapacity(upstreamCount);
+                for (int j = 0; j < upstreamCount; j++)
+                {
+                    upstreamProjectIds.add(in.readUTF());
+                }
+                // loaded projects have not been verified, so they are re-read on their next refresh
+                update(projectId, new IndexedProject(revisionId, upstreamProjectIds.toImmutable(), 0L));
+            }
+            this.modified = false;
+            LOGGER.info("Loaded {} projects into the downstream dependency index from {}", count, this.file);
+        }
+        catch (NoSuchFileException e)
+        {
+            LOGGER.debug("No downstream dependency index file at {}", this.file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Error loading downstream dependency index from {}; starting with an empty index", this.file, e);
+            this.projects.clear();
+            this.downstreamProjects.clear();
+            this.modified = false;
+        }
+    }
+
+    private void removeDownstreamProject(String upstreamProjectId, String downstreamProjectId)
+    {
+        this.downstreamProjects.computeIfPresent(upstreamProjectId, (k, downstream) ->
+        {
+            downstream.remove(downstreamProjectId);
+            return downstream.isEmpty() ? null : downstream;
+        });
+    }
+
+    public static DownstreamDependencyIndex newIndex(long refreshIntervalMillis)
+    {
+        return new DownstreamDependencyIndex(refreshIntervalMillis, null);
+    }
+
+    /**
+     * Create an index backed by the given file. If the file exists, the index is loaded from it.
+     *
+     * @param refreshIntervalMillis refresh interval in milliseconds
+     * @param file                  index file
+     * @return index
+     */
+    public static DownstreamDependencyIndex newIndex(long refreshIntervalMillis, Path file)
+    {
+        DownstreamDependencyIndex index = new DownstreamDependencyIndex(refreshIntervalMillis, file);
+        index.load();
+        return index;
+    }
+
+    public static DownstreamDependencyIndex newIndex()
+    {
+        return fromConfig(null);
+    }
+
+    public static DownstreamDependencyIndex fromConfig(DependencyIndexConfiguration config)
+    {
+        DependencyIndexConfiguration resolvedConfig = (config == null) ? DependencyIndexConfiguration.defaultConfiguration() : config;
+        return (resolvedConfig.getFile() == null) ?
+                newIndex(resolvedConfig.getRefreshInterval()) :
+                newIndex(resolvedConfig.getRefreshInterval(), Paths.get(resolvedConfig.getFile()));
+    }
+
+    private static class IndexedProject
+    {
+        private final String revisionId;
+        private final ImmutableSet<String> upstreamProjectIds;
+        private volatile long verifiedTime;
+
+        private IndexedProject(String revisionId, ImmutableSet<String> upstreamProjectIds, long verifiedTime)
+        {
+            this.revisionId = revisionId;
+            this.upstreamProjectIds = upstreamProjectIds;
+            this.verifiedTime = verifiedTime;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.domain.api.dependency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.MutableMap;
+import org.eclipse.collections.api.set.MutableSet;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Resolves transitive upstream dependencies. The dependency graph is walked breadth first, and each level of the graph
+ * is loaded with a single call to the configuration loader, so that loaders may fetch the configurations of a level in
+ * parallel. Since the project configuration of a released version never changes, configurations are cached
+ * process-wide, keyed by project dependency. The cache is shared by all users, so a cached configuration is only
+ * returned once the caller has been found to have access to its project.
+ */
+public class UpstreamDependencyResolver
+{
+    private static final int DEFAULT_MAX_CACHED_CONFIGURATIONS = 10_000;
+
+    private final Cache<ProjectDependency, ProjectConfiguration> configurationCache;
+
+    private UpstreamDependencyResolver(int maxCachedConfigurations)
+    {
+        this.configurationCache = (maxCachedConfigurations <= 0) ? null : Caffeine.newBuilder().maximumSize(maxCachedConfigurations).build();
+    }
+
+    /**
+     * Resolve all of the transitive upstream dependencies, starting from the given direct dependencies. The
+     * configuration loader is used to get the project configurations of the dependencies at each level of the graph
+     * which are not cached, and must return them in the order given. When configurations are cached, the access
+     * check is used instead to find which of their projects (by id) the caller has access to; each project is
+     * checked at most once.
+     *
+     * @param directDependencies  direct dependencies
+     * @param configurationLoader function to load the project configurations of a list of dependencies
+     * @param accessCheck         function to find which of a set of projects the caller has access to
+     * @return all transitive dependencies (including the direct dependencies)
+     */
+    public MutableSet<ProjectDependency> resolveTransitive(Iterable<? extends ProjectDependency> directDependencies, Function<? super MutableList<ProjectDependency>, ? extends List<? extends ProjectConfiguration>> configurationLoader, Function<? super MutableSet<String>, ? extends Set<String>> accessCheck)
+    {
+        MutableMap<String, Boolean> accessChecks = Maps.mutable.empty();
+        MutableSet<ProjectDependency> results = Sets.mutable.empty();
+        MutableList<ProjectDependency> frontier = Lists.mutable.empty();
+        directDependencies.forEach(d ->
+        {
+            if (results.add(d))
+            {
+                frontier.add(d);
+            }
+        });
+        while (frontier.notEmpty())
+        {
+            MutableList<ProjectConfiguration> configurations = getProjectConfigurations(frontier, configurationLoader, accessCheck, accessChecks);
+            frontier.clear();
+            configurations.forEach(configuration -> configuration.getProjectDependencies().forEach(d ->
+            {
+                if (results.add(d))
+                {
+                    frontier.add(d);
+                }
+            }));
+        }
+        return results;
+    }
+
+    public void invalidateAll()
+    {
+        if (this.configurationCache != null)
+        {
+            this.configurationCache.invalidateAll();
+        }
+    }
+
+    private MutableList<ProjectConfiguration> getProjectConfigurations(MutableList<ProjectDependency> dependencies, Function<? super MutableList<ProjectDependency>, ? extends List<? extends ProjectConfiguration>> configurationLoader, Function<? super MutableSet<String>, ? extends Set<String>> accessCheck, MutableMap<String, Boolean> accessChecks)
+    {
+        MutableMap<ProjectDependency, ProjectConfiguration> configurations = Maps.mutable.ofInitialCapacity(dependencies.size());
+        MutableList<ProjectDependency> toLoad = Lists.mutable.empty();
+        MutableSet<String> toCheck = Sets.mutable.empty();
+        for (ProjectDependency dependency : dependencies)
+        {
+            ProjectConfiguration configuration = (this.configurationCache == null) ? null : this.configurationCache.getIfPresent(dependency);
+            if (configuration == null)
+            {
+                toLoad.add(dependency);
+            }
+            else
+            {
+                configurations.put(dependency, configuration);
+                if (!accessChecks.containsKey(dependency.getProjectId()))
+                {
+                    toCheck.add(dependency.getProjectId());
+                }
+            }
+        }
+
+        if (toCheck.notEmpty())
+        {
+            Set<String> accessible = accessCheck.apply(toCheck);
+            toCheck.forEach(projectId -> accessChecks.put(projectId, accessible.contains(projectId)));
+        }
+        if (toLoad.notEmpty())
+        {
+            // the loader accesses the projects as the caller, so there is no need for a separate access check
+            List<? extends ProjectConfiguration> loaded = configurationLoader.apply(toLoad);
+            for (int i = 0; i < toLoad.size(); i++)
+            {
+                ProjectConfiguration configuration = loaded.get(i);
+                if (configuration != null)
+                {
+                    ProjectDependency dependency = toLoad.get(i);
+                    configurations.put(dependency, configuration);
+                    accessChecks.put(dependency.getProjectId(), true);
+                    if (this.configurationCache != null)
+                    {
+                        this.configurationCache.put(dependency, configuration);
+                    }
+                }
+            }
+        }
+
+        return dependencies.collect(dependency ->
+        {
+            ProjectConfiguration configuration = configurations.get(dependency);
+            if ((configuration == null) || !accessChecks.getIfAbsentValue(dependency.getProjectId(), false))
+            {
+                throw new LegendSDLCServerException("Could not find project configuration for " + dependency.toDependencyString(), Status.NOT_FOUND);
+            }
+            return configuration;
+        });
+    }
+
+    public static UpstreamDependencyResolver newResolver(int maxCachedConfigurations)
+    {
+        return new UpstreamDependencyResolver(maxCachedConfigurations);
+    }
+
+    public static UpstreamDependencyResolver newResolver()
+    {
+        return newResolver(DEFAULT_MAX_CACHED_CONFIGURATIONS);
+    }
+}
@@ -27,4 +27,18 @@ public interface EntityAccessContext
     List<Entity> getEntities(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate);
 
     List<String> getEntityPaths(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate);
+
+    /**
+     * Get a writer for the entities matching the given predicates, which writes them as a JSON array. Implementations
+     * may avoid deserializing entities which are already stored as JSON.
+     *
+     * @param entityPathPredicate     entity path predicate (optional)
+     * @param classifierPathPredicate classifier path predicate (optional)
+     * @param entityContentPredicate  entity content predicate (optional)
+     * @return entity JSON writer
+     */
+    default EntityJsonWriter getEntitiesAsJson(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate)
+    {
+        return EntityJsonWriters.fromEntities(getEntities(entityPathPredicate, classifierPathPredicate, entityContentPredicate));
+    }
 }
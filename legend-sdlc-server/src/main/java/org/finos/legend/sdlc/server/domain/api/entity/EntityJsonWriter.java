@@ -0,0 +1,28 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.domain.api.entity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes a list of entities to an output stream as a JSON array. Each entity is written as an object with path,
+ * classifierPath, and content properties. The entities to write are determined when the writer is created; writing
+ * only produces output. See {@link EntityJsonWriters} for implementations.
+ */
+public interface EntityJsonWriter
+{
+    void write(OutputStream stream) throws IOException;
+}
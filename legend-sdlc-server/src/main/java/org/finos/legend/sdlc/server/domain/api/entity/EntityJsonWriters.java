@@ -0,0 +1,87 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.domain.api.entity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public class EntityJsonWriters
+{
+    private static final ObjectMapper JSON = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private EntityJsonWriters()
+    {
+    }
+
+    public static EntityJsonWriter fromEntities(Iterable<? extends Entity> entities)
+    {
+        return stream ->
+        {
+            boolean first = true;
+            stream.write('[');
+            for (Entity entity : entities)
+            {
+                if (first)
+                {
+                    first = false;
+                }
+                else
+                {
+                    stream.write(',');
+                }
+                writeEntity(entity, stream);
+            }
+            stream.write(']');
+        };
+    }
+
+    /**
+     * Write a single entity as a JSON object.
+     *
+     * @param entity entity
+     * @param stream output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeEntity(Entity entity, OutputStream stream) throws IOException
+    {
+        try (JsonGenerator generator = JSON.getFactory().createGenerator(stream))
+        {
+            generator.writeStartObject();
+            generator.writeStringField("path", entity.getPath());
+            generator.writeStringField("classifierPath", entity.getClassifierPath());
+            generator.writeObjectField("content", entity.getContent());
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a JSON string to an output stream in UTF-8, including the surrounding quotes.
+     *
+     * @param string string to write
+     * @param stream output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeJsonString(String string, OutputStream stream) throws IOException
+    {
+        stream.write('"');
+        stream.write(JsonStringEncoder.getInstance().quoteAsUTF8(string));
+        stream.write('"');
+    }
+}
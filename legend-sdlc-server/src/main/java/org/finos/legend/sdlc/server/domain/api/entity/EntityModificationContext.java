@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public interface EntityModificationContext
@@ -80,6 +81,23 @@ public interface EntityModificationContext
      */
     Revision updateEntities(Iterable<? extends Entity> entities, boolean replace, String message);
 
+    /**
+     * Update entities with new definitions read from a stream. This is the same
+     * as {@link #updateEntities(Iterable, boolean, String)}, except that
+     * implementations may process the entities incrementally as they are read,
+     * so that they need not all be held in memory at once. The stream is not
+     * closed.
+     *
+     * @param entities stream of entity definitions
+     * @param replace  whether to replace all existing entities
+     * @param message  change message
+     * @return new revision or null
+     */
+    default Revision updateEntities(Stream<? extends Entity> entities, boolean replace, String message)
+    {
+        return updateEntities(entities.collect(Collectors.toList()), replace, message);
+    }
+
     /**
      * Perform the given changes and return the new revision. Returns null if the
      * changes do not result in a new revision.
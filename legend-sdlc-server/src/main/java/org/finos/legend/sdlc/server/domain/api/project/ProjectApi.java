@@ -17,14 +17,48 @@ package org.finos.legend.sdlc.server.domain.api.project;
 import org.finos.legend.sdlc.domain.model.project.Project;
 import org.finos.legend.sdlc.domain.model.project.ProjectType;
 import org.finos.legend.sdlc.domain.model.project.accessRole.AccessRole;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import javax.ws.rs.core.Response.Status;
 
 public interface ProjectApi
 {
     Project getProject(String id);
 
+    /**
+     * Get the ids of those of the given projects which the current user can access. Implementations may check the
+     * projects in parallel.
+     *
+     * @param ids project ids
+     * @return ids of the accessible projects
+     */
+    default Set<String> getAccessibleProjectIds(Iterable<String> ids)
+    {
+        Set<String> accessible = new HashSet<>();
+        for (String id : ids)
+        {
+            try
+            {
+                if (getProject(id) != null)
+                {
+                    accessible.add(id);
+                }
+            }
+            catch (LegendSDLCServerException e)
+            {
+                if ((e.getStatus() != Status.FORBIDDEN) && (e.getStatus() != Status.NOT_FOUND))
+                {
+                    throw e;
+                }
+            }
+        }
+        return accessible;
+    }
+
     List<Project> getProjects(boolean user, String search, Iterable<String> tags, Iterable<ProjectType> types);
 
     Project createProject(String name, String description, ProjectType type, String groupId, String artifactId, Iterable<String> tags);
@@ -14,6 +14,7 @@
 
 package org.finos.legend.sdlc.server.domain.api.project;
 
+import org.eclipse.collections.impl.utility.ListIterate;
 import org.finos.legend.sdlc.domain.model.project.configuration.ArtifactGeneration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ArtifactTypeGenerationConfiguration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
@@ -24,7 +25,9 @@ import org.finos.legend.sdlc.domain.model.version.VersionId;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 
 import javax.ws.rs.core.Response;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public interface ProjectConfigurationApi
 {
@@ -32,6 +35,20 @@ public interface ProjectConfigurationApi
 
     ProjectConfiguration getProjectRevisionProjectConfiguration(String projectId, String revisionId); // support revision ID alias
 
+    /**
+     * Get the project configurations of the given projects at the given revisions. Implementations may load them in
+     * parallel.
+     *
+     * @param revisionIds revision ids by project id
+     * @return project configurations by project id
+     */
+    default Map<String, ProjectConfiguration> getProjectRevisionProjectConfigurations(Map<String, String> revisionIds)
+    {
+        Map<String, ProjectConfiguration> configurations = new HashMap<>();
+        revisionIds.forEach((projectId, revisionId) -> configurations.put(projectId, getProjectRevisionProjectConfiguration(projectId, revisionId)));
+        return configurations;
+    }
+
     ProjectConfiguration getWorkspaceProjectConfiguration(String projectId, String workspaceId);
 
     ProjectConfiguration getBackupWorkspaceProjectConfiguration(String projectId, String workspaceId);
@@ -60,6 +77,18 @@ public interface ProjectConfigurationApi
 
     ProjectConfiguration getVersionProjectConfiguration(String projectId, VersionId versionId);
 
+    /**
+     * Get the project configurations of the given project versions, in the same order. Implementations may load them
+     * in parallel.
+     *
+     * @param dependencies project versions
+     * @return project configurations
+     */
+    default List<ProjectConfiguration> getVersionProjectConfigurations(List<? extends ProjectDependency> dependencies)
+    {
+        return ListIterate.collect(dependencies, d -> getVersionProjectConfiguration(d.getProjectId(), d.getVersionId()));
+    }
+
     ProjectConfiguration getReviewFromProjectConfiguration(String projectId, String reviewId);
 
     ProjectConfiguration getReviewToProjectConfiguration(String projectId, String reviewId);
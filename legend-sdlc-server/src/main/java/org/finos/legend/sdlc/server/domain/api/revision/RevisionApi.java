@@ -14,8 +14,12 @@
 
 package org.finos.legend.sdlc.server.domain.api.revision;
 
+import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.domain.model.revision.RevisionStatus;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Note that all of these APIs support revision ID alias as they all essentially calls getRevision() from RevisionAccessContext
  * which takes into account revision ID alias
@@ -24,6 +28,27 @@ public interface RevisionApi
 {
     RevisionAccessContext getProjectRevisionContext(String projectId);
 
+    /**
+     * Get the ids of the current revisions of the given projects. Projects which have no current revision are
+     * omitted. Implementations may get the revisions in parallel.
+     *
+     * @param projectIds project ids
+     * @return current revision ids by project id
+     */
+    default Map<String, String> getProjectCurrentRevisionIds(Iterable<String> projectIds)
+    {
+        Map<String, String> revisionIds = new HashMap<>();
+        for (String projectId : projectIds)
+        {
+            Revision revision = getProjectRevisionContext(projectId).getCurrentRevision();
+            if (revision != null)
+            {
+                revisionIds.put(projectId, revision.getId());
+            }
+        }
+        return revisionIds;
+    }
+
     RevisionAccessContext getProjectEntityRevisionContext(String projectId, String entityPath);
 
     RevisionAccessContext getProjectPackageRevisionContext(String projectId, String packagePath);
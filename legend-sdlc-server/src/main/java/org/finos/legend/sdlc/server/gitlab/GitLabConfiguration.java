@@ -29,8 +29,9 @@ public class GitLabConfiguration
     private final ModeConfiguration uatConfig;
     private final ModeConfiguration prodConfig;
     private final NewProjectVisibility newProjectVisibility;
+    private final TransportConfiguration transportConfig;
 
-    private GitLabConfiguration(String projectTag, AuthConfiguration authConfig, ModeConfiguration uatConfig, ModeConfiguration prodConfig, NewProjectVisibility newProjectVisibility)
+    private GitLabConfiguration(String projectTag, AuthConfiguration authConfig, ModeConfiguration uatConfig, ModeConfiguration prodConfig, NewProjectVisibility newProjectVisibility, TransportConfiguration transportConfig)
     {
         if ((projectTag != null) && !LEGEND_SDLC_PROJECT_TAG_PATTERN.matcher(projectTag).matches())
         {
@@ -41,6 +42,7 @@ public class GitLabConfiguration
         this.uatConfig = uatConfig;
         this.prodConfig = prodConfig;
         this.newProjectVisibility = newProjectVisibility;
+        this.transportConfig = transportConfig;
     }
 
     public String getProjectTag()
@@ -68,10 +70,20 @@ public class GitLabConfiguration
         return (this.newProjectVisibility == null) ? null : this.newProjectVisibility.getGitLabVisibility();
     }
 
+    public TransportConfiguration getTransportConfiguration()
+    {
+        return this.transportConfig;
+    }
+
     @JsonCreator
-    public static GitLabConfiguration newGitLabConfiguration(@JsonProperty("projectTag") String projectTag, @JsonProperty("auth") AuthConfiguration authConfig, @JsonProperty("uat") ModeConfiguration uatConfig, @JsonProperty("prod") ModeConfiguration prodConfig, @JsonProperty("newProjectVisibility") NewProjectVisibility newProjectVisibility)
+    public static GitLabConfiguration newGitLabConfiguration(@JsonProperty("projectTag") String projectTag, @JsonProperty("auth") AuthConfiguration authConfig, @JsonProperty("uat") ModeConfiguration uatConfig, @JsonProperty("prod") ModeConfiguration prodConfig, @JsonProperty("newProjectVisibility") NewProjectVisibility newProjectVisibility, @JsonProperty("transport") TransportConfiguration transportConfig)
     {
-        return new GitLabConfiguration(projectTag, authConfig, uatConfig, prodConfig, newProjectVisibility);
+        return new GitLabConfiguration(projectTag, authConfig, uatConfig, prodConfig, newProjectVisibility, transportConfig);
+    }
+
+    public static GitLabConfiguration newGitLabConfiguration(String projectTag, AuthConfiguration authConfig, ModeConfiguration uatConfig, ModeConfiguration prodConfig, NewProjectVisibility newProjectVisibility)
+    {
+        return newGitLabConfiguration(projectTag, authConfig, uatConfig, prodConfig, newProjectVisibility, null);
     }
 
     public static class AuthConfiguration
@@ -193,6 +205,213 @@ public class GitLabConfiguration
         }
     }
 
+    public static class TransportConfiguration
+    {
+        private static final int DEFAULT_MAX_CONNECTIONS = 200;
+        private static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 50;
+        private static final int DEFAULT_FETCH_PARALLELISM = 8;
+
+        private final boolean shared;
+        private final int maxConnections;
+        private final int maxConnectionsPerRoute;
+        private final int fetchParallelism;
+        private final RateLimitConfiguration rateLimitConfig;
+
+        private TransportConfiguration(boolean shared, int maxConnections, int maxConnectionsPerRoute, int fetchParallelism, RateLimitConfiguration rateLimitConfig)
+        {
+            if (maxConnections <= 0)
+            {
+                throw new IllegalArgumentException("Invalid max connections: " + maxConnections);
+            }
+            if (maxConnectionsPerRoute <= 0)
+            {
+                throw new IllegalArgumentException("Invalid max connections per route: " + maxConnectionsPerRoute);
+            }
+            if (fetchParallelism <= 0)
+            {
+                throw new IllegalArgumentException("Invalid fetch parallelism: " + fetchParallelism);
+            }
+            this.shared = shared;
+            this.maxConnections = maxConnections;
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            this.fetchParallelism = fetchParallelism;
+            this.rateLimitConfig = rateLimitConfig;
+        }
+
+        /**
+         * Whether GitLab API calls should use a shared, pooled HTTP transport for each mode. If false, each user's
+         * GitLab API client creates its own HTTP client.
+         *
+         * @return whether to use a shared transport
+         */
+        public boolean isShared()
+        {
+            return this.shared;
+        }
+
+        public int getMaxConnections()
+        {
+            return this.maxConnections;
+        }
+
+        public int getMaxConnectionsPerRoute()
+        {
+            return this.maxConnectionsPerRoute;
+        }
+
+        /**
+         * Maximum number of GitLab calls made in parallel when many independent calls are needed, such as when
+         * fetching the content of many files. This is shared by all requests.
+         *
+         * @return fetch parallelism
+         */
+        public int getFetchParallelism()
+        {
+            return this.fetchParallelism;
+        }
+
+        /**
+         * Rate limiting configuration for the shared transport, or null if none was configured (in which case
+         * requests are not rate limited).
+         *
+         * @return rate limit configuration or null
+         */
+        public RateLimitConfiguration getRateLimitConfiguration()
+        {
+            return this.rateLimitConfig;
+        }
+
+        @JsonCreator
+        public static TransportConfiguration newTransportConfiguration(@JsonProperty("shared") Boolean shared, @JsonProperty("maxConnections") Integer maxConnections, @JsonProperty("maxConnectionsPerRoute") Integer maxConnectionsPerRoute, @JsonProperty("fetchParallelism") Integer fetchParallelism, @JsonProperty("rateLimit") RateLimitConfiguration rateLimitConfig)
+        {
+            return new TransportConfiguration(
+                    (shared == null) || shared,
+                    (maxConnections == null) ? DEFAULT_MAX_CONNECTIONS : maxConnections,
+                    (maxConnectionsPerRoute == null) ? DEFAULT_MAX_CONNECTIONS_PER_ROUTE : maxConnectionsPerRoute,
+                    (fetchParallelism == null) ? DEFAULT_FETCH_PARALLELISM : fetchParallelism,
+                    rateLimitConfig);
+        }
+
+        public static TransportConfiguration newTransportConfiguration(Boolean shared, Integer maxConnections, Integer maxConnectionsPerRoute)
+        {
+            return newTransportConfiguration(shared, maxConnections, maxConnectionsPerRoute, null, null);
+        }
+
+        public static TransportConfiguration defaultTransportConfiguration()
+        {
+            return newTransportConfiguration(null, null, null, null, null);
+        }
+    }
+
+    public static class RateLimitConfiguration
+    {
+        private static final double DEFAULT_REQUESTS_PER_SECOND = 20.0;
+        private static final int DEFAULT_BURST_SIZE = 40;
+        private static final double DEFAULT_BACKGROUND_RESERVE = 0.25;
+        private static final long DEFAULT_MAX_WAIT_MILLIS = 30_000L;
+
+        private final boolean enabled;
+        private final double requestsPerSecond;
+        private final int burstSize;
+        private final double backgroundReserve;
+        private final long maxWaitMillis;
+
+        private RateLimitConfiguration(boolean enabled, double requestsPerSecond, int burstSize, double backgroundReserve, long maxWaitMillis)
+        {
+            if (requestsPerSecond <= 0.0)
+            {
+                throw new IllegalArgumentException("Invalid requests per second: " + requestsPerSecond);
+            }
+            if (burstSize <= 0)
+            {
+                throw new IllegalArgumentException("Invalid burst size: " + burstSize);
+            }
+            if ((backgroundReserve < 0.0) || (backgroundReserve >= 1.0))
+            {
+                throw new IllegalArgumentException("Invalid background reserve: " + backgroundReserve);
+            }
+            if (maxWaitMillis < 0L)
+            {
+                throw new IllegalArgumentException("Invalid max wait millis: " + maxWaitMillis);
+            }
+            this.enabled = enabled;
+            this.requestsPerSecond = requestsPerSecond;
+            this.burstSize = burstSize;
+            this.backgroundReserve = backgroundReserve;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        /**
+         * Whether outgoing GitLab API calls made through the shared transport should be rate limited. Rate limiting
+         * is off unless explicitly enabled.
+         *
+         * @return whether rate limiting is enabled
+         */
+        public boolean isEnabled()
+        {
+            return this.enabled;
+        }
+
+        /**
+         * Steady state rate of requests for each GitLab mode and user. The rate is lowered when GitLab reports that few
+         * requests remain before its rate limit resets.
+         *
+         * @return requests per second
+         */
+        public double getRequestsPerSecond()
+        {
+            return this.requestsPerSecond;
+        }
+
+        /**
+         * Maximum number of requests which may be made in a burst by each user.
+         *
+         * @return burst size
+         */
+        public int getBurstSize()
+        {
+            return this.burstSize;
+        }
+
+        /**
+         * Fraction of the burst size which is reserved for interactive requests. Requests made from background tasks
+         * wait rather than use the reserve.
+         *
+         * @return background reserve fraction
+         */
+        public double getBackgroundReserve()
+        {
+            return this.backgroundReserve;
+        }
+
+        /**
+         * Maximum time a request will wait for the rate limiter. After this, the request is made anyway and GitLab
+         * decides whether to throttle it.
+         *
+         * @return max wait in milliseconds
+         */
+        public long getMaxWaitMillis()
+        {
+            return this.maxWaitMillis;
+        }
+
+        @JsonCreator
+        public static RateLimitConfiguration newRateLimitConfiguration(@JsonProperty("enabled") Boolean enabled, @JsonProperty("requestsPerSecond") Double requestsPerSecond, @JsonProperty("burstSize") Integer burstSize, @JsonProperty("backgroundReserve") Double backgroundReserve, @JsonProperty("maxWaitMillis") Long maxWaitMillis)
+        {
+            return new RateLimitConfiguration(
+                    (enabled != null) && enabled,
+                    (requestsPerSecond == null) ? DEFAULT_REQUESTS_PER_SECOND : requestsPerSecond,
+                    (burstSize == null) ? DEFAULT_BURST_SIZE : burstSize,
+                    (backgroundReserve == null) ? DEFAULT_BACKGROUND_RESERVE : backgroundReserve,
+                    (maxWaitMillis == null) ? DEFAULT_MAX_WAIT_MILLIS : maxWaitMillis);
+        }
+
+        public static RateLimitConfiguration defaultRateLimitConfiguration()
+        {
+            return newRateLimitConfiguration(null, null, null, null, null);
+        }
+    }
+
     public enum NewProjectVisibility
     {
         PUBLIC(Visibility.PUBLIC), PRIVATE(Visibility.PRIVATE), INTERNAL(Visibility.INTERNAL);
@@ -0,0 +1,408 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.TransportConfiguration;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.gitlab4j.api.Constants.TokenType;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApi.ApiVersion;
+import org.gitlab4j.api.GitLabApiClient;
+import org.gitlab4j.api.models.CommitPayload;
+import org.gitlab4j.api.utils.JacksonJson;
+import org.glassfish.jersey.apache.connector.ApacheClientProperties;
+import org.glassfish.jersey.apache.connector.ApacheConnectorProvider;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.RequestEntityProcessing;
+import org.glassfish.jersey.media.multipart.MultiPartFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.client.ClientBuilder;
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.client.Invocation;
+import javax.ws.rs.client.WebTarget;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+
+/**
+ * Process-wide HTTP transport for GitLab API calls. For each GitLab mode, this maintains a single HTTP client with a
+ * pool of keep-alive connections, so that connections (and TLS sessions) are reused across requests and users.
+ * GitLab API clients created by the transport share the HTTP client for their mode, and only carry the user's token.
+ * Requests made through the shared clients are paced by a {@link GitLabRateLimiter}, if rate limiting is enabled.
+ * The transport also provides a {@link GitLabParallelFetcher} for making many independent calls in parallel.
+ */
+public class GitLabHttpTransport implements Closeable
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitLabHttpTransport.class);
+
+    private static final int VALIDATE_AFTER_INACTIVITY_MILLIS = 2_000;
+    private static final int MAX_DRAIN_BYTES = 64 * 1024;
+
+    private final TransportConfiguration config;
+    private final GitLabRateLimiter rateLimiter;
+    private final GitLabParallelFetcher parallelFetcher;
+    private final Map<GitLabMode, ModeTransport> transports = new EnumMap<>(GitLabMode.class);
+    private boolean closed = false;
+
+    private GitLabHttpTransport(TransportConfiguration config)
+    {
+        this.config = config;
+        this.rateLimiter = GitLabRateLimiter.newRateLimiter(config.getRateLimitConfiguration());
+        this.parallelFetcher = GitLabParallelFetcher.newFetcher(config.getFetchParallelism());
+    }
+
+    /**
+     * Create a new GitLab API client for the given mode and user access token. If possible, the client uses the
+     * shared HTTP client for the mode.
+     *
+     * @param mode        GitLab mode
+     * @param url         GitLab server URL
+     * @param accessToken user OAuth access token
+     * @return new GitLab API client
+     */
+    public GitLabApi newGitLabApi(GitLabMode mode, String url, String accessToken)
+    {
+        ModeTransport transport = getModeTransport(mode);
+        return (transport == null) ?
+                new GitLabApi(ApiVersion.V4, url, TokenType.OAUTH2_ACCESS, accessToken) :
+                new SharedClientGitLabApi(url, accessToken, new SharedClientGitLabApiClient(url, accessToken, transport.client));
+    }
+
+    /**
+     * Create a new HTTP client for the given mode with the same configuration as the shared client, including the
+     * connection pool. Closing the new client does not close the connection pool. Returns null if there is no shared
+     * transport for the mode.
+     *
+     * @param mode GitLab mode
+     * @return new HTTP client or null
+     */
+    Client newHttpClient(GitLabMode mode)
+    {
+        ModeTransport transport = getModeTransport(mode);
+        return (transport == null) ? null : ClientBuilder.newClient(transport.clientConfig);
+    }
+
+    /**
+     * Get the connection pool stats for the given mode, or null if there is no shared transport for the mode.
+     *
+     * @param mode GitLab mode
+     * @return connection pool stats or null
+     */
+    public PoolStats getConnectionPoolStats(GitLabMode mode)
+    {
+        ModeTransport transport;
+        synchronized (this.transports)
+        {
+            transport = this.transports.get(mode);
+        }
+        return (transport == null) ? null : transport.connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get the rate limiter for requests made through the shared transport, or null if rate limiting is disabled.
+     *
+     * @return rate limiter or null
+     */
+    public GitLabRateLimiter getRateLimiter()
+    {
+        return this.rateLimiter;
+    }
+
+    public GitLabParallelFetcher getParallelFetcher()
+    {
+        return this.parallelFetcher;
+    }
+
+    public boolean isShared()
+    {
+        return this.config.isShared();
+    }
+
+    @Override
+    public void close()
+    {
+        synchronized (this.transports)
+        {
+            this.closed = true;
+            this.transports.values().forEach(ModeTransport::close);
+            this.transports.clear();
+        }
+        this.parallelFetcher.close();
+    }
+
+    private ModeTransport getModeTransport(GitLabMode mode)
+    {
+        if (!isShared())
+        {
+            return null;
+        }
+        synchronized (this.transports)
+        {
+            if (this.closed)
+            {
+                return null;
+            }
+            return this.transports.computeIfAbsent(mode, m -> new ModeTransport(m, this.config, this.rateLimiter));
+        }
+    }
+
+    public static GitLabHttpTransport newTransport(TransportConfiguration config)
+    {
+        return new GitLabHttpTransport((config == null) ? TransportConfiguration.defaultTransportConfiguration() : config);
+    }
+
+    public static GitLabHttpTransport fromConfig(GitLabConfiguration gitLabConfig)
+    {
+        return newTransport((gitLabConfig == null) ? null : gitLabConfig.getTransportConfiguration());
+    }
+
+    private static class ModeTransport
+    {
+        private final PoolingHttpClientConnectionManager connectionManager;
+        private final ClientConfig clientConfig;
+        private final Client client;
+
+        private ModeTransport(GitLabMode mode, TransportConfiguration config, GitLabRateLimiter rateLimiter)
+        {
+            this.connectionManager = new PoolingHttpClientConnectionManager();
+            this.connectionManager.setMaxTotal(config.getMaxConnections());
+            this.connectionManager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+            this.connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MILLIS);
+
+            // This mirrors the client configuration in GitLabApiClient, apart from the connector. The connection
+            // manager is marked as shared so that it is only shut down when the transport is closed: otherwise, Jersey
+            // shuts it down when any client runtime using it is closed or finalized.
+            this.clientConfig = new ClientConfig()
+                    .connectorProvider(new ApacheConnectorProvider())
+                    .property(ApacheClientProperties.CONNECTION_MANAGER, this.connectionManager)
+                    .property(ApacheClientProperties.CONNECTION_MANAGER_SHARED, true)
+                    .property(ApacheClientProperties.DISABLE_COOKIES, true)
+                    .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.BUFFERED)
+                    .property(ClientProperties.FEATURE_AUTO_DISCOVERY_DISABLE, true)
+                    .property(ClientProperties.METAINF_SERVICES_LOOKUP_DISABLE, true)
+                    .property(ClientProperties.FOLLOW_REDIRECTS, true)
+                    .register(JacksonJson.class)
+                    .register(MultiPartFeature.class)
+                    .register(DrainResponseOnCloseFilter.class)
+                    .register(RetryDelayFilter.class);
+            if (rateLimiter != null)
+            {
+                this.clientConfig.register(new RateLimitFilter(mode, rateLimiter));
+            }
+            this.client = ClientBuilder.newClient(this.clientConfig);
+        }
+
+        private void close()
+        {
+            try
+            {
+                this.client.close();
+            }
+            catch (Exception e)
+            {
+                LOGGER.warn("Error closing GitLab HTTP client", e);
+            }
+            this.connectionManager.close();
+        }
+    }
+
+    /**
+     * GitLab API client which uses a shared HTTP client. Apart from the HTTP client, requests are built in the same
+     * way as in {@link GitLabApiClient}. Sudo and per-client timeouts are not supported, as they are not used here.
+     */
+    private static class SharedClientGitLabApiClient extends GitLabApiClient
+    {
+        private final String authorizationHeader;
+        private final Client sharedClient;
+
+        private SharedClientGitLabApiClient(String url, String accessToken, Client sharedClient)
+        {
+            super(ApiVersion.V4, url, TokenType.OAUTH2_ACCESS, accessToken, null);
+            this.authorizationHeader = "Bearer " + accessToken;
+            this.sharedClient = sharedClient;
+        }
+
+        @Override
+        protected Invocation.Builder invocation(URL url, MultivaluedMap<String, String> queryParams, String accept)
+        {
+            // configuration is not changed per target, as that would create a new client runtime (and connector) for each request
+            WebTarget target = this.sharedClient.target(url.toExternalForm());
+            if (queryParams != null)
+            {
+                for (Map.Entry<String, List<String>> param : queryParams.entrySet())
+                {
+                    target = target.queryParam(param.getKey(), param.getValue().toArray());
+                }
+            }
+            Invocation.Builder builder = target.request().header(AUTHORIZATION_HEADER, this.authorizationHeader);
+            return ((accept == null) || accept.trim().isEmpty()) ? builder : builder.accept(accept);
+        }
+
+        /**
+         * Requests are buffered so that they can be sent with a content length. Commit requests can be very large
+         * though (file content is base64 encoded into the JSON body), so these are streamed with chunked transfer
+         * encoding instead, which avoids holding the whole request body in memory.
+         */
+        @Override
+        protected Response post(Object payload, Object... pathArgs) throws IOException
+        {
+            if (payload instanceof CommitPayload)
+            {
+                return invocation(getApiUrl(pathArgs), null)
+                        .property(ClientProperties.REQUEST_ENTITY_PROCESSING, RequestEntityProcessing.CHUNKED)
+                        .post(Entity.entity(payload, MediaType.APPLICATION_JSON));
+            }
+            return super.post(payload, pathArgs);
+        }
+
+        @Override
+        protected Client createApiClient()
+        {
+            return this.sharedClient;
+        }
+
+        @Override
+        public void close()
+        {
+            // the shared client is closed by the transport
+        }
+    }
+
+    /**
+     * The Apache connector closes the HTTP response before the entity stream, which discards the connection unless
+     * the entity has already been fully read. This filter reads any small remainder of the entity before closing, so
+     * that the connection can be returned to the pool.
+     */
+    public static class DrainResponseOnCloseFilter implements ClientResponseFilter
+    {
+        @Override
+        public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext)
+        {
+            InputStream entityStream = responseContext.getEntityStream();
+            if (entityStream != null)
+            {
+                responseContext.setEntityStream(new DrainOnCloseInputStream(entityStream));
+            }
+        }
+    }
+
+    /**
+     * Records the delay GitLab advises before retrying a rejected request, for the thread which made it, so that
+     * retries can wait for the server's reset time (see {@link GitLabRateLimiter#takeRetryDelayMillis()}).
+     */
+    public static class RetryDelayFilter implements ClientResponseFilter
+    {
+        @Override
+        public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext)
+        {
+            GitLabRateLimiter.recordRetryDelay(
+                    responseContext.getStatus(),
+                    responseContext.getHeaderString(GitLabRateLimiter.RESET_HEADER),
+                    responseContext.getHeaderString(GitLabRateLimiter.RETRY_AFTER_HEADER));
+        }
+    }
+
+    /**
+     * Waits for the rate limiter before each request, and updates it from the rate limit headers of each response.
+     * Requests are assigned to rate limiter buckets by the credentials they carry, since GitLab limits each user
+     * separately.
+     */
+    private static class RateLimitFilter implements ClientRequestFilter, ClientResponseFilter
+    {
+        private static final String PRIVATE_TOKEN_HEADER = "PRIVATE-TOKEN";
+
+        private final GitLabMode mode;
+        private final GitLabRateLimiter rateLimiter;
+
+        private RateLimitFilter(GitLabMode mode, GitLabRateLimiter rateLimiter)
+        {
+            this.mode = mode;
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public void filter(ClientRequestContext requestContext)
+        {
+            this.rateLimiter.acquire(this.mode, getUserKey(requestContext));
+        }
+
+        @Override
+        public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext)
+        {
+            this.rateLimiter.update(
+                    this.mode,
+                    getUserKey(requestContext),
+                    responseContext.getStatus(),
+                    responseContext.getHeaderString(GitLabRateLimiter.REMAINING_HEADER),
+                    responseContext.getHeaderString(GitLabRateLimiter.RESET_HEADER),
+                    responseContext.getHeaderString(GitLabRateLimiter.RETRY_AFTER_HEADER));
+        }
+
+        private static String getUserKey(ClientRequestContext requestContext)
+        {
+            return GitLabRateLimiter.getUserKey(requestContext.getHeaderString(HttpHeaders.AUTHORIZATION), requestContext.getHeaderString(PRIVATE_TOKEN_HEADER));
+        }
+    }
+
+    private static class DrainOnCloseInputStream extends FilterInputStream
+    {
+        private DrainOnCloseInputStream(InputStream stream)
+        {
+            super(stream);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            try
+            {
+                byte[] buffer = new byte[8192];
+                int drained = 0;
+                int read;
+                while ((drained < MAX_DRAIN_BYTES) && ((read = this.in.read(buffer)) != -1))
+                {
+                    drained += read;
+                }
+            }
+            catch (IOException ignore)
+            {
+                // the connection will not be reused
+            }
+            finally
+            {
+                super.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabRateLimiter.Priority;
+import org.finos.legend.sdlc.server.tools.IOTools;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import javax.ws.rs.core.Response.Status;
+
+/**
+ * Process-wide fetcher for making many independent GitLab calls in parallel, such as fetching the content of many
+ * files. Calls run on a bounded pool of threads shared by all requests. Results are returned as a stream in the order
+ * of the inputs, and calls are pipelined: a bounded number of calls are in flight ahead of the consumer of the stream.
+ * Each call is made with the rate limiter priority of the thread which created the stream (see
+ * {@link GitLabRateLimiter#getCurrentPriority()}).
+ */
+public class GitLabParallelFetcher implements Closeable
+{
+    private static final int WINDOW_SIZE_MULTIPLIER = 2;
+
+    private final int parallelism;
+    private final ThreadPoolExecutor executor;
+
+    private GitLabParallelFetcher(int parallelism)
+    {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = (this.parallelism == 1) ? null : newExecutor(this.parallelism);
+    }
+
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Apply the fetch function to each of the inputs, in parallel, and stream the results in the order of the inputs.
+     * If the fetch function throws an exception for any input, the exception is thrown when that result is reached in
+     * the stream. Closing the stream cancels any calls still in flight.
+     *
+     * @param inputs        inputs
+     * @param fetchFunction fetch function
+     * @param <T>           input type
+     * @param <R>           result type
+     * @return stream of results
+     */
+    public <T, R> Stream<R> fetch(List<? extends T> inputs, Function<? super T, ? extends R> fetchFunction)
+    {
+        if ((this.executor == null) || (inputs.size() <= 1))
+        {
+            return inputs.stream().map(fetchFunction);
+        }
+        return IOTools.streamCloseableSpliterator(new FetchSpliterator<T, R>(inputs, fetchFunction, GitLabRateLimiter.getCurrentPriority()), false);
+    }
+
+    @Override
+    public void close()
+    {
+        if (this.executor != null)
+        {
+            this.executor.shutdownNow();
+        }
+    }
+
+    public static GitLabParallelFetcher newFetcher(int parallelism)
+    {
+        return new GitLabParallelFetcher(parallelism);
+    }
+
+    private static ThreadPoolExecutor newExecutor(int parallelism)
+    {
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable ->
+        {
+            Thread thread = new Thread(runnable, "gitlab-parallel-fetcher-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private class FetchSpliterator<T, R> implements Spliterator<R>, AutoCloseable
+    {
+        private final Iterator<? extends T> inputs;
+        private final Function<? super T, ? extends R> fetchFunction;
+        private final Priority priority;
+        private final int windowSize;
+        private final Deque<Future<R>> inFlight;
+        private long remaining;
+
+        private FetchSpliterator(List<? extends T> inputs, Function<? super T, ? extends R> fetchFunction, Priority priority)
+        {
+            this.inputs = inputs.iterator();
+            this.fetchFunction = fetchFunction;
+            this.priority = priority;
+            this.windowSize = GitLabParallelFetcher.this.parallelism * WINDOW_SIZE_MULTIPLIER;
+            this.inFlight = new ArrayDeque<>(this.windowSize);
+            this.remaining = inputs.size();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action)
+        {
+            fillWindow();
+            Future<R> next = this.inFlight.poll();
+            if (next == null)
+            {
+                return false;
+            }
+            this.remaining--;
+            action.accept(await(next));
+            return true;
+        }
+
+        @Override
+        public Spliterator<R> trySplit()
+        {
+            return null;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return this.remaining;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | SIZED;
+        }
+
+        @Override
+        public void close()
+        {
+            this.inFlight.forEach(f -> f.cancel(true));
+            this.inFlight.clear();
+        }
+
+        private void fillWindow()
+        {
+            while ((this.inFlight.size() < this.windowSize) && this.inputs.hasNext())
+            {
+                T input = this.inputs.next();
+                this.inFlight.add(GitLabParallelFetcher.this.executor.submit(() -> GitLabRateLimiter.callWithPriority(this.priority, () -> this.fetchFunction.apply(input))));
+            }
+        }
+
+        private R await(Future<R> future)
+        {
+            try
+            {
+                return future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                close();
+                throw new LegendSDLCServerException("Interrupted while fetching from GitLab", Status.INTERNAL_SERVER_ERROR, e);
+            }
+            catch (ExecutionException e)
+            {
+                close();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw new LegendSDLCServerException("Error fetching from GitLab", Status.INTERNAL_SERVER_ERROR, cause);
+            }
+        }
+    }
+}
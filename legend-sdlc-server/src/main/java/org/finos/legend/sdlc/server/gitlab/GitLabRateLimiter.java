@@ -0,0 +1,544 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.RateLimitConfiguration;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Client-side rate limiter for GitLab API calls. GitLab applies its rate limits per user, so this maintains a token
+ * bucket for each GitLab mode and user, which paces that user's outgoing requests. Users are identified by a key
+ * derived from the credentials of the request (see {@link #getUserKey}); requests without credentials share one bucket
+ * per mode. Buckets which have not been used for a while are discarded.
+ * <p>
+ * Each bucket adapts to the RateLimit-Remaining and RateLimit-Reset headers returned by GitLab: when GitLab reports
+ * that few requests remain, the rate is lowered so that the remaining requests are spread out until the reset time;
+ * and when GitLab throttles a request, all requests for the bucket wait until the reset time.
+ * <p>
+ * Requests made from background tasks (see {@link BackgroundTaskProcessor#isInBackgroundTask()}), including bulk
+ * scans marked with {@link BackgroundTaskProcessor#callAsBackgroundWork}, have lower priority than interactive requests:
+ * they may not use the reserved part of the bucket, so that a burst of background work cannot use up the budget needed
+ * by users. Work handed off to other threads can keep its priority with {@link #callWithPriority}.
+ * <p>
+ * When GitLab rejects a request with a reset time, the delay is also recorded for the thread which made the request
+ * (see {@link #takeRetryDelayMillis()}), so that retries wait until GitLab will accept them rather than for a fixed
+ * backoff.
+ */
+public class GitLabRateLimiter
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(GitLabRateLimiter.class);
+
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final long DEFAULT_THROTTLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long BUCKET_EXPIRY_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ThreadLocal<Priority> PRIORITY = new ThreadLocal<>();
+    private static final ThreadLocal<Long> RETRY_DELAY_MILLIS = new ThreadLocal<>();
+
+    private static final Gauge BUCKETS = Gauge.build().name("sdlc_gitlab_rate_limit_buckets").help("GitLab rate limiter buckets in use").register();
+    private static final Counter WAITS = Counter.build().name("sdlc_gitlab_rate_limit_waits").help("GitLab requests which waited for the rate limiter").labelNames("mode", "priority").register();
+    private static final Counter WAIT_SECONDS = Counter.build().name("sdlc_gitlab_rate_limit_wait_seconds").help("Total time GitLab requests waited for the rate limiter").labelNames("mode", "priority").register();
+    private static final Counter THROTTLED = Counter.build().name("sdlc_gitlab_rate_limit_throttled").help("GitLab requests throttled by GitLab").labelNames("mode").register();
+
+    private final RateLimitConfiguration config;
+    private final LongSupplier nanoClock;
+    private final LoadingCache<BucketKey, TokenBucket> buckets;
+
+    GitLabRateLimiter(RateLimitConfiguration config, LongSupplier nanoClock)
+    {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        Ticker ticker = nanoClock::getAsLong;
+        this.buckets = Caffeine.newBuilder()
+                .ticker(ticker)
+                .expireAfterAccess(BUCKET_EXPIRY_NANOS, TimeUnit.NANOSECONDS)
+                .removalListener((key, value, cause) -> BUCKETS.dec())
+                .executor(Runnable::run)
+                .build(key ->
+                {
+                    BUCKETS.inc();
+                    return new TokenBucket(key.mode.name(), nanoClock.getAsLong());
+                });
+    }
+
+    /**
+     * Wait until a request may be made for the given mode and user, with the priority of the current thread (see
+     * {@link #getCurrentPriority()}).
+     *
+     * @param mode    GitLab mode
+     * @param userKey user key (may be null)
+     */
+    public void acquire(GitLabMode mode, String userKey)
+    {
+        acquire(mode, userKey, getCurrentPriority());
+    }
+
+    /**
+     * Wait until a request with the given priority may be made for the given mode and user. If the wait would exceed
+     * the configured maximum, the request is allowed after the maximum wait.
+     *
+     * @param mode     GitLab mode
+     * @param userKey  user key (may be null)
+     * @param priority request priority
+     */
+    public void acquire(GitLabMode mode, String userKey, Priority priority)
+    {
+        TokenBucket bucket = getBucket(mode, userKey);
+        long waitNanos = bucket.tryAcquire(priority, this.nanoClock.getAsLong());
+        if (waitNanos <= 0L)
+        {
+            return;
+        }
+
+        long start = this.nanoClock.getAsLong();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(this.config.getMaxWaitMillis());
+        try
+        {
+            while (waitNanos > 0L)
+            {
+                long remainingNanos = deadline - this.nanoClock.getAsLong();
+                if (remainingNanos <= 0L)
+                {
+                    LOGGER.warn("Waited more than {}ms for GitLab rate limiter ({}, {}); proceeding with request", this.config.getMaxWaitMillis(), mode, priority);
+                    bucket.forceAcquire();
+                    break;
+                }
+                TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, remainingNanos));
+                waitNanos = bucket.tryAcquire(priority, this.nanoClock.getAsLong());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            LOGGER.warn("Interrupted while waiting for GitLab rate limiter", e);
+            Thread.currentThread().interrupt();
+        }
+        finally
+        {
+            String priorityLabel = priority.name();
+            WAITS.labels(bucket.modeLabel, priorityLabel).inc();
+            WAIT_SECONDS.labels(bucket.modeLabel, priorityLabel).inc((this.nanoClock.getAsLong() - start) / NANOS_PER_SECOND);
+        }
+    }
+
+    /**
+     * Try to acquire a permit for a request without waiting. Returns 0 if a permit was acquired; otherwise, returns
+     * an estimate of how long to wait (in nanoseconds) before trying again.
+     *
+     * @param mode     GitLab mode
+     * @param userKey  user key (may be null)
+     * @param priority request priority
+     * @return 0 if a permit was acquired, otherwise the time to wait in nanoseconds
+     */
+    public long tryAcquire(GitLabMode mode, String userKey, Priority priority)
+    {
+        return getBucket(mode, userKey).tryAcquire(priority, this.nanoClock.getAsLong());
+    }
+
+    /**
+     * Update the rate limiter for a mode and user from a GitLab response.
+     *
+     * @param mode             GitLab mode
+     * @param userKey          user key (may be null)
+     * @param status           HTTP status of the response
+     * @param remaining        value of the RateLimit-Remaining header (may be null)
+     * @param resetDelayMillis time until GitLab resets its rate limit, from the RateLimit-Reset or Retry-After header (may be null)
+     */
+    public void update(GitLabMode mode, String userKey, int status, Integer remaining, Long resetDelayMillis)
+    {
+        if ((status != TOO_MANY_REQUESTS) && (remaining == null))
+        {
+            return;
+        }
+        TokenBucket bucket = getBucket(mode, userKey);
+        if (status == TOO_MANY_REQUESTS)
+        {
+            THROTTLED.labels(bucket.modeLabel).inc();
+        }
+        bucket.update(this.nanoClock.getAsLong(), status, remaining, (resetDelayMillis == null) ? -1L : TimeUnit.MILLISECONDS.toNanos(Math.max(0L, resetDelayMillis)));
+    }
+
+    /**
+     * Update the rate limiter for a mode and user from the headers of a GitLab response.
+     *
+     * @param mode             GitLab mode
+     * @param userKey          user key (may be null)
+     * @param status           HTTP status of the response
+     * @param remainingHeader  RateLimit-Remaining header value (may be null)
+     * @param resetHeader      RateLimit-Reset header value, in epoch seconds (may be null)
+     * @param retryAfterHeader Retry-After header value, in seconds (may be null)
+     */
+    public void update(GitLabMode mode, String userKey, int status, String remainingHeader, String resetHeader, String retryAfterHeader)
+    {
+        update(mode, userKey, status, parseInteger(remainingHeader), getResetDelayMillis(resetHeader, retryAfterHeader));
+    }
+
+    /**
+     * Get the number of permits currently available for a mode and user.
+     *
+     * @param mode    GitLab mode
+     * @param userKey user key (may be null)
+     * @return available permits
+     */
+    public double getAvailablePermits(GitLabMode mode, String userKey)
+    {
+        return getBucket(mode, userKey).getAvailablePermits(this.nanoClock.getAsLong());
+    }
+
+    private TokenBucket getBucket(GitLabMode mode, String userKey)
+    {
+        return this.buckets.get(new BucketKey(mode, userKey));
+    }
+
+    /**
+     * Get the key identifying the user of a request from its credentials: the value of the Authorization header or,
+     * failing that, the PRIVATE-TOKEN header. The key is a digest of the credential, so that tokens are not retained
+     * by the rate limiter. Returns null if the request has no credentials.
+     *
+     * @param authorizationHeader Authorization header value (may be null)
+     * @param privateTokenHeader  PRIVATE-TOKEN header value (may be null)
+     * @return user key or null
+     */
+    public static String getUserKey(String authorizationHeader, String privateTokenHeader)
+    {
+        String credential = (authorizationHeader != null) ? authorizationHeader : privateTokenHeader;
+        if (credential == null)
+        {
+            return null;
+        }
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(credential.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get the priority for requests made from the current thread. This is the priority set by
+     * {@link #callWithPriority}, if any; otherwise, it is background if the thread is running a background task, and
+     * interactive if not.
+     *
+     * @return current request priority
+     */
+    public static Priority getCurrentPriority()
+    {
+        Priority priority = PRIORITY.get();
+        if (priority != null)
+        {
+            return priority;
+        }
+        return BackgroundTaskProcessor.isInBackgroundTask() ? Priority.BACKGROUND : Priority.INTERACTIVE;
+    }
+
+    /**
+     * Call the supplier with the given request priority on the current thread.
+     *
+     * @param priority request priority
+     * @param supplier supplier
+     * @param <T>      result type
+     * @return supplier result
+     */
+    public static <T> T callWithPriority(Priority priority, Supplier<T> supplier)
+    {
+        Priority previous = PRIORITY.get();
+        PRIORITY.set(priority);
+        try
+        {
+            return supplier.get();
+        }
+        finally
+        {
+            if (previous == null)
+            {
+                PRIORITY.remove();
+            }
+            else
+            {
+                PRIORITY.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Record the delay advised by GitLab for retrying a request made from the current thread, from the headers of its
+     * response. A delay is only recorded for responses which may be retried (429 Too Many Requests and 503 Service
+     * Unavailable) and which give a reset time.
+     *
+     * @param status           HTTP status of the response
+     * @param resetHeader      RateLimit-Reset header value, in epoch seconds (may be null)
+     * @param retryAfterHeader Retry-After header value, in seconds (may be null)
+     */
+    public static void recordRetryDelay(int status, String resetHeader, String retryAfterHeader)
+    {
+        if ((status == TOO_MANY_REQUESTS) || (status == SERVICE_UNAVAILABLE))
+        {
+            Long resetDelayMillis = getResetDelayMillis(resetHeader, retryAfterHeader);
+            if (resetDelayMillis != null)
+            {
+                RETRY_DELAY_MILLIS.set(Math.max(0L, resetDelayMillis));
+            }
+        }
+    }
+
+    /**
+     * Get and clear the retry delay (in milliseconds) recorded for the current thread by {@link #recordRetryDelay}.
+     * Returns -1 if no delay was recorded.
+     *
+     * @return retry delay in milliseconds, or -1
+     */
+    public static long takeRetryDelayMillis()
+    {
+        Long delay = RETRY_DELAY_MILLIS.get();
+        if (delay == null)
+        {
+            return -1L;
+        }
+        RETRY_DELAY_MILLIS.remove();
+        return delay;
+    }
+
+    public static GitLabRateLimiter newRateLimiter(RateLimitConfiguration config)
+    {
+        if ((config == null) || !config.isEnabled())
+        {
+            return null;
+        }
+        return new GitLabRateLimiter(config, System::nanoTime);
+    }
+
+    private static Long getResetDelayMillis(String resetHeader, String retryAfterHeader)
+    {
+        Long retryAfterSeconds = parseLong(retryAfterHeader);
+        if (retryAfterSeconds != null)
+        {
+            return TimeUnit.SECONDS.toMillis(retryAfterSeconds);
+        }
+        Long resetEpochSeconds = parseLong(resetHeader);
+        return (resetEpochSeconds == null) ? null : (TimeUnit.SECONDS.toMillis(resetEpochSeconds) - System.currentTimeMillis());
+    }
+
+    private static Integer parseInteger(String value)
+    {
+        if (value != null)
+        {
+            try
+            {
+                return Integer.valueOf(value.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                LOGGER.debug("Invalid integer header value: {}", value);
+            }
+        }
+        return null;
+    }
+
+    private static Long parseLong(String value)
+    {
+        if (value != null)
+        {
+            try
+            {
+                return Long.valueOf(value.trim());
+            }
+            catch (NumberFormatException e)
+            {
+                LOGGER.debug("Invalid integer header value: {}", value);
+            }
+        }
+        return null;
+    }
+
+    public enum Priority
+    {
+        INTERACTIVE, BACKGROUND
+    }
+
+    private static class BucketKey
+    {
+        private final GitLabMode mode;
+        private final String userKey;
+
+        private BucketKey(GitLabMode mode, String userKey)
+        {
+            this.mode = mode;
+            this.userKey = userKey;
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if (!(other instanceof BucketKey))
+            {
+                return false;
+            }
+            BucketKey that = (BucketKey) other;
+            return (this.mode == that.mode) && Objects.equals(this.userKey, that.userKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.mode.hashCode() + 31 * Objects.hashCode(this.userKey);
+        }
+    }
+
+    private class TokenBucket
+    {
+        private final String modeLabel;
+        private final double capacity;
+        private final double backgroundReserve;
+        private final double configuredRate;
+        private double permits;
+        private long lastRefillNanos;
+        private double adaptiveRate = -1.0;
+        private long adaptiveUntilNanos;
+        private long blockedUntilNanos;
+        private boolean blocked = false;
+
+        private TokenBucket(String modeLabel, long now)
+        {
+            this.modeLabel = modeLabel;
+            this.capacity = GitLabRateLimiter.this.config.getBurstSize();
+            this.backgroundReserve = Math.floor(this.capacity * GitLabRateLimiter.this.config.getBackgroundReserve());
+            this.configuredRate = GitLabRateLimiter.this.config.getRequestsPerSecond();
+            this.permits = this.capacity;
+            this.lastRefillNanos = now;
+        }
+
+        synchronized long tryAcquire(Priority priority, long now)
+        {
+            refill(now);
+            if (this.blocked)
+            {
+                return this.blockedUntilNanos - now;
+            }
+            double floor = (priority == Priority.BACKGROUND) ? this.backgroundReserve : 0.0;
+            if (this.permits >= (floor + 1.0))
+            {
+                this.permits -= 1.0;
+                return 0L;
+            }
+            return Math.max(1L, (long) Math.ceil(((floor + 1.0) - this.permits) * NANOS_PER_SECOND / getCurrentRate(now)));
+        }
+
+        synchronized void forceAcquire()
+        {
+            // a request which proceeds after the maximum wait may use a permit which is not available, but the debt
+            // is limited to a single permit so that later requests are not delayed without bound
+            this.permits = Math.max(-1.0, this.permits - 1.0);
+        }
+
+        synchronized double getAvailablePermits(long now)
+        {
+            refill(now);
+            return this.blocked ? 0.0 : this.permits;
+        }
+
+        synchronized void update(long now, int status, Integer remaining, long resetDelayNanos)
+        {
+            refill(now);
+            if (remaining != null)
+            {
+                this.permits = Math.min(this.permits, remaining);
+                if (resetDelayNanos > 0L)
+                {
+                    if (remaining <= 0)
+                    {
+                        block(now + resetDelayNanos);
+                    }
+                    else
+                    {
+                        this.adaptiveRate = Math.min(this.configuredRate, remaining * NANOS_PER_SECOND / resetDelayNanos);
+                        this.adaptiveUntilNanos = now + resetDelayNanos;
+                    }
+                }
+            }
+            if (status == TOO_MANY_REQUESTS)
+            {
+                this.permits = 0.0;
+                block(now + ((resetDelayNanos > 0L) ? resetDelayNanos : DEFAULT_THROTTLE_NANOS));
+            }
+        }
+
+        private void block(long untilNanos)
+        {
+            if (!this.blocked || ((untilNanos - this.blockedUntilNanos) > 0L))
+            {
+                this.blockedUntilNanos = untilNanos;
+            }
+            this.blocked = true;
+        }
+
+        private void refill(long now)
+        {
+            if (this.blocked && ((now - this.blockedUntilNanos) >= 0L))
+            {
+                this.blocked = false;
+                this.lastRefillNanos = now;
+            }
+            long elapsed = now - this.lastRefillNanos;
+            if (elapsed > 0L)
+            {
+                if (!this.blocked)
+                {
+                    this.permits = Math.min(this.capacity, this.permits + (elapsed * getCurrentRate(now) / NANOS_PER_SECOND));
+                }
+                this.lastRefillNanos = now;
+            }
+        }
+
+        private double getCurrentRate(long now)
+        {
+            if ((this.adaptiveRate >= 0.0) && ((now - this.adaptiveUntilNanos) < 0L))
+            {
+                return Math.max(this.adaptiveRate, Double.MIN_NORMAL);
+            }
+            this.adaptiveRate = -1.0;
+            return this.configuredRate;
+        }
+    }
+}
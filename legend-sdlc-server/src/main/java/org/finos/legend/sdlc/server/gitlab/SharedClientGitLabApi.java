@@ -0,0 +1,700 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.gitlab4j.api.AbstractApi;
+import org.gitlab4j.api.ApplicationSettingsApi;
+import org.gitlab4j.api.ApplicationsApi;
+import org.gitlab4j.api.AuditEventApi;
+import org.gitlab4j.api.AwardEmojiApi;
+import org.gitlab4j.api.BoardsApi;
+import org.gitlab4j.api.CommitsApi;
+import org.gitlab4j.api.Constants.TokenType;
+import org.gitlab4j.api.ContainerRegistryApi;
+import org.gitlab4j.api.DeployKeysApi;
+import org.gitlab4j.api.DeployTokensApi;
+import org.gitlab4j.api.DiscussionsApi;
+import org.gitlab4j.api.EnvironmentsApi;
+import org.gitlab4j.api.EpicsApi;
+import org.gitlab4j.api.EventsApi;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApiClient;
+import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.GroupApi;
+import org.gitlab4j.api.HealthCheckApi;
+import org.gitlab4j.api.ImportExportApi;
+import org.gitlab4j.api.IssuesApi;
+import org.gitlab4j.api.JobApi;
+import org.gitlab4j.api.LabelsApi;
+import org.gitlab4j.api.LicenseApi;
+import org.gitlab4j.api.LicenseTemplatesApi;
+import org.gitlab4j.api.MarkdownApi;
+import org.gitlab4j.api.MergeRequestApi;
+import org.gitlab4j.api.MilestonesApi;
+import org.gitlab4j.api.NamespaceApi;
+import org.gitlab4j.api.NotesApi;
+import org.gitlab4j.api.NotificationSettingsApi;
+import org.gitlab4j.api.PackagesApi;
+import org.gitlab4j.api.PipelineApi;
+import org.gitlab4j.api.ProjectApi;
+import org.gitlab4j.api.ProtectedBranchesApi;
+import org.gitlab4j.api.ReleasesApi;
+import org.gitlab4j.api.RepositoryApi;
+import org.gitlab4j.api.RepositoryFileApi;
+import org.gitlab4j.api.ResourceLabelEventsApi;
+import org.gitlab4j.api.RunnersApi;
+import org.gitlab4j.api.SearchApi;
+import org.gitlab4j.api.ServicesApi;
+import org.gitlab4j.api.SnippetsApi;
+import org.gitlab4j.api.SystemHooksApi;
+import org.gitlab4j.api.TagsApi;
+import org.gitlab4j.api.TodosApi;
+import org.gitlab4j.api.UserApi;
+import org.gitlab4j.api.WikisApi;
+import org.gitlab4j.api.models.Version;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * GitLab API which makes all of its requests through a given API client, rather than one it creates itself. The
+ * client a GitLab API uses is not configurable, but each gitlab4j API gets its client from
+ * {@link AbstractApi}'s protected getApiClient method. So this overrides every API getter to return an API which uses
+ * the given client instead. APIs hold no state apart from the GitLab API they belong to, so a new one is returned for
+ * each call.
+ * <p>
+ * Any API getter which is not overridden here would silently fall back to an unshared client. If a new version of
+ * gitlab4j adds one, TestSharedClientGitLabApi fails until it is overridden.
+ */
+public class SharedClientGitLabApi extends GitLabApi
+{
+    private final GitLabApiClient sharedApiClient;
+
+    public SharedClientGitLabApi(String url, String accessToken, GitLabApiClient sharedApiClient)
+    {
+        super(ApiVersion.V4, url, TokenType.OAUTH2_ACCESS, accessToken);
+        this.sharedApiClient = sharedApiClient;
+    }
+
+    /**
+     * Get the client which all requests are made through.
+     *
+     * @return shared API client
+     */
+    public GitLabApiClient getSharedApiClient()
+    {
+        return this.sharedApiClient;
+    }
+
+    @Override
+    public Version getVersion() throws GitLabApiException
+    {
+        return new VersionApi(this).getVersion();
+    }
+
+    @Override
+    public ApplicationSettingsApi getApplicationSettingsApi()
+    {
+        return new ApplicationSettingsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ApplicationsApi getApplicationsApi()
+    {
+        return new ApplicationsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public AuditEventApi getAuditEventApi()
+    {
+        return new AuditEventApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public AwardEmojiApi getAwardEmojiApi()
+    {
+        return new AwardEmojiApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public BoardsApi getBoardsApi()
+    {
+        return new BoardsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public CommitsApi getCommitsApi()
+    {
+        return new CommitsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ContainerRegistryApi getContainerRegistryApi()
+    {
+        return new ContainerRegistryApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public DeployKeysApi getDeployKeysApi()
+    {
+        return new DeployKeysApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public DeployTokensApi getDeployTokensApi()
+    {
+        return new DeployTokensApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public DiscussionsApi getDiscussionsApi()
+    {
+        return new DiscussionsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public EnvironmentsApi getEnvironmentsApi()
+    {
+        return new EnvironmentsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public EpicsApi getEpicsApi()
+    {
+        return new EpicsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public EventsApi getEventsApi()
+    {
+        return new EventsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public GroupApi getGroupApi()
+    {
+        return new GroupApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public HealthCheckApi getHealthCheckApi()
+    {
+        return new HealthCheckApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ImportExportApi getImportExportApi()
+    {
+        return new ImportExportApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public IssuesApi getIssuesApi()
+    {
+        return new IssuesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public JobApi getJobApi()
+    {
+        return new JobApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public LabelsApi getLabelsApi()
+    {
+        return new LabelsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public LicenseApi getLicenseApi()
+    {
+        return new LicenseApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public LicenseTemplatesApi getLicenseTemplatesApi()
+    {
+        return new LicenseTemplatesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public MarkdownApi getMarkdownApi()
+    {
+        return new MarkdownApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public MergeRequestApi getMergeRequestApi()
+    {
+        return new MergeRequestApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public MilestonesApi getMilestonesApi()
+    {
+        return new MilestonesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public NamespaceApi getNamespaceApi()
+    {
+        return new NamespaceApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public NotesApi getNotesApi()
+    {
+        return new NotesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public NotificationSettingsApi getNotificationSettingsApi()
+    {
+        return new NotificationSettingsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public PackagesApi getPackagesApi()
+    {
+        return new PackagesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public PipelineApi getPipelineApi()
+    {
+        return new PipelineApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ProjectApi getProjectApi()
+    {
+        return new ProjectApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ProtectedBranchesApi getProtectedBranchesApi()
+    {
+        return new ProtectedBranchesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ReleasesApi getReleasesApi()
+    {
+        return new ReleasesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public RepositoryApi getRepositoryApi()
+    {
+        return new RepositoryApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public RepositoryFileApi getRepositoryFileApi()
+    {
+        return new RepositoryFileApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ResourceLabelEventsApi getResourceLabelEventsApi()
+    {
+        return new ResourceLabelEventsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public RunnersApi getRunnersApi()
+    {
+        return new RunnersApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public SearchApi getSearchApi()
+    {
+        return new SearchApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public ServicesApi getServicesApi()
+    {
+        return new ServicesApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public SnippetsApi getSnippetApi()
+    {
+        return new SnippetsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public SystemHooksApi getSystemHooksApi()
+    {
+        return new SystemHooksApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public TagsApi getTagsApi()
+    {
+        return new TagsApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public TodosApi getTodosApi()
+    {
+        return new TodosApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public UserApi getUserApi()
+    {
+        return new UserApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    @Override
+    public WikisApi getWikisApi()
+    {
+        return new WikisApi(this)
+        {
+            @Override
+            protected GitLabApiClient getApiClient()
+            {
+                return SharedClientGitLabApi.this.sharedApiClient;
+            }
+        };
+    }
+
+    private static class VersionApi extends AbstractApi
+    {
+        private final SharedClientGitLabApi gitLabApi;
+
+        private VersionApi(SharedClientGitLabApi gitLabApi)
+        {
+            super(gitLabApi);
+            this.gitLabApi = gitLabApi;
+        }
+
+        private Version getVersion() throws GitLabApiException
+        {
+            Response response = get(Response.Status.OK, null, "version");
+            return response.readEntity(Version.class);
+        }
+
+        @Override
+        protected GitLabApiClient getApiClient()
+        {
+            return this.gitLabApi.sharedApiClient;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import org.finos.legend.sdlc.domain.model.revision.RevisionAlias;
 import org.finos.legend.sdlc.domain.model.user.User;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabAuthException;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
@@ -136,6 +137,11 @@ abstract class BaseGitLabApi
         }
     }
 
+    protected GitLabParallelFetcher getParallelFetcher()
+    {
+        return this.userContext.getParallelFetcher();
+    }
+
     protected Iterable<GitLabMode> getValidGitLabModes()
     {
         return this.userContext.getValidGitLabModes();
@@ -546,12 +552,12 @@ abstract class BaseGitLabApi
         return new LegendSDLCServerException(StringTools.appendThrowableMessageIfPresent("An unexpected exception occurred", e), e);
     }
 
-    protected <T> T withRetries(ThrowingSupplier<T, ? extends GitLabApiException> apiCall) throws GitLabApiException
+    protected static <T> T withRetries(ThrowingSupplier<T, ? extends GitLabApiException> apiCall) throws GitLabApiException
     {
         return GitLabApiTools.callWithRetries(apiCall, MAX_RETRIES, INITIAL_RETRY_WAIT_INTERVAL_MILLIS, RETRY_WAIT_INTERVAL_UPDATER);
     }
 
-    protected void withRetries(ThrowingRunnable<? extends GitLabApiException> apiCall) throws GitLabApiException
+    protected static void withRetries(ThrowingRunnable<? extends GitLabApiException> apiCall) throws GitLabApiException
     {
         withRetries(() ->
         {
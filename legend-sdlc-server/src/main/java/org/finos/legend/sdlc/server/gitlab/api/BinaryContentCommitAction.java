@@ -0,0 +1,167 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.gitlab4j.api.Constants.Encoding;
+import org.gitlab4j.api.models.CommitAction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Commit action which holds its content as raw bytes. When the action is serialized, the content is base64 encoded on
+ * the fly into the request body, so no base64 copy of the content is ever held in memory. Content may still be set as
+ * a string, in which case it is written as it is.
+ */
+@JsonSerialize(using = BinaryContentCommitAction.Serializer.class)
+class BinaryContentCommitAction extends CommitAction
+{
+    // fixed allowance for the JSON property names and punctuation of an action
+    private static final int ACTION_OVERHEAD = 128;
+
+    private byte[] binaryContent;
+
+    byte[] getBinaryContent()
+    {
+        return this.binaryContent;
+    }
+
+    BinaryContentCommitAction withBinaryContent(byte[] content)
+    {
+        super.setContent(null);
+        this.binaryContent = content;
+        setEncoding((content == null) ? null : Encoding.BASE64);
+        return this;
+    }
+
+    static boolean hasContent(CommitAction action)
+    {
+        return (action instanceof BinaryContentCommitAction) ?
+                ((((BinaryContentCommitAction) action).binaryContent != null) || (((BinaryContentCommitAction) action).getStringContent() != null)) :
+                (action.getContent() != null);
+    }
+
+    void copyContentFrom(CommitAction other)
+    {
+        if ((other instanceof BinaryContentCommitAction) && (((BinaryContentCommitAction) other).binaryContent != null))
+        {
+            withBinaryContent(((BinaryContentCommitAction) other).binaryContent);
+        }
+        else
+        {
+            setContent(other.getContent());
+            setEncoding(other.getEncoding());
+        }
+    }
+
+    /**
+     * Get the content as it is sent to GitLab. For binary content, this creates the base64 encoding of the content, so
+     * it should be avoided for large content.
+     */
+    @Override
+    public String getContent()
+    {
+        String content = super.getContent();
+        return ((content == null) && (this.binaryContent != null)) ? new String(Base64.getEncoder().encode(this.binaryContent), StandardCharsets.ISO_8859_1) : content;
+    }
+
+    private String getStringContent()
+    {
+        return super.getContent();
+    }
+
+    @Override
+    public void setContent(String content)
+    {
+        this.binaryContent = null;
+        super.setContent(content);
+    }
+
+    /**
+     * Estimate of the number of bytes the action takes up in the request body.
+     */
+    long getEncodedSize()
+    {
+        long size = ACTION_OVERHEAD + stringLength(getFilePath()) + stringLength(getPreviousPath()) + stringLength(getLastCommitId());
+        if (this.binaryContent != null)
+        {
+            size += 4L * ((this.binaryContent.length + 2) / 3);
+        }
+        else
+        {
+            size += stringLength(getStringContent());
+        }
+        return size;
+    }
+
+    static long getEncodedSize(CommitAction action)
+    {
+        return (action instanceof BinaryContentCommitAction) ?
+                ((BinaryContentCommitAction) action).getEncodedSize() :
+                (ACTION_OVERHEAD + stringLength(action.getFilePath()) + stringLength(action.getPreviousPath()) + stringLength(action.getLastCommitId()) + stringLength(action.getContent()));
+    }
+
+    private static int stringLength(String string)
+    {
+        return (string == null) ? 0 : string.length();
+    }
+
+    static class Serializer extends JsonSerializer<BinaryContentCommitAction>
+    {
+        @Override
+        public void serialize(BinaryContentCommitAction action, JsonGenerator generator, SerializerProvider provider) throws IOException
+        {
+            generator.writeStartObject();
+            if (action.getAction() != null)
+            {
+                generator.writeStringField("action", action.getAction().toString());
+            }
+            writeStringFieldIfPresent(generator, "file_path", action.getFilePath());
+            writeStringFieldIfPresent(generator, "previous_path", action.getPreviousPath());
+            if (action.binaryContent != null)
+            {
+                generator.writeFieldName("content");
+                generator.writeBinary(action.binaryContent);
+            }
+            else
+            {
+                writeStringFieldIfPresent(generator, "content", action.getContent());
+            }
+            if (action.getEncoding() != null)
+            {
+                generator.writeStringField("encoding", action.getEncoding().toString());
+            }
+            writeStringFieldIfPresent(generator, "last_commit_id", action.getLastCommitId());
+            if (action.getExecuteFilemode() != null)
+            {
+                generator.writeBooleanField("execute_filemode", action.getExecuteFilemode());
+            }
+            generator.writeEndObject();
+        }
+
+        private static void writeStringFieldIfPresent(JsonGenerator generator, String name, String value) throws IOException
+        {
+            if (value != null)
+            {
+                generator.writeStringField(name, value);
+            }
+        }
+    }
+}
@@ -21,8 +21,12 @@ import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Maps;
 import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.ImmutableList;
 import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.list.primitive.MutableIntList;
+import org.eclipse.collections.api.map.MutableMap;
 import org.eclipse.collections.api.set.MutableSet;
+import org.eclipse.collections.impl.factory.primitive.IntLists;
 import org.finos.legend.sdlc.domain.model.project.ProjectType;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
 import org.finos.legend.sdlc.domain.model.revision.Revision;
@@ -30,6 +34,7 @@ import org.finos.legend.sdlc.domain.model.revision.RevisionAlias;
 import org.finos.legend.sdlc.domain.model.version.Version;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.GitLabApiTools;
@@ -42,6 +47,8 @@ import org.finos.legend.sdlc.server.project.ProjectFileOperation;
 import org.finos.legend.sdlc.server.project.ProjectFiles;
 import org.finos.legend.sdlc.server.project.ProjectPaths;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileSnapshot;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.finos.legend.sdlc.server.tools.IOTools;
 import org.finos.legend.sdlc.server.tools.StringTools;
@@ -78,13 +85,17 @@ import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.Response.Status.Family;
@@ -94,14 +105,17 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
     private static final Logger LOGGER = LoggerFactory.getLogger(GitLabApiWithFileAccess.class);
 
     private static final int MAX_COMMIT_SIZE = 512;
+    private static final long MAX_COMMIT_BYTES = 16L * 1024 * 1024;
     private static final int MAX_COMMIT_RETRIES = 10;
 
     private final BackgroundTaskProcessor backgroundTaskProcessor;
+    private final ProjectFileCache projectFileCache;
 
-    protected GitLabApiWithFileAccess(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    protected GitLabApiWithFileAccess(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
         super(userContext);
         this.backgroundTaskProcessor = backgroundTaskProcessor;
+        this.projectFileCache = projectFileCache;
     }
 
     protected ProjectConfiguration getProjectConfiguration(String projectId, String workspaceId, String revisionId, ProjectFileAccessProvider.WorkspaceAccessType workspaceAccessType)
@@ -136,6 +150,11 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
         return new GitLabProjectFileAccessProvider();
     }
 
+    private ProjectFileCache getProjectFileCache()
+    {
+        return ((this.projectFileCache == null) || !this.projectFileCache.isEnabled()) ? null : this.projectFileCache;
+    }
+
     private String getCurrentRevisionId(GitLabProjectId projectId, String workspaceId, ProjectFileAccessProvider.WorkspaceAccessType workspaceAccessType)
     {
         Revision revision = new GitLabRevisionAccessContext(projectId, workspaceId, workspaceAccessType, null).getCurrentRevision();
@@ -184,6 +203,7 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
     private abstract class AbstractGitLabFileAccessContext extends AbstractFileAccessContext
     {
         protected final GitLabProjectId projectId;
+        private volatile String commitId;
 
         AbstractGitLabFileAccessContext(GitLabProjectId projectId)
         {
@@ -238,34 +258,83 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
                     () -> "Failed to access files for " + getDescriptionForExceptionMessage());
         }
 
-        private Stream<ProjectFileAccessProvider.ProjectFile> getFilesFromRepoArchive(MutableList<String> directories) throws GitLabApiException, IOException
+        @Override
+        protected Stream<String> getFilePathsInCanonicalDirectories(MutableList<String> directories)
         {
-            InputStream inStream = null;
-            ArchiveInputStream archiveInputStream = null;
             try
             {
-                String referenceId = getReference();
-                RepositoryApi repositoryApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryApi();
-                inStream = withRetries(() -> repositoryApi.getRepositoryArchive(this.projectId.getGitLabId(), referenceId));
-                archiveInputStream = new TarArchiveInputStream(new GzipCompressorInputStream(inStream));
-                Stream<ProjectFileAccessProvider.ProjectFile> stream = IOTools.streamCloseableSpliterator(new ArchiveStreamProjectFileSpliterator(archiveInputStream), false);
-                if (directories.size() == 1)
+                ProjectFileCache cache = getProjectFileCache();
+                String commitId = (cache == null) ? null : resolveCommitId();
+                if (commitId == null)
                 {
-                    String directory = directories.get(0);
-                    if (!ProjectPaths.ROOT_DIRECTORY.equals(directory))
+                    return getFilePathsFromTrees(directories, getReference());
+                }
+
+                ProjectFileSnapshot snapshot = cache.getSnapshot(this.projectId.toString(), commitId, isPersistentReference());
+                if (snapshot != null)
+                {
+                    try
                     {
-                        stream = stream.filter(f -> f.getPath().startsWith(directory));
+                        return snapshot.getFilePathsInCanonicalDirectories(directories);
+                    }
+                    finally
+                    {
+                        snapshot.release();
                     }
                 }
-                else
+
+                ImmutableList<String> pathIndex = cache.getPathIndex(this.projectId.toString(), commitId);
+                if (pathIndex == null)
                 {
-                    stream = stream.filter(f ->
+                    try (Stream<String> paths = getFilePathsFromTrees(Lists.fixedSize.with(ProjectPaths.ROOT_DIRECTORY), commitId))
                     {
-                        String path = f.getPath();
-                        return directories.anySatisfy(path::startsWith);
-                    });
+                        pathIndex = Lists.immutable.withAll(paths.collect(Collectors.toList()));
+                    }
+                    cache.cachePathIndex(this.projectId.toString(), commitId, pathIndex);
                 }
-                return stream;
+                return ProjectFileSnapshot.filterPathsInCanonicalDirectories(pathIndex.stream(), directories);
+            }
+            catch (Exception e)
+            {
+                throw buildException(e,
+                        () -> "User " + getCurrentUser() + " is not allowed to access files for " + getDescriptionForExceptionMessage(),
+                        () -> "Unknown " + getDescriptionForExceptionMessage(),
+                        () -> "Failed to access files for " + getDescriptionForExceptionMessage());
+            }
+        }
+
+        private Stream<ProjectFileAccessProvider.ProjectFile> getFilesFromRepoArchive(MutableList<String> directories) throws Exception
+        {
+            ProjectFileCache cache = getProjectFileCache();
+            String commitId = (cache == null) ? null : resolveCommitId();
+            if (commitId == null)
+            {
+                return filterFilesInCanonicalDirectories(streamRepoArchive(getReference()), directories);
+            }
+
+            // concurrent requests for the same commit share a single archive download
+            ProjectFileSnapshot snapshot = cache.getOrLoadSnapshot(this.projectId.toString(), commitId, isPersistentReference(), () -> streamRepoArchive(commitId));
+            try
+            {
+                // the stream holds its own reference to the content of the snapshot
+                return snapshot.getFilesInCanonicalDirectories(directories);
+            }
+            finally
+            {
+                snapshot.release();
+            }
+        }
+
+        private Stream<ProjectFileAccessProvider.ProjectFile> streamRepoArchive(String referenceId) throws GitLabApiException, IOException
+        {
+            InputStream inStream = null;
+            ArchiveInputStream archiveInputStream = null;
+            try
+            {
+                RepositoryApi repositoryApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryApi();
+                inStream = withRetries(() -> repositoryApi.getRepositoryArchive(this.projectId.getGitLabId(), referenceId));
+                archiveInputStream = new TarArchiveInputStream(new GzipCompressorInputStream(inStream));
+                return IOTools.streamCloseableSpliterator(new ArchiveStreamProjectFileSpliterator(archiveInputStream), false);
             }
             catch (Exception e)
             {
@@ -295,9 +364,122 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             }
         }
 
+        private Stream<ProjectFileAccessProvider.ProjectFile> filterFilesInCanonicalDirectories(Stream<ProjectFileAccessProvider.ProjectFile> stream, MutableList<String> directories)
+        {
+            if (directories.size() == 1)
+            {
+                String directory = directories.get(0);
+                return ProjectPaths.ROOT_DIRECTORY.equals(directory) ? stream : stream.filter(f -> f.getPath().startsWith(directory));
+            }
+            return stream.filter(f ->
+            {
+                String path = f.getPath();
+                return directories.anySatisfy(path::startsWith);
+            });
+        }
+
+        /**
+         * Whether the reference for this context is persistent, such as a release tag. Files for persistent references
+         * are kept in the disk store, if there is one.
+         *
+         * @return whether the reference is persistent
+         */
+        protected boolean isPersistentReference()
+        {
+            return false;
+        }
+
+        /**
+         * Resolve the reference for this context to a commit id. This is done with the current user's credentials, so
+         * it also serves to check that the user has access to the reference before any cached content is served. If
+         * the reference cannot be found (for example, if the repository is empty), null is returned.
+         *
+         * @return commit id or null
+         */
+        private String resolveCommitId() throws GitLabApiException
+        {
+            if (this.commitId == null)
+            {
+                String referenceId = getReference();
+                CommitsApi commitsApi = getGitLabApi(this.projectId.getGitLabMode()).getCommitsApi();
+                try
+                {
+                    Commit commit = withRetries(() -> commitsApi.getCommit(this.projectId.getGitLabId(), referenceId));
+                    this.commitId = (commit == null) ? null : commit.getId();
+                }
+                catch (GitLabApiException e)
+                {
+                    if (!GitLabApiTools.isNotFoundGitLabApiException(e))
+                    {
+                        throw e;
+                    }
+                }
+            }
+            return this.commitId;
+        }
+
+        /**
+         * Get the cached snapshot for this context, but only if the commit id has already been resolved. This avoids
+         * making additional calls to GitLab just to check the cache for single file access. The caller must release
+         * the snapshot.
+         *
+         * @return cached snapshot or null
+         */
+        private ProjectFileSnapshot getResolvedSnapshot()
+        {
+            ProjectFileCache cache = getProjectFileCache();
+            String resolvedCommitId = this.commitId;
+            return ((cache == null) || (resolvedCommitId == null)) ? null : cache.getSnapshot(this.projectId.toString(), resolvedCommitId, isPersistentReference());
+        }
+
         private Stream<ProjectFileAccessProvider.ProjectFile> getFilesFromTrees(List<String> directories) throws GitLabApiException
         {
             String referenceId = getReference();
+            if ((directories.size() != 1) || !ProjectPaths.ROOT_DIRECTORY.equals(directories.get(0)))
+            {
+                // callers of a subset of the project often only read some of the files, so content is fetched lazily
+                return getFilePathsFromTrees(directories, referenceId).map(path -> ProjectFiles.newDelegatingProjectFile(path, this::getFile));
+            }
+
+            List<TreeItem> blobs;
+            try (Stream<TreeItem> stream = getTreeBlobs(directories, referenceId))
+            {
+                blobs = stream.collect(Collectors.toList());
+            }
+            if (blobs.isEmpty())
+            {
+                return Stream.empty();
+            }
+
+            // for the full project, fetch raw blob content by id (in parallel if possible) rather than fetching each
+            // file as base64 JSON; fetch threads only make the GitLab calls, and errors are handled on this thread
+            RepositoryApi repositoryApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryApi();
+            int gitLabProjectId = this.projectId.getGitLabId();
+            Function<TreeItem, FetchedBlob> fetchFunction = blob -> FetchedBlob.fetch(repositoryApi, gitLabProjectId, blob);
+            GitLabParallelFetcher fetcher = getParallelFetcher();
+            Stream<FetchedBlob> fetched = (fetcher == null) ? blobs.stream().map(fetchFunction) : fetcher.fetch(blobs, fetchFunction);
+            return fetched.map(this::toProjectFile);
+        }
+
+        private ProjectFileAccessProvider.ProjectFile toProjectFile(FetchedBlob blob)
+        {
+            if (blob.error != null)
+            {
+                throw buildException(blob.error,
+                        () -> "User " + getCurrentUser() + " is not allowed to access file " + blob.path + " for " + getDescriptionForExceptionMessage(),
+                        () -> "Unknown file " + blob.path + " for " + getDescriptionForExceptionMessage(),
+                        () -> "Error getting file " + blob.path + " for " + getDescriptionForExceptionMessage());
+            }
+            return ProjectFiles.newByteArrayProjectFile(blob.path, blob.content);
+        }
+
+        private Stream<String> getFilePathsFromTrees(List<String> directories, String referenceId) throws GitLabApiException
+        {
+            return getTreeBlobs(directories, referenceId).map(TreeItem::getPath).map(GitLabApiWithFileAccess::toCanonicalTreePath);
+        }
+
+        private Stream<TreeItem> getTreeBlobs(List<String> directories, String referenceId) throws GitLabApiException
+        {
             RepositoryApi repositoryApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryApi();
             MutableList<Pager<TreeItem>> pagers = Lists.mutable.ofInitialCapacity(directories.size());
             for (String directory : directories)
@@ -331,42 +513,32 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             }
             return pagers.stream()
                     .flatMap(PagerTools::stream)
-                    .filter(ti -> ti.getType() == TreeItem.Type.BLOB)
-                    .map(TreeItem::getPath)
-                    .map(p -> p.startsWith("/") ? p : ("/" + p))
-                    .map(path -> ProjectFiles.newDelegatingProjectFile(path, this::getFile));
+                    .filter(ti -> ti.getType() == TreeItem.Type.BLOB);
         }
 
         @Override
         public ProjectFileAccessProvider.ProjectFile getFile(String path)
         {
+            ProjectFileSnapshot snapshot = getResolvedSnapshot();
+            if (snapshot != null)
+            {
+                try
+                {
+                    return snapshot.getFile(path);
+                }
+                finally
+                {
+                    snapshot.release();
+                }
+            }
+
             String referenceId = getReference();
             try
             {
                 RepositoryFileApi repositoryFileApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryFileApi();
                 String gitLabFilePath = toGitLabFilePath(path);
                 RepositoryFile file = withRetries(() -> repositoryFileApi.getFile(this.projectId.getGitLabId(), gitLabFilePath, referenceId, true));
-                Encoding encoding = file.getEncoding();
-                if (encoding == null)
-                {
-                    throw new RuntimeException("Unknown encoding: null");
-                }
-                switch (encoding)
-                {
-                    case TEXT:
-                    {
-                        return ProjectFiles.newStringProjectFile(path, file.getContent());
-                    }
-                    case BASE64:
-                    {
-                        byte[] content = Base64.getDecoder().decode(file.getContent().getBytes(StandardCharsets.ISO_8859_1));
-                        return ProjectFiles.newByteArrayProjectFile(path, content);
-                    }
-                    default:
-                    {
-                        throw new RuntimeException("Unknown encoding: " + encoding);
-                    }
-                }
+                return fromRepositoryFile(path, file);
             }
             catch (Exception e)
             {
@@ -384,6 +556,19 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
         @Override
         public boolean fileExists(String path)
         {
+            ProjectFileSnapshot snapshot = getResolvedSnapshot();
+            if (snapshot != null)
+            {
+                try
+                {
+                    return snapshot.fileExists(path);
+                }
+                finally
+                {
+                    snapshot.release();
+                }
+            }
+
             String referenceId = getReference();
             try
             {
@@ -468,6 +653,12 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             return buildVersionTagName(this.versionId);
         }
 
+        @Override
+        protected boolean isPersistentReference()
+        {
+            return true;
+        }
+
         @Override
         protected String getDescriptionForExceptionMessage()
         {
@@ -976,39 +1167,44 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
 
         @Override
         public Revision submit(String message, List<? extends ProjectFileOperation> operations)
+        {
+            List<CommitAction> commitActions = operations.stream().map(this::fileOperationToCommitAction).collect(Collectors.toCollection(() -> Lists.mutable.ofInitialCapacity(operations.size())));
+            return submit(message, operations, commitActions);
+        }
+
+        /**
+         * Submit operations which have already been converted to commit actions (in the same order).
+         */
+        private Revision submit(String message, List<? extends ProjectFileOperation> operations, List<CommitAction> commitActions)
         {
             try
             {
                 int changeCount = operations.size();
-                List<CommitAction> commitActions = operations.stream().map(this::fileOperationToCommitAction).collect(Collectors.toCollection(() -> Lists.mutable.ofInitialCapacity(changeCount)));
                 String referenceRevisionId = this.revisionId;
-                if (commitActions.stream().anyMatch(ca -> (ca.getAction() == Action.MOVE) && (ca.getContent() == null)))
+                if (hasMoveWithoutContent(commitActions))
                 {
-                    referenceRevisionId = fillInMissingMoveContent(commitActions);
+                    referenceRevisionId = fillInMissingMoveContent(commitActions, referenceRevisionId);
                 }
                 Commit commit;
-                if (changeCount > MAX_COMMIT_SIZE)
+                if ((changeCount > MAX_COMMIT_SIZE) || (getEncodedSize(commitActions) > MAX_COMMIT_BYTES))
                 {
-                    commit = commitWithTemporaryBranch(message, commitActions, referenceRevisionId);
+                    // chunk boundaries: each chunk has at most MAX_COMMIT_SIZE actions and (unless it has a single action) at most MAX_COMMIT_BYTES of encoded content
+                    int[] chunkEnds = computeCommitChunkEnds(commitActions, MAX_COMMIT_SIZE, MAX_COMMIT_BYTES);
+                    LOGGER.debug("Committing {} changes in {} commit(s)", changeCount, chunkEnds.length);
+                    Iterator<CommitChunk> chunks = IntStream.range(0, chunkEnds.length).mapToObj(i ->
+                    {
+                        int start = (i == 0) ? 0 : chunkEnds[i - 1];
+                        return new CommitChunk(operations.subList(start, chunkEnds[i]), commitActions.subList(start, chunkEnds[i]));
+                    }).iterator();
+                    // files of the new revision are cached as the chunks are committed
+                    commit = commitWithTemporaryBranch(message, chunks, chunkEnds.length, referenceRevisionId);
                 }
                 else
                 {
-                    // here we already assumed that we have the correct branch, if `referenceRevisionId` is not null, it means we have some
-                    // information about the state of the branch and used it to create the operations. In this case, we're making sure
-                    // that there have been NO subsequent comments since we got that information, otherwise, our operations are invalid
-                    if (referenceRevisionId != null)
-                    {
-                        LOGGER.debug("Checking that {} {} in project {} is at revision {}", this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId, referenceRevisionId);
-                        String targetBranchRevision = getCurrentRevisionId(this.projectId, this.workspaceId, this.workspaceAccessType);
-                        if (!referenceRevisionId.equals(targetBranchRevision))
-                        {
-                            String msg = "Expected " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " to be at revision " + referenceRevisionId + "; instead it was at revision " + targetBranchRevision;
-                            LOGGER.info(msg);
-                            throw new LegendSDLCServerException(msg, Status.CONFLICT);
-                        }
-                    }
-                    String branchName = getBranchName(this.workspaceId, this.workspaceAccessType);
-                    commit = getGitLabApi(this.projectId.getGitLabMode()).getCommitsApi().createCommit(this.projectId.getGitLabId(), branchName, message, null, null, null, commitActions);
+                    commit = commitDirectly(message, commitActions, referenceRevisionId);
+                    List<String> parentIds = commit.getParentIds();
+                    String baseRevisionId = ((parentIds != null) && (parentIds.size() == 1)) ? parentIds.get(0) : null;
+                    cacheCommittedFiles(baseRevisionId, commit.getId(), operations);
                 }
                 if (this.workspaceId == null)
                 {
@@ -1030,83 +1226,210 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             }
         }
 
+        /**
+         * Commit directly to the target branch. If the reference revision is not null, the operations were computed
+         * against it, so the branch is checked to still be at that revision before committing. GitLab's commits API
+         * has no branch-level compare-and-set, so this check is made with a separate lookup; to close the gap between
+         * the check and the commit, each action on an existing file also carries the last commit of that file at the
+         * reference revision (last_commit_id), which GitLab checks when it applies the commit. If any of those files
+         * has changed in the meantime, GitLab rejects the commit, and this is reported as a conflict. Only the parent
+         * reported for the new commit is trusted as its base, as files which are only created are not checked.
+         */
+        private Commit commitDirectly(String message, List<CommitAction> commitActions, String referenceRevisionId) throws GitLabApiException
+        {
+            if (referenceRevisionId != null)
+            {
+                LOGGER.debug("Checking that {} {} in project {} is at revision {}", this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId, referenceRevisionId);
+                String targetBranchRevision = getCurrentRevisionId(this.projectId, this.workspaceId, this.workspaceAccessType);
+                if (!referenceRevisionId.equals(targetBranchRevision))
+                {
+                    String msg = "Expected " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " to be at revision " + referenceRevisionId + "; instead it was at revision " + targetBranchRevision;
+                    LOGGER.info(msg);
+                    throw new LegendSDLCServerException(msg, Status.CONFLICT);
+                }
+                setLastCommitIds(commitActions, referenceRevisionId);
+            }
+            String branchName = getBranchName(this.workspaceId, this.workspaceAccessType);
+            try
+            {
+                return getGitLabApi(this.projectId.getGitLabMode()).getCommitsApi().createCommit(this.projectId.getGitLabId(), branchName, message, null, null, null, commitActions);
+            }
+            catch (GitLabApiException e)
+            {
+                if (isFileChangedException(e))
+                {
+                    String msg = "Files in " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " changed after revision " + referenceRevisionId + ": " + e.getMessage();
+                    LOGGER.info(msg);
+                    throw new LegendSDLCServerException(msg, Status.CONFLICT, e);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * Set the last commit id for each action which changes a file existing at the reference revision: that is,
+         * each update, delete, or move of a file which is not created or moved to by an earlier action. The last
+         * commits are fetched in parallel where possible. A file whose last commit cannot be fetched is left without
+         * one, and GitLab then reports any error with the action itself.
+         */
+        private void setLastCommitIds(List<CommitAction> commitActions, String referenceRevisionId)
+        {
+            MutableMap<String, MutableList<CommitAction>> actionsByPath = Maps.mutable.empty();
+            MutableSet<String> actionPaths = Sets.mutable.empty();
+            for (CommitAction commitAction : commitActions)
+            {
+                String existingPath = (Action.MOVE == commitAction.getAction()) ? commitAction.getPreviousPath() :
+                        ((Action.UPDATE == commitAction.getAction()) || (Action.DELETE == commitAction.getAction())) ? commitAction.getFilePath() :
+                        null;
+                if ((existingPath != null) && !actionPaths.contains(existingPath))
+                {
+                    actionsByPath.getIfAbsentPut(existingPath, Lists.mutable::empty).add(commitAction);
+                }
+                if (commitAction.getPreviousPath() != null)
+                {
+                    actionPaths.add(commitAction.getPreviousPath());
+                }
+                actionPaths.add(commitAction.getFilePath());
+            }
+            if (actionsByPath.isEmpty())
+            {
+                return;
+            }
+
+            // the API is resolved on this thread, as the fetch threads have no user context
+            RepositoryFileApi repositoryFileApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryFileApi();
+            int gitLabProjectId = this.projectId.getGitLabId();
+            MutableList<String> paths = Lists.mutable.withAll(actionsByPath.keySet());
+            Function<String, FetchedFile> fetchFunction = gitLabFilePath -> FetchedFile.fetch(repositoryFileApi, gitLabProjectId, gitLabFilePath, referenceRevisionId, false);
+            GitLabParallelFetcher fetcher = getParallelFetcher();
+            try (Stream<FetchedFile> files = (fetcher == null) ? paths.stream().map(fetchFunction) : fetcher.fetch(paths, fetchFunction))
+            {
+                files.forEachOrdered(file ->
+                {
+                    if ((file.file != null) && (file.file.getLastCommitId() != null))
+                    {
+                        actionsByPath.get(file.path).forEach(a -> a.setLastCommitId(file.file.getLastCommitId()));
+                    }
+                    else
+                    {
+                        LOGGER.debug("Could not get last commit of {} at revision {} in project {}", file.path, referenceRevisionId, this.projectId, file.error);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Add the files of a new commit to the project file cache, derived from the files of its base revision (if
+         * they are cached) and the operations applied to it. This means a read straight after a commit does not need
+         * to download the repository archive for the new commit.
+         */
+        private void cacheCommittedFiles(String baseRevisionId, String commitId, List<? extends ProjectFileOperation> operations)
+        {
+            ProjectFileCache cache = getProjectFileCache();
+            if ((cache == null) || (baseRevisionId == null) || (commitId == null))
+            {
+                return;
+            }
+            try
+            {
+                ProjectFileSnapshot snapshot = cache.cacheDerivedSnapshot(this.projectId.toString(), baseRevisionId, commitId, operations);
+                if (snapshot != null)
+                {
+                    snapshot.release();
+                    LOGGER.debug("Cached files for commit {} in project {}, derived from revision {}", commitId, this.projectId, baseRevisionId);
+                }
+            }
+            catch (Exception e)
+            {
+                // the commit has been made, so failure to cache its files should not fail the request
+                LOGGER.warn("Error caching files for commit {} in project {}", commitId, this.projectId, e);
+            }
+        }
+
         private CommitAction fileOperationToCommitAction(ProjectFileOperation fileOperation)
         {
             if (fileOperation instanceof ProjectFileOperation.AddFile)
             {
-                return new CommitAction()
+                return new BinaryContentCommitAction()
+                        .withBinaryContent(((ProjectFileOperation.AddFile) fileOperation).getContent())
                         .withAction(Action.CREATE)
-                        .withFilePath(fileOperation.getPath())
-                        .withEncoding(Encoding.BASE64)
-                        .withContent(encodeBase64(((ProjectFileOperation.AddFile) fileOperation).getContent()));
+                        .withFilePath(fileOperation.getPath());
             }
             if (fileOperation instanceof ProjectFileOperation.ModifyFile)
             {
-                return new CommitAction()
+                return new BinaryContentCommitAction()
+                        .withBinaryContent(((ProjectFileOperation.ModifyFile) fileOperation).getNewContent())
                         .withAction(Action.UPDATE)
-                        .withFilePath(toGitLabFilePath(fileOperation.getPath()))
-                        .withEncoding(Encoding.BASE64)
-                        .withContent(encodeBase64(((ProjectFileOperation.ModifyFile) fileOperation).getNewContent()));
+                        .withFilePath(toGitLabFilePath(fileOperation.getPath()));
             }
             if (fileOperation instanceof ProjectFileOperation.DeleteFile)
             {
-                return new CommitAction()
+                return new BinaryContentCommitAction()
                         .withAction(Action.DELETE)
                         .withFilePath(toGitLabFilePath(fileOperation.getPath()));
             }
             if (fileOperation instanceof ProjectFileOperation.MoveFile)
             {
                 ProjectFileOperation.MoveFile moveFileOperation = (ProjectFileOperation.MoveFile) fileOperation;
-                CommitAction commitAction = new CommitAction()
+                return new BinaryContentCommitAction()
+                        .withBinaryContent(moveFileOperation.getNewContent())
                         .withAction(Action.MOVE)
                         .withPreviousPath(toGitLabFilePath(moveFileOperation.getPath()))
                         .withFilePath(toGitLabFilePath(moveFileOperation.getNewPath()));
+            }
+            throw new IllegalArgumentException("Unsupported project file operation: " + fileOperation);
+        }
 
-                byte[] newContent = moveFileOperation.getNewContent();
-                if (newContent != null)
+        private String fillInMissingMoveContent(List<? extends CommitAction> commitActions, String revisionId) throws GitLabApiException
+        {
+            String referenceRevisionId = revisionId;
+
+            // find the moves which need content from the reference revision (rather than from a previous commit action)
+            MutableList<String> pathsFromRevision = Lists.mutable.empty();
+            MutableSet<String> actionPaths = Sets.mutable.empty();
+            for (CommitAction commitAction : commitActions)
+            {
+                if (Action.MOVE == commitAction.getAction())
                 {
-                    commitAction.setEncoding(Encoding.BASE64);
-                    commitAction.setContent(encodeBase64(newContent));
+                    if (!BinaryContentCommitAction.hasContent(commitAction) && !actionPaths.contains(commitAction.getPreviousPath()))
+                    {
+                        pathsFromRevision.add(commitAction.getPreviousPath());
+                    }
+                    actionPaths.add(commitAction.getPreviousPath());
                 }
+                actionPaths.add(commitAction.getFilePath());
+            }
 
-                return commitAction;
+            Map<String, CommitAction> contentFromRevision = Collections.emptyMap();
+            if (pathsFromRevision.notEmpty())
+            {
+                if (referenceRevisionId == null)
+                {
+                    referenceRevisionId = getCurrentRevisionId(this.projectId, this.workspaceId, this.workspaceAccessType);
+                    LOGGER.debug("Using current revision ({}) as reference revision for filling in content for move operations", referenceRevisionId);
+                }
+                contentFromRevision = getFileContents(pathsFromRevision.distinct(), referenceRevisionId);
             }
-            throw new IllegalArgumentException("Unsupported project file operation: " + fileOperation);
-        }
 
-        private String fillInMissingMoveContent(List<? extends CommitAction> commitActions) throws GitLabApiException
-        {
-            String referenceRevisionId = this.revisionId;
             // Note: we index move actions by both previous and new path
             Map<String, List<CommitAction>> commitActionsByPath = Maps.mutable.empty();
             for (CommitAction commitAction : commitActions)
             {
                 if (Action.MOVE == commitAction.getAction())
                 {
-                    String content = commitAction.getContent();
-                    if (content == null)
+                    if (!BinaryContentCommitAction.hasContent(commitAction))
                     {
                         List<CommitAction> previousCommitActionsForPath = commitActionsByPath.getOrDefault(commitAction.getPreviousPath(), Collections.emptyList());
                         if (previousCommitActionsForPath.isEmpty())
                         {
-                            if (referenceRevisionId == null)
-                            {
-                                referenceRevisionId = getCurrentRevisionId(this.projectId, this.workspaceId, this.workspaceAccessType);
-                                LOGGER.debug("Using current revision ({}) as reference revision for filling in content for move operations", referenceRevisionId);
-                            }
                             LOGGER.debug("Getting content for move from {} to {} from revision {}", commitAction.getPreviousPath(), commitAction.getFilePath(), referenceRevisionId);
-                            // TODO handle not found case
-                            RepositoryFile file = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryFileApi().getFile(this.projectId.getGitLabId(), commitAction.getPreviousPath(), referenceRevisionId, true);
-                            commitAction.setEncoding(file.getEncoding());
-                            commitAction.setContent(file.getContent());
+                            copyContent(contentFromRevision.get(commitAction.getPreviousPath()), commitAction);
                         }
                         else
                         {
                             LOGGER.debug("Getting content for move from {} to {} from previous commit action", commitAction.getPreviousPath(), commitAction.getFilePath());
                             // TODO throw if lastCommitActionForPath.getContent is null - or make sure this case can never happen
-                            CommitAction lastCommitActionForPath = previousCommitActionsForPath.get(previousCommitActionsForPath.size() - 1);
-                            commitAction.setEncoding(lastCommitActionForPath.getEncoding());
-                            commitAction.setContent(lastCommitActionForPath.getContent());
+                            copyContent(previousCommitActionsForPath.get(previousCommitActionsForPath.size() - 1), commitAction);
                         }
                     }
                     commitActionsByPath.computeIfAbsent(commitAction.getPreviousPath(), k -> Lists.mutable.empty()).add(commitAction);
@@ -1116,31 +1439,169 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             return referenceRevisionId;
         }
 
-        private Commit commitWithTemporaryBranch(String message, List<CommitAction> commitActions, String referenceRevisionId)
+        /**
+         * Get the content of files at a revision, as commit actions holding the content. The content is taken from the
+         * cached files for the revision if there are any. Otherwise, the files are fetched from GitLab, in parallel if
+         * possible.
+         */
+        private Map<String, CommitAction> getFileContents(List<String> gitLabFilePaths, String revisionId)
         {
-            int commitActionCount = commitActions.size();
-            int commitSize = MAX_COMMIT_SIZE;
-            int totalCommitCount = ((commitActionCount - 1) / commitSize) + 1;
+            Map<String, CommitAction> contents = Maps.mutable.withInitialCapacity(gitLabFilePaths.size());
+            List<String> pathsToFetch = gitLabFilePaths;
+            ProjectFileCache cache = getProjectFileCache();
+            ProjectFileSnapshot snapshot = (cache == null) ? null : cache.getSnapshot(this.projectId.toString(), revisionId, false);
+            if (snapshot != null)
+            {
+                pathsToFetch = Lists.mutable.empty();
+                try
+                {
+                    for (String gitLabFilePath : gitLabFilePaths)
+                    {
+                        byte[] content = snapshot.getFileContent(toCanonicalTreePath(gitLabFilePath));
+                        if (content == null)
+                        {
+                            // leave it to GitLab to report the missing file
+                            pathsToFetch.add(gitLabFilePath);
+                        }
+                        else
+                        {
+                            contents.put(gitLabFilePath, new BinaryContentCommitAction().withBinaryContent(content));
+                        }
+                    }
+                }
+                finally
+                {
+                    snapshot.release();
+                }
+                LOGGER.debug("Got content for {} of {} file(s) from cached revision {}", gitLabFilePaths.size() - pathsToFetch.size(), gitLabFilePaths.size(), revisionId);
+            }
+            if (!pathsToFetch.isEmpty())
+            {
+                // the API is resolved on this thread, and errors are reported on it, as the fetch threads have no user context
+                RepositoryFileApi repositoryFileApi = getGitLabApi(this.projectId.getGitLabMode()).getRepositoryFileApi();
+                int gitLabProjectId = this.projectId.getGitLabId();
+                Function<String, FetchedFile> fetchFunction = gitLabFilePath -> FetchedFile.fetch(repositoryFileApi, gitLabProjectId, gitLabFilePath, revisionId);
+                GitLabParallelFetcher fetcher = getParallelFetcher();
+                try (Stream<FetchedFile> files = (fetcher == null) ? pathsToFetch.stream().map(fetchFunction) : fetcher.fetch(pathsToFetch, fetchFunction))
+                {
+                    files.forEachOrdered(file ->
+                    {
+                        if (file.error != null)
+                        {
+                            // TODO handle not found case
+                            throw buildException(file.error,
+                                    () -> "User " + getCurrentUser() + " is not allowed to access file " + file.path + " at revision " + revisionId + " in project " + this.projectId,
+                                    () -> "Unknown file " + file.path + " at revision " + revisionId + " in project " + this.projectId,
+                                    () -> "Error getting file " + file.path + " at revision " + revisionId + " in project " + this.projectId);
+                        }
+                        contents.put(file.path, new CommitAction().withEncoding(file.file.getEncoding()).withContent(file.file.getContent()));
+                    });
+                }
+            }
+            return contents;
+        }
+
+        private void copyContent(CommitAction source, CommitAction target)
+        {
+            if (target instanceof BinaryContentCommitAction)
+            {
+                ((BinaryContentCommitAction) target).copyContentFrom(source);
+            }
+            else
+            {
+                target.setEncoding(source.getEncoding());
+                target.setContent(source.getContent());
+            }
+        }
 
-            LOGGER.debug("Committing {} changes in {} commit(s)", commitActionCount, totalCommitCount);
+        /**
+         * Submit operations which are read incrementally from a stream. Each operation is converted to a commit action
+         * as it is read. If they all fit in a single commit, they are submitted as a list. Otherwise, they are
+         * committed to a temporary branch in chunks as they are read, so that only one chunk is held in memory at a
+         * time, and the temporary branch then replaces the target branch. Since chunks are pushed as they are read,
+         * callers should validate the operations before submitting them: an error reading the stream leaves the
+         * target branch unchanged, but the chunks read before it may already have been pushed.
+         */
+        @Override
+        public Revision submit(String message, Stream<? extends ProjectFileOperation> operations)
+        {
+            CommitChunkIterator chunks = new CommitChunkIterator(operations.iterator());
+            try
+            {
+                if (!chunks.hasNext())
+                {
+                    return null;
+                }
+                if (chunks.hasSingleChunk())
+                {
+                    CommitChunk chunk = chunks.next();
+                    return submit(message, chunk.operations, chunk.commitActions);
+                }
+            }
+            catch (OperationSourceException e)
+            {
+                throw e.getSourceException();
+            }
+            try
+            {
+                String referenceRevisionId = (this.revisionId == null) ? getCurrentRevisionId(this.projectId, this.workspaceId, this.workspaceAccessType) : this.revisionId;
+                Commit commit = commitWithTemporaryBranch(message, chunks, -1, referenceRevisionId);
+                LOGGER.debug("Committed streamed changes to {} {} in project {}: {}", this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId, commit.getId());
+                return fromGitLabCommit(commit);
+            }
+            catch (Exception e)
+            {
+                throw buildException(e,
+                        () -> "User " + getCurrentUser() + " is not allowed to perform changes on " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId,
+                        () -> "Unknown " + this.workspaceAccessType.getLabel() + " (" + this.workspaceId + ") or project (" + this.projectId + ")",
+                        () -> "Failed to perform changes on " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " (message: " + message + ")");
+            }
+        }
 
+        /**
+         * Commit chunks of commit actions to a temporary branch, which then replaces the target branch. If the total
+         * number of commits is not known in advance, it should be given as -1. Moves without content in a chunk get
+         * their content from the head of the temporary branch, so they may refer to files changed in earlier chunks.
+         * If the files of the reference revision are cached, the files of the new revision are derived from them chunk
+         * by chunk and cached once the target branch has been replaced.
+         */
+        private Commit commitWithTemporaryBranch(String message, Iterator<CommitChunk> chunks, int totalCommitCount, String referenceRevisionId)
+        {
+            ProjectFileCache cache = getProjectFileCache();
+            ProjectFileSnapshot snapshot = null;
             try (TemporaryBranch tempBranch = newTemporaryBranch(this.projectId, this.workspaceId, this.workspaceAccessType, referenceRevisionId))
             {
+                snapshot = (cache == null) ? null : cache.getSnapshot(this.projectId.toString(), tempBranch.getHeadCommitId());
                 LOGGER.debug("Committing into temporary branch for {} {} in project {}", this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId);
-                for (int i = 0, commitNumber = 1; i < commitActionCount; i += commitSize, commitNumber++)
+                for (int commitNumber = 1; chunks.hasNext(); commitNumber++)
                 {
-                    int end = Math.min(i + commitSize, commitActionCount);
-                    LOGGER.debug("Committing part {} of {}: changes {}-{}", commitNumber, totalCommitCount, i + 1, end);
-                    List<CommitAction> subList = commitActions.subList(i, end);
-                    String subMessage = (totalCommitCount > 1) ? (message + " [" + commitNumber + " / " + totalCommitCount + "]") : message;
-                    Commit commit = tempBranch.commit(subMessage, subList);
-                    LOGGER.debug("Committed part {} of {}: {}", commitNumber, totalCommitCount, commit.getId());
+                    CommitChunk chunk = chunks.next();
+                    if (hasMoveWithoutContent(chunk.commitActions))
+                    {
+                        fillInMissingMoveContent(chunk.commitActions, tempBranch.getHeadCommitId());
+                    }
+                    String part = (totalCommitCount < 0) ? String.valueOf(commitNumber) : (commitNumber + " / " + totalCommitCount);
+                    LOGGER.debug("Committing part {}: {} changes", part, chunk.commitActions.size());
+                    String subMessage = (totalCommitCount == 1) ? message : (message + " [" + part + "]");
+                    Commit commit = tempBranch.commit(subMessage, chunk.commitActions);
+                    LOGGER.debug("Committed part {}: {}", part, commit.getId());
+                    snapshot = deriveSnapshot(cache, snapshot, chunk.operations);
                 }
                 Branch newBranch = tempBranch.replaceTargetAndDelete();
                 Commit finalCommit = newBranch.getCommit();
                 LOGGER.debug("Changes from temporary branch {} merged into {} {} of project {} at revision {}", tempBranch.getBranchName(), this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId, finalCommit.getId());
+                if (snapshot != null)
+                {
+                    cache.cacheSnapshot(this.projectId.toString(), finalCommit.getId(), snapshot);
+                    LOGGER.debug("Cached files for commit {} in project {}, derived from revision {}", finalCommit.getId(), this.projectId, referenceRevisionId);
+                }
                 return finalCommit;
             }
+            catch (OperationSourceException e)
+            {
+                // errors reading the operations (such as invalid input) are reported as they are
+                throw e.getSourceException();
+            }
             catch (LegendSDLCServerException e)
             {
                 throw new LegendSDLCServerException("Error committing to " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " with a temporary branch", e.getStatus(), e);
@@ -1150,6 +1611,167 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
                 // TODO improve exception handling
                 throw new LegendSDLCServerException("Error committing to " + this.workspaceAccessType.getLabel() + " " + this.workspaceId + " in project " + this.projectId + " with a temporary branch", e);
             }
+            finally
+            {
+                if (snapshot != null)
+                {
+                    snapshot.release();
+                }
+            }
+        }
+
+        /**
+         * Derive the snapshot of the files after the given operations from the snapshot before them, releasing the
+         * latter. Returns null if there is no snapshot before the operations, if the operations are not consistent
+         * with it, or if the derived snapshot is too large to be cached.
+         */
+        private ProjectFileSnapshot deriveSnapshot(ProjectFileCache cache, ProjectFileSnapshot snapshot, List<? extends ProjectFileOperation> operations)
+        {
+            if (snapshot == null)
+            {
+                return null;
+            }
+            try
+            {
+                ProjectFileSnapshot derived = cache.deriveSnapshot(snapshot, operations);
+                if ((derived != null) && (derived.getStoredSize() > cache.getMaxSize()))
+                {
+                    derived.release();
+                    return null;
+                }
+                return derived;
+            }
+            catch (Exception e)
+            {
+                // failure to derive the files of the new revision should not fail the commit
+                LOGGER.warn("Error deriving files for changes to {} {} in project {}", this.workspaceAccessType.getLabel(), this.workspaceId, this.projectId, e);
+                return null;
+            }
+            finally
+            {
+                snapshot.release();
+            }
+        }
+
+        /**
+         * Reads file operations from a source iterator and converts each to a commit action as it is read, making
+         * chunks of at most MAX_COMMIT_SIZE actions and (unless a chunk has a single action) at most MAX_COMMIT_BYTES
+         * of encoded content. One chunk is read ahead.
+         */
+        private class CommitChunkIterator implements Iterator<CommitChunk>
+        {
+            private final Iterator<? extends ProjectFileOperation> source;
+            private CommitChunk nextChunk;
+            private ProjectFileOperation nextOperation;
+            private CommitAction nextCommitAction;
+
+            private CommitChunkIterator(Iterator<? extends ProjectFileOperation> source)
+            {
+                this.source = source;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                if (this.nextChunk == null)
+                {
+                    this.nextChunk = readChunk();
+                }
+                return this.nextChunk != null;
+            }
+
+            @Override
+            public CommitChunk next()
+            {
+                if (!hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                CommitChunk chunk = this.nextChunk;
+                this.nextChunk = null;
+                return chunk;
+            }
+
+            /**
+             * Whether the next chunk is the last one.
+             */
+            boolean hasSingleChunk()
+            {
+                return hasNext() && (this.nextOperation == null);
+            }
+
+            private CommitChunk readChunk()
+            {
+                if ((this.nextOperation == null) && !readNextOperation())
+                {
+                    return null;
+                }
+                List<ProjectFileOperation> operations = Lists.mutable.empty();
+                List<CommitAction> commitActions = Lists.mutable.empty();
+                long chunkSize = 0;
+                do
+                {
+                    operations.add(this.nextOperation);
+                    commitActions.add(this.nextCommitAction);
+                    chunkSize += BinaryContentCommitAction.getEncodedSize(this.nextCommitAction);
+                    this.nextOperation = null;
+                    this.nextCommitAction = null;
+                }
+                while (readNextOperation() && (commitActions.size() < MAX_COMMIT_SIZE) && ((chunkSize + BinaryContentCommitAction.getEncodedSize(this.nextCommitAction)) <= MAX_COMMIT_BYTES));
+                return new CommitChunk(operations, commitActions);
+            }
+
+            private boolean readNextOperation()
+            {
+                ProjectFileOperation operation;
+                try
+                {
+                    if (!this.source.hasNext())
+                    {
+                        return false;
+                    }
+                    operation = this.source.next();
+                }
+                catch (RuntimeException e)
+                {
+                    throw new OperationSourceException(e);
+                }
+                this.nextOperation = operation;
+                this.nextCommitAction = fileOperationToCommitAction(operation);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * File operations to commit together, with their commit actions.
+     */
+    private static class CommitChunk
+    {
+        private final List<? extends ProjectFileOperation> operations;
+        private final List<CommitAction> commitActions;
+
+        private CommitChunk(List<? extends ProjectFileOperation> operations, List<CommitAction> commitActions)
+        {
+            this.operations = operations;
+            this.commitActions = commitActions;
+        }
+    }
+
+    /**
+     * Wraps an exception thrown while reading file operations to submit, so that it can be told apart from errors
+     * committing them.
+     */
+    private static class OperationSourceException extends RuntimeException
+    {
+        private OperationSourceException(RuntimeException cause)
+        {
+            super(cause);
+        }
+
+        RuntimeException getSourceException()
+        {
+            return (RuntimeException) getCause();
         }
     }
 
@@ -1188,7 +1810,7 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
         this.backgroundTaskProcessor.submitRetryableTask(task, GitLabApiWithFileAccess::shouldRetryOnException, minWaitBetweenRetriesMillis, description);
     }
 
-    private String toGitLabFilePath(String path)
+    protected String toGitLabFilePath(String path)
     {
         return ((path != null) && path.startsWith("/")) ? path.substring(1) : path;
     }
@@ -1210,6 +1832,49 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
         return GitLabApiTools.isRetryableGitLabApiException(glae) || (glae.getHttpStatus() == Status.INTERNAL_SERVER_ERROR.getStatusCode());
     }
 
+    private static boolean hasMoveWithoutContent(List<? extends CommitAction> commitActions)
+    {
+        return commitActions.stream().anyMatch(ca -> (ca.getAction() == Action.MOVE) && !BinaryContentCommitAction.hasContent(ca));
+    }
+
+    private static long getEncodedSize(List<? extends CommitAction> commitActions)
+    {
+        long size = 0;
+        for (CommitAction commitAction : commitActions)
+        {
+            size += BinaryContentCommitAction.getEncodedSize(commitAction);
+        }
+        return size;
+    }
+
+    /**
+     * Split commit actions into consecutive chunks, each with at most maxActions actions and at most maxBytes of
+     * estimated encoded size. An action which is larger than maxBytes on its own makes up a chunk by itself. Returns
+     * the (exclusive) end index of each chunk.
+     */
+    static int[] computeCommitChunkEnds(List<? extends CommitAction> commitActions, int maxActions, long maxBytes)
+    {
+        MutableIntList chunkEnds = IntLists.mutable.empty();
+        int chunkStart = 0;
+        long chunkBytes = 0;
+        for (int i = 0; i < commitActions.size(); i++)
+        {
+            long actionBytes = BinaryContentCommitAction.getEncodedSize(commitActions.get(i));
+            if ((i > chunkStart) && (((i - chunkStart) >= maxActions) || ((chunkBytes + actionBytes) > maxBytes)))
+            {
+                chunkEnds.add(i);
+                chunkStart = i;
+                chunkBytes = 0;
+            }
+            chunkBytes += actionBytes;
+        }
+        if (chunkStart < commitActions.size())
+        {
+            chunkEnds.add(commitActions.size());
+        }
+        return chunkEnds.toArray();
+    }
+
     protected static boolean waitForPipelinesDeleteBranchAndVerify(GitLabApi gitLabApi, GitLabProjectId projectId, String branchName)
     {
         LOGGER.debug("Checking for pending pipelines for branch {} in project {}", branchName, projectId);
@@ -1308,6 +1973,14 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
             return this.tempBranchName;
         }
 
+        /**
+         * Get the id of the latest commit on the temporary branch, or of the reference commit if there is none yet.
+         */
+        synchronized String getHeadCommitId()
+        {
+            return (this.lastSuccessfulCommitId == null) ? this.referenceCommitId : this.lastSuccessfulCommitId;
+        }
+
         synchronized Commit commit(String message, List<CommitAction> commitActions)
         {
             checkOpen();
@@ -1530,6 +2203,104 @@ abstract class GitLabApiWithFileAccess extends BaseGitLabApi
         }
     }
 
+    private static String toCanonicalTreePath(String path)
+    {
+        return path.startsWith("/") ? path : ("/" + path);
+    }
+
+    protected static ProjectFileAccessProvider.ProjectFile fromRepositoryFile(String path, RepositoryFile file)
+    {
+        Encoding encoding = file.getEncoding();
+        if (encoding == null)
+        {
+            throw new RuntimeException("Unknown encoding: null");
+        }
+        switch (encoding)
+        {
+            case TEXT:
+            {
+                return ProjectFiles.newStringProjectFile(path, file.getContent());
+            }
+            case BASE64:
+            {
+                byte[] content = Base64.getDecoder().decode(file.getContent().getBytes(StandardCharsets.ISO_8859_1));
+                return ProjectFiles.newByteArrayProjectFile(path, content);
+            }
+            default:
+            {
+                throw new RuntimeException("Unknown encoding: " + encoding);
+            }
+        }
+    }
+
+    private static class FetchedBlob
+    {
+        private final String path;
+        private final byte[] content;
+        private final Exception error;
+
+        private FetchedBlob(String path, byte[] content, Exception error)
+        {
+            this.path = path;
+            this.content = content;
+            this.error = error;
+        }
+
+        private static FetchedBlob fetch(RepositoryApi repositoryApi, int gitLabProjectId, TreeItem blob)
+        {
+            String path = toCanonicalTreePath(blob.getPath());
+            try (InputStream stream = withRetries(() -> repositoryApi.getRawBlobContent(gitLabProjectId, blob.getId())))
+            {
+                return new FetchedBlob(path, IOTools.readAllBytes(stream), null);
+            }
+            catch (Exception e)
+            {
+                return new FetchedBlob(path, null, e);
+            }
+        }
+    }
+
+    /**
+     * Whether GitLab rejected a commit because a file it changes has a different last commit from the one given with
+     * the action (last_commit_id). GitLab reports this as a bad request, so it is recognized by its message.
+     */
+    private static boolean isFileChangedException(GitLabApiException e)
+    {
+        String message = e.getMessage();
+        return (e.getHttpStatus() == Status.BAD_REQUEST.getStatusCode()) && (message != null) && message.contains("changed since you started editing");
+    }
+
+    private static class FetchedFile
+    {
+        private final String path;
+        private final RepositoryFile file;
+        private final Exception error;
+
+        private FetchedFile(String path, RepositoryFile file, Exception error)
+        {
+            this.path = path;
+            this.file = file;
+            this.error = error;
+        }
+
+        private static FetchedFile fetch(RepositoryFileApi repositoryFileApi, int gitLabProjectId, String gitLabFilePath, String revisionId)
+        {
+            return fetch(repositoryFileApi, gitLabProjectId, gitLabFilePath, revisionId, true);
+        }
+
+        private static FetchedFile fetch(RepositoryFileApi repositoryFileApi, int gitLabProjectId, String gitLabFilePath, String revisionId, boolean includeContent)
+        {
+            try
+            {
+                return new FetchedFile(gitLabFilePath, withRetries(() -> repositoryFileApi.getFile(gitLabProjectId, gitLabFilePath, revisionId, includeContent)), null);
+            }
+            catch (Exception e)
+            {
+                return new FetchedFile(gitLabFilePath, null, e);
+            }
+        }
+    }
+
     private static class ArchiveStreamProjectFileSpliterator implements Spliterator<ProjectFileAccessProvider.ProjectFile>, Closeable
     {
         private final Object streamLock = new Object();
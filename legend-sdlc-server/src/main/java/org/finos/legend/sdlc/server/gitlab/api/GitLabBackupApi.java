@@ -20,6 +20,7 @@ import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.GitLabApiTools;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.RepositoryApi;
 import org.gitlab4j.api.models.Branch;
@@ -34,9 +35,9 @@ public class GitLabBackupApi extends GitLabApiWithFileAccess implements BackupAp
     private static final Logger LOGGER = LoggerFactory.getLogger(GitLabBackupApi.class);
 
     @Inject
-    public GitLabBackupApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabBackupApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
     }
 
     @Override
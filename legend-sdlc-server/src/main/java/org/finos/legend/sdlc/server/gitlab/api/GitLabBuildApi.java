@@ -25,6 +25,7 @@ import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.PagerTools;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.PipelineApi;
@@ -47,9 +48,9 @@ import javax.ws.rs.core.Response.Status;
 public class GitLabBuildApi extends GitLabApiWithFileAccess implements BuildApi
 {
     @Inject
-    public GitLabBuildApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabBuildApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
     }
 
     @Override
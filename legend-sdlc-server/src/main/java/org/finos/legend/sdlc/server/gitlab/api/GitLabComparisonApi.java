@@ -25,6 +25,7 @@ import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.RepositoryApi;
 import org.gitlab4j.api.models.Commit;
@@ -44,9 +45,9 @@ public class GitLabComparisonApi extends GitLabApiWithFileAccess implements Comp
     protected static final String FILE_PATH_DELIMITER = "/";
 
     @Inject
-    public GitLabComparisonApi(GitLabUserContext userContext, RevisionApi revisionApi, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabComparisonApi(GitLabUserContext userContext, RevisionApi revisionApi, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
         this.revisionApi = revisionApi;
     }
 
@@ -22,6 +22,7 @@ import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.GitLabApiTools;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.RepositoryApi;
@@ -38,9 +39,9 @@ public class GitLabConflictResolutionApi extends GitLabApiWithFileAccess impleme
     private final EntityApi entityApi;
 
     @Inject
-    public GitLabConflictResolutionApi(GitLabUserContext userContext, EntityApi entityApi, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabConflictResolutionApi(GitLabUserContext userContext, EntityApi entityApi, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
         this.entityApi = entityApi;
     }
 
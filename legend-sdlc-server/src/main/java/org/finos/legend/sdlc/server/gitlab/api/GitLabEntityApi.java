@@ -14,8 +14,14 @@
 
 package org.finos.legend.sdlc.server.gitlab.api;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.factory.Sets;
 import org.eclipse.collections.impl.utility.ListIterate;
 import org.finos.legend.sdlc.domain.model.entity.Entity;
 import org.finos.legend.sdlc.domain.model.entity.change.EntityChange;
@@ -24,6 +30,8 @@ import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
 import org.finos.legend.sdlc.server.domain.api.entity.EntityAccessContext;
 import org.finos.legend.sdlc.server.domain.api.entity.EntityApi;
+import org.finos.legend.sdlc.server.domain.api.entity.EntityJsonWriter;
+import org.finos.legend.sdlc.server.domain.api.entity.EntityJsonWriters;
 import org.finos.legend.sdlc.server.domain.api.entity.EntityModificationContext;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
@@ -31,18 +39,30 @@ import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.project.CachingFileAccessContext;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.project.ProjectFileOperationBuffer;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ParsedEntityCache;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.finos.legend.sdlc.server.tools.ParallelMapper;
 import org.finos.legend.sdlc.server.tools.StringTools;
+import org.finos.legend.sdlc.serialization.DefaultJsonEntitySerializer;
 import org.gitlab4j.api.models.DiffRef;
 import org.gitlab4j.api.models.MergeRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -52,11 +72,23 @@ import javax.ws.rs.core.Response.Status;
 public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityApi
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitLabEntityApi.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final long MAX_BUFFERED_OPERATIONS_SIZE = 16L * 1024 * 1024;
+    private static final ParallelMapper ENTITY_DESERIALIZER = ParallelMapper.newMapper(Runtime.getRuntime().availableProcessors(), "entity-deserializer");
+
+    private final ParsedEntityCache entityCache;
 
     @Inject
-    public GitLabEntityApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabEntityApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache, ParsedEntityCache entityCache)
+    {
+        super(userContext, backgroundTaskProcessor, projectFileCache);
+        this.entityCache = entityCache;
+    }
+
+    public GitLabEntityApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        this(userContext, backgroundTaskProcessor, projectFileCache, null);
     }
 
     @Override
@@ -359,7 +391,7 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
                     {
                         try
                         {
-                            return sourceDirectory.deserialize(file);
+                            return sourceDirectory.deserialize(file, GitLabEntityApi.this.entityCache);
                         }
                         catch (Exception e)
                         {
@@ -384,7 +416,7 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         @Override
         public List<Entity> getEntities(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate)
         {
-            try (Stream<EntityProjectFile> stream = getEntityProjectFiles(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate, classifierPathPredicate, entityContentPredicate))
+            try (Stream<EntityProjectFile> stream = getEntityProjectFiles(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate, classifierPathPredicate, entityContentPredicate, true))
             {
                 return stream.map(EntityProjectFile::getEntity).collect(Collectors.toList());
             }
@@ -398,10 +430,60 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
             }
         }
 
+        @Override
+        public EntityJsonWriter getEntitiesAsJson(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate)
+        {
+            List<EntityProjectFile> entityProjectFiles;
+            try (Stream<EntityProjectFile> stream = getEntityProjectFiles(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate, classifierPathPredicate, entityContentPredicate, false))
+            {
+                entityProjectFiles = stream.collect(Collectors.toList());
+                // validate all the entities before anything is written, so that invalid entities are reported as
+                // errors rather than as a truncated response
+                entityProjectFiles.forEach(EntityProjectFile::prepareToWriteJson);
+            }
+            catch (Exception e)
+            {
+                throw buildException(e,
+                        () -> "User " + getCurrentUser() + " is not allowed to get entities for " + getInfoForException(),
+                        () -> "Unknown entities for " + getInfoForException(),
+                        () -> "Failed to get entities for " + getInfoForException()
+                );
+            }
+            return outputStream ->
+            {
+                outputStream.write('[');
+                for (int i = 0; i < entityProjectFiles.size(); i++)
+                {
+                    if (i > 0)
+                    {
+                        outputStream.write(',');
+                    }
+                    entityProjectFiles.get(i).writeJson(outputStream);
+                }
+                outputStream.write(']');
+            };
+        }
+
         @Override
         public List<String> getEntityPaths(Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> entityContentPredicate)
         {
-            try (Stream<EntityProjectFile> stream = getEntityProjectFiles(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate, classifierPathPredicate, entityContentPredicate))
+            if ((classifierPathPredicate == null) && (entityContentPredicate == null))
+            {
+                // only file paths are needed, so avoid accessing file content
+                try (Stream<String> stream = getEntityPathsFromFilePaths(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate))
+                {
+                    return stream.collect(Collectors.toList());
+                }
+                catch (Exception e)
+                {
+                    throw buildException(e,
+                            () -> "User " + getCurrentUser() + " is not allowed to get entity paths for " + getInfoForException(),
+                            () -> "Unknown entity paths for " + getInfoForException(),
+                            () -> "Failed to get entity paths for " + getInfoForException()
+                    );
+                }
+            }
+            try (Stream<EntityProjectFile> stream = getEntityProjectFiles(getFileAccessContext(getProjectFileAccessProvider()), entityPathPredicate, classifierPathPredicate, entityContentPredicate, false))
             {
                 return stream.map(EntityProjectFile::getEntityPath).collect(Collectors.toList());
             }
@@ -445,6 +527,14 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
             return GitLabEntityApi.this.updateEntities(this.projectId, this.workspaceId, entities, replace, message, this.workspaceAccessType);
         }
 
+        @Override
+        public Revision updateEntities(Stream<? extends Entity> entities, boolean replace, String message)
+        {
+            LegendSDLCServerException.validateNonNull(entities, "entities may not be null");
+            LegendSDLCServerException.validateNonNull(message, "message may not be null");
+            return GitLabEntityApi.this.updateEntities(this.projectId, this.workspaceId, entities, replace, message, this.workspaceAccessType);
+        }
+
         @Override
         public Revision performChanges(List<? extends EntityChange> changes, String revisionId, String message)
         {
@@ -461,64 +551,15 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         List<String> errorMessages = Lists.mutable.empty();
         for (Entity entity : newEntities)
         {
-            if (entity == null)
-            {
-                errorMessages.add("Invalid entity: null");
-                continue;
-            }
-
-            String path = entity.getPath();
-            if (!isValidEntityPath(path))
-            {
-                errorMessages.add("Invalid entity path: \"" + path + "\"");
-                continue;
-            }
-
-            String classifierPath = entity.getClassifierPath();
-            if (!isValidClassifierPath(classifierPath))
+            if (validateNewEntityDefinition(entity, errorMessages))
             {
-                errorMessages.add("Entity: " + path + "; error: invalid classifier path \"" + classifierPath + "\"");
-            }
-
-            Map<String, ?> content = entity.getContent();
-            if (content == null)
-            {
-                errorMessages.add("Entity: " + path + "; error: missing content");
-            }
-            else if (path != null)
-            {
-                Object pkg = content.get("package");
-                Object name = content.get("name");
-                if (!(pkg instanceof String) || !(name instanceof String) || !path.equals(pkg + "::" + name))
+                String path = entity.getPath();
+                Entity oldDefinition = newEntityDefinitions.put(path, entity);
+                if (oldDefinition != null)
                 {
-                    StringBuilder builder = new StringBuilder("Entity: ").append(path).append("; mismatch between entity path and package (");
-                    if (pkg instanceof String)
-                    {
-                        builder.append('"').append(pkg).append('"');
-                    }
-                    else
-                    {
-                        builder.append(pkg);
-                    }
-                    builder.append(") and name (");
-                    if (name instanceof String)
-                    {
-                        builder.append('"').append(name).append('"');
-                    }
-                    else
-                    {
-                        builder.append(name);
-                    }
-                    builder.append(") properties");
-                    errorMessages.add(builder.toString());
+                    errorMessages.add("Entity: " + path + "; error: multiple definitions");
                 }
             }
-
-            Entity oldDefinition = newEntityDefinitions.put(path, entity);
-            if (oldDefinition != null)
-            {
-                errorMessages.add("Entity: " + path + "; error: multiple definitions");
-            }
         }
         if (!errorMessages.isEmpty())
         {
@@ -558,8 +599,10 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
                             entityChanges.add(EntityChange.newDeleteEntity(path));
                         }
                     }
-                    else
+                    else if (!epf.isSerializationOf(newDefinition))
                     {
+                        // the file is not byte for byte the serialization of the new definition, but it may still be
+                        // equivalent (e.g., if it was written by a different version of the serializer)
                         Entity entity = epf.getEntity();
                         String newClassifierPath = newDefinition.getClassifierPath();
                         Map<String, ?> newContent = newDefinition.getContent();
@@ -576,6 +619,213 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         return performChanges(projectId, workspaceId, revisionId, message, entityChanges, workspaceAccessType);
     }
 
+    /**
+     * Validate a new entity definition, adding messages for any errors found. Returns false if the definition is too
+     * invalid to be used at all (i.e., it is null or has an invalid path).
+     */
+    private static boolean validateNewEntityDefinition(Entity entity, List<String> errorMessages)
+    {
+        if (entity == null)
+        {
+            errorMessages.add("Invalid entity: null");
+            return false;
+        }
+
+        String path = entity.getPath();
+        if (!isValidEntityPath(path))
+        {
+            errorMessages.add("Invalid entity path: \"" + path + "\"");
+            return false;
+        }
+
+        String classifierPath = entity.getClassifierPath();
+        if (!isValidClassifierPath(classifierPath))
+        {
+            errorMessages.add("Entity: " + path + "; error: invalid classifier path \"" + classifierPath + "\"");
+        }
+
+        Map<String, ?> content = entity.getContent();
+        if (content == null)
+        {
+            errorMessages.add("Entity: " + path + "; error: missing content");
+        }
+        else if (path != null)
+        {
+            Object pkg = content.get("package");
+            Object name = content.get("name");
+            if (!(pkg instanceof String) || !(name instanceof String) || !path.equals(pkg + "::" + name))
+            {
+                StringBuilder builder = new StringBuilder("Entity: ").append(path).append("; mismatch between entity path and package (");
+                if (pkg instanceof String)
+                {
+                    builder.append('"').append(pkg).append('"');
+                }
+                else
+                {
+                    builder.append(pkg);
+                }
+                builder.append(") and name (");
+                if (name instanceof String)
+                {
+                    builder.append('"').append(name).append('"');
+                }
+                else
+                {
+                    builder.append(name);
+                }
+                builder.append(") properties");
+                errorMessages.add(builder.toString());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Update entities with definitions read from a stream. Each definition is validated, compared with the existing
+     * entity and (if it has changed) serialized once as it is read, and the resulting file operations are buffered
+     * (spilling to disk beyond {@link #MAX_BUFFERED_OPERATIONS_SIZE}). Only the path and a content hash of each
+     * existing entity file are held while the stream is read. Nothing is submitted until the whole stream has been
+     * read and validated, so an invalid definition anywhere in the stream leaves the workspace unchanged.
+     */
+    private Revision updateEntities(String projectId, String workspaceId, Stream<? extends Entity> newEntities, boolean replace, String message, ProjectFileAccessProvider.WorkspaceAccessType workspaceAccessType)
+    {
+        Revision currentWorkspaceRevision = getProjectFileAccessProvider().getRevisionAccessContext(projectId, workspaceId, workspaceAccessType).getCurrentRevision();
+        if (currentWorkspaceRevision == null)
+        {
+            throw new LegendSDLCServerException("Could not find current revision for " + workspaceAccessType.getLabel() + " " + workspaceId + " in project " + projectId + ": " + workspaceAccessType.getLabel() + " may be corrupt");
+        }
+        String revisionId = currentWorkspaceRevision.getId();
+        LOGGER.debug("Using revision {} for reference in streamed entity update in {} {} in project {}", revisionId, workspaceAccessType.getLabel(), workspaceId, projectId);
+
+        ProjectFileAccessProvider.FileAccessContext fileAccessContext = getProjectFileAccessProvider().getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId);
+        ProjectStructure projectStructure = ProjectStructure.getProjectStructure(fileAccessContext);
+
+        // existing entity files by entity path; files are removed as new definitions are read, so that those left at
+        // the end are the ones with no new definition
+        Map<String, ExistingEntityFile> existingFiles = Maps.mutable.empty();
+        try (Stream<EntityProjectFile> stream = getEntityProjectFiles(fileAccessContext))
+        {
+            stream.forEach(epf -> existingFiles.putIfAbsent(epf.getEntityPath(), new ExistingEntityFile(epf)));
+        }
+
+        try (ProjectFileOperationBuffer operations = ProjectFileOperationBuffer.newBuffer(MAX_BUFFERED_OPERATIONS_SIZE))
+        {
+            Set<String> definedPaths = Sets.mutable.empty();
+            List<String> errorMessages = Lists.mutable.empty();
+            newEntities.forEach(definition ->
+            {
+                if (!validateNewEntityDefinition(definition, errorMessages))
+                {
+                    return;
+                }
+                String path = definition.getPath();
+                if (!definedPaths.add(path))
+                {
+                    errorMessages.add("Entity: " + path + "; error: multiple definitions");
+                    return;
+                }
+                ExistingEntityFile existingFile = existingFiles.remove(path);
+                if (!errorMessages.isEmpty())
+                {
+                    // nothing will be committed, so there is no need to compute the change
+                    return;
+                }
+                ProjectFileOperation operation = getUpdateOperation(definition, existingFile, projectStructure, fileAccessContext, errorMessages);
+                if (operation != null)
+                {
+                    try
+                    {
+                        operations.add(operation);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            if (!errorMessages.isEmpty())
+            {
+                throw new LegendSDLCServerException((errorMessages.size() == 1) ? errorMessages.get(0) : "There are errors with entity definitions:\n\t" + String.join("\n\t", errorMessages), Status.BAD_REQUEST);
+            }
+            if (replace)
+            {
+                for (ExistingEntityFile existingFile : existingFiles.values())
+                {
+                    operations.add(ProjectFileOperation.deleteFile(existingFile.filePath));
+                }
+            }
+            existingFiles.clear();
+
+            if (operations.isEmpty())
+            {
+                LOGGER.debug("No changes for {} {} in project {}", workspaceAccessType.getLabel(), workspaceId, projectId);
+                return null;
+            }
+            LOGGER.debug("Committing {} changes to {} {} in project {}: {}", operations.size(), workspaceAccessType.getLabel(), workspaceId, projectId, message);
+            try (Stream<ProjectFileOperation> stream = operations.stream())
+            {
+                return getProjectFileAccessProvider().getFileModificationContext(projectId, workspaceId, workspaceAccessType, revisionId).submit(message, stream);
+            }
+        }
+        catch (Exception e)
+        {
+            throw buildException(e,
+                    () -> "User " + getCurrentUser() + " is not allowed to perform changes on " + workspaceAccessType.getLabel() + " " + workspaceId + " in project " + projectId,
+                    () -> "Unknown " + workspaceAccessType.getLabel() + " (" + workspaceId + ") or project (" + projectId + ")",
+                    () -> "Failed to perform changes on " + workspaceAccessType.getLabel() + " " + workspaceId + " in project " + projectId + " (message: " + message + ")");
+        }
+    }
+
+    /**
+     * Get the file operation to update an entity to a new (valid) definition, or null if the existing file already
+     * holds an equivalent entity. The new definition is serialized once, and that serialization is used both for the
+     * comparison and for the operation.
+     */
+    private ProjectFileOperation getUpdateOperation(Entity definition, ExistingEntityFile existingFile, ProjectStructure projectStructure, ProjectFileAccessProvider.FileAccessContext fileAccessContext, List<String> errorMessages)
+    {
+        String path = definition.getPath();
+        ProjectStructure.EntitySourceDirectory sourceDirectory = projectStructure.findSourceDirectoryForEntity(definition);
+        if (sourceDirectory == null)
+        {
+            errorMessages.add("Entity: " + path + "; error: cannot serialize entity");
+            return null;
+        }
+        byte[] serialized;
+        try
+        {
+            serialized = sourceDirectory.serializeToBytes(definition);
+        }
+        catch (Exception e)
+        {
+            LOGGER.debug("Error serializing entity {}", path, e);
+            errorMessages.add("Entity: " + path + "; error: cannot serialize entity (" + e.getMessage() + ")");
+            return null;
+        }
+        String filePath = sourceDirectory.entityPathToFilePath(path);
+
+        if (existingFile == null)
+        {
+            return ProjectFileOperation.addFile(filePath, serialized);
+        }
+        if (existingFile.filePath.equals(filePath) && existingFile.hasContent(serialized))
+        {
+            return null;
+        }
+
+        // the file is not byte for byte the serialization of the new definition, but it may still be equivalent
+        // (e.g., if it was written by a different version of the serializer)
+        ProjectFileAccessProvider.ProjectFile file = fileAccessContext.getFile(existingFile.filePath);
+        if (file != null)
+        {
+            Entity entity = existingFile.sourceDirectory.deserialize(file, this.entityCache);
+            if (definition.getClassifierPath().equals(entity.getClassifierPath()) && definition.getContent().equals(entity.getContent()))
+            {
+                return null;
+            }
+        }
+        return existingFile.filePath.equals(filePath) ? ProjectFileOperation.modifyFile(filePath, serialized) : ProjectFileOperation.moveFile(existingFile.filePath, filePath, serialized);
+    }
+
     private Revision performChanges(String projectId, String workspaceId, String referenceRevisionId, String message, List<? extends EntityChange> changes, ProjectFileAccessProvider.WorkspaceAccessType workspaceAccessType)
     {
         int changeCount = changes.size();
@@ -681,7 +931,11 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         return getEntityProjectFiles(getProjectFileAccessProvider().getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId));
     }
 
-    private Stream<EntityProjectFile> getEntityProjectFiles(ProjectFileAccessProvider.FileAccessContext accessContext, Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> contentPredicate)
+    /**
+     * Get entity project files, filtered by the given predicates. If deserializeEntities is true, or if there is a
+     * content predicate, entities are deserialized ahead of the consumer of the stream, in parallel.
+     */
+    private Stream<EntityProjectFile> getEntityProjectFiles(ProjectFileAccessProvider.FileAccessContext accessContext, Predicate<String> entityPathPredicate, Predicate<String> classifierPathPredicate, Predicate<? super Map<String, ?>> contentPredicate, boolean deserializeEntities)
     {
         Stream<EntityProjectFile> stream = getEntityProjectFiles(accessContext);
         if (entityPathPredicate != null)
@@ -690,7 +944,15 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         }
         if (classifierPathPredicate != null)
         {
-            stream = stream.filter(epf -> classifierPathPredicate.test(epf.getEntity().getClassifierPath()));
+            stream = stream.filter(epf -> classifierPathPredicate.test(epf.getClassifierPath()));
+        }
+        if (deserializeEntities || (contentPredicate != null))
+        {
+            stream = ENTITY_DESERIALIZER.map(stream, epf ->
+            {
+                epf.getEntity();
+                return epf;
+            });
         }
         if (contentPredicate != null)
         {
@@ -707,11 +969,20 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         return sourceDirectories.stream().flatMap(sd -> getSourceDirectoryProjectFiles(cachingAccessContext, sd));
     }
 
+    private Stream<String> getEntityPathsFromFilePaths(ProjectFileAccessProvider.FileAccessContext accessContext, Predicate<String> entityPathPredicate)
+    {
+        ProjectStructure projectStructure = ProjectStructure.getProjectStructure(accessContext);
+        Stream<String> stream = projectStructure.getEntitySourceDirectories().stream().flatMap(sd -> accessContext.getFilePathsInDirectory(sd.getDirectory())
+                .filter(sd::isPossiblyEntityFilePath)
+                .map(sd::filePathToEntityPath));
+        return (entityPathPredicate == null) ? stream : stream.filter(entityPathPredicate);
+    }
+
     private Stream<EntityProjectFile> getSourceDirectoryProjectFiles(ProjectFileAccessProvider.FileAccessContext accessContext, ProjectStructure.EntitySourceDirectory sourceDirectory)
     {
         return accessContext.getFilesInDirectory(sourceDirectory.getDirectory())
                 .filter(f -> sourceDirectory.isPossiblyEntityFilePath(f.getPath()))
-                .map(f -> new EntityProjectFile(sourceDirectory, f));
+                .map(f -> new EntityProjectFile(sourceDirectory, f, this.entityCache));
     }
 
     private static void validateEntityChanges(List<? extends EntityChange> entityChanges)
@@ -864,17 +1135,125 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
         }
     }
 
+    /**
+     * Whether the content is a valid entity file in the default JSON format for the given entity path: an object with
+     * exactly a classifierPath string and a content object, whose package and name match the entity path. This only
+     * tokenizes the content, without materializing it.
+     */
+    static boolean isValidStoredEntityJson(InputStream content, String entityPath) throws IOException
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(content))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+            {
+                return false;
+            }
+            boolean classifierPathFound = false;
+            boolean contentFound = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                String fieldName = parser.getCurrentName();
+                JsonToken valueToken = parser.nextToken();
+                if ("classifierPath".equals(fieldName) && !classifierPathFound && (valueToken == JsonToken.VALUE_STRING))
+                {
+                    classifierPathFound = true;
+                }
+                else if ("content".equals(fieldName) && !contentFound && (valueToken == JsonToken.START_OBJECT) && isValidStoredEntityContent(parser, entityPath))
+                {
+                    contentFound = true;
+                }
+                else
+                {
+                    return false;
+                }
+            }
+            return classifierPathFound && contentFound && (parser.currentToken() == JsonToken.END_OBJECT) && (parser.nextToken() == null);
+        }
+        catch (JsonProcessingException e)
+        {
+            return false;
+        }
+    }
+
+    private static boolean isValidStoredEntityContent(JsonParser parser, String entityPath) throws IOException
+    {
+        boolean pkgFound = false;
+        String pkg = null;
+        String name = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken valueToken = parser.nextToken();
+            if ("package".equals(fieldName))
+            {
+                if (pkgFound || ((valueToken != JsonToken.VALUE_STRING) && (valueToken != JsonToken.VALUE_NULL)))
+                {
+                    return false;
+                }
+                pkgFound = true;
+                pkg = (valueToken == JsonToken.VALUE_NULL) ? null : parser.getText();
+            }
+            else if ("name".equals(fieldName))
+            {
+                if ((name != null) || (valueToken != JsonToken.VALUE_STRING))
+                {
+                    return false;
+                }
+                name = parser.getText();
+            }
+            else
+            {
+                parser.skipChildren();
+            }
+        }
+        return (name != null) && entityPath.equals((pkg == null) ? name : (pkg + "::" + name));
+    }
+
+    /**
+     * Compact record of an existing entity file: its location and a hash of its content, rather than the content
+     * itself.
+     */
+    private static class ExistingEntityFile
+    {
+        private final ProjectStructure.EntitySourceDirectory sourceDirectory;
+        private final String filePath;
+        private final byte[] contentHash;
+
+        private ExistingEntityFile(EntityProjectFile epf)
+        {
+            this.sourceDirectory = epf.sourceDirectory;
+            this.filePath = epf.getFilePath();
+            this.contentHash = DigestUtils.sha256(epf.file.getContentAsBytes());
+        }
+
+        boolean hasContent(byte[] content)
+        {
+            return Arrays.equals(this.contentHash, DigestUtils.sha256(content));
+        }
+    }
+
     private static class EntityProjectFile
     {
+        private static final byte[] PATH_PROPERTY_PREFIX = "{\"path\":".getBytes(StandardCharsets.UTF_8);
+
         private final ProjectStructure.EntitySourceDirectory sourceDirectory;
         private final ProjectFileAccessProvider.ProjectFile file;
+        private final ParsedEntityCache entityCache;
         private String path;
+        private String classifierPath;
         private Entity entity;
+        private boolean storedJsonValid = false;
 
-        private EntityProjectFile(ProjectStructure.EntitySourceDirectory sourceDirectory, ProjectFileAccessProvider.ProjectFile file)
+        private EntityProjectFile(ProjectStructure.EntitySourceDirectory sourceDirectory, ProjectFileAccessProvider.ProjectFile file, ParsedEntityCache entityCache)
         {
             this.sourceDirectory = sourceDirectory;
             this.file = file;
+            this.entityCache = entityCache;
+        }
+
+        String getFilePath()
+        {
+            return this.file.getPath();
         }
 
         synchronized String getEntityPath()
@@ -886,11 +1265,24 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
             return this.path;
         }
 
+        synchronized String getClassifierPath()
+        {
+            if (this.entity != null)
+            {
+                return this.entity.getClassifierPath();
+            }
+            if (this.classifierPath == null)
+            {
+                this.classifierPath = this.sourceDirectory.readClassifierPath(this.file);
+            }
+            return this.classifierPath;
+        }
+
         synchronized Entity getEntity()
         {
             if (this.entity == null)
             {
-                Entity localEntity = this.sourceDirectory.deserialize(this.file);
+                Entity localEntity = this.sourceDirectory.deserialize(this.file, this.entityCache);
                 if (!Objects.equals(localEntity.getPath(), getEntityPath()))
                 {
                     throw new RuntimeException("Expected entity path " + getEntityPath() + ", found " + localEntity.getPath());
@@ -899,5 +1291,130 @@ public class GitLabEntityApi extends GitLabApiWithFileAccess implements EntityAp
             }
             return this.entity;
         }
+
+        /**
+         * Whether the content of the file is exactly the serialization of the given entity in this file's source
+         * directory. Serialization is canonical (e.g., properties are written in sorted order), so this is a cheap way
+         * to find unchanged entities without deserializing the file. If this returns false, the file may still hold an
+         * equivalent entity.
+         */
+        boolean isSerializationOf(Entity entity)
+        {
+            if (!this.sourceDirectory.canSerialize(entity))
+            {
+                return false;
+            }
+            byte[] serialized;
+            try
+            {
+                serialized = this.sourceDirectory.serializeToBytes(entity);
+            }
+            catch (Exception e)
+            {
+                LOGGER.debug("Error serializing entity {} for comparison with {}", entity.getPath(), this.file.getPath(), e);
+                return false;
+            }
+            return Arrays.equals(serialized, this.file.getContentAsBytes());
+        }
+
+        /**
+         * Prepare to write the entity as JSON, validating it so that writing can only fail with an I/O error. If the
+         * file is stored in the default JSON format and the entity has not already been deserialized, the stored JSON
+         * is checked token by token without being materialized, so that it can be copied by {@link #writeJson}.
+         * Otherwise, the entity is deserialized, which throws if it is invalid.
+         */
+        void prepareToWriteJson()
+        {
+            synchronized (this)
+            {
+                if ((this.entity != null) || this.storedJsonValid)
+                {
+                    return;
+                }
+            }
+            if ((this.sourceDirectory.getSerializer() instanceof DefaultJsonEntitySerializer) && isValidStoredJson())
+            {
+                synchronized (this)
+                {
+                    this.storedJsonValid = true;
+                }
+            }
+            else
+            {
+                getEntity();
+            }
+        }
+
+        /**
+         * Write the entity as a JSON object. If the stored JSON has been validated by {@link #prepareToWriteJson} and
+         * the entity has not already been deserialized, the stored bytes are copied after the path property without
+         * being parsed.
+         */
+        void writeJson(OutputStream stream) throws IOException
+        {
+            Entity localEntity;
+            boolean localStoredJsonValid;
+            synchronized (this)
+            {
+                localEntity = this.entity;
+                localStoredJsonValid = this.storedJsonValid;
+            }
+            if ((localEntity == null) && localStoredJsonValid && writeStoredJson(stream))
+            {
+                return;
+            }
+            EntityJsonWriters.writeEntity((localEntity == null) ? getEntity() : localEntity, stream);
+        }
+
+        private boolean isValidStoredJson()
+        {
+            try (InputStream content = this.file.getContentAsInputStream())
+            {
+                return isValidStoredEntityJson(content, getEntityPath());
+            }
+            catch (Exception e)
+            {
+                LOGGER.debug("Invalid stored JSON for entity file {}", this.file.getPath(), e);
+                return false;
+            }
+        }
+
+        private boolean writeStoredJson(OutputStream stream) throws IOException
+        {
+            try (InputStream content = this.file.getContentAsInputStream())
+            {
+                if (readNonWhitespace(content) != '{')
+                {
+                    return false;
+                }
+                int firstPropertyStart = readNonWhitespace(content);
+                if (firstPropertyStart != '"')
+                {
+                    return false;
+                }
+                stream.write(PATH_PROPERTY_PREFIX);
+                EntityJsonWriters.writeJsonString(getEntityPath(), stream);
+                stream.write(',');
+                stream.write(firstPropertyStart);
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = content.read(buffer)) != -1)
+                {
+                    stream.write(buffer, 0, read);
+                }
+                return true;
+            }
+        }
+
+        private static int readNonWhitespace(InputStream stream) throws IOException
+        {
+            int b;
+            do
+            {
+                b = stream.read();
+            }
+            while ((b == ' ') || (b == '\n') || (b == '\r') || (b == '\t'));
+            return b;
+        }
     }
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ package org.finos.legend.sdlc.server.gitlab.api;
 
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
 import org.eclipse.collections.impl.utility.Iterate;
 import org.eclipse.collections.impl.utility.ListIterate;
 import org.finos.legend.sdlc.domain.model.project.Project;
@@ -27,6 +28,7 @@ import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.server.domain.api.project.ProjectApi;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
@@ -35,11 +37,14 @@ import org.finos.legend.sdlc.server.gitlab.tools.PagerTools;
 import org.finos.legend.sdlc.server.project.ProjectConfigurationUpdateBuilder;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.project.config.ProjectCreationConfiguration;
 import org.finos.legend.sdlc.server.project.config.ProjectStructureConfiguration;
 import org.finos.legend.sdlc.server.project.extension.ProjectStructureExtensionProvider;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
 import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.RepositoryApi;
 import org.gitlab4j.api.models.AccessLevel;
@@ -76,9 +81,9 @@ public class GitLabProjectApi extends GitLabApiWithFileAccess implements Project
     private final GitLabConfiguration gitLabConfiguration;
 
     @Inject
-    public GitLabProjectApi(GitLabConfiguration gitLabConfig, GitLabUserContext userContext, ProjectStructureConfiguration projectStructureConfig, ProjectStructureExtensionProvider projectStructureExtensionProvider, GitLabConfiguration gitLabConfiguration, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabProjectApi(GitLabConfiguration gitLabConfig, GitLabUserContext userContext, ProjectStructureConfiguration projectStructureConfig, ProjectStructureExtensionProvider projectStructureExtensionProvider, GitLabConfiguration gitLabConfiguration, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
         this.gitLabConfig = gitLabConfig;
         this.projectStructureConfig = projectStructureConfig;
         this.projectStructureExtensionProvider = projectStructureExtensionProvider;
@@ -105,6 +110,54 @@ public class GitLabProjectApi extends GitLabApiWithFileAccess implements Project
         }
     }
 
+    @Override
+    public Set<String> getAccessibleProjectIds(Iterable<String> ids)
+    {
+        List<String> idList = Lists.mutable.withAll(ids);
+        GitLabParallelFetcher fetcher = getParallelFetcher();
+        if ((fetcher == null) || (idList.size() <= 1))
+        {
+            return ProjectApi.super.getAccessibleProjectIds(idList);
+        }
+
+        // project ids and APIs are resolved on this thread, as the fetch threads have no user context; any project
+        // which could not be fetched is checked again on this thread, so that errors are handled as for a single project
+        MutableList<ThrowingSupplier<org.gitlab4j.api.models.Project, GitLabApiException>> calls = ListIterate.collect(idList, id ->
+        {
+            try
+            {
+                GitLabProjectId projectId = parseProjectId(id);
+                org.gitlab4j.api.ProjectApi projectApi = getGitLabApi(projectId.getGitLabMode()).getProjectApi();
+                return () -> projectApi.getProject(projectId.getGitLabId());
+            }
+            catch (Exception e)
+            {
+                return null;
+            }
+        });
+        MutableList<org.gitlab4j.api.models.Project> gitLabProjects;
+        try (Stream<org.gitlab4j.api.models.Project> stream = fetcher.fetch(calls, GitLabProjectApi::fetchQuietly))
+        {
+            gitLabProjects = stream.collect(Collectors.toCollection(Lists.mutable::empty));
+        }
+        Set<String> accessible = Sets.mutable.empty();
+        MutableList<String> toCheck = Lists.mutable.empty();
+        ListIterate.forEachWithIndex(idList, (id, i) ->
+        {
+            org.gitlab4j.api.models.Project gitLabProject = gitLabProjects.get(i);
+            if ((gitLabProject != null) && isLegendSDLCProject(gitLabProject))
+            {
+                accessible.add(id);
+            }
+            else
+            {
+                toCheck.add(id);
+            }
+        });
+        accessible.addAll(ProjectApi.super.getAccessibleProjectIds(toCheck));
+        return accessible;
+    }
+
     @Override
     public List<Project> getProjects(boolean user, String search, Iterable<String> tags, Iterable<ProjectType> types)
     {
@@ -836,4 +889,20 @@ public class GitLabProjectApi extends GitLabApiWithFileAccess implements Project
             return this.accessRole;
         }
     }
+
+    private static org.gitlab4j.api.models.Project fetchQuietly(ThrowingSupplier<org.gitlab4j.api.models.Project, GitLabApiException> call)
+    {
+        if (call == null)
+        {
+            return null;
+        }
+        try
+        {
+            return withRetries(call);
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
 }
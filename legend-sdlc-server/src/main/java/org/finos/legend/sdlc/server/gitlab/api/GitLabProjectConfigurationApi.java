@@ -14,6 +14,9 @@
 
 package org.finos.legend.sdlc.server.gitlab.api;
 
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.impl.utility.ListIterate;
 import org.finos.legend.sdlc.domain.model.project.ProjectType;
 import org.finos.legend.sdlc.domain.model.project.configuration.ArtifactGeneration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ArtifactTypeGenerationConfiguration;
@@ -25,19 +28,29 @@ import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
 import org.finos.legend.sdlc.server.domain.api.project.ProjectConfigurationApi;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.project.ProjectConfigurationUpdateBuilder;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.project.config.ProjectStructureConfiguration;
 import org.finos.legend.sdlc.server.project.extension.ProjectStructureExtensionProvider;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
+import org.gitlab4j.api.GitLabApiException;
+import org.gitlab4j.api.RepositoryFileApi;
 import org.gitlab4j.api.models.DiffRef;
 import org.gitlab4j.api.models.MergeRequest;
+import org.gitlab4j.api.models.RepositoryFile;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.ws.rs.core.Response.Status;
 
@@ -47,9 +60,9 @@ public class GitLabProjectConfigurationApi extends GitLabApiWithFileAccess imple
     private final ProjectStructureExtensionProvider projectStructureExtensionProvider;
 
     @Inject
-    public GitLabProjectConfigurationApi(GitLabUserContext userContext, ProjectStructureConfiguration projectStructureConfig, ProjectStructureExtensionProvider projectStructureExtensionProvider, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabProjectConfigurationApi(GitLabUserContext userContext, ProjectStructureConfiguration projectStructureConfig, ProjectStructureExtensionProvider projectStructureExtensionProvider, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
         this.projectStructureConfig = projectStructureConfig;
         this.projectStructureExtensionProvider = projectStructureExtensionProvider;
     }
@@ -215,6 +228,90 @@ public class GitLabProjectConfigurationApi extends GitLabApiWithFileAccess imple
         }
     }
 
+    @Override
+    public List<ProjectConfiguration> getVersionProjectConfigurations(List<? extends ProjectDependency> dependencies)
+    {
+        GitLabParallelFetcher fetcher = getParallelFetcher();
+        if ((fetcher == null) || (dependencies.size() <= 1))
+        {
+            return ProjectConfigurationApi.super.getVersionProjectConfigurations(dependencies);
+        }
+
+        // project ids and APIs are resolved on this thread, as the fetch threads have no user context; they only fetch
+        // the configuration files, and any configuration which could not be fetched is got again on this thread, so
+        // that errors and missing files are handled as for a single version
+        String gitLabFilePath = toGitLabFilePath(ProjectStructure.PROJECT_CONFIG_PATH);
+        MutableList<ThrowingSupplier<RepositoryFile, GitLabApiException>> calls = ListIterate.collect(dependencies, d ->
+        {
+            try
+            {
+                GitLabProjectId projectId = parseProjectId(d.getProjectId());
+                RepositoryFileApi repositoryFileApi = getGitLabApi(projectId.getGitLabMode()).getRepositoryFileApi();
+                String tagName = buildVersionTagName(d.getVersionId());
+                return () -> repositoryFileApi.getFile(projectId.getGitLabId(), gitLabFilePath, tagName, true);
+            }
+            catch (Exception e)
+            {
+                return null;
+            }
+        });
+        MutableList<RepositoryFile> files;
+        try (Stream<RepositoryFile> stream = fetcher.fetch(calls, GitLabProjectConfigurationApi::fetchQuietly))
+        {
+            files = stream.collect(Collectors.toCollection(Lists.mutable::empty));
+        }
+        return ListIterate.collectWithIndex(dependencies, (d, i) ->
+        {
+            RepositoryFile file = files.get(i);
+            return (file == null) ?
+                    getVersionProjectConfiguration(d.getProjectId(), d.getVersionId()) :
+                    ProjectStructure.readProjectConfiguration(fromRepositoryFile(ProjectStructure.PROJECT_CONFIG_PATH, file));
+        });
+    }
+
+    @Override
+    public Map<String, ProjectConfiguration> getProjectRevisionProjectConfigurations(Map<String, String> revisionIds)
+    {
+        GitLabParallelFetcher fetcher = getParallelFetcher();
+        if ((fetcher == null) || (revisionIds.size() <= 1))
+        {
+            return ProjectConfigurationApi.super.getProjectRevisionProjectConfigurations(revisionIds);
+        }
+
+        // as for versions, only the configuration files are fetched on the fetch threads; revision ids are used as
+        // given, and any configuration which could not be fetched is got again on this thread
+        String gitLabFilePath = toGitLabFilePath(ProjectStructure.PROJECT_CONFIG_PATH);
+        MutableList<Map.Entry<String, String>> entries = Lists.mutable.withAll(revisionIds.entrySet());
+        MutableList<ThrowingSupplier<RepositoryFile, GitLabApiException>> calls = entries.collect(e ->
+        {
+            try
+            {
+                GitLabProjectId projectId = parseProjectId(e.getKey());
+                RepositoryFileApi repositoryFileApi = getGitLabApi(projectId.getGitLabMode()).getRepositoryFileApi();
+                String revisionId = e.getValue();
+                return () -> repositoryFileApi.getFile(projectId.getGitLabId(), gitLabFilePath, revisionId, true);
+            }
+            catch (Exception ex)
+            {
+                return null;
+            }
+        });
+        MutableList<RepositoryFile> files;
+        try (Stream<RepositoryFile> stream = fetcher.fetch(calls, GitLabProjectConfigurationApi::fetchQuietly))
+        {
+            files = stream.collect(Collectors.toCollection(Lists.mutable::empty));
+        }
+        Map<String, ProjectConfiguration> configurations = new HashMap<>();
+        entries.forEachWithIndex((e, i) ->
+        {
+            RepositoryFile file = files.get(i);
+            configurations.put(e.getKey(), (file == null) ?
+                    getProjectRevisionProjectConfiguration(e.getKey(), e.getValue()) :
+                    ProjectStructure.readProjectConfiguration(fromRepositoryFile(ProjectStructure.PROJECT_CONFIG_PATH, file)));
+        });
+        return configurations;
+    }
+
     @Override
     public ProjectConfiguration getReviewFromProjectConfiguration(String projectId, String reviewId)
     {
@@ -426,4 +523,20 @@ public class GitLabProjectConfigurationApi extends GitLabApiWithFileAccess imple
     {
         return ProjectStructure.getProjectStructure(getWorkspaceProjectConfiguration(projectId, workspaceId)).getAvailableGenerationConfigurations();
     }
-}
\ No newline at end of file
+
+    private static RepositoryFile fetchQuietly(ThrowingSupplier<RepositoryFile, GitLabApiException> call)
+    {
+        if (call == null)
+        {
+            return null;
+        }
+        try
+        {
+            return withRetries(call);
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+}
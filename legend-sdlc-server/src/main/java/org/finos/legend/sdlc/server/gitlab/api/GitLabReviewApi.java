@@ -15,9 +15,12 @@
 package org.finos.legend.sdlc.server.gitlab.api;
 
 import org.eclipse.collections.api.factory.Sets;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
 import org.finos.legend.sdlc.domain.model.review.Review;
 import org.finos.legend.sdlc.domain.model.review.ReviewState;
 import org.finos.legend.sdlc.domain.model.user.User;
+import org.finos.legend.sdlc.server.domain.api.dependency.DownstreamDependencyIndex;
+import org.finos.legend.sdlc.server.domain.api.project.ProjectConfigurationApi;
 import org.finos.legend.sdlc.server.domain.api.review.ReviewApi;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
@@ -59,10 +62,20 @@ public class GitLabReviewApi extends BaseGitLabApi implements ReviewApi
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitLabReviewApi.class);
 
+    private final ProjectConfigurationApi projectConfigurationApi;
+    private final DownstreamDependencyIndex downstreamDependencyIndex;
+
     @Inject
-    public GitLabReviewApi(GitLabUserContext userContext)
+    public GitLabReviewApi(GitLabUserContext userContext, ProjectConfigurationApi projectConfigurationApi, DownstreamDependencyIndex downstreamDependencyIndex)
     {
         super(userContext);
+        this.projectConfigurationApi = projectConfigurationApi;
+        this.downstreamDependencyIndex = downstreamDependencyIndex;
+    }
+
+    public GitLabReviewApi(GitLabUserContext userContext)
+    {
+        this(userContext, null, null);
     }
 
     @Override
@@ -466,7 +479,9 @@ public class GitLabReviewApi extends BaseGitLabApi implements ReviewApi
         // Accept
         try
         {
-            return fromGitLabMergeRequest(projectId, mergeRequestApi.acceptMergeRequest(gitLabProjectId.getGitLabId(), mergeRequest.getIid(), message, true, null, null));
+            MergeRequest acceptedMergeRequest = mergeRequestApi.acceptMergeRequest(gitLabProjectId.getGitLabId(), mergeRequest.getIid(), message, true, null, null);
+            updateDownstreamDependencyIndex(projectId, reviewId, acceptedMergeRequest);
+            return fromGitLabMergeRequest(projectId, acceptedMergeRequest);
         }
         catch (GitLabApiException e)
         {
@@ -515,6 +530,33 @@ public class GitLabReviewApi extends BaseGitLabApi implements ReviewApi
         }
     }
 
+    private void updateDownstreamDependencyIndex(String projectId, String reviewId, MergeRequest acceptedMergeRequest)
+    {
+        // The commit may have changed the project's dependencies, so they are recorded at the new revision now rather
+        // than when the project is next verified. If that fails, the project is verified on the next refresh instead;
+        // either way, the commit itself has succeeded.
+        if ((this.downstreamDependencyIndex == null) || (this.projectConfigurationApi == null))
+        {
+            return;
+        }
+        String revisionId = acceptedMergeRequest.getMergeCommitSha();
+        if (revisionId == null)
+        {
+            this.downstreamDependencyIndex.invalidate(projectId);
+            return;
+        }
+        try
+        {
+            ProjectConfiguration projectConfiguration = this.projectConfigurationApi.getProjectRevisionProjectConfiguration(projectId, revisionId);
+            this.downstreamDependencyIndex.update(projectId, revisionId, (projectConfiguration == null) ? null : projectConfiguration.getProjectDependencies());
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error indexing dependencies of project {} after committing review {}", projectId, reviewId, e);
+            this.downstreamDependencyIndex.invalidate(projectId);
+        }
+    }
+
     @Override
     public ReviewUpdateStatus getReviewUpdateStatus(String projectId, String reviewId)
     {
@@ -26,16 +26,21 @@ import org.finos.legend.sdlc.domain.model.version.Version;
 import org.finos.legend.sdlc.server.domain.api.revision.RevisionAccessContext;
 import org.finos.legend.sdlc.server.domain.api.revision.RevisionApi;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.PagerTools;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
 import org.gitlab4j.api.CommitsApi;
 import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApiException;
 import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.TagsApi;
+import org.gitlab4j.api.models.Commit;
 import org.gitlab4j.api.models.CommitRef;
 import org.gitlab4j.api.models.CommitRef.RefType;
 import org.gitlab4j.api.models.Tag;
@@ -43,20 +48,23 @@ import org.gitlab4j.api.models.Tag;
 import java.time.Instant;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.inject.Inject;
 import javax.ws.rs.core.Response.Status;
 
 public class GitLabRevisionApi extends GitLabApiWithFileAccess implements RevisionApi
 {
     @Inject
-    public GitLabRevisionApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    public GitLabRevisionApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
     }
 
     @Override
@@ -66,6 +74,55 @@ public class GitLabRevisionApi extends GitLabApiWithFileAccess implements Revisi
         return new ProjectFileRevisionAccessContextWrapper(getProjectFileAccessProvider().getRevisionAccessContext(projectId, null, ProjectFileAccessProvider.WorkspaceAccessType.WORKSPACE));
     }
 
+    @Override
+    public Map<String, String> getProjectCurrentRevisionIds(Iterable<String> projectIds)
+    {
+        MutableList<String> projectIdList = Lists.mutable.withAll(projectIds);
+        GitLabParallelFetcher fetcher = getParallelFetcher();
+        if ((fetcher == null) || (projectIdList.size() <= 1))
+        {
+            return RevisionApi.super.getProjectCurrentRevisionIds(projectIdList);
+        }
+
+        // project ids and APIs are resolved on this thread, as the fetch threads have no user context; any project
+        // whose current commit could not be fetched is got again on this thread, so that errors and projects with no
+        // commits are handled as for a single project
+        MutableList<ThrowingSupplier<Commit, GitLabApiException>> calls = projectIdList.collect(id ->
+        {
+            try
+            {
+                GitLabProjectId projectId = parseProjectId(id);
+                CommitsApi commitsApi = getGitLabApi(projectId.getGitLabMode()).getCommitsApi();
+                return () -> commitsApi.getCommit(projectId.getGitLabId(), MASTER_BRANCH);
+            }
+            catch (Exception e)
+            {
+                return null;
+            }
+        });
+        MutableList<Commit> commits;
+        try (Stream<Commit> stream = fetcher.fetch(calls, GitLabRevisionApi::fetchQuietly))
+        {
+            commits = stream.collect(Collectors.toCollection(Lists.mutable::empty));
+        }
+        Map<String, String> revisionIds = new HashMap<>();
+        MutableList<String> toGet = Lists.mutable.empty();
+        projectIdList.forEachWithIndex((id, i) ->
+        {
+            Commit commit = commits.get(i);
+            if (commit == null)
+            {
+                toGet.add(id);
+            }
+            else
+            {
+                revisionIds.put(id, commit.getId());
+            }
+        });
+        revisionIds.putAll(RevisionApi.super.getProjectCurrentRevisionIds(toGet));
+        return revisionIds;
+    }
+
     @Override
     public RevisionAccessContext getProjectEntityRevisionContext(String projectId, String entityPath)
     {
@@ -306,6 +363,22 @@ public class GitLabRevisionApi extends GitLabApiWithFileAccess implements Revisi
         }
     }
 
+    private static Commit fetchQuietly(ThrowingSupplier<Commit, GitLabApiException> call)
+    {
+        if (call == null)
+        {
+            return null;
+        }
+        try
+        {
+            return withRetries(call);
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+    }
+
     /**
      * This is a wrapper around ProjectFileAccessProvider.RevisionAccessContext. It basically directly calls all
      * methods of ProjectFileAccessProvider.RevisionAccessContext. But since that deals with files in Gitlab
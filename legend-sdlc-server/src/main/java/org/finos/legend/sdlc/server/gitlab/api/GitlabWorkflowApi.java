@@ -25,6 +25,7 @@ import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.gitlab.tools.PagerTools;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.Pager;
 import org.gitlab4j.api.PipelineApi;
@@ -46,9 +47,9 @@ import java.util.stream.StreamSupport;
 public class GitlabWorkflowApi extends GitLabApiWithFileAccess implements WorkflowApi
 {
     @Inject
-    protected GitlabWorkflowApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    protected GitlabWorkflowApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
     }
 
     @Override
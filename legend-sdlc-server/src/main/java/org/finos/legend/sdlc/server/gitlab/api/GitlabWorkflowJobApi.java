@@ -23,6 +23,7 @@ import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.gitlab.GitLabProjectId;
 import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
 import org.gitlab4j.api.JobApi;
 import org.gitlab4j.api.models.Job;
@@ -42,9 +43,9 @@ import java.util.stream.StreamSupport;
 public class GitlabWorkflowJobApi extends GitLabApiWithFileAccess implements WorkflowJobApi
 {
     @Inject
-    protected GitlabWorkflowJobApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor)
+    protected GitlabWorkflowJobApi(GitLabUserContext userContext, BackgroundTaskProcessor backgroundTaskProcessor, ProjectFileCache projectFileCache)
     {
-        super(userContext, backgroundTaskProcessor);
+        super(userContext, backgroundTaskProcessor, projectFileCache);
     }
 
     @Override
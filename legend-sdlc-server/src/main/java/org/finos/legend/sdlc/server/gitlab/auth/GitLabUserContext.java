@@ -18,6 +18,8 @@ import com.google.inject.servlet.RequestScoped;
 import org.finos.legend.sdlc.server.auth.KerberosSession;
 import org.finos.legend.sdlc.server.auth.LegendSDLCWebFilter;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabHttpTransport;
+import org.finos.legend.sdlc.server.gitlab.GitLabParallelFetcher;
 import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
 import org.finos.legend.sdlc.server.gitlab.mode.GitLabModeInfo;
 import org.finos.legend.sdlc.server.guice.UserContext;
@@ -38,11 +40,28 @@ import javax.ws.rs.core.Response.Status;
 public class GitLabUserContext extends UserContext
 {
     private final Map<GitLabMode, GitLabApi> apiCache = new EnumMap<>(GitLabMode.class);
+    private final GitLabHttpTransport transport;
 
     @Inject
-    public GitLabUserContext(HttpServletRequest httpRequest, HttpServletResponse httpResponse)
+    public GitLabUserContext(HttpServletRequest httpRequest, HttpServletResponse httpResponse, GitLabHttpTransport transport)
     {
         super(httpRequest, httpResponse);
+        this.transport = transport;
+    }
+
+    public GitLabUserContext(HttpServletRequest httpRequest, HttpServletResponse httpResponse)
+    {
+        this(httpRequest, httpResponse, null);
+    }
+
+    /**
+     * Get the process-wide parallel fetcher for GitLab calls, or null if there is none.
+     *
+     * @return parallel fetcher or null
+     */
+    public GitLabParallelFetcher getParallelFetcher()
+    {
+        return (this.transport == null) ? null : this.transport.getParallelFetcher();
     }
 
     public void gitLabAuthCallback(GitLabMode mode, String code)
@@ -110,7 +129,8 @@ public class GitLabUserContext extends UserContext
                             throw new LegendSDLCServerException("{\"message\":\"Authorization required\",\"auth_uri\":\"/auth/authorize\"}", Status.FORBIDDEN);
                         }
                     }
-                    api = new GitLabApi(ApiVersion.V4, modeInfo.getServerInfo().getGitLabURLString(), TokenType.OAUTH2_ACCESS, accessToken);
+                    String url = modeInfo.getServerInfo().getGitLabURLString();
+                    api = (this.transport == null) ? new GitLabApi(ApiVersion.V4, url, TokenType.OAUTH2_ACCESS, accessToken) : this.transport.newGitLabApi(mode, url, accessToken);
                     this.apiCache.put(mode, api);
                 }
             }
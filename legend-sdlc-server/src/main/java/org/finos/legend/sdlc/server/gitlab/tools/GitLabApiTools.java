@@ -15,6 +15,7 @@
 package org.finos.legend.sdlc.server.gitlab.tools;
 
 import org.eclipse.collections.api.factory.Lists;
+import org.finos.legend.sdlc.server.gitlab.GitLabRateLimiter;
 import org.finos.legend.sdlc.server.tools.CallUntil;
 import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
 import org.gitlab4j.api.GitLabApi;
@@ -34,6 +35,9 @@ public class GitLabApiTools
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(GitLabApiTools.class);
 
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long MAX_SERVER_RETRY_DELAY_MILLIS = 60_000L;
+
     public static <T> T callWithRetries(ThrowingSupplier<T, ? extends GitLabApiException> apiCall, int maxRetries, long waitIntervalMillis) throws GitLabApiException
     {
         return callWithRetries(apiCall, maxRetries, waitIntervalMillis, null);
@@ -47,6 +51,9 @@ public class GitLabApiTools
         }
 
         List<GitLabApiException> exceptions;
+        long serverRetryDelay;
+        // discard any delay left over from an earlier call on this thread
+        GitLabRateLimiter.takeRetryDelayMillis();
         try
         {
             return apiCall.get();
@@ -59,19 +66,21 @@ public class GitLabApiTools
             }
             exceptions = Lists.mutable.ofInitialCapacity(maxRetries + 1);
             exceptions.add(e);
+            serverRetryDelay = GitLabRateLimiter.takeRetryDelayMillis();
             LOGGER.error(getRetryableExceptionLogMessage(e, 1), e);
         }
 
         long waitInterval = initialWaitIntervalMillis;
         for (int i = 0; i < maxRetries; i++)
         {
-            // Wait
-            if (waitInterval > 0)
+            // Wait, for at least as long as GitLab advised with the last rejection
+            long wait = Math.max(waitInterval, Math.min(serverRetryDelay, MAX_SERVER_RETRY_DELAY_MILLIS));
+            if (wait > 0)
             {
-                LOGGER.debug("Waiting {} millis for attempt #{}", waitInterval, i + 2);
+                LOGGER.debug("Waiting {} millis for attempt #{}", wait, i + 2);
                 try
                 {
-                    Thread.sleep(waitInterval);
+                    Thread.sleep(wait);
                 }
                 catch (InterruptedException e)
                 {
@@ -93,6 +102,7 @@ public class GitLabApiTools
                     throw e;
                 }
                 exceptions.add(e);
+                serverRetryDelay = GitLabRateLimiter.takeRetryDelayMillis();
                 LOGGER.error(getRetryableExceptionLogMessage(e, i + 2), e);
             }
             catch (Exception e)
@@ -133,6 +143,7 @@ public class GitLabApiTools
     {
         int status = e.getHttpStatus();
         return (status == Status.REQUEST_TIMEOUT.getStatusCode()) ||
+                (status == TOO_MANY_REQUESTS) ||
                 (status == Status.BAD_GATEWAY.getStatusCode()) ||
                 (status == Status.SERVICE_UNAVAILABLE.getStatusCode()) ||
                 (status == Status.GATEWAY_TIMEOUT.getStatusCode());
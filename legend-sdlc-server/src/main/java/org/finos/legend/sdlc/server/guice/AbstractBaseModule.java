@@ -17,11 +17,17 @@ package org.finos.legend.sdlc.server.guice;
 import com.google.inject.Binder;
 import com.google.inject.Provides;
 import com.hubspot.dropwizard.guicier.DropwizardAwareModule;
+import io.dropwizard.lifecycle.Managed;
 import org.finos.legend.sdlc.server.BaseLegendSDLCServer;
 import org.finos.legend.sdlc.server.BaseServer.ServerInfo;
 import org.finos.legend.sdlc.server.config.LegendSDLCServerConfiguration;
 import org.finos.legend.sdlc.server.domain.api.dependency.DependenciesApi;
 import org.finos.legend.sdlc.server.domain.api.dependency.DependenciesApiImpl;
+import org.finos.legend.sdlc.server.domain.api.dependency.DownstreamDependencyIndex;
+import org.finos.legend.sdlc.server.domain.api.dependency.UpstreamDependencyResolver;
+import org.finos.legend.sdlc.server.gitlab.GitLabHttpTransport;
+import org.finos.legend.sdlc.server.project.cache.ParsedEntityCache;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
 import org.finos.legend.sdlc.server.project.config.ProjectStructureConfiguration;
 import org.finos.legend.sdlc.server.project.extension.DefaultProjectStructureExtensionProvider;
 import org.finos.legend.sdlc.server.project.extension.ProjectStructureExtension;
@@ -102,6 +108,10 @@ public abstract class AbstractBaseModule extends DropwizardAwareModule<LegendSDL
 {
     protected final BaseLegendSDLCServer<?> server;
     protected ProjectStructureExtensionProvider extensionProvider;
+    protected ProjectFileCache projectFileCache;
+    protected ParsedEntityCache parsedEntityCache;
+    protected DownstreamDependencyIndex downstreamDependencyIndex;
+    protected UpstreamDependencyResolver upstreamDependencyResolver;
 
     public AbstractBaseModule(BaseLegendSDLCServer<?> server)
     {
@@ -119,6 +129,9 @@ public abstract class AbstractBaseModule extends DropwizardAwareModule<LegendSDL
         binder.bind(ProjectStructureExtensionProvider.class).toProvider(this::getProjectStructureExtensionProvider);
         binder.bind(ServerInfo.class).toProvider(this.server::getServerInfo);
         binder.bind(BackgroundTaskProcessor.class).toProvider(this.server::getBackgroundTaskProcessor);
+        binder.bind(ProjectFileCache.class).toProvider(this::getProjectFileCache);
+        binder.bind(ParsedEntityCache.class).toProvider(this::getParsedEntityCache);
+        binder.bind(GitLabHttpTransport.class).toInstance(buildGitLabHttpTransport());
 
         bindResources(binder);
         bindFilters(binder);
@@ -198,6 +211,8 @@ public abstract class AbstractBaseModule extends DropwizardAwareModule<LegendSDL
     private void configureCommonApis(Binder binder)
     {
         binder.bind(DependenciesApi.class).to(DependenciesApiImpl.class);
+        binder.bind(DownstreamDependencyIndex.class).toProvider(this::getDownstreamDependencyIndex);
+        binder.bind(UpstreamDependencyResolver.class).toProvider(this::getUpstreamDependencyResolver);
     }
 
     protected abstract void configureApis(Binder binder);
@@ -246,6 +261,62 @@ public abstract class AbstractBaseModule extends DropwizardAwareModule<LegendSDL
         return new VoidProjectStructureExtensionProvider();
     }
 
+    private synchronized ProjectFileCache getProjectFileCache()
+    {
+        if (this.projectFileCache == null)
+        {
+            this.projectFileCache = ProjectFileCache.fromConfig(getConfiguration().getProjectFileCacheConfiguration());
+        }
+        return this.projectFileCache;
+    }
+
+    private synchronized ParsedEntityCache getParsedEntityCache()
+    {
+        if (this.parsedEntityCache == null)
+        {
+            this.parsedEntityCache = ParsedEntityCache.fromConfig(getConfiguration().getProjectFileCacheConfiguration());
+        }
+        return this.parsedEntityCache;
+    }
+
+    private synchronized DownstreamDependencyIndex getDownstreamDependencyIndex()
+    {
+        if (this.downstreamDependencyIndex == null)
+        {
+            this.downstreamDependencyIndex = DownstreamDependencyIndex.fromConfig(getConfiguration().getDependencyIndexConfiguration());
+        }
+        return this.downstreamDependencyIndex;
+    }
+
+    private synchronized UpstreamDependencyResolver getUpstreamDependencyResolver()
+    {
+        if (this.upstreamDependencyResolver == null)
+        {
+            this.upstreamDependencyResolver = UpstreamDependencyResolver.newResolver();
+        }
+        return this.upstreamDependencyResolver;
+    }
+
+    private GitLabHttpTransport buildGitLabHttpTransport()
+    {
+        GitLabHttpTransport transport = GitLabHttpTransport.fromConfig(getConfiguration().getGitLabConfiguration());
+        getEnvironment().lifecycle().manage(new Managed()
+        {
+            @Override
+            public void start()
+            {
+                // nothing to do
+            }
+
+            @Override
+            public void stop()
+            {
+                transport.close();
+            }
+        });
+        return transport;
+    }
+
     @Provides
     @Named("applicationName")
     public String provideApplicationName(LegendSDLCServerConfiguration configuration)
@@ -34,6 +34,12 @@ public abstract class AbstractFileAccessContext implements ProjectFileAccessProv
         return getFilesInCanonicalDirectories(Lists.fixedSize.with(ProjectPaths.canonicalizeDirectory(directory)));
     }
 
+    @Override
+    public Stream<String> getFilePathsInDirectory(String directory)
+    {
+        return getFilePathsInCanonicalDirectories(Lists.fixedSize.with(ProjectPaths.canonicalizeDirectory(directory)));
+    }
+
     @Override
     public Stream<ProjectFile> getFilesInDirectories(Stream<? extends String> directories)
     {
@@ -58,4 +64,17 @@ public abstract class AbstractFileAccessContext implements ProjectFileAccessProv
      * @return stream of project files in the given directories
      */
     protected abstract Stream<ProjectFile> getFilesInCanonicalDirectories(MutableList<String> directories);
+
+    /**
+     * Get the paths of all the files in a non-empty, canonicalized, and reduced list of directories (see
+     * {@link #getFilesInCanonicalDirectories}). By default, this gets the paths from the files, but implementations
+     * should override it if the paths can be found without accessing file content.
+     *
+     * @param directories non-empty, canonicalized, reduced list of directories
+     * @return stream of the paths of project files in the given directories
+     */
+    protected Stream<String> getFilePathsInCanonicalDirectories(MutableList<String> directories)
+    {
+        return getFilesInCanonicalDirectories(directories).map(ProjectFile::getPath);
+    }
 }
@@ -14,71 +14,89 @@
 
 package org.finos.legend.sdlc.server.project;
 
-import org.eclipse.collections.api.factory.Maps;
 import org.eclipse.collections.api.list.MutableList;
-import org.eclipse.collections.api.map.MutableMap;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.FileAccessContext;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+/**
+ * File access context which caches the files of its delegate. Individual files are cached as they are accessed. Once
+ * all files are requested, the full set of files is loaded into an immutable index sorted by path, so that the files
+ * in a directory can be found with a range lookup rather than a scan of all files. Readers never wait for the full
+ * set of files to be loaded: until it is, they are served from the files cached so far or from the delegate. The
+ * total size of the cached content is tracked, and an optional listener is told whenever it grows.
+ */
 public class CachingFileAccessContext extends AbstractFileAccessContext
 {
     private final FileAccessContext delegate;
-    private final MutableMap<String, byte[]> cache = Maps.mutable.empty();
-    private volatile boolean isCacheFull = false;
+    private final ConcurrentMap<String, byte[]> partialCache = new ConcurrentHashMap<>();
+    private final Object fillLock = new Object();
+    private final AtomicLong cachedSize = new AtomicLong();
+    private final Runnable sizeListener;
+    private volatile SortedFileIndex fullCache;
 
-    private CachingFileAccessContext(FileAccessContext delegate)
+    private CachingFileAccessContext(FileAccessContext delegate, Runnable sizeListener)
     {
         this.delegate = delegate;
+        this.sizeListener = sizeListener;
     }
 
     @Override
     protected Stream<ProjectFile> getFilesInCanonicalDirectories(MutableList<String> directories)
     {
-        fillCache();
-        Stream<Map.Entry<String, byte[]>> stream = this.cache.entrySet().stream();
-        if (directories.size() == 1)
-        {
-            String directory = directories.get(0);
-            if (!ProjectPaths.ROOT_DIRECTORY.equals(directory))
-            {
-                stream = stream.filter(f -> f.getKey().startsWith(directory));
-            }
-        }
-        else
+        SortedFileIndex index = fillCacheIfNecessary();
+        return (directories.size() == 1) ? index.getFilesInDirectory(directories.get(0)) : directories.stream().flatMap(index::getFilesInDirectory);
+    }
+
+    @Override
+    protected Stream<String> getFilePathsInCanonicalDirectories(MutableList<String> directories)
+    {
+        SortedFileIndex index = this.fullCache;
+        if (index == null)
         {
-            stream = stream.filter(f ->
-            {
-                String path = f.getKey();
-                return directories.anySatisfy(path::startsWith);
-            });
+            // avoid filling the cache just to get paths
+            return directories.stream().flatMap(this.delegate::getFilePathsInDirectory);
         }
-        return stream.map(e -> ProjectFiles.newByteArrayProjectFile(e.getKey(), e.getValue()));
+        return (directories.size() == 1) ? index.getPathsInDirectory(directories.get(0)) : directories.stream().flatMap(index::getPathsInDirectory);
     }
 
     @Override
     public ProjectFile getFile(String path)
     {
-        String canonicalPath = canonicalizePath(path);
+        String canonicalPath = ProjectPaths.canonicalizeFile(path);
         byte[] bytes;
-        if (this.isCacheFull)
+        SortedFileIndex index = this.fullCache;
+        if (index != null)
         {
-            bytes = this.cache.get(canonicalPath);
+            bytes = index.get(canonicalPath);
         }
         else
         {
-            synchronized (this.cache)
+            bytes = this.partialCache.get(canonicalPath);
+            if (bytes == null)
             {
-                bytes = this.cache.get(canonicalPath);
-                if ((bytes == null) && !this.isCacheFull)
+                ProjectFile file = this.delegate.getFile(canonicalPath);
+                if (file != null)
                 {
-                    ProjectFile file = this.delegate.getFile(canonicalPath);
-                    if (file != null)
+                    byte[] newBytes = file.getContentAsBytes();
+                    byte[] oldBytes = this.partialCache.putIfAbsent(canonicalPath, newBytes);
+                    if (oldBytes == null)
                     {
-                        bytes = file.getContentAsBytes();
-                        this.cache.put(canonicalPath, bytes);
+                        bytes = newBytes;
+                        this.cachedSize.addAndGet(newBytes.length);
+                        notifySizeListener();
+                    }
+                    else
+                    {
+                        bytes = oldBytes;
                     }
                 }
             }
@@ -86,22 +104,73 @@ public class CachingFileAccessContext extends AbstractFileAccessContext
         return (bytes == null) ? null : ProjectFiles.newByteArrayProjectFile(canonicalPath, bytes);
     }
 
+    /**
+     * Load all files from the delegate into the cache, if they have not already been loaded. Concurrent calls share a
+     * single load; calls to {@link #getFile} do not wait for it.
+     */
     public void fillCache()
     {
-        if (!this.isCacheFull)
+        fillCacheIfNecessary();
+    }
+
+    /**
+     * Get the total size in bytes of the file content cached so far.
+     *
+     * @return cached content size
+     */
+    public long getCachedSize()
+    {
+        return this.cachedSize.get();
+    }
+
+    private SortedFileIndex fillCacheIfNecessary()
+    {
+        SortedFileIndex index = this.fullCache;
+        if (index == null)
         {
-            synchronized (this.cache)
+            boolean filled = false;
+            synchronized (this.fillLock)
             {
-                if (!this.isCacheFull)
+                index = this.fullCache;
+                if (index == null)
                 {
-                    this.delegate.getFiles().forEach(pf -> this.cache.getIfAbsentPut(pf.getPath(), pf::getContentAsBytes));
-                    this.isCacheFull = true;
+                    TreeMap<String, byte[]> files = new TreeMap<>();
+                    try (Stream<ProjectFile> stream = this.delegate.getFiles())
+                    {
+                        stream.forEach(pf -> files.computeIfAbsent(pf.getPath(), p ->
+                        {
+                            byte[] cached = this.partialCache.get(p);
+                            return (cached == null) ? pf.getContentAsBytes() : cached;
+                        }));
+                    }
+                    this.fullCache = index = new SortedFileIndex(files);
+                    this.partialCache.clear();
+                    this.cachedSize.set(index.getContentSize());
+                    filled = true;
                 }
             }
+            if (filled)
+            {
+                notifySizeListener();
+            }
+        }
+        return index;
+    }
+
+    private void notifySizeListener()
+    {
+        if (this.sizeListener != null)
+        {
+            this.sizeListener.run();
         }
     }
 
     public static CachingFileAccessContext wrap(FileAccessContext fileAccessContext)
+    {
+        return wrap(fileAccessContext, null);
+    }
+
+    static CachingFileAccessContext wrap(FileAccessContext fileAccessContext, Runnable sizeListener)
     {
         if (fileAccessContext == null)
         {
@@ -111,29 +180,70 @@ public class CachingFileAccessContext extends AbstractFileAccessContext
         {
             return (CachingFileAccessContext) fileAccessContext;
         }
-        return new CachingFileAccessContext(fileAccessContext);
+        return new CachingFileAccessContext(fileAccessContext, sizeListener);
     }
 
-    private static String canonicalizePath(String path)
+    private static class SortedFileIndex
     {
-        int pathLength = path.length();
-        switch (pathLength)
+        private final String[] paths;
+        private final byte[][] contents;
+
+        private SortedFileIndex(TreeMap<String, byte[]> files)
         {
-            case 0:
+            this.paths = new String[files.size()];
+            this.contents = new byte[files.size()][];
+            int i = 0;
+            for (Map.Entry<String, byte[]> entry : files.entrySet())
             {
-                return "/";
+                this.paths[i] = entry.getKey();
+                this.contents[i] = entry.getValue();
+                i++;
             }
-            case 1:
+        }
+
+        long getContentSize()
+        {
+            long size = 0L;
+            for (byte[] content : this.contents)
             {
-                return (path.charAt(0) == '/') ? path : ("/" + path);
+                size += content.length;
             }
-            default:
+            return size;
+        }
+
+        byte[] get(String path)
+        {
+            int index = Arrays.binarySearch(this.paths, path);
+            return (index < 0) ? null : this.contents[index];
+        }
+
+        Stream<ProjectFile> getFilesInDirectory(String directory)
+        {
+            return getIndexesInDirectory(directory).mapToObj(i -> ProjectFiles.newByteArrayProjectFile(this.paths[i], this.contents[i]));
+        }
+
+        Stream<String> getPathsInDirectory(String directory)
+        {
+            return getIndexesInDirectory(directory).mapToObj(i -> this.paths[i]);
+        }
+
+        private IntStream getIndexesInDirectory(String directory)
+        {
+            if (ProjectPaths.ROOT_DIRECTORY.equals(directory))
             {
-                int lastIndex = pathLength - 1;
-                return (path.charAt(0) == '/') ?
-                        ((path.charAt(lastIndex) == '/') ? path.substring(0, lastIndex) : path) :
-                        ((path.charAt(lastIndex) == '/') ? ("/" + path.substring(0, lastIndex)) : ("/" + path));
+                return IntStream.range(0, this.paths.length);
             }
+            // paths with the directory as a prefix form a contiguous range in sorted order, which starts at the
+            // directory itself and ends before the first path greater than every path with the prefix
+            int start = lowerBound(directory);
+            int end = lowerBound(directory.substring(0, directory.length() - 1) + (char) (directory.charAt(directory.length() - 1) + 1));
+            return IntStream.range(start, end);
+        }
+
+        private int lowerBound(String key)
+        {
+            int index = Arrays.binarySearch(this.paths, key);
+            return (index < 0) ? (-index - 1) : index;
         }
     }
 }
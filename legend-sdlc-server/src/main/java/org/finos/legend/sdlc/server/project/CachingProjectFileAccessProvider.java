@@ -14,20 +14,36 @@
 
 package org.finos.legend.sdlc.server.project;
 
-import org.eclipse.collections.api.factory.Maps;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
 
-import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Project file access provider which caches file access contexts for specific revisions and versions, so that files
+ * are only loaded once for each. Contexts are created at most once per key, and creating a context for one key never
+ * blocks access to others. The cache is bounded by the total size of the file content held by its contexts (plus a
+ * fixed allowance for each context), with the least recently used evicted first. Contexts load files lazily, so each
+ * context is weighed again whenever the content it holds grows.
+ */
 class CachingProjectFileAccessProvider implements ProjectFileAccessProvider
 {
+    private static final long DEFAULT_MAX_WEIGHT = 256L * 1024 * 1024;
+    private static final int CONTEXT_WEIGHT = 1024;
+
     private final ProjectFileAccessProvider delegate;
-    private final Map<CacheKey, CachingFileAccessContext> cache = Maps.mutable.empty();
+    private final Cache<CacheKey, CachingFileAccessContext> cache;
 
-    private CachingProjectFileAccessProvider(ProjectFileAccessProvider delegate)
+    private CachingProjectFileAccessProvider(ProjectFileAccessProvider delegate, long maxWeight)
     {
         this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((CacheKey key, CachingFileAccessContext context) -> (int) Math.min(Integer.MAX_VALUE, CONTEXT_WEIGHT + context.getCachedSize()))
+                .executor(Runnable::run)
+                .build();
     }
 
     // File Access Context
@@ -40,38 +56,29 @@ class CachingProjectFileAccessProvider implements ProjectFileAccessProvider
             return this.delegate.getFileAccessContext(projectId, workspaceId, workspaceAccessType, null);
         }
 
-        CacheKey cacheKey = getCacheKey(projectId, workspaceId, revisionId);
-        synchronized (this.cache)
-        {
-            CachingFileAccessContext fileAccessContext = this.cache.get(cacheKey);
-            if (fileAccessContext == null)
-            {
-                fileAccessContext = CachingFileAccessContext.wrap(this.delegate.getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId));
-                if (fileAccessContext != null)
-                {
-                    this.cache.put(cacheKey, fileAccessContext);
-                }
-            }
-            return fileAccessContext;
-        }
+        return this.cache.get(getCacheKey(projectId, workspaceId, revisionId), k -> newContext(k, this.delegate.getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId)));
     }
 
     @Override
     public FileAccessContext getFileAccessContext(String projectId, VersionId versionId)
     {
-        CacheKey cacheKey = getCacheKey(projectId, versionId);
-        synchronized (this.cache)
+        return this.cache.get(getCacheKey(projectId, versionId), k -> newContext(k, this.delegate.getFileAccessContext(projectId, versionId)));
+    }
+
+    private CachingFileAccessContext newContext(CacheKey key, FileAccessContext delegateContext)
+    {
+        AtomicReference<CachingFileAccessContext> contextRef = new AtomicReference<>();
+        CachingFileAccessContext context = CachingFileAccessContext.wrap(delegateContext, () -> reweigh(key, contextRef.get()));
+        contextRef.set(context);
+        return context;
+    }
+
+    private void reweigh(CacheKey key, CachingFileAccessContext context)
+    {
+        // replacing the context with itself makes the cache weigh it again, and evict if it is now over its bound
+        if (context != null)
         {
-            CachingFileAccessContext fileAccessContext = this.cache.get(cacheKey);
-            if (fileAccessContext == null)
-            {
-                fileAccessContext = CachingFileAccessContext.wrap(this.delegate.getFileAccessContext(projectId, versionId));
-                if (fileAccessContext != null)
-                {
-                    this.cache.put(cacheKey, fileAccessContext);
-                }
-            }
-            return fileAccessContext;
+            this.cache.asMap().replace(key, context, context);
         }
     }
 
@@ -111,31 +118,32 @@ class CachingProjectFileAccessProvider implements ProjectFileAccessProvider
 
     public void clearCache()
     {
-        synchronized (this.cache)
-        {
-            this.cache.clear();
-        }
+        this.cache.invalidateAll();
     }
 
     public void clearCache(String projectId, String workspaceId, String revisionId)
     {
         if (revisionId != null)
         {
-            CacheKey cacheKey = getCacheKey(projectId, workspaceId, revisionId);
-            synchronized (this.cache)
-            {
-                this.cache.remove(cacheKey);
-            }
+            this.cache.invalidate(getCacheKey(projectId, workspaceId, revisionId));
         }
     }
 
     public void clearCache(String projectId, VersionId versionId)
     {
-        CacheKey cacheKey = getCacheKey(projectId, versionId);
-        synchronized (this.cache)
-        {
-            this.cache.remove(cacheKey);
-        }
+        this.cache.invalidate(getCacheKey(projectId, versionId));
+    }
+
+    long getCachedContextCount()
+    {
+        this.cache.cleanUp();
+        return this.cache.estimatedSize();
+    }
+
+    long getCachedWeight()
+    {
+        this.cache.cleanUp();
+        return this.cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L);
     }
 
     private CacheKey getCacheKey(String projectId, String workspaceId, String revisionId)
@@ -149,6 +157,11 @@ class CachingProjectFileAccessProvider implements ProjectFileAccessProvider
     }
 
     static CachingProjectFileAccessProvider wrap(ProjectFileAccessProvider projectFileAccessProvider)
+    {
+        return wrap(projectFileAccessProvider, DEFAULT_MAX_WEIGHT);
+    }
+
+    static CachingProjectFileAccessProvider wrap(ProjectFileAccessProvider projectFileAccessProvider, long maxWeight)
     {
         if (projectFileAccessProvider == null)
         {
@@ -158,7 +171,7 @@ class CachingProjectFileAccessProvider implements ProjectFileAccessProvider
         {
             return (CachingProjectFileAccessProvider)projectFileAccessProvider;
         }
-        return new CachingProjectFileAccessProvider(projectFileAccessProvider);
+        return new CachingProjectFileAccessProvider(projectFileAccessProvider, maxWeight);
     }
 
     private interface CacheKey
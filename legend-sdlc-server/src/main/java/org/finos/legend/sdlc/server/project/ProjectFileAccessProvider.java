@@ -28,6 +28,7 @@ import java.time.Instant;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public interface ProjectFileAccessProvider
@@ -140,6 +141,21 @@ public interface ProjectFileAccessProvider
          */
         Stream<ProjectFile> getFilesInDirectories(Iterable<? extends String> directories);
 
+        /**
+         * Get the paths of all files in a directory as a stream. This is equivalent to
+         * getting the paths of the files from {@link #getFilesInDirectory}, but allows
+         * implementations to avoid accessing file content. Note that this stream should
+         * be closed when no longer needed. It is strongly recommended to use a
+         * try-with-resources statement.
+         *
+         * @param directory directory path
+         * @return stream of the paths of all files in the given directory
+         */
+        default Stream<String> getFilePathsInDirectory(String directory)
+        {
+            return getFilesInDirectory(directory).map(ProjectFile::getPath);
+        }
+
         /**
          * Get a single file. Returns null if the file does not exist.
          *
@@ -451,6 +467,23 @@ public interface ProjectFileAccessProvider
     interface FileModificationContext
     {
         Revision submit(String message, List<? extends ProjectFileOperation> operations);
+
+        /**
+         * Submit operations which are read incrementally from a stream, such as operations computed from a large
+         * upload. Implementations may commit the operations in parts as they are read (while still making a single
+         * change to the project or workspace) so that they need not all be held in memory at once. If reading from the
+         * stream throws an exception, no change is made and the exception is thrown. Returns null if there are no
+         * operations.
+         *
+         * @param message    change message
+         * @param operations stream of operations
+         * @return new revision or null
+         */
+        default Revision submit(String message, Stream<? extends ProjectFileOperation> operations)
+        {
+            List<ProjectFileOperation> operationList = operations.collect(Collectors.toList());
+            return operationList.isEmpty() ? null : submit(message, operationList);
+        }
     }
 
     enum WorkspaceAccessType
@@ -0,0 +1,311 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Buffer of project file operations, for operations which must all be computed before any of them are applied. The
+ * operations are held in memory up to a maximum total size; beyond that, they are written to a temporary file, which
+ * is deleted when the buffer is closed.
+ */
+public class ProjectFileOperationBuffer implements Closeable
+{
+    private static final String TEMP_FILE_PREFIX = "legend-sdlc-operations-";
+
+    private static final byte ADD_FILE = 0;
+    private static final byte DELETE_FILE = 1;
+    private static final byte MODIFY_FILE = 2;
+    private static final byte MOVE_FILE = 3;
+
+    private final long maxMemorySize;
+    private final MutableList<ProjectFileOperation> operations = Lists.mutable.empty();
+    private long memorySize = 0L;
+    private int size = 0;
+    private Path file;
+    private DataOutputStream fileOut;
+
+    private ProjectFileOperationBuffer(long maxMemorySize)
+    {
+        this.maxMemorySize = maxMemorySize;
+    }
+
+    public void add(ProjectFileOperation operation) throws IOException
+    {
+        if (this.fileOut == null)
+        {
+            long operationSize = getSize(operation);
+            if ((this.memorySize + operationSize) <= this.maxMemorySize)
+            {
+                this.operations.add(operation);
+                this.memorySize += operationSize;
+                this.size++;
+                return;
+            }
+            this.file = Files.createTempFile(TEMP_FILE_PREFIX, null);
+            this.fileOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(this.file)));
+            for (ProjectFileOperation bufferedOperation : this.operations)
+            {
+                writeOperation(this.fileOut, bufferedOperation);
+            }
+            this.operations.clear();
+            this.memorySize = 0L;
+        }
+        writeOperation(this.fileOut, operation);
+        this.size++;
+    }
+
+    public int size()
+    {
+        return this.size;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    /**
+     * Whether the buffer holds its operations in a temporary file.
+     *
+     * @return whether the operations are on disk
+     */
+    public boolean isOnDisk()
+    {
+        return this.file != null;
+    }
+
+    /**
+     * Stream the operations in the order they were added. Operations held on disk are read back one at a time, so
+     * the stream should be closed after use.
+     *
+     * @return stream of operations
+     * @throws IOException if the temporary file cannot be read
+     */
+    public Stream<ProjectFileOperation> stream() throws IOException
+    {
+        if (this.fileOut == null)
+        {
+            return this.operations.stream();
+        }
+
+        this.fileOut.flush();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)));
+        int count = this.size;
+        Spliterator<ProjectFileOperation> spliterator = new Spliterators.AbstractSpliterator<ProjectFileOperation>(count, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED)
+        {
+            private int read = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super ProjectFileOperation> action)
+            {
+                if (this.read >= count)
+                {
+                    return false;
+                }
+                ProjectFileOperation operation;
+                try
+                {
+                    operation = readOperation(in);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                this.read++;
+                action.accept(operation);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() ->
+        {
+            try
+            {
+                in.close();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.operations.clear();
+        if (this.fileOut != null)
+        {
+            try
+            {
+                this.fileOut.close();
+            }
+            finally
+            {
+                this.fileOut = null;
+                Files.deleteIfExists(this.file);
+                this.file = null;
+            }
+        }
+    }
+
+    public static ProjectFileOperationBuffer newBuffer(long maxMemorySize)
+    {
+        if (maxMemorySize < 0)
+        {
+            throw new IllegalArgumentException("Invalid max memory size: " + maxMemorySize);
+        }
+        return new ProjectFileOperationBuffer(maxMemorySize);
+    }
+
+    private static long getSize(ProjectFileOperation operation)
+    {
+        long size = operation.getPath().length();
+        if (operation instanceof ProjectFileOperation.AddFile)
+        {
+            size += ((ProjectFileOperation.AddFile) operation).getContent().length;
+        }
+        else if (operation instanceof ProjectFileOperation.ModifyFile)
+        {
+            size += ((ProjectFileOperation.ModifyFile) operation).getNewContent().length;
+        }
+        else if (operation instanceof ProjectFileOperation.MoveFile)
+        {
+            ProjectFileOperation.MoveFile moveFile = (ProjectFileOperation.MoveFile) operation;
+            size += moveFile.getNewPath().length();
+            if (moveFile.getNewContent() != null)
+            {
+                size += moveFile.getNewContent().length;
+            }
+        }
+        return size;
+    }
+
+    private static void writeOperation(DataOutputStream out, ProjectFileOperation operation) throws IOException
+    {
+        if (operation instanceof ProjectFileOperation.AddFile)
+        {
+            out.writeByte(ADD_FILE);
+            writeString(out, operation.getPath());
+            writeBytes(out, ((ProjectFileOperation.AddFile) operation).getContent());
+        }
+        else if (operation instanceof ProjectFileOperation.DeleteFile)
+        {
+            out.writeByte(DELETE_FILE);
+            writeString(out, operation.getPath());
+        }
+        else if (operation instanceof ProjectFileOperation.ModifyFile)
+        {
+            out.writeByte(MODIFY_FILE);
+            writeString(out, operation.getPath());
+            writeBytes(out, ((ProjectFileOperation.ModifyFile) operation).getNewContent());
+        }
+        else if (operation instanceof ProjectFileOperation.MoveFile)
+        {
+            ProjectFileOperation.MoveFile moveFile = (ProjectFileOperation.MoveFile) operation;
+            out.writeByte(MOVE_FILE);
+            writeString(out, moveFile.getPath());
+            writeString(out, moveFile.getNewPath());
+            writeBytes(out, moveFile.getNewContent());
+        }
+        else
+        {
+            throw new IllegalArgumentException("Unknown project file operation: " + operation);
+        }
+    }
+
+    private static ProjectFileOperation readOperation(DataInputStream in) throws IOException
+    {
+        byte type = in.readByte();
+        switch (type)
+        {
+            case ADD_FILE:
+            {
+                return ProjectFileOperation.addFile(readString(in), readBytes(in));
+            }
+            case DELETE_FILE:
+            {
+                return ProjectFileOperation.deleteFile(readString(in));
+            }
+            case MODIFY_FILE:
+            {
+                return ProjectFileOperation.modifyFile(readString(in), readBytes(in));
+            }
+            case MOVE_FILE:
+            {
+                String path = readString(in);
+                String newPath = readString(in);
+                byte[] newContent = readBytes(in);
+                return (newContent == null) ? ProjectFileOperation.moveFile(path, newPath) : ProjectFileOperation.moveFile(path, newPath, newContent);
+            }
+            default:
+            {
+                throw new IOException("Invalid project file operation type: " + type);
+            }
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+    {
+        if (bytes == null)
+        {
+            out.writeInt(-1);
+        }
+        else
+        {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+        {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -48,6 +48,35 @@ public class ProjectPaths
         }
     }
 
+    /**
+     * Canonicalize a file path. The result starts with / and does not end with /.
+     *
+     * @param path file path
+     * @return canonicalized file path
+     */
+    public static String canonicalizeFile(String path)
+    {
+        int pathLength = path.length();
+        switch (pathLength)
+        {
+            case 0:
+            {
+                return ROOT_DIRECTORY;
+            }
+            case 1:
+            {
+                return ROOT_DIRECTORY.equals(path) ? path : (PATH_SEPARATOR + path);
+            }
+            default:
+            {
+                int lastIndex = pathLength - 1;
+                return path.startsWith(PATH_SEPARATOR) ?
+                        (path.endsWith(PATH_SEPARATOR) ? path.substring(0, lastIndex) : path) :
+                        (path.endsWith(PATH_SEPARATOR) ? (PATH_SEPARATOR + path.substring(0, lastIndex)) : (PATH_SEPARATOR + path));
+            }
+        }
+    }
+
     /**
      * Canonicalize and reduce a set of directories. In the resulting list, directory names are in a canonical form
      * (starting and ending with /), there are no duplicates, and no directory in the list is a sub-directory of any
@@ -36,11 +36,12 @@ import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependenc
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectStructureVersion;
 import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
+import org.finos.legend.sdlc.serialization.DefaultJsonEntitySerializer;
 import org.finos.legend.sdlc.serialization.EntitySerializer;
-import org.finos.legend.sdlc.serialization.EntitySerializers;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.FileAccessContext;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.cache.ParsedEntityCache;
 import org.finos.legend.sdlc.server.project.extension.ProjectStructureExtension;
 import org.finos.legend.sdlc.server.tools.StringTools;
 
@@ -114,7 +115,7 @@ public abstract class ProjectStructure
 
     protected ProjectStructure(ProjectConfiguration projectConfiguration, String entitiesDirectory)
     {
-        this(projectConfiguration, entitiesDirectory, EntitySerializers.getDefaultJsonSerializer());
+        this(projectConfiguration, entitiesDirectory, new DefaultJsonEntitySerializer(true));
     }
 
     @Override
@@ -781,7 +782,7 @@ public abstract class ProjectStructure
         return accessContext.getFile(PROJECT_CONFIG_PATH);
     }
 
-    private static ProjectConfiguration readProjectConfiguration(ProjectFile file)
+    public static ProjectConfiguration readProjectConfiguration(ProjectFile file)
     {
         try (Reader reader = file.getContentAsReader())
         {
@@ -1017,9 +1018,30 @@ public abstract class ProjectStructure
 
         public Entity deserialize(ProjectFile projectFile)
         {
-            try (InputStream stream = projectFile.getContentAsInputStream())
+            return deserialize(projectFile, null);
+        }
+
+        /**
+         * Deserialize the entity in the given file, using the given cache of deserialized entities (if it is not
+         * null and is enabled). Entities from the cache have immutable content.
+         *
+         * @param projectFile entity file
+         * @param entityCache deserialized entity cache (may be null)
+         * @return entity
+         */
+        public Entity deserialize(ProjectFile projectFile, ParsedEntityCache entityCache)
+        {
+            try
             {
-                return this.serializer.deserialize(stream);
+                if ((entityCache != null) && entityCache.isEnabled())
+                {
+                    byte[] content = projectFile.getContentAsBytes();
+                    return entityCache.getEntity(this.serializer.getName(), content, () -> this.serializer.deserialize(content));
+                }
+                try (InputStream stream = projectFile.getContentAsInputStream())
+                {
+                    return this.serializer.deserialize(stream);
+                }
             }
             catch (Exception e)
             {
@@ -1041,5 +1063,26 @@ public abstract class ProjectStructure
         {
             return this.serializer.deserialize(content);
         }
+
+        /**
+         * Read the classifier path of the entity in the given file, without necessarily deserializing the whole
+         * entity.
+         *
+         * @param projectFile entity file
+         * @return entity classifier path
+         */
+        public String readClassifierPath(ProjectFile projectFile)
+        {
+            try (InputStream stream = projectFile.getContentAsInputStream())
+            {
+                return this.serializer.readClassifierPath(stream);
+            }
+            catch (Exception e)
+            {
+                StringBuilder builder = new StringBuilder("Error reading entity classifier path from file ").append(projectFile.getPath());
+                StringTools.appendThrowableMessageIfPresent(builder, e);
+                throw new LegendSDLCServerException(builder.toString(), e);
+            }
+        }
     }
 }
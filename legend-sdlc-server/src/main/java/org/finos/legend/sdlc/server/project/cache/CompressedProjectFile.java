@@ -0,0 +1,232 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Summary;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Project file whose content is held compressed, and decompressed each time it is accessed. Content is compressed
+ * with raw deflate at the fastest level, using a preset dictionary of strings common in entity JSON files, so that
+ * even small files compress well.
+ */
+class CompressedProjectFile implements ProjectFile
+{
+    private static final int MIN_COMPRESSION_SIZE = 128;
+    private static final double MAX_COMPRESSION_RATIO = 0.8;
+
+    // fragments of serialized entities, laid out as the entity serializer writes them; the most common should come
+    // last. Most entity files are only a few hundred bytes, too little for deflate to find much repetition within
+    // them, and the dictionary roughly halves their compressed size (see TestCompressedProjectFile.testDictionary).
+    static final byte[] DICTIONARY = (
+            "\"constraints\" : [ ], \"originalMilestonedProperties\" : [ ], \"qualifiedProperties\" : [ ], " +
+            "\"superTypes\" : [ \"meta::pure::metamodel::type::Any\" ], \"tags\" : [ ], \"stereotypes\" : [ ], " +
+            "\"taggedValues\" : [ ], \"value\" : \"\" } ], \"tag\" : { \"profile\" : \"meta::pure::profiles::doc\", " +
+            "\"value\" : \"doc\" }, \"body\" : [ ], \"parameters\" : [ ], \"returnType\" : \"String\", " +
+            "\"_type\" : \"var\", \"_type\" : \"property\", \"_type\" : \"func\", \"function\" : \"\", " +
+            "\"_type\" : \"class\", \"_type\" : \"Enumeration\", \"_type\" : \"function\", \"_type\" : \"mapping\", " +
+            "\"classifierPath\" : \"meta::pure::metamodel::type::Class\", \"content\" : { \"_type\" : \"class\", " +
+            "\"package\" : \"model::domain\", \"name\" : \"\", \"properties\" : [ { " +
+            "\"multiplicity\" : { \"lowerBound\" : 0, \"upperBound\" : 1 }, \"name\" : \"\", " +
+            "\"genericType\" : { \"rawType\" : { \"_type\" : \"packageableType\", \"fullPath\" : \"String\" } }, " +
+            "\"multiplicity\" : { \"lowerBound\" : 1, \"upperBound\" : 1 }, \"name\" : \"\", " +
+            "\"type\" : \"String\" }, {\n    \"").getBytes(StandardCharsets.UTF_8);
+
+    private static final Counter UNCOMPRESSED_BYTES = Counter.build().name("sdlc_project_file_cache_uncompressed_bytes").help("Total size of project file content before compression for caching").register();
+    private static final Counter COMPRESSED_BYTES = Counter.build().name("sdlc_project_file_cache_compressed_bytes").help("Total size of project file content after compression for caching").register();
+    private static final Summary COMPRESSION_SECONDS = Summary.build().name("sdlc_project_file_cache_compression_seconds").help("Time to compress project file content for caching").register();
+    private static final Summary DECOMPRESSION_SECONDS = Summary.build().name("sdlc_project_file_cache_decompression_seconds").help("Time to decompress cached project file content").register();
+
+    private final String path;
+    private final byte[] compressedContent;
+    private final int length;
+
+    private CompressedProjectFile(String path, byte[] compressedContent, int length)
+    {
+        this.path = path;
+        this.compressedContent = compressedContent;
+        this.length = length;
+    }
+
+    @Override
+    public String getPath()
+    {
+        return this.path;
+    }
+
+    @Override
+    public InputStream getContentAsInputStream()
+    {
+        Inflater inflater = newInflater();
+        return new InflaterInputStream(new ByteArrayInputStream(this.compressedContent), inflater)
+        {
+            // time spent decompressing, excluding time spent by the consumer between reads
+            private long decompressionNanos = 0L;
+            private boolean closed = false;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                long start = System.nanoTime();
+                try
+                {
+                    return super.read(b, off, len);
+                }
+                finally
+                {
+                    this.decompressionNanos += System.nanoTime() - start;
+                }
+            }
+
+            @Override
+            public void close() throws IOException
+            {
+                try
+                {
+                    super.close();
+                }
+                finally
+                {
+                    if (!this.closed)
+                    {
+                        this.closed = true;
+                        inflater.end();
+                        DECOMPRESSION_SECONDS.observe(this.decompressionNanos / 1_000_000_000.0);
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public byte[] getContentAsBytes()
+    {
+        long start = System.nanoTime();
+        Inflater inflater = newInflater();
+        try
+        {
+            inflater.setInput(this.compressedContent);
+            byte[] content = new byte[this.length];
+            int count = 0;
+            while ((count < content.length) && !inflater.finished())
+            {
+                int n = inflater.inflate(content, count, content.length - count);
+                if ((n == 0) && (inflater.needsInput() || inflater.needsDictionary()))
+                {
+                    throw new IOException("Unexpected end of compressed content for " + this.path);
+                }
+                count += n;
+            }
+            if (count != content.length)
+            {
+                throw new IOException("Unexpected length of compressed content for " + this.path + ": expected " + content.length + ", found " + count);
+            }
+            return content;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+        catch (DataFormatException e)
+        {
+            throw new UncheckedIOException(new IOException("Invalid compressed content for " + this.path, e));
+        }
+        finally
+        {
+            inflater.end();
+            DECOMPRESSION_SECONDS.observe((System.nanoTime() - start) / 1_000_000_000.0);
+        }
+    }
+
+    @Override
+    public String getContentAsString()
+    {
+        return new String(getContentAsBytes(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Size (in bytes) of the compressed content.
+     *
+     * @return compressed size in bytes
+     */
+    int getCompressedSize()
+    {
+        return this.compressedContent.length;
+    }
+
+    /**
+     * Compress the given content, if it is worth doing so. If the content is too small, or does not compress well
+     * enough, null is returned and the content should be held uncompressed.
+     *
+     * @param path    canonical file path
+     * @param content file content
+     * @return compressed project file or null
+     */
+    static CompressedProjectFile compress(String path, byte[] content)
+    {
+        if (content.length < MIN_COMPRESSION_SIZE)
+        {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try
+        {
+            deflater.setDictionary(DICTIONARY);
+            deflater.setInput(content);
+            deflater.finish();
+            int maxCompressedSize = (int) (content.length * MAX_COMPRESSION_RATIO);
+            // one extra byte, as raw inflate may need a byte of input beyond the end of the compressed data
+            byte[] buffer = new byte[maxCompressedSize + 1];
+            int count = 0;
+            while (!deflater.finished() && (count < maxCompressedSize))
+            {
+                count += deflater.deflate(buffer, count, maxCompressedSize - count);
+            }
+            if (!deflater.finished())
+            {
+                return null;
+            }
+            UNCOMPRESSED_BYTES.inc(content.length);
+            COMPRESSED_BYTES.inc(count);
+            return new CompressedProjectFile(path, Arrays.copyOf(buffer, count + 1), content.length);
+        }
+        finally
+        {
+            deflater.end();
+            COMPRESSION_SECONDS.observe((System.nanoTime() - start) / 1_000_000_000.0);
+        }
+    }
+
+    private static Inflater newInflater()
+    {
+        Inflater inflater = new Inflater(true);
+        inflater.setDictionary(DICTIONARY);
+        return inflater;
+    }
+}
@@ -0,0 +1,70 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Project file whose content is held in an off-heap segment. The file may only be read while the segment is retained;
+ * files handed out beyond the cache are copied to the heap first (see {@link #toHeapFile()}).
+ */
+class OffHeapProjectFile implements ProjectFile
+{
+    private final String path;
+    private final OffHeapSlabStore.Segment segment;
+    private final long offset;
+    private final int length;
+
+    OffHeapProjectFile(String path, OffHeapSlabStore.Segment segment, long offset, int length)
+    {
+        this.path = path;
+        this.segment = segment;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public String getPath()
+    {
+        return this.path;
+    }
+
+    @Override
+    public InputStream getContentAsInputStream()
+    {
+        return this.segment.newInputStream(this.offset, this.length);
+    }
+
+    @Override
+    public byte[] getContentAsBytes()
+    {
+        return this.segment.read(this.offset, this.length);
+    }
+
+    @Override
+    public String getContentAsString()
+    {
+        return new String(getContentAsBytes(), StandardCharsets.UTF_8);
+    }
+
+    ProjectFile toHeapFile()
+    {
+        return ProjectFiles.newByteArrayProjectFile(this.path, getContentAsBytes());
+    }
+}
@@ -0,0 +1,361 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Store for file content held outside the Java heap, so that large, long-lived caches do not add to the work of the
+ * garbage collector. Memory is allocated in fixed size pages of direct memory, up to a maximum size, and pages are
+ * reused once they are freed. Content is stored in a {@link Segment}, which spans one or more pages.
+ * <p>
+ * Segments are reference counted. A new segment has a single reference, held by whoever allocated it; further
+ * references are taken with {@link Segment#retain()} and given up with {@link Segment#release()}. The pages of a
+ * segment are returned to the store as soon as its last reference is released, so that memory is available again
+ * without waiting for garbage collection. A segment may not be read once it has been freed.
+ */
+public class OffHeapSlabStore
+{
+    private static final int DEFAULT_PAGE_SIZE = 1024 * 1024;
+
+    private final int pageSize;
+    private final int maxPages;
+    private final ConcurrentLinkedQueue<ByteBuffer> freePages = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger allocatedPageCount = new AtomicInteger(0);
+    private final AtomicInteger usedPageCount = new AtomicInteger(0);
+
+    private OffHeapSlabStore(long maxSize, int pageSize)
+    {
+        if (pageSize <= 0)
+        {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+        if (maxSize < pageSize)
+        {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize + " (page size: " + pageSize + ")");
+        }
+        this.pageSize = pageSize;
+        this.maxPages = (int) Math.min(maxSize / pageSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Allocate a segment of the given size. The segment has a single reference, held by the caller. If there is not
+     * enough free memory in the store, null is returned and the caller should hold the content on the heap instead.
+     *
+     * @param size segment size in bytes
+     * @return segment or null
+     */
+    public Segment allocate(long size)
+    {
+        if (size < 0)
+        {
+            throw new IllegalArgumentException("Invalid segment size: " + size);
+        }
+        long pageCount = (size + this.pageSize - 1) / this.pageSize;
+        if (pageCount > this.maxPages)
+        {
+            return null;
+        }
+        ByteBuffer[] pages = new ByteBuffer[(int) pageCount];
+        for (int i = 0; i < pages.length; i++)
+        {
+            ByteBuffer page = takePage();
+            if (page == null)
+            {
+                returnPages(pages, i);
+                return null;
+            }
+            pages[i] = page;
+        }
+        this.usedPageCount.addAndGet(pages.length);
+        return new Segment(this, pages, size);
+    }
+
+    public int getPageSize()
+    {
+        return this.pageSize;
+    }
+
+    public long getMaxSize()
+    {
+        return (long) this.maxPages * this.pageSize;
+    }
+
+    /**
+     * Size (in bytes) of the pages in use by segments which have not been freed.
+     *
+     * @return used size in bytes
+     */
+    public long getUsedSize()
+    {
+        return (long) this.usedPageCount.get() * this.pageSize;
+    }
+
+    /**
+     * Size (in bytes) of the direct memory allocated by the store, including free pages.
+     *
+     * @return allocated size in bytes
+     */
+    public long getAllocatedSize()
+    {
+        return (long) this.allocatedPageCount.get() * this.pageSize;
+    }
+
+    public static OffHeapSlabStore newStore(long maxSize)
+    {
+        return newStore(maxSize, DEFAULT_PAGE_SIZE);
+    }
+
+    public static OffHeapSlabStore newStore(long maxSize, int pageSize)
+    {
+        return new OffHeapSlabStore(maxSize, pageSize);
+    }
+
+    private ByteBuffer takePage()
+    {
+        ByteBuffer page = this.freePages.poll();
+        if (page != null)
+        {
+            return page;
+        }
+        int count = this.allocatedPageCount.get();
+        while (count < this.maxPages)
+        {
+            if (this.allocatedPageCount.compareAndSet(count, count + 1))
+            {
+                return ByteBuffer.allocateDirect(this.pageSize);
+            }
+            count = this.allocatedPageCount.get();
+        }
+        // another thread may have freed a page in the meantime
+        return this.freePages.poll();
+    }
+
+    private void returnPages(ByteBuffer[] pages, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            this.freePages.add(pages[i]);
+        }
+    }
+
+    private void freePages(ByteBuffer[] pages)
+    {
+        for (ByteBuffer page : pages)
+        {
+            page.clear();
+        }
+        returnPages(pages, pages.length);
+        this.usedPageCount.addAndGet(-pages.length);
+    }
+
+    /**
+     * Contiguous range of off-heap memory, spanning one or more pages. Content must be written before the segment is
+     * shared with other threads; after that, it may be read concurrently by holders of a reference.
+     */
+    public static class Segment
+    {
+        private final OffHeapSlabStore store;
+        private final ByteBuffer[] pages;
+        private final long size;
+        private final AtomicInteger referenceCount = new AtomicInteger(1);
+
+        private Segment(OffHeapSlabStore store, ByteBuffer[] pages, long size)
+        {
+            this.store = store;
+            this.pages = pages;
+            this.size = size;
+        }
+
+        public long getSize()
+        {
+            return this.size;
+        }
+
+        /**
+         * Size (in bytes) of the pages spanned by the segment.
+         *
+         * @return allocated size in bytes
+         */
+        public long getAllocatedSize()
+        {
+            return (long) this.pages.length * this.store.pageSize;
+        }
+
+        /**
+         * Take a reference to the segment. This fails if the segment has already been freed.
+         *
+         * @return whether a reference was taken
+         */
+        public boolean retain()
+        {
+            int count = this.referenceCount.get();
+            while (count > 0)
+            {
+                if (this.referenceCount.compareAndSet(count, count + 1))
+                {
+                    return true;
+                }
+                count = this.referenceCount.get();
+            }
+            return false;
+        }
+
+        /**
+         * Give up a reference to the segment. When the last reference is released, the pages of the segment are
+         * returned to the store.
+         */
+        public void release()
+        {
+            int count = this.referenceCount.decrementAndGet();
+            if (count == 0)
+            {
+                this.store.freePages(this.pages);
+            }
+            else if (count < 0)
+            {
+                throw new IllegalStateException("Segment released more times than it was retained");
+            }
+        }
+
+        public boolean isFreed()
+        {
+            return this.referenceCount.get() <= 0;
+        }
+
+        public void write(long offset, byte[] bytes)
+        {
+            checkRange(offset, bytes.length);
+            long position = offset;
+            int written = 0;
+            while (written < bytes.length)
+            {
+                ByteBuffer page = getPage(position);
+                int count = Math.min(bytes.length - written, page.remaining());
+                page.put(bytes, written, count);
+                written += count;
+                position += count;
+            }
+        }
+
+        public void read(long offset, byte[] destination, int destinationOffset, int length)
+        {
+            checkRange(offset, length);
+            long position = offset;
+            int read = 0;
+            while (read < length)
+            {
+                ByteBuffer page = getPage(position);
+                int count = Math.min(length - read, page.remaining());
+                page.get(destination, destinationOffset + read, count);
+                read += count;
+                position += count;
+            }
+        }
+
+        public byte[] read(long offset, int length)
+        {
+            byte[] bytes = new byte[length];
+            read(offset, bytes, 0, length);
+            return bytes;
+        }
+
+        public InputStream newInputStream(long offset, int length)
+        {
+            checkRange(offset, length);
+            return new SegmentInputStream(this, offset, offset + length);
+        }
+
+        private ByteBuffer getPage(long position)
+        {
+            if (isFreed())
+            {
+                throw new IllegalStateException("Segment has been freed");
+            }
+            // duplicate, so that concurrent readers do not share a position
+            int pageSize = this.store.pageSize;
+            ByteBuffer page = this.pages[(int) (position / pageSize)].duplicate();
+            page.position((int) (position % pageSize));
+            return page;
+        }
+
+        private void checkRange(long offset, int length)
+        {
+            if ((offset < 0) || (length < 0) || ((offset + length) > this.size))
+            {
+                throw new IndexOutOfBoundsException("Invalid range for segment of size " + this.size + ": offset=" + offset + ", length=" + length);
+            }
+        }
+    }
+
+    private static class SegmentInputStream extends InputStream
+    {
+        private final Segment segment;
+        private final long end;
+        private long position;
+
+        private SegmentInputStream(Segment segment, long start, long end)
+        {
+            this.segment = segment;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read()
+        {
+            if (this.position >= this.end)
+            {
+                return -1;
+            }
+            ByteBuffer page = this.segment.getPage(this.position++);
+            return page.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            int count = (int) Math.min(len, this.end - this.position);
+            if (count <= 0)
+            {
+                return -1;
+            }
+            this.segment.read(this.position, b, off, count);
+            this.position += count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n)
+        {
+            long count = Math.max(0L, Math.min(n, this.end - this.position));
+            this.position += count;
+            return count;
+        }
+
+        @Override
+        public int available()
+        {
+            return (int) Math.min(this.end - this.position, Integer.MAX_VALUE);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.prometheus.client.Counter;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.serialization.CompactEntityContent;
+import org.finos.legend.sdlc.server.project.config.ProjectFileCacheConfiguration;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
+
+/**
+ * Cache of deserialized entities, keyed by serializer and content (by git blob id). The same entity file is generally
+ * found in many revisions and workspaces of a project, so this avoids deserializing it again for each of them. Cached
+ * entities are shared between requests, so their content is made compact and immutable (see
+ * {@link CompactEntityContent}). The cache is bounded by the total size of the serialized content of the cached
+ * entities. A single cache is created for the server from its configuration, and is passed to the entity source
+ * directories which use it (see {@link org.finos.legend.sdlc.server.project.ProjectStructure.EntitySourceDirectory}).
+ */
+public class ParsedEntityCache
+{
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private static final Counter HITS = Counter.build().name("sdlc_parsed_entity_cache_hits").help("Parsed entity cache hits").register();
+    private static final Counter MISSES = Counter.build().name("sdlc_parsed_entity_cache_misses").help("Parsed entity cache misses").register();
+
+    private final Cache<String, CachedEntity> cache;
+    private final boolean enabled;
+
+    private ParsedEntityCache(long maxSize)
+    {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher((String key, CachedEntity value) -> value.weight)
+                .executor(Runnable::run)
+                .build();
+        this.enabled = maxSize > 0;
+    }
+
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * Get the entity for the given serialized content, deserializing it if it is not cached. The entity returned has
+     * compact immutable content.
+     *
+     * @param serializerName name of the serializer for the content
+     * @param content        serialized entity content
+     * @param deserializer   deserializer for the content
+     * @param <E>            deserialization exception type
+     * @return entity
+     * @throws E if deserialization fails
+     */
+    public <E extends Exception> Entity getEntity(String serializerName, byte[] content, ThrowingSupplier<? extends Entity, E> deserializer) throws E
+    {
+        if (!this.enabled)
+        {
+            return deserializer.get();
+        }
+
+        String key = serializerName + ':' + ProjectFileContentPool.getBlobId(content);
+        CachedEntity cached = this.cache.getIfPresent(key);
+        if (cached != null)
+        {
+            HITS.inc();
+            return cached.entity;
+        }
+
+        MISSES.inc();
+        Entity entity = CompactEntityContent.toCompactEntity(deserializer.get());
+        // if another thread has cached the same entity in the meantime, use that so that it is shared
+        CachedEntity existing = this.cache.asMap().putIfAbsent(key, new CachedEntity(entity, content.length + key.length() + ENTRY_OVERHEAD));
+        return (existing == null) ? entity : existing.entity;
+    }
+
+    /**
+     * Approximate number of entities in the cache.
+     *
+     * @return approximate entity count
+     */
+    public long getEntityCount()
+    {
+        this.cache.cleanUp();
+        return this.cache.estimatedSize();
+    }
+
+    public void clear()
+    {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Create a new cache bounded by the given total size (in bytes) of the serialized content of cached entities. A
+     * max size of 0 disables the cache.
+     *
+     * @param maxSize max size in bytes
+     * @return new cache
+     */
+    public static ParsedEntityCache newCache(long maxSize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize);
+        }
+        return new ParsedEntityCache(maxSize);
+    }
+
+    public static ParsedEntityCache fromConfig(ProjectFileCacheConfiguration config)
+    {
+        return newCache(((config == null) ? ProjectFileCacheConfiguration.defaultConfiguration() : config).getMaxParsedEntitySize());
+    }
+
+    private static class CachedEntity
+    {
+        private final Entity entity;
+        private final int weight;
+
+        private CachedEntity(Entity entity, int weight)
+        {
+            this.entity = entity;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,513 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.project.ProjectPaths;
+import org.finos.legend.sdlc.server.project.config.ProjectFileCacheConfiguration;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Process-wide cache of project file snapshots. Snapshots are keyed by project id and commit id. Since a commit id
+ * identifies immutable content, entries never need to be invalidated for correctness; they are only evicted to keep
+ * the total cached content within the configured size. Eviction uses a size-weighted W-TinyLFU policy, so snapshots
+ * which are accessed frequently are retained in preference to those which are accessed once.
+ * <p>
+ * The cache also holds path indexes: the list of file paths of a project at a commit, without content. These are much
+ * smaller than snapshots and allow file paths to be listed without downloading the repository archive.
+ * <p>
+ * Concurrent loads of the same snapshot are coalesced (see {@link #getOrLoadSnapshot}), so that when many requests
+ * arrive at once for a project revision, its files are only downloaded once.
+ * <p>
+ * Optionally, snapshots of persistent revisions (such as release tags) are also kept in a {@link ProjectFileDiskStore},
+ * which acts as a second level cache that survives restarts. File content may be held off-heap, in an
+ * {@link OffHeapSlabStore}, so that a large cache does not add to garbage collection pauses, or compressed, so that
+ * more snapshots fit in the same space. Files held on the heap are shared between snapshots through a
+ * {@link ProjectFileContentPool}, so revisions which differ by a few files cost little more memory than one. Each
+ * snapshot is nevertheless weighed by all the content it holds, shared or not, since any snapshot may be the one which
+ * keeps shared content in memory. The configured size is therefore an upper bound on the memory used for content.
+ * <p>
+ * Off-heap memory is freed as soon as a snapshot is removed from the cache, unless the snapshot is still in use.
+ * Snapshots returned by the cache are retained for the caller (see {@link ProjectFileSnapshot#retain()}), who must
+ * release them once they have finished reading from them.
+ * <p>
+ * Callers are responsible for checking that the user is authorized to access a project revision before serving
+ * content from the cache.
+ */
+public class ProjectFileCache
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectFileCache.class);
+
+    private static final int PER_FILE_OVERHEAD = 64;
+    private static final int PATH_INDEX_SIZE_DIVISOR = 16;
+
+    private final long maxSize;
+    private final Cache<SnapshotKey, ProjectFileSnapshot> cache;
+    private final Cache<SnapshotKey, ImmutableList<String>> pathIndexCache;
+    private final ProjectFileDiskStore diskStore;
+    private final OffHeapSlabStore offHeapStore;
+    private final boolean compressContent;
+    private final ProjectFileContentPool contentPool = ProjectFileContentPool.newPool();
+    private final ConcurrentMap<SnapshotKey, CompletableFuture<ProjectFileSnapshot>> inFlightLoads = new ConcurrentHashMap<>();
+
+    private ProjectFileCache(long maxSize, ProjectFileDiskStore diskStore, OffHeapSlabStore offHeapStore, boolean compressContent)
+    {
+        this.maxSize = maxSize;
+        this.diskStore = diskStore;
+        this.offHeapStore = offHeapStore;
+        this.compressContent = compressContent;
+        this.cache = (maxSize <= 0) ? null : Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .weigher(ProjectFileCache::weigh)
+                .removalListener(ProjectFileCache::onRemoval)
+                .executor(Runnable::run)
+                .build();
+        this.pathIndexCache = (maxSize <= 0) ? null : Caffeine.newBuilder()
+                .maximumWeight(Math.max(1L, maxSize / PATH_INDEX_SIZE_DIVISOR))
+                .weigher(ProjectFileCache::weighPathIndex)
+                .build();
+    }
+
+    public boolean isEnabled()
+    {
+        return (this.cache != null) || (this.diskStore != null);
+    }
+
+    public ProjectFileDiskStore getDiskStore()
+    {
+        return this.diskStore;
+    }
+
+    public OffHeapSlabStore getOffHeapStore()
+    {
+        return this.offHeapStore;
+    }
+
+    public ProjectFileContentPool getContentPool()
+    {
+        return this.contentPool;
+    }
+
+    public long getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * Get the cached snapshot for the given project revision, or null if there is no such snapshot in the cache. The
+     * snapshot is retained for the caller, who must release it.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @return cached snapshot or null
+     */
+    public ProjectFileSnapshot getSnapshot(String projectId, String revisionId)
+    {
+        ProjectFileSnapshot snapshot = (this.cache == null) ? null : this.cache.getIfPresent(new SnapshotKey(projectId, revisionId));
+        // the snapshot may have been evicted and freed since it was looked up
+        return ((snapshot != null) && snapshot.retain()) ? snapshot : null;
+    }
+
+    /**
+     * Get the cached snapshot for the given project revision, or null if there is no such snapshot in the cache. If
+     * the revision is persistent and the snapshot is not in memory, the disk store is checked as well; a snapshot
+     * found there is added to the in-memory cache. The snapshot is retained for the caller, who must release it.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param persistent whether the revision is persistent (such as a release tag)
+     * @return cached snapshot or null
+     */
+    public ProjectFileSnapshot getSnapshot(String projectId, String revisionId, boolean persistent)
+    {
+        ProjectFileSnapshot snapshot = getSnapshot(projectId, revisionId);
+        if ((snapshot == null) && persistent && (this.diskStore != null))
+        {
+            snapshot = this.diskStore.getSnapshot(projectId, revisionId);
+            if ((snapshot != null) && (this.cache != null))
+            {
+                // rebuild the snapshot, so that it shares content with other cached snapshots
+                snapshot = ProjectFileSnapshot.newSnapshot(snapshot.getFilesInCanonicalDirectories(Lists.fixedSize.with(ProjectPaths.ROOT_DIRECTORY)), this.offHeapStore, this.compressContent, this.contentPool);
+                putSnapshot(new SnapshotKey(projectId, revisionId), snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Build a snapshot from the given files and add it to the cache. The snapshot is returned whether or not the
+     * cache is enabled, and is retained for the caller, who must release it.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param files      all files of the project at the revision
+     * @return snapshot
+     */
+    public ProjectFileSnapshot cacheSnapshot(String projectId, String revisionId, Stream<? extends ProjectFile> files)
+    {
+        ProjectFileSnapshot snapshot = (this.cache == null) ? ProjectFileSnapshot.newSnapshot(files) : ProjectFileSnapshot.newSnapshot(files, this.offHeapStore, this.compressContent, this.contentPool);
+        if (this.cache != null)
+        {
+            putSnapshot(new SnapshotKey(projectId, revisionId), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Derive the snapshot of a new revision from the snapshot of its base revision and the file operations which
+     * created it, and add it to the cache. This allows a revision which was just created by the server to be read
+     * without loading its files. Nothing is done if the base snapshot is not in the cache or if the operations are not
+     * consistent with it. The derived snapshot is retained for the caller, who must release it.
+     *
+     * @param projectId      project id
+     * @param baseRevisionId base revision (commit) id
+     * @param revisionId     new revision (commit) id
+     * @param operations     file operations which created the new revision from the base revision
+     * @return derived snapshot, or null if it could not be derived
+     */
+    public ProjectFileSnapshot cacheDerivedSnapshot(String projectId, String baseRevisionId, String revisionId, List<? extends ProjectFileOperation> operations)
+    {
+        if (this.cache == null)
+        {
+            return null;
+        }
+        ProjectFileSnapshot baseSnapshot = getSnapshot(projectId, baseRevisionId);
+        if (baseSnapshot == null)
+        {
+            return null;
+        }
+        ProjectFileSnapshot snapshot;
+        try
+        {
+            snapshot = deriveSnapshot(baseSnapshot, operations);
+        }
+        finally
+        {
+            baseSnapshot.release();
+        }
+        if (snapshot != null)
+        {
+            putSnapshot(new SnapshotKey(projectId, revisionId), snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Derive a new snapshot from a base snapshot and file operations, without adding it to the cache. This allows a
+     * revision which is created in several steps to be derived step by step, and then added to the cache with
+     * {@link #cacheSnapshot(String, String, ProjectFileSnapshot)}. The base snapshot is not released. The derived
+     * snapshot is retained for the caller, who must release it.
+     *
+     * @param baseSnapshot base snapshot
+     * @param operations   file operations to apply to the base snapshot
+     * @return derived snapshot, or null if the operations are not consistent with the base snapshot
+     */
+    public ProjectFileSnapshot deriveSnapshot(ProjectFileSnapshot baseSnapshot, List<? extends ProjectFileOperation> operations)
+    {
+        return baseSnapshot.applyOperations(operations, this.compressContent, this.contentPool);
+    }
+
+    /**
+     * Add a snapshot to the cache for the given project revision. The cache takes its own reference to the snapshot,
+     * so the caller's reference is unaffected.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param snapshot   snapshot of the files of the project at the revision
+     */
+    public void cacheSnapshot(String projectId, String revisionId, ProjectFileSnapshot snapshot)
+    {
+        if (this.cache != null)
+        {
+            putSnapshot(new SnapshotKey(projectId, revisionId), snapshot);
+        }
+    }
+
+    /**
+     * Get the snapshot for the given project revision, loading it if it is not in the cache. If another thread is
+     * already loading the same snapshot, this waits for that load to finish and returns its result (or throws the
+     * same exception) rather than loading the files again. The file loader is only called by the thread which
+     * performs the load, and the stream it returns is closed once the snapshot has been built. The snapshot is retained
+     * for the caller, who must release it.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param fileLoader loader for all files of the project at the revision
+     * @param <E>        type of exception thrown by the loader
+     * @return snapshot
+     * @throws E if the loader fails
+     */
+    public <E extends Exception> ProjectFileSnapshot getOrLoadSnapshot(String projectId, String revisionId, ThrowingSupplier<? extends Stream<? extends ProjectFile>, E> fileLoader) throws E
+    {
+        return getOrLoadSnapshot(projectId, revisionId, false, fileLoader);
+    }
+
+    /**
+     * Get the snapshot for the given project revision, loading it if it is not in the cache. This is as
+     * {@link #getOrLoadSnapshot(String, String, ThrowingSupplier)}, except that if the revision is persistent (such as
+     * a release tag) the disk store is checked before loading, and a loaded snapshot is written to the disk store.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param persistent whether the revision is persistent
+     * @param fileLoader loader for all files of the project at the revision
+     * @param <E>        type of exception thrown by the loader
+     * @return snapshot
+     * @throws E if the loader fails
+     */
+    public <E extends Exception> ProjectFileSnapshot getOrLoadSnapshot(String projectId, String revisionId, boolean persistent, ThrowingSupplier<? extends Stream<? extends ProjectFile>, E> fileLoader) throws E
+    {
+        ProjectFileSnapshot snapshot = getSnapshot(projectId, revisionId);
+        if (snapshot != null)
+        {
+            return snapshot;
+        }
+
+        SnapshotKey key = new SnapshotKey(projectId, revisionId);
+        CompletableFuture<ProjectFileSnapshot> future = new CompletableFuture<>();
+        CompletableFuture<ProjectFileSnapshot> inFlight = this.inFlightLoads.putIfAbsent(key, future);
+        if (inFlight != null)
+        {
+            snapshot = awaitLoad(inFlight);
+            // if the loaded snapshot has already been evicted and freed, load it again
+            return snapshot.retain() ? snapshot : getOrLoadSnapshot(projectId, revisionId, persistent, fileLoader);
+        }
+
+        boolean loaded = false;
+        try
+        {
+            // the snapshot may have been cached between checking the cache and registering this load
+            snapshot = getSnapshot(projectId, revisionId, persistent);
+            if (snapshot == null)
+            {
+                try (Stream<? extends ProjectFile> files = fileLoader.get())
+                {
+                    snapshot = cacheSnapshot(projectId, revisionId, files);
+                }
+                loaded = true;
+            }
+            future.complete(snapshot);
+        }
+        catch (Throwable t)
+        {
+            future.completeExceptionally(t);
+            throw t;
+        }
+        finally
+        {
+            this.inFlightLoads.remove(key, future);
+        }
+
+        // waiting requests have been given the snapshot, so they do not wait for it to be written to disk
+        if (loaded && persistent && (this.diskStore != null))
+        {
+            this.diskStore.putSnapshot(projectId, revisionId, snapshot);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Get the cached path index for the given project revision, or null if there is no such index in the cache. The
+     * path index is the list of the canonical paths of all the files of the project at the revision.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @return cached file paths or null
+     */
+    public ImmutableList<String> getPathIndex(String projectId, String revisionId)
+    {
+        return (this.pathIndexCache == null) ? null : this.pathIndexCache.getIfPresent(new SnapshotKey(projectId, revisionId));
+    }
+
+    /**
+     * Add a path index for the given project revision to the cache. This does nothing if the cache is not enabled.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param paths      canonical paths of all files of the project at the revision
+     */
+    public void cachePathIndex(String projectId, String revisionId, ImmutableList<String> paths)
+    {
+        if (this.pathIndexCache != null)
+        {
+            this.pathIndexCache.put(new SnapshotKey(projectId, revisionId), paths);
+        }
+    }
+
+    public void invalidate(String projectId, String revisionId)
+    {
+        if (this.cache != null)
+        {
+            SnapshotKey key = new SnapshotKey(projectId, revisionId);
+            this.cache.invalidate(key);
+            this.pathIndexCache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll()
+    {
+        if (this.cache != null)
+        {
+            this.cache.invalidateAll();
+            this.pathIndexCache.invalidateAll();
+        }
+    }
+
+    public static ProjectFileCache newCache(long maxSize)
+    {
+        return newCache(maxSize, null);
+    }
+
+    public static ProjectFileCache newCache(long maxSize, ProjectFileDiskStore diskStore)
+    {
+        return newCache(maxSize, diskStore, null);
+    }
+
+    public static ProjectFileCache newCache(long maxSize, ProjectFileDiskStore diskStore, OffHeapSlabStore offHeapStore)
+    {
+        return newCache(maxSize, diskStore, offHeapStore, false);
+    }
+
+    public static ProjectFileCache newCache(long maxSize, ProjectFileDiskStore diskStore, OffHeapSlabStore offHeapStore, boolean compressContent)
+    {
+        return new ProjectFileCache(maxSize, diskStore, offHeapStore, compressContent);
+    }
+
+    public static ProjectFileCache fromConfig(ProjectFileCacheConfiguration config)
+    {
+        ProjectFileCacheConfiguration resolvedConfig = (config == null) ? ProjectFileCacheConfiguration.defaultConfiguration() : config;
+        ProjectFileDiskStore diskStore = null;
+        if (resolvedConfig.getDiskDirectory() != null)
+        {
+            try
+            {
+                diskStore = ProjectFileDiskStore.open(Paths.get(resolvedConfig.getDiskDirectory()), resolvedConfig.getMaxDiskSize());
+            }
+            catch (IOException e)
+            {
+                LOGGER.warn("Error opening project file disk store in {}; continuing without it", resolvedConfig.getDiskDirectory(), e);
+            }
+        }
+        OffHeapSlabStore offHeapStore = ((resolvedConfig.getMaxSize() > 0) && (resolvedConfig.getMaxOffHeapSize() > 0)) ? OffHeapSlabStore.newStore(resolvedConfig.getMaxOffHeapSize()) : null;
+        return newCache(resolvedConfig.getMaxSize(), diskStore, offHeapStore, resolvedConfig.isCompressContent());
+    }
+
+    private void putSnapshot(SnapshotKey key, ProjectFileSnapshot snapshot)
+    {
+        // the cache holds its own reference, which is released when the snapshot is removed
+        if (snapshot.retain())
+        {
+            this.cache.put(key, snapshot);
+        }
+    }
+
+    private static void onRemoval(SnapshotKey key, ProjectFileSnapshot snapshot, RemovalCause cause)
+    {
+        if (snapshot != null)
+        {
+            snapshot.release();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> ProjectFileSnapshot awaitLoad(CompletableFuture<ProjectFileSnapshot> future) throws E
+    {
+        try
+        {
+            return future.join();
+        }
+        catch (CompletionException e)
+        {
+            // the cause is what was thrown by the thread performing the load, so it is either unchecked or an E
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw (E) cause;
+        }
+    }
+
+    private static int weigh(SnapshotKey key, ProjectFileSnapshot snapshot)
+    {
+        long weight = snapshot.getStoredSize() + ((long) PER_FILE_OVERHEAD * snapshot.getFileCount());
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static int weighPathIndex(SnapshotKey key, ImmutableList<String> paths)
+    {
+        long weight = 0L;
+        for (String path : paths)
+        {
+            weight += PER_FILE_OVERHEAD + (2L * path.length());
+        }
+        return (int) Math.min(weight, Integer.MAX_VALUE);
+    }
+
+    private static class SnapshotKey
+    {
+        private final String projectId;
+        private final String revisionId;
+
+        private SnapshotKey(String projectId, String revisionId)
+        {
+            this.projectId = Objects.requireNonNull(projectId, "projectId may not be null");
+            this.revisionId = Objects.requireNonNull(revisionId, "revisionId may not be null");
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if ((other == null) || (this.getClass() != other.getClass()))
+            {
+                return false;
+            }
+            SnapshotKey that = (SnapshotKey) other;
+            return this.projectId.equals(that.projectId) && this.revisionId.equals(that.revisionId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.projectId.hashCode() + 31 * this.revisionId.hashCode();
+        }
+    }
+}
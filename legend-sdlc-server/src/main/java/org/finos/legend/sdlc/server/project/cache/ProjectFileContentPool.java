@@ -0,0 +1,112 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.prometheus.client.Counter;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Pool of cached project files, shared between snapshots. Files are keyed by path and git blob id, so that when
+ * snapshots of different revisions contain the same file, they share a single copy of its content. The pool only
+ * holds files weakly: a file is dropped from the pool once no snapshot refers to it. Sharing saves memory, but each
+ * snapshot is still weighed by all of the content it refers to (see {@link ProjectFileCache}).
+ */
+public class ProjectFileContentPool
+{
+    private static final Counter SHARED_FILES = Counter.build().name("sdlc_project_file_cache_shared_files").help("Cached project files shared with existing snapshots").register();
+    private static final Counter SHARED_BYTES = Counter.build().name("sdlc_project_file_cache_shared_bytes").help("Size of cached project file content shared with existing snapshots").register();
+
+    private final Cache<String, ProjectFile> files = Caffeine.newBuilder().weakValues().build();
+
+    private ProjectFileContentPool()
+    {
+    }
+
+    /**
+     * Get the pooled file with the given path and content, or null if there is none.
+     *
+     * @param path    canonical file path
+     * @param blobId  git blob id of the content (see {@link #getBlobId})
+     * @param content file content
+     * @return pooled file or null
+     */
+    ProjectFile get(String path, String blobId, byte[] content)
+    {
+        ProjectFile file = this.files.getIfPresent(getKey(path, blobId));
+        if (file != null)
+        {
+            SHARED_FILES.inc();
+            SHARED_BYTES.inc(content.length);
+        }
+        return file;
+    }
+
+    /**
+     * Add a file to the pool, unless there is already a pooled file with the same path and content. Returns the
+     * pooled file in that case, or null if the given file was added.
+     *
+     * @param path   canonical file path
+     * @param blobId git blob id of the content
+     * @param file   file
+     * @return existing pooled file or null
+     */
+    ProjectFile putIfAbsent(String path, String blobId, ProjectFile file)
+    {
+        return this.files.asMap().putIfAbsent(getKey(path, blobId), file);
+    }
+
+    /**
+     * Approximate number of files in the pool.
+     *
+     * @return approximate file count
+     */
+    public long getFileCount()
+    {
+        this.files.cleanUp();
+        return this.files.estimatedSize();
+    }
+
+    public static ProjectFileContentPool newPool()
+    {
+        return new ProjectFileContentPool();
+    }
+
+    /**
+     * Compute the git blob id (the SHA-1 of the content, with a header giving its length) of file content. This is
+     * the same as the id of the blob in the repository.
+     *
+     * @param content file content
+     * @return git blob id
+     */
+    static String getBlobId(byte[] content)
+    {
+        MessageDigest digest = DigestUtils.getSha1Digest();
+        digest.update(("blob " + content.length + "\0").getBytes(StandardCharsets.US_ASCII));
+        digest.update(content);
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static String getKey(String path, String blobId)
+    {
+        return blobId + path;
+    }
+}
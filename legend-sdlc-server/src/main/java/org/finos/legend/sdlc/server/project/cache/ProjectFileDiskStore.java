@@ -0,0 +1,598 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.MutableMap;
+import org.eclipse.collections.api.set.MutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * On-disk, content-addressed store of project file snapshots. Each snapshot is stored as an index file, which lists
+ * the path, content hash, and size of each file. File content is stored once for each distinct content hash, so
+ * content shared between snapshots (such as files which are unchanged between versions of a project) is only stored
+ * once. Index files are memory-mapped for reading; content files are read in full when a snapshot is loaded.
+ * <p>
+ * The store is bounded by the total size of its content files. When it exceeds its maximum size, the least recently
+ * used snapshots are removed, along with any content which is no longer referenced. The store survives restarts, and
+ * is intended for immutable revisions such as release tags. A store directory should only be used by one process.
+ * <p>
+ * Errors reading from or writing to the store are logged, and reported as cache misses.
+ */
+public class ProjectFileDiskStore
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectFileDiskStore.class);
+
+    private static final int INDEX_MAGIC = 0x4C534653;
+    private static final int INDEX_FORMAT_VERSION = 1;
+    private static final String INDEX_DIRECTORY = "index";
+    private static final String CONTENT_DIRECTORY = "content";
+    private static final String INDEX_FILE_EXTENSION = ".idx";
+    private static final String TEMP_FILE_PREFIX = "tmp-";
+
+    private final Path indexDirectory;
+    private final Path contentDirectory;
+    private final long maxSize;
+    private final LinkedHashMap<StoreKey, Path> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private final MutableMap<String, ContentInfo> contents = Maps.mutable.empty();
+    private final MutableSet<StoreKey> pendingWrites = Sets.mutable.empty();
+    private long totalSize = 0L;
+
+    private ProjectFileDiskStore(Path directory, long maxSize)
+    {
+        this.indexDirectory = directory.resolve(INDEX_DIRECTORY);
+        this.contentDirectory = directory.resolve(CONTENT_DIRECTORY);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the stored snapshot for the given project revision, or null if there is no such snapshot in the store.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @return stored snapshot or null
+     */
+    public ProjectFileSnapshot getSnapshot(String projectId, String revisionId)
+    {
+        StoreKey key = new StoreKey(projectId, revisionId);
+        Path indexFile;
+        synchronized (this)
+        {
+            indexFile = this.snapshots.get(key);
+        }
+        if (indexFile == null)
+        {
+            return null;
+        }
+
+        try
+        {
+            StoredIndex index = readIndex(indexFile);
+            MutableMap<String, byte[]> files = Maps.mutable.ofInitialCapacity(index.paths.size());
+            for (int i = 0; i < index.paths.size(); i++)
+            {
+                files.put(index.paths.get(i), readContent(index.contentHashes.get(i), index.sizes.get(i)));
+            }
+            // record the access, so that recency survives restarts
+            Files.setLastModifiedTime(indexFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return ProjectFileSnapshot.newSnapshot(files);
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error reading snapshot for {} at revision {} from disk store; removing it", projectId, revisionId, e);
+            synchronized (this)
+            {
+                if (indexFile.equals(this.snapshots.get(key)))
+                {
+                    removeSnapshot(key);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Add a snapshot to the store. Content which is already in the store is not written again. If the store then
+     * exceeds its maximum size, the least recently used snapshots are removed. Content is hashed and written without
+     * holding the store's lock, so that lookups are not blocked while a snapshot is written; only the bookkeeping is
+     * done under the lock.
+     *
+     * @param projectId  project id
+     * @param revisionId revision (commit) id
+     * @param snapshot   snapshot
+     */
+    public void putSnapshot(String projectId, String revisionId, ProjectFileSnapshot snapshot)
+    {
+        StoreKey key = new StoreKey(projectId, revisionId);
+        synchronized (this)
+        {
+            if (this.snapshots.containsKey(key))
+            {
+                this.snapshots.get(key);
+                return;
+            }
+            if (!this.pendingWrites.add(key))
+            {
+                // another thread is already writing this snapshot
+                return;
+            }
+        }
+
+        MutableList<String> paths = Lists.mutable.ofInitialCapacity(snapshot.getFileCount());
+        MutableList<String> contentHashes = Lists.mutable.ofInitialCapacity(snapshot.getFileCount());
+        MutableList<Integer> sizes = Lists.mutable.ofInitialCapacity(snapshot.getFileCount());
+        try
+        {
+            snapshot.forEachFile((path, content) ->
+            {
+                String contentHash = DigestUtils.sha256Hex(content);
+                try
+                {
+                    writeContentIfAbsent(contentHash, content);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+                paths.add(path);
+                contentHashes.add(contentHash);
+                sizes.add(content.length);
+            });
+            Path indexFile = getIndexFile(key);
+            writeIndex(indexFile, new StoredIndex(key, paths, contentHashes, sizes));
+            synchronized (this)
+            {
+                // content which was already on disk may have been removed by an eviction since it was checked
+                String missing = contentHashes.detect(h -> !this.contents.containsKey(h) && !Files.exists(getContentFile(h)));
+                if (missing != null)
+                {
+                    throw new IOException("Content " + missing + " was removed while the snapshot was being written");
+                }
+                addSnapshot(key, indexFile, contentHashes, sizes);
+                evictIfNecessary();
+            }
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error writing snapshot for {} at revision {} to disk store", projectId, revisionId, e);
+            synchronized (this)
+            {
+                // remove the index and any content written for this snapshot which is not referenced by another
+                deleteQuietly(getIndexFile(key));
+                contentHashes.reject(this.contents::containsKey).forEach(h -> deleteQuietly(getContentFile(h)));
+            }
+        }
+        finally
+        {
+            synchronized (this)
+            {
+                this.pendingWrites.remove(key);
+            }
+        }
+    }
+
+    public synchronized boolean containsSnapshot(String projectId, String revisionId)
+    {
+        return this.snapshots.containsKey(new StoreKey(projectId, revisionId));
+    }
+
+    public synchronized int getSnapshotCount()
+    {
+        return this.snapshots.size();
+    }
+
+    /**
+     * Total size (in bytes) of the content in the store.
+     *
+     * @return total content size in bytes
+     */
+    public synchronized long getTotalSize()
+    {
+        return this.totalSize;
+    }
+
+    public long getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * Open a store in the given directory, creating the directory if necessary. Snapshots already in the directory
+     * are loaded, with recency determined by when they were last accessed.
+     *
+     * @param directory store directory
+     * @param maxSize   maximum total size (in bytes) of stored content
+     * @return store
+     * @throws IOException if the store cannot be opened
+     */
+    public static ProjectFileDiskStore open(Path directory, long maxSize) throws IOException
+    {
+        if (maxSize <= 0L)
+        {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize);
+        }
+        ProjectFileDiskStore store = new ProjectFileDiskStore(directory, maxSize);
+        store.load();
+        return store;
+    }
+
+    private void load() throws IOException
+    {
+        Files.createDirectories(this.indexDirectory);
+        Files.createDirectories(this.contentDirectory);
+
+        MutableList<Path> indexFiles = Lists.mutable.empty();
+        try (DirectoryStream<Path> dirStream = Files.newDirectoryStream(this.indexDirectory))
+        {
+            for (Path file : dirStream)
+            {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(TEMP_FILE_PREFIX))
+                {
+                    Files.deleteIfExists(file);
+                }
+                else if (fileName.endsWith(INDEX_FILE_EXTENSION))
+                {
+                    indexFiles.add(file);
+                }
+            }
+        }
+        indexFiles.sortThisByLong(ProjectFileDiskStore::getLastModifiedMillis);
+
+        synchronized (this)
+        {
+            for (Path indexFile : indexFiles)
+            {
+                try
+                {
+                    StoredIndex index = readIndex(indexFile);
+                    boolean complete = index.contentHashes.allSatisfy(h -> this.contents.containsKey(h) || Files.exists(getContentFile(h)));
+                    if (complete)
+                    {
+                        addSnapshot(index.key, indexFile, index.contentHashes, index.sizes);
+                    }
+                    else
+                    {
+                        LOGGER.warn("Removing incomplete snapshot index from disk store: {}", indexFile);
+                        Files.deleteIfExists(indexFile);
+                    }
+                }
+                catch (Exception e)
+                {
+                    LOGGER.warn("Removing unreadable snapshot index from disk store: {}", indexFile, e);
+                    Files.deleteIfExists(indexFile);
+                }
+            }
+
+            // remove content which is not referenced by any snapshot
+            try (Stream<Path> contentFiles = Files.walk(this.contentDirectory))
+            {
+                contentFiles.filter(Files::isRegularFile)
+                        .filter(f -> !this.contents.containsKey(f.getFileName().toString()))
+                        .forEach(ProjectFileDiskStore::deleteQuietly);
+            }
+            evictIfNecessary();
+        }
+        LOGGER.info("Opened project file disk store with {} snapshots ({} bytes)", getSnapshotCount(), getTotalSize());
+    }
+
+    private void addSnapshot(StoreKey key, Path indexFile, MutableList<String> contentHashes, MutableList<Integer> sizes)
+    {
+        for (int i = 0; i < contentHashes.size(); i++)
+        {
+            ContentInfo info = this.contents.get(contentHashes.get(i));
+            if (info == null)
+            {
+                info = new ContentInfo(sizes.get(i));
+                this.contents.put(contentHashes.get(i), info);
+                this.totalSize += info.size;
+            }
+            info.refCount++;
+        }
+        this.snapshots.put(key, indexFile);
+    }
+
+    private void removeSnapshot(StoreKey key)
+    {
+        Path indexFile = this.snapshots.remove(key);
+        if (indexFile == null)
+        {
+            return;
+        }
+        try
+        {
+            StoredIndex index = readIndex(indexFile);
+            Files.deleteIfExists(indexFile);
+            index.contentHashes.forEach(h ->
+            {
+                ContentInfo info = this.contents.get(h);
+                if (info != null)
+                {
+                    info.refCount--;
+                }
+            });
+            deleteUnreferencedContent(index.contentHashes);
+        }
+        catch (Exception e)
+        {
+            LOGGER.warn("Error removing snapshot index from disk store: {}", indexFile, e);
+            deleteQuietly(indexFile);
+        }
+    }
+
+    private void evictIfNecessary()
+    {
+        Iterator<StoreKey> iterator = this.snapshots.keySet().iterator();
+        while ((this.totalSize > this.maxSize) && iterator.hasNext())
+        {
+            StoreKey eldest = iterator.next();
+            LOGGER.debug("Evicting snapshot for {} at revision {} from disk store", eldest.projectId, eldest.revisionId);
+            removeSnapshot(eldest);
+            iterator = this.snapshots.keySet().iterator();
+        }
+    }
+
+    private void deleteUnreferencedContent(Iterable<String> contentHashes)
+    {
+        contentHashes.forEach(h ->
+        {
+            ContentInfo info = this.contents.get(h);
+            if ((info != null) && (info.refCount <= 0))
+            {
+                this.contents.remove(h);
+                this.totalSize -= info.size;
+                deleteQuietly(getContentFile(h));
+            }
+        });
+    }
+
+    private void writeContentIfAbsent(String contentHash, byte[] content) throws IOException
+    {
+        Path contentFile = getContentFile(contentHash);
+        if (Files.exists(contentFile))
+        {
+            return;
+        }
+        Files.createDirectories(contentFile.getParent());
+        writeAtomically(contentFile, out -> out.write(content));
+    }
+
+    private byte[] readContent(String contentHash, int size) throws IOException
+    {
+        if (size == 0)
+        {
+            return new byte[0];
+        }
+        byte[] content = Files.readAllBytes(getContentFile(contentHash));
+        if (content.length != size)
+        {
+            throw new IOException("Unexpected size for content " + contentHash + ": expected " + size + ", found " + content.length);
+        }
+        return content;
+    }
+
+    private void writeIndex(Path indexFile, StoredIndex index) throws IOException
+    {
+        writeAtomically(indexFile, out ->
+        {
+            DataOutputStream dataOut = new DataOutputStream(out);
+            dataOut.writeInt(INDEX_MAGIC);
+            dataOut.writeInt(INDEX_FORMAT_VERSION);
+            writeString(dataOut, index.key.projectId);
+            writeString(dataOut, index.key.revisionId);
+            dataOut.writeInt(index.paths.size());
+            for (int i = 0; i < index.paths.size(); i++)
+            {
+                writeString(dataOut, index.paths.get(i));
+                writeString(dataOut, index.contentHashes.get(i));
+                dataOut.writeInt(index.sizes.get(i));
+            }
+            dataOut.flush();
+        });
+    }
+
+    private static StoredIndex readIndex(Path indexFile) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ))
+        {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != INDEX_MAGIC)
+            {
+                throw new IOException("Invalid snapshot index file: " + indexFile);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != INDEX_FORMAT_VERSION)
+            {
+                throw new IOException("Unsupported snapshot index format version " + formatVersion + ": " + indexFile);
+            }
+            StoreKey key = new StoreKey(readString(buffer), readString(buffer));
+            int count = buffer.getInt();
+            MutableList<String> paths = Lists.mutable.ofInitialCapacity(count);
+            MutableList<String> contentHashes = Lists.mutable.ofInitialCapacity(count);
+            MutableList<Integer> sizes = Lists.mutable.ofInitialCapacity(count);
+            for (int i = 0; i < count; i++)
+            {
+                paths.add(readString(buffer));
+                contentHashes.add(readString(buffer));
+                sizes.add(buffer.getInt());
+            }
+            return new StoredIndex(key, paths, contentHashes, sizes);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Path getIndexFile(StoreKey key)
+    {
+        return this.indexDirectory.resolve(DigestUtils.sha256Hex(key.projectId + "\u0000" + key.revisionId) + INDEX_FILE_EXTENSION);
+    }
+
+    private Path getContentFile(String contentHash)
+    {
+        return this.contentDirectory.resolve(contentHash.substring(0, 2)).resolve(contentHash);
+    }
+
+    private static void writeAtomically(Path file, ContentWriter writer) throws IOException
+    {
+        Path tempFile = Files.createTempFile(file.getParent(), TEMP_FILE_PREFIX, null);
+        try
+        {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile)))
+            {
+                writer.write(out);
+            }
+            try
+            {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException e)
+            {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static long getLastModifiedMillis(Path file)
+    {
+        try
+        {
+            return Files.getLastModifiedTime(file).toMillis();
+        }
+        catch (IOException e)
+        {
+            return 0L;
+        }
+    }
+
+    private static void deleteQuietly(Path file)
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            LOGGER.warn("Error deleting file from disk store: {}", file, e);
+        }
+    }
+
+    private interface ContentWriter
+    {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static class ContentInfo
+    {
+        private final int size;
+        private int refCount = 0;
+
+        private ContentInfo(int size)
+        {
+            this.size = size;
+        }
+    }
+
+    private static class StoredIndex
+    {
+        private final StoreKey key;
+        private final MutableList<String> paths;
+        private final MutableList<String> contentHashes;
+        private final MutableList<Integer> sizes;
+
+        private StoredIndex(StoreKey key, MutableList<String> paths, MutableList<String> contentHashes, MutableList<Integer> sizes)
+        {
+            this.key = key;
+            this.paths = paths;
+            this.contentHashes = contentHashes;
+            this.sizes = sizes;
+        }
+    }
+
+    private static class StoreKey
+    {
+        private final String projectId;
+        private final String revisionId;
+
+        private StoreKey(String projectId, String revisionId)
+        {
+            this.projectId = Objects.requireNonNull(projectId, "projectId may not be null");
+            this.revisionId = Objects.requireNonNull(revisionId, "revisionId may not be null");
+        }
+
+        @Override
+        public boolean equals(Object other)
+        {
+            if (this == other)
+            {
+                return true;
+            }
+            if ((other == null) || (this.getClass() != other.getClass()))
+            {
+                return false;
+            }
+            StoreKey that = (StoreKey) other;
+            return this.projectId.equals(that.projectId) && this.revisionId.equals(that.revisionId);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.projectId.hashCode() + 31 * this.revisionId.hashCode();
+        }
+    }
+}
@@ -0,0 +1,547 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.eclipse.collections.api.list.ListIterable;
+import org.eclipse.collections.api.map.ImmutableMap;
+import org.eclipse.collections.api.map.MutableMap;
+import org.eclipse.collections.api.tuple.Pair;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.finos.legend.sdlc.server.project.ProjectPaths;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Immutable snapshot of all of the files of a project at a single revision. File content is held either on the heap
+ * or, if an {@link OffHeapSlabStore} is supplied and has space, in a single off-heap segment. Content held on the heap
+ * may be compressed, in which case it is decompressed each time it is accessed. Files held on the heap may also be shared
+ * with other snapshots through a {@link ProjectFileContentPool}.
+ * <p>
+ * Off-heap segments are reference counted (see {@link OffHeapSlabStore.Segment}). A new snapshot holds one reference
+ * to its segments, which belongs to whoever built it; further references are taken with {@link #retain()} and given up
+ * with {@link #release()}. Content may only be read while a reference is held, but files returned by the snapshot are
+ * copied to the heap first if necessary, so they may be read after the reference is released. Streams of files hold
+ * their own reference, and copy each file only as it is reached. For snapshots held entirely on the heap, retaining
+ * and releasing do nothing.
+ */
+public class ProjectFileSnapshot
+{
+    private final ImmutableMap<String, ProjectFile> files;
+    private final ImmutableList<OffHeapSlabStore.Segment> segments;
+    private final long contentSize;
+    private final long heapStoredSize;
+    private final int offHeapFileCount;
+
+    private ProjectFileSnapshot(ImmutableMap<String, ProjectFile> files, ImmutableList<OffHeapSlabStore.Segment> segments, long contentSize, long heapStoredSize)
+    {
+        this.files = files;
+        this.segments = segments;
+        this.contentSize = contentSize;
+        this.heapStoredSize = heapStoredSize;
+        this.offHeapFileCount = segments.isEmpty() ? 0 : files.count(f -> f instanceof OffHeapProjectFile);
+    }
+
+    public ProjectFile getFile(String path)
+    {
+        return toHeapFile(this.files.get(ProjectPaths.canonicalizeFile(path)));
+    }
+
+    /**
+     * Get the content of the file at the given path, or null if there is no such file. This reads the content
+     * directly, without first copying the file to the heap.
+     *
+     * @param path file path
+     * @return file content or null
+     */
+    public byte[] getFileContent(String path)
+    {
+        ProjectFile file = this.files.get(ProjectPaths.canonicalizeFile(path));
+        return (file == null) ? null : file.getContentAsBytes();
+    }
+
+    public boolean fileExists(String path)
+    {
+        return this.files.containsKey(ProjectPaths.canonicalizeFile(path));
+    }
+
+    /**
+     * Get the files in the given directories. The directories are expected to be canonicalized and reduced (see
+     * {@link ProjectPaths#canonicalizeAndReduceDirectories(Iterable)}). If the snapshot holds content off-heap, the
+     * stream holds a reference to it until the stream is either exhausted or closed, and each file is copied to the
+     * heap as the stream reaches it. A stream which is abandoned part way through must therefore be closed.
+     *
+     * @param directories canonicalized and reduced directories
+     * @return files in the directories
+     */
+    public Stream<ProjectFile> getFilesInCanonicalDirectories(ListIterable<String> directories)
+    {
+        Stream<Map.Entry<String, ProjectFile>> stream = this.files.castToMap().entrySet().stream();
+        if (directories.size() == 1)
+        {
+            String directory = directories.get(0);
+            if (!ProjectPaths.ROOT_DIRECTORY.equals(directory))
+            {
+                stream = stream.filter(e -> e.getKey().startsWith(directory));
+            }
+        }
+        else
+        {
+            stream = stream.filter(e ->
+            {
+                String path = e.getKey();
+                return directories.anySatisfy(path::startsWith);
+            });
+        }
+        Stream<ProjectFile> files = stream.map(Map.Entry::getValue);
+        if (this.segments.isEmpty())
+        {
+            return files;
+        }
+
+        if (!retain())
+        {
+            throw new IllegalStateException("Snapshot content has already been freed");
+        }
+        AtomicBoolean released = new AtomicBoolean(false);
+        Runnable releaser = () ->
+        {
+            if (released.compareAndSet(false, true))
+            {
+                release();
+            }
+        };
+        Spliterator<ProjectFile> delegate = files.spliterator();
+        Spliterator<ProjectFile> spliterator = new Spliterators.AbstractSpliterator<ProjectFile>(delegate.estimateSize(), Spliterator.NONNULL)
+        {
+            @Override
+            public boolean tryAdvance(Consumer<? super ProjectFile> action)
+            {
+                if (released.get())
+                {
+                    return false;
+                }
+                if (delegate.tryAdvance(f -> action.accept(toHeapFile(f))))
+                {
+                    return true;
+                }
+                releaser.run();
+                return false;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(releaser);
+    }
+
+    /**
+     * Get the paths of the files in the given directories. The directories are expected to be canonicalized and
+     * reduced (see {@link ProjectPaths#canonicalizeAndReduceDirectories(Iterable)}).
+     *
+     * @param directories canonicalized and reduced directories
+     * @return paths of the files in the directories
+     */
+    public Stream<String> getFilePathsInCanonicalDirectories(ListIterable<String> directories)
+    {
+        return filterPathsInCanonicalDirectories(this.files.castToMap().keySet().stream(), directories);
+    }
+
+    public int getFileCount()
+    {
+        return this.files.size();
+    }
+
+    /**
+     * Total size (in bytes) of the content of all files in the snapshot.
+     *
+     * @return total content size in bytes
+     */
+    public long getContentSize()
+    {
+        return this.contentSize;
+    }
+
+    /**
+     * Size (in bytes) of the memory used to hold the content of all files in the snapshot. This is less than the
+     * content size if content is compressed. Content shared with other snapshots is included, as the snapshot keeps it
+     * in memory for as long as the snapshot is held. So are the whole of any off-heap segments the snapshot refers
+     * to, which may include content of files which were removed when the snapshot was derived from another.
+     *
+     * @return stored content size in bytes
+     */
+    public long getStoredSize()
+    {
+        return this.heapStoredSize + getOffHeapSize();
+    }
+
+    /**
+     * Size (in bytes) of the off-heap memory held by the snapshot.
+     *
+     * @return off-heap size in bytes
+     */
+    public long getOffHeapSize()
+    {
+        long size = 0L;
+        for (OffHeapSlabStore.Segment segment : this.segments)
+        {
+            size += segment.getAllocatedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Number of files in the snapshot whose content is held off-heap. A snapshot derived from one held off-heap may
+     * have some files held off-heap and some on the heap.
+     *
+     * @return number of files held off-heap
+     */
+    public int getOffHeapFileCount()
+    {
+        return this.offHeapFileCount;
+    }
+
+    /**
+     * Whether the snapshot holds any content off-heap.
+     *
+     * @return whether any content is off-heap
+     */
+    public boolean isOffHeap()
+    {
+        return !this.segments.isEmpty();
+    }
+
+    /**
+     * Take a reference to the off-heap content of the snapshot, if any. This fails if the content has already been
+     * freed, in which case the snapshot may not be used.
+     *
+     * @return whether a reference was taken
+     */
+    public boolean retain()
+    {
+        for (int i = 0; i < this.segments.size(); i++)
+        {
+            if (!this.segments.get(i).retain())
+            {
+                for (int j = 0; j < i; j++)
+                {
+                    this.segments.get(j).release();
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Give up a reference to the off-heap content of the snapshot, if any. Off-heap memory is freed once no snapshot
+     * holds a reference to it.
+     */
+    public void release()
+    {
+        this.segments.forEach(OffHeapSlabStore.Segment::release);
+    }
+
+    /**
+     * Apply the given consumer to the canonical path and content of each file in the snapshot.
+     *
+     * @param consumer consumer of path and content
+     */
+    void forEachFile(BiConsumer<? super String, ? super byte[]> consumer)
+    {
+        this.files.forEachKeyValue((path, file) -> consumer.accept(path, file.getContentAsBytes()));
+    }
+
+    /**
+     * Filter a stream of canonical file paths to those in the given directories. The directories are expected to be
+     * canonicalized and reduced (see {@link ProjectPaths#canonicalizeAndReduceDirectories(Iterable)}).
+     *
+     * @param paths       canonical file paths
+     * @param directories canonicalized and reduced directories
+     * @return paths in the directories
+     */
+    public static Stream<String> filterPathsInCanonicalDirectories(Stream<String> paths, ListIterable<String> directories)
+    {
+        if (directories.size() == 1)
+        {
+            String directory = directories.get(0);
+            return ProjectPaths.ROOT_DIRECTORY.equals(directory) ? paths : paths.filter(p -> p.startsWith(directory));
+        }
+        return paths.filter(p -> directories.anySatisfy(p::startsWith));
+    }
+
+    /**
+     * Build a snapshot from a stream of files. The content of each file is read eagerly.
+     *
+     * @param files project files
+     * @return snapshot
+     */
+    public static ProjectFileSnapshot newSnapshot(Stream<? extends ProjectFile> files)
+    {
+        return newSnapshot(files, null, false);
+    }
+
+    /**
+     * Build a snapshot from a stream of files, holding the content off-heap if possible. The content of each file is
+     * read eagerly. If the store is null or does not have space for the content, it is held on the heap, compressed
+     * if requested.
+     *
+     * @param files        project files
+     * @param offHeapStore off-heap store (may be null)
+     * @param compress     whether to compress content held on the heap
+     * @return snapshot
+     */
+    public static ProjectFileSnapshot newSnapshot(Stream<? extends ProjectFile> files, OffHeapSlabStore offHeapStore, boolean compress)
+    {
+        return newSnapshot(files, offHeapStore, compress, null);
+    }
+
+    /**
+     * Build a snapshot from a stream of files, as {@link #newSnapshot(Stream, OffHeapSlabStore, boolean)}. If content
+     * is held on the heap and a pool is supplied, files with the same path and content as a file in the pool share
+     * the pooled copy, and new files are added to the pool.
+     *
+     * @param files        project files
+     * @param offHeapStore off-heap store (may be null)
+     * @param compress     whether to compress content held on the heap
+     * @param contentPool  pool of files shared between snapshots (may be null)
+     * @return snapshot
+     */
+    public static ProjectFileSnapshot newSnapshot(Stream<? extends ProjectFile> files, OffHeapSlabStore offHeapStore, boolean compress, ProjectFileContentPool contentPool)
+    {
+        MutableMap<String, byte[]> map = Maps.mutable.empty();
+        files.forEach(f -> map.put(ProjectPaths.canonicalizeFile(f.getPath()), f.getContentAsBytes()));
+        return newSnapshot(map, offHeapStore, compress, contentPool);
+    }
+
+    /**
+     * Build a snapshot from a map of canonical file paths to content. The map and content arrays must not be
+     * modified afterwards.
+     *
+     * @param files canonical file paths and content
+     * @return snapshot
+     */
+    static ProjectFileSnapshot newSnapshot(MutableMap<String, byte[]> files)
+    {
+        return newSnapshot(files, null, false, null);
+    }
+
+    private static ProjectFileSnapshot newSnapshot(MutableMap<String, byte[]> contents, OffHeapSlabStore offHeapStore, boolean compress, ProjectFileContentPool contentPool)
+    {
+        long contentSize = 0L;
+        for (byte[] content : contents.valuesView())
+        {
+            contentSize += content.length;
+        }
+
+        OffHeapSlabStore.Segment segment = (offHeapStore == null) ? null : offHeapStore.allocate(contentSize);
+        MutableMap<String, ProjectFile> files = Maps.mutable.ofInitialCapacity(contents.size());
+        long heapStoredSize = 0L;
+        if (segment == null)
+        {
+            HeapFileBuilder builder = new HeapFileBuilder(compress, contentPool);
+            contents.forEachKeyValue((path, content) -> files.put(path, builder.newFile(path, content)));
+            heapStoredSize = builder.storedSize;
+        }
+        else
+        {
+            long offset = 0L;
+            for (Pair<String, byte[]> pair : contents.keyValuesView())
+            {
+                byte[] content = pair.getTwo();
+                segment.write(offset, content);
+                files.put(pair.getOne(), new OffHeapProjectFile(pair.getOne(), segment, offset, content.length));
+                offset += content.length;
+            }
+        }
+        return new ProjectFileSnapshot(files.toImmutable(), (segment == null) ? Lists.immutable.empty() : Lists.immutable.with(segment), contentSize, heapStoredSize);
+    }
+
+    /**
+     * Derive the snapshot of a new revision by applying file operations to this snapshot. Files which are not changed
+     * by the operations are shared with this snapshot, and if any of those are held off-heap, the derived snapshot
+     * takes its own reference to the off-heap content of this snapshot; new content is held on the heap. If the
+     * operations are not consistent with this snapshot (for example, if they modify or delete a file which does not exist), null is
+     * returned, as this snapshot cannot be the base of the new revision.
+     *
+     * @param operations  file operations
+     * @param compress    whether to compress new content
+     * @param contentPool pool of files shared between snapshots (may be null)
+     * @return derived snapshot or null
+     */
+    ProjectFileSnapshot applyOperations(List<? extends ProjectFileOperation> operations, boolean compress, ProjectFileContentPool contentPool)
+    {
+        MutableMap<String, ProjectFile> files = Maps.mutable.withMap(this.files.castToMap());
+        MutableMap<String, byte[]> newContents = Maps.mutable.empty();
+        long contentSize = this.contentSize;
+        HeapFileBuilder builder = new HeapFileBuilder(compress, contentPool, this.heapStoredSize);
+        for (ProjectFileOperation operation : operations)
+        {
+            String path = ProjectPaths.canonicalizeFile(operation.getPath());
+            if (operation instanceof ProjectFileOperation.AddFile)
+            {
+                if (files.containsKey(path))
+                {
+                    return null;
+                }
+                byte[] content = ((ProjectFileOperation.AddFile) operation).getContent();
+                files.put(path, null);
+                newContents.put(path, content);
+                contentSize += content.length;
+            }
+            else if (operation instanceof ProjectFileOperation.ModifyFile)
+            {
+                byte[] oldContent = removeContent(files, newContents, path, builder);
+                if (oldContent == null)
+                {
+                    return null;
+                }
+                byte[] content = ((ProjectFileOperation.ModifyFile) operation).getNewContent();
+                files.put(path, null);
+                newContents.put(path, content);
+                contentSize += content.length - oldContent.length;
+            }
+            else if (operation instanceof ProjectFileOperation.DeleteFile)
+            {
+                byte[] oldContent = removeContent(files, newContents, path, builder);
+                if (oldContent == null)
+                {
+                    return null;
+                }
+                contentSize -= oldContent.length;
+            }
+            else if (operation instanceof ProjectFileOperation.MoveFile)
+            {
+                ProjectFileOperation.MoveFile moveOperation = (ProjectFileOperation.MoveFile) operation;
+                String newPath = ProjectPaths.canonicalizeFile(moveOperation.getNewPath());
+                byte[] oldContent = removeContent(files, newContents, path, builder);
+                if ((oldContent == null) || files.containsKey(newPath))
+                {
+                    return null;
+                }
+                byte[] content = (moveOperation.getNewContent() == null) ? oldContent : moveOperation.getNewContent();
+                files.put(newPath, null);
+                newContents.put(newPath, content);
+                contentSize += content.length - oldContent.length;
+            }
+            else
+            {
+                return null;
+            }
+        }
+
+        newContents.forEachKeyValue((path, content) -> files.put(path, builder.newFile(path, content)));
+
+        // off-heap segments are retained whole, but only if some file still refers to them
+        boolean keepSegments = !this.segments.isEmpty() && files.anySatisfy(f -> f instanceof OffHeapProjectFile);
+        if (keepSegments && !retain())
+        {
+            return null;
+        }
+        return new ProjectFileSnapshot(files.toImmutable(), keepSegments ? this.segments : Lists.immutable.empty(), contentSize, builder.storedSize);
+    }
+
+    private static byte[] removeContent(MutableMap<String, ProjectFile> files, MutableMap<String, byte[]> newContents, String path, HeapFileBuilder builder)
+    {
+        if (!files.containsKey(path))
+        {
+            return null;
+        }
+        ProjectFile file = files.remove(path);
+        byte[] newContent = newContents.remove(path);
+        if (newContent != null)
+        {
+            return newContent;
+        }
+        byte[] content = file.getContentAsBytes();
+        builder.removeFile(file, content.length);
+        return content;
+    }
+
+    /**
+     * Size (in bytes) of the memory used to hold the content of a file, given the length of its content.
+     */
+    private static long getStoredSize(ProjectFile file, int contentLength)
+    {
+        return (file instanceof CompressedProjectFile) ? ((CompressedProjectFile) file).getCompressedSize() : contentLength;
+    }
+
+    private static ProjectFile toHeapFile(ProjectFile file)
+    {
+        return (file instanceof OffHeapProjectFile) ? ((OffHeapProjectFile) file).toHeapFile() : file;
+    }
+
+    /**
+     * Builds files held on the heap, compressing content and sharing pooled files if requested, and keeps track of the
+     * memory used to hold the content of a set of files on the heap as files are added and removed.
+     */
+    private static class HeapFileBuilder
+    {
+        private final boolean compress;
+        private final ProjectFileContentPool contentPool;
+        private long storedSize;
+
+        private HeapFileBuilder(boolean compress, ProjectFileContentPool contentPool, long initialStoredSize)
+        {
+            this.compress = compress;
+            this.contentPool = contentPool;
+            this.storedSize = initialStoredSize;
+        }
+
+        private HeapFileBuilder(boolean compress, ProjectFileContentPool contentPool)
+        {
+            this(compress, contentPool, 0L);
+        }
+
+        private void removeFile(ProjectFile file, int contentLength)
+        {
+            if (!(file instanceof OffHeapProjectFile))
+            {
+                this.storedSize -= getStoredSize(file, contentLength);
+            }
+        }
+
+        private ProjectFile newFile(String path, byte[] content)
+        {
+            ProjectFile file = getOrCreateFile(path, content);
+            this.storedSize += getStoredSize(file, content.length);
+            return file;
+        }
+
+        private ProjectFile getOrCreateFile(String path, byte[] content)
+        {
+            String blobId = (this.contentPool == null) ? null : ProjectFileContentPool.getBlobId(content);
+            ProjectFile pooled = (this.contentPool == null) ? null : this.contentPool.get(path, blobId, content);
+            if (pooled != null)
+            {
+                return pooled;
+            }
+
+            CompressedProjectFile compressed = this.compress ? CompressedProjectFile.compress(path, content) : null;
+            ProjectFile file = (compressed == null) ? ProjectFiles.newByteArrayProjectFile(path, content) : compressed;
+            pooled = (this.contentPool == null) ? null : this.contentPool.putIfAbsent(path, blobId, file);
+            return (pooled == null) ? file : pooled;
+        }
+    }
+}
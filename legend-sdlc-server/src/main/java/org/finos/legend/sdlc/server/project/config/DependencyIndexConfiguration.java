@@ -0,0 +1,70 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.concurrent.TimeUnit;
+
+public class DependencyIndexConfiguration
+{
+    private static final long DEFAULT_REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+
+    private final long refreshInterval;
+    private final String file;
+
+    private DependencyIndexConfiguration(long refreshInterval, String file)
+    {
+        if (refreshInterval < 0)
+        {
+            throw new IllegalArgumentException("Invalid refresh interval: " + refreshInterval);
+        }
+        this.refreshInterval = refreshInterval;
+        this.file = file;
+    }
+
+    /**
+     * Interval (in milliseconds) after which an indexed project is verified again against its current revision.
+     *
+     * @return refresh interval in milliseconds
+     */
+    public long getRefreshInterval()
+    {
+        return this.refreshInterval;
+    }
+
+    /**
+     * File in which the downstream dependency index is persisted, so that it survives restarts. If null, the index is
+     * only held in memory.
+     *
+     * @return index file or null
+     */
+    public String getFile()
+    {
+        return this.file;
+    }
+
+    @JsonCreator
+    public static DependencyIndexConfiguration newConfiguration(@JsonProperty("refreshInterval") Long refreshInterval, @JsonProperty("file") String file)
+    {
+        return new DependencyIndexConfiguration((refreshInterval == null) ? DEFAULT_REFRESH_INTERVAL : refreshInterval, file);
+    }
+
+    public static DependencyIndexConfiguration defaultConfiguration()
+    {
+        return new DependencyIndexConfiguration(DEFAULT_REFRESH_INTERVAL, null);
+    }
+}
@@ -0,0 +1,145 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ProjectFileCacheConfiguration
+{
+    private static final long DEFAULT_MAX_SIZE = 256L * 1024L * 1024L;
+    private static final long DEFAULT_MAX_DISK_SIZE = 4L * 1024L * 1024L * 1024L;
+    private static final long DEFAULT_MAX_PARSED_ENTITY_SIZE = 64L * 1024L * 1024L;
+
+    private final long maxSize;
+    private final String diskDirectory;
+    private final long maxDiskSize;
+    private final long maxOffHeapSize;
+    private final boolean compressContent;
+    private final long maxParsedEntitySize;
+
+    private ProjectFileCacheConfiguration(long maxSize, String diskDirectory, long maxDiskSize, long maxOffHeapSize, boolean compressContent, long maxParsedEntitySize)
+    {
+        if (maxSize < 0)
+        {
+            throw new IllegalArgumentException("Invalid max size: " + maxSize);
+        }
+        if (maxDiskSize <= 0)
+        {
+            throw new IllegalArgumentException("Invalid max disk size: " + maxDiskSize);
+        }
+        if (maxOffHeapSize < 0)
+        {
+            throw new IllegalArgumentException("Invalid max off-heap size: " + maxOffHeapSize);
+        }
+        if (maxParsedEntitySize < 0)
+        {
+            throw new IllegalArgumentException("Invalid max parsed entity size: " + maxParsedEntitySize);
+        }
+        this.maxSize = maxSize;
+        this.diskDirectory = diskDirectory;
+        this.maxDiskSize = maxDiskSize;
+        this.maxOffHeapSize = maxOffHeapSize;
+        this.compressContent = compressContent;
+        this.maxParsedEntitySize = maxParsedEntitySize;
+    }
+
+    /**
+     * Maximum total size (in bytes) of the file content held in the cache. A max size of 0 disables the cache.
+     *
+     * @return max cache size in bytes
+     */
+    public long getMaxSize()
+    {
+        return this.maxSize;
+    }
+
+    /**
+     * Directory for the persistent disk cache of files at immutable revisions, such as release tags. If null, there
+     * is no disk cache.
+     *
+     * @return disk cache directory or null
+     */
+    public String getDiskDirectory()
+    {
+        return this.diskDirectory;
+    }
+
+    /**
+     * Maximum total size (in bytes) of the file content held in the disk cache.
+     *
+     * @return max disk cache size in bytes
+     */
+    public long getMaxDiskSize()
+    {
+        return this.maxDiskSize;
+    }
+
+    /**
+     * Maximum total size (in bytes) of off-heap memory used to hold the file content in the cache. A max size of 0
+     * means content is held on the heap. When there is not enough off-heap memory available for a snapshot, its
+     * content is held on the heap; so this should normally be at least the max cache size.
+     *
+     * @return max off-heap size in bytes
+     */
+    public long getMaxOffHeapSize()
+    {
+        return this.maxOffHeapSize;
+    }
+
+    /**
+     * Whether file content held on the heap in the cache is compressed. Compressed content takes less space, so more
+     * snapshots fit in the cache, but it must be decompressed each time it is accessed.
+     *
+     * @return whether to compress cached content
+     */
+    public boolean isCompressContent()
+    {
+        return this.compressContent;
+    }
+
+    /**
+     * Maximum total size (in bytes) of the serialized content of entities held in the process-wide cache of
+     * deserialized entities. A max size of 0 disables the cache.
+     *
+     * @return max parsed entity cache size in bytes
+     */
+    public long getMaxParsedEntitySize()
+    {
+        return this.maxParsedEntitySize;
+    }
+
+    public static ProjectFileCacheConfiguration newConfiguration(Long maxSize)
+    {
+        return newConfiguration(maxSize, null, null, null, null, null);
+    }
+
+    @JsonCreator
+    public static ProjectFileCacheConfiguration newConfiguration(@JsonProperty("maxSize") Long maxSize, @JsonProperty("diskDirectory") String diskDirectory, @JsonProperty("maxDiskSize") Long maxDiskSize, @JsonProperty("maxOffHeapSize") Long maxOffHeapSize, @JsonProperty("compressContent") Boolean compressContent, @JsonProperty("maxParsedEntitySize") Long maxParsedEntitySize)
+    {
+        return new ProjectFileCacheConfiguration(
+                (maxSize == null) ? DEFAULT_MAX_SIZE : maxSize,
+                diskDirectory,
+                (maxDiskSize == null) ? DEFAULT_MAX_DISK_SIZE : maxDiskSize,
+                (maxOffHeapSize == null) ? 0L : maxOffHeapSize,
+                (compressContent != null) && compressContent,
+                (maxParsedEntitySize == null) ? DEFAULT_MAX_PARSED_ENTITY_SIZE : maxParsedEntitySize);
+    }
+
+    public static ProjectFileCacheConfiguration defaultConfiguration()
+    {
+        return new ProjectFileCacheConfiguration(DEFAULT_MAX_SIZE, null, DEFAULT_MAX_DISK_SIZE, 0L, false, DEFAULT_MAX_PARSED_ENTITY_SIZE);
+    }
+}
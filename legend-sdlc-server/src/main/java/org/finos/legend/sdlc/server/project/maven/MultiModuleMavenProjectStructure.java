@@ -29,8 +29,8 @@ import org.finos.legend.sdlc.domain.model.project.configuration.ArtifactType;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
 import org.finos.legend.sdlc.domain.model.version.VersionId;
+import org.finos.legend.sdlc.serialization.DefaultJsonEntitySerializer;
 import org.finos.legend.sdlc.serialization.EntitySerializer;
-import org.finos.legend.sdlc.serialization.EntitySerializers;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
 import org.finos.legend.sdlc.server.project.ProjectFileOperation;
@@ -519,7 +519,7 @@ public abstract class MultiModuleMavenProjectStructure extends MavenProjectStruc
 
     protected static EntitySourceDirectory getDefaultEntitySourceDirectory(ProjectConfiguration projectConfiguration, String entitiesModuleName)
     {
-        return newEntitySourceDirectory(getModulePath(projectConfiguration, entitiesModuleName, false) + "/src/main/resources/entities", EntitySerializers.getDefaultJsonSerializer());
+        return newEntitySourceDirectory(getModulePath(projectConfiguration, entitiesModuleName, false) + "/src/main/resources/entities", new DefaultJsonEntitySerializer(true));
     }
 
     protected static List<EntitySourceDirectory> getDefaultEntitySourceDirectoriesForSerializers(ProjectConfiguration projectConfiguration, String entitiesModuleName, List<EntitySerializer> serializers)
@@ -29,6 +29,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.List;
 import java.util.Set;
 
@@ -47,27 +48,28 @@ public class BackupWorkspaceEntitiesResource extends EntityAccessResource
     }
 
     @GET
-    @ApiOperation("Get entities of the backup workspace")
-    public List<Entity> getAllEntities(@PathParam("projectId") String projectId,
-                                       @PathParam("workspaceId") String workspaceId,
-                                       @QueryParam("classifierPath")
-                                       @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
-                                       @QueryParam("package")
-                                       @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
-                                       @QueryParam("includeSubPackages")
-                                       @DefaultValue("true")
-                                       @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
-                                       @QueryParam("name")
-                                       @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
-                                       @QueryParam("stereotype")
-                                       @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
-                                       @QueryParam("taggedValue")
-                                       @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
+    @ApiOperation(value = "Get entities of the backup workspace", response = Entity.class, responseContainer = "List")
+    public StreamingOutput getAllEntities(@PathParam("projectId") String projectId,
+                                          @PathParam("workspaceId") String workspaceId,
+                                          @QueryParam("classifierPath")
+                                          @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
+                                          @QueryParam("package")
+                                          @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
+                                          @QueryParam("includeSubPackages")
+                                          @DefaultValue("true")
+                                          @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
+                                          @QueryParam("name")
+                                          @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
+                                          @QueryParam("stereotype")
+                                          @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
+                                          @QueryParam("taggedValue")
+                                          @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
     {
-        return executeWithLogging(
+        return getEntitiesAsJson(
                 "getting entities in backup workspace " + workspaceId + " for project " + projectId,
-                () -> getEntities(this.entityApi.getBackupWorkspaceEntityAccessContext(projectId, workspaceId), classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes)
-        );
+                null,
+                () -> this.entityApi.getBackupWorkspaceEntityAccessContext(projectId, workspaceId),
+                classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes);
     }
 
     @GET
@@ -29,6 +29,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.List;
 import java.util.Set;
 
@@ -47,28 +48,29 @@ public class ConflictResolutionWorkspaceRevisionEntitiesResource extends EntityA
     }
 
     @GET
-    @ApiOperation("Get entities of the workspace with conflict resolution at the revision")
-    public List<Entity> getAllEntities(@PathParam("projectId") String projectId,
-                                       @PathParam("workspaceId") String workspaceId,
-                                       @PathParam("revisionId") @ApiParam("Including aliases: head, latest, current, base") String revisionId,
-                                       @QueryParam("classifierPath")
-                                       @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
-                                       @QueryParam("package")
-                                       @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
-                                       @QueryParam("includeSubPackages")
-                                       @DefaultValue("true")
-                                       @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
-                                       @QueryParam("name")
-                                       @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
-                                       @QueryParam("stereotype")
-                                       @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
-                                       @QueryParam("taggedValue")
-                                       @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
+    @ApiOperation(value = "Get entities of the workspace with conflict resolution at the revision", response = Entity.class, responseContainer = "List")
+    public StreamingOutput getAllEntities(@PathParam("projectId") String projectId,
+                                          @PathParam("workspaceId") String workspaceId,
+                                          @PathParam("revisionId") @ApiParam("Including aliases: head, latest, current, base") String revisionId,
+                                          @QueryParam("classifierPath")
+                                          @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
+                                          @QueryParam("package")
+                                          @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
+                                          @QueryParam("includeSubPackages")
+                                          @DefaultValue("true")
+                                          @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
+                                          @QueryParam("name")
+                                          @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
+                                          @QueryParam("stereotype")
+                                          @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
+                                          @QueryParam("taggedValue")
+                                          @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
     {
-        return executeWithLogging(
+        return getEntitiesAsJson(
                 "getting entities in revision " + revisionId + " of workspace with conflict resolution " + workspaceId + " for project " + projectId,
-                () -> getEntities(this.entityApi.getWorkspaceWithConflictResolutionRevisionEntityAccessContext(projectId, workspaceId, revisionId), classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes)
-        );
+                null,
+                () -> this.entityApi.getWorkspaceWithConflictResolutionRevisionEntityAccessContext(projectId, workspaceId, revisionId),
+                classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes);
     }
 
     @GET
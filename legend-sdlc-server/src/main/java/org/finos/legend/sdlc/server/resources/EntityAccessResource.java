@@ -15,15 +15,19 @@
 package org.finos.legend.sdlc.server.resources;
 
 import org.eclipse.collections.api.factory.Maps;
-import org.finos.legend.sdlc.domain.model.entity.Entity;
 import org.finos.legend.sdlc.server.domain.api.entity.EntityAccessContext;
+import org.finos.legend.sdlc.server.domain.api.entity.EntityJsonWriter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import javax.ws.rs.core.StreamingOutput;
 
 abstract class EntityAccessResource extends BaseResource
 {
@@ -37,12 +41,41 @@ abstract class EntityAccessResource extends BaseResource
         return entityAccessContext.getEntityPaths(entityPathPredicate, classifierPathPredicate, contentPredicate);
     }
 
-    protected List<Entity> getEntities(EntityAccessContext entityAccessContext, Set<String> classifierPaths, Set<String> packages, boolean includeSubPackages, String nameRegex, Set<String> stereotypes, Collection<String> taggedValueRegexes)
+    /**
+     * Get entities as JSON, to be streamed to the response. The entities are found (and validated) while executing
+     * with the given description and metric, and the JSON is then written in its own logged scope, so that errors while
+     * writing are logged with the time taken.
+     */
+    protected StreamingOutput getEntitiesAsJson(String descriptionForLogging, String metricName, Supplier<? extends EntityAccessContext> entityAccessContextSupplier, Set<String> classifierPaths, Set<String> packages, boolean includeSubPackages, String nameRegex, Set<String> stereotypes, Collection<String> taggedValueRegexes)
     {
-        Predicate<String> entityPathPredicate = getEntityPathPredicate(packages, includeSubPackages, nameRegex);
-        Predicate<String> classifierPathPredicate = getClassifierPathPredicate(classifierPaths);
-        Predicate<Map<String, ?>> contentPredicate = getContentPredicate(stereotypes, taggedValueRegexes);
-        return entityAccessContext.getEntities(entityPathPredicate, classifierPathPredicate, contentPredicate);
+        EntityJsonWriter writer = execute(descriptionForLogging, metricName, () ->
+        {
+            Predicate<String> entityPathPredicate = getEntityPathPredicate(packages, includeSubPackages, nameRegex);
+            Predicate<String> classifierPathPredicate = getClassifierPathPredicate(classifierPaths);
+            Predicate<Map<String, ?>> contentPredicate = getContentPredicate(stereotypes, taggedValueRegexes);
+            return entityAccessContextSupplier.get().getEntitiesAsJson(entityPathPredicate, classifierPathPredicate, contentPredicate);
+        });
+        return outputStream ->
+        {
+            try
+            {
+                executeWithLogging("writing result of " + descriptionForLogging, () ->
+                {
+                    try
+                    {
+                        writer.write(outputStream);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+        };
     }
 
     private Predicate<String> getEntityPathPredicate(Set<String> packages, boolean includeSubPackages, String nameRegex)
@@ -22,6 +22,7 @@ import org.finos.legend.sdlc.domain.model.revision.Revision;
 import org.finos.legend.sdlc.server.application.entity.CreateOrUpdateEntityCommand;
 import org.finos.legend.sdlc.server.application.entity.DeleteEntitiesCommand;
 import org.finos.legend.sdlc.server.application.entity.DeleteEntityCommand;
+import org.finos.legend.sdlc.server.application.entity.EntityDefinitionReader;
 import org.finos.legend.sdlc.server.application.entity.UpdateEntitiesCommand;
 import org.finos.legend.sdlc.server.domain.api.entity.EntityApi;
 import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
@@ -37,8 +38,11 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Path("/projects/{projectId}/workspaces/{workspaceId}/entities")
 @Api("Entities")
@@ -55,28 +59,28 @@ public class WorkspaceEntitiesResource extends EntityAccessResource
     }
 
     @GET
-    @ApiOperation("Get entities of the workspace")
-    public List<Entity> getAllEntities(@PathParam("projectId") String projectId,
-                                       @PathParam("workspaceId") String workspaceId,
-                                       @QueryParam("classifierPath")
-                                       @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
-                                       @QueryParam("package")
-                                       @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
-                                       @QueryParam("includeSubPackages")
-                                       @DefaultValue("true")
-                                       @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
-                                       @QueryParam("name")
-                                       @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
-                                       @QueryParam("stereotype")
-                                       @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
-                                       @QueryParam("taggedValue")
-                                       @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
+    @ApiOperation(value = "Get entities of the workspace", response = Entity.class, responseContainer = "List")
+    public StreamingOutput getAllEntities(@PathParam("projectId") String projectId,
+                                          @PathParam("workspaceId") String workspaceId,
+                                          @QueryParam("classifierPath")
+                                          @ApiParam("Only include entities with one of these classifier paths.") Set<String> classifierPaths,
+                                          @QueryParam("package")
+                                          @ApiParam("Only include entities in one of these packages. If includeSubPackages is true (which it is by default), then entities in subpackages are also included. Otherwise, only entities directly in one of the packages are included.") Set<String> packages,
+                                          @QueryParam("includeSubPackages")
+                                          @DefaultValue("true")
+                                          @ApiParam("Whether to include entities from subpackages or only directly in one of the given packages. This is ignored if no packages are supplied.") boolean includeSubPackages,
+                                          @QueryParam("name")
+                                          @ApiParam("Only include entities with a name matching this regular expression.") String nameRegex,
+                                          @QueryParam("stereotype")
+                                          @ApiParam("Only include entities with one of these stereotypes. The syntax is PROFILE.NAME, where PROFILE is the full path of the Profile that owns the Stereotype.") Set<String> stereotypes,
+                                          @QueryParam("taggedValue")
+                                          @ApiParam("Only include entities with a matching tagged value. The syntax is PROFILE.NAME/REGEX, where PROFILE is the full path of the Profile that owns the Tag, NAME is the name of the Tag, and REGEX is a regular expression to match against the value.") List<String> taggedValueRegexes)
     {
-        return execute(
+        return getEntitiesAsJson(
                 "getting entities in workspace " + workspaceId + " for project " + projectId,
                 "get entities of the workspace",
-                () -> getEntities(this.entityApi.getWorkspaceEntityAccessContext(projectId, workspaceId), classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes)
-        );
+                () -> this.entityApi.getWorkspaceEntityAccessContext(projectId, workspaceId),
+                classifierPaths, packages, includeSubPackages, nameRegex, stereotypes, taggedValueRegexes);
     }
 
     @DELETE
@@ -107,6 +111,30 @@ public class WorkspaceEntitiesResource extends EntityAccessResource
         );
     }
 
+    @POST
+    @Consumes(EntityDefinitionReader.NDJSON_MEDIA_TYPE)
+    @ApiOperation(value = "Update entities from a stream", notes = "Update entities with new definitions supplied as newline delimited JSON, one entity per line. Definitions are processed as they are read, so this is suitable for very large updates. If replace is true, then all entities are replaced. This means that existing entities are deleted unless a new definition is supplied.")
+    public Revision updateEntitiesFromStream(@PathParam("projectId") String projectId,
+                                             @PathParam("workspaceId") String workspaceId,
+                                             @QueryParam("replace") @DefaultValue("false") @ApiParam("Whether to replace all entities, deleting those with no new definition.") boolean replace,
+                                             @QueryParam("message") @ApiParam("Commit message.") String message,
+                                             InputStream entityDefinitions)
+    {
+        LegendSDLCServerException.validateNonNull(message, "message may not be null");
+        LegendSDLCServerException.validateNonNull(entityDefinitions, "Input required to update entities");
+        return execute(
+                "updating entities from a stream in workspace " + workspaceId + " for project " + projectId,
+                "update entities",
+                () ->
+                {
+                    try (Stream<Entity> entities = EntityDefinitionReader.readNDJson(entityDefinitions))
+                    {
+                        return this.entityApi.getWorkspaceEntityModificationContext(projectId, workspaceId).updateEntities(entities, replace, message);
+                    }
+                }
+        );
+    }
+
     @GET
     @Path("{path}")
     @ApiOperation("Get an entity of the workspace by its path")
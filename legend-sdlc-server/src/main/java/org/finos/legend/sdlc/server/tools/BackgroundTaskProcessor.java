@@ -25,12 +25,14 @@ import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 public class BackgroundTaskProcessor
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundTaskProcessor.class);
 
     private static final long DEFAULT_SLEEP_MILLIS = 100L;
+    private static final ThreadLocal<Boolean> IN_BACKGROUND_TASK = ThreadLocal.withInitial(() -> false);
 
     private final AtomicInteger taskCounter = new AtomicInteger(0);
     private final ThreadPoolExecutor executor;
@@ -294,6 +296,44 @@ public class BackgroundTaskProcessor
         LOGGER.debug("{} task submitted", taskWrapper.logPrefix);
     }
 
+    /**
+     * Whether the current thread is running a background task. This can be used to give lower priority to work done
+     * on behalf of background tasks.
+     *
+     * @return whether the current thread is running a background task
+     */
+    public static boolean isInBackgroundTask()
+    {
+        return IN_BACKGROUND_TASK.get();
+    }
+
+    /**
+     * Call the supplier on the current thread as if it were a background task, so that work it does is given the
+     * lower priority of background tasks (see {@link #isInBackgroundTask()}). This is for bulk work done while
+     * answering a request, such as scanning many projects, which should not use up capacity reserved for interactive
+     * work.
+     *
+     * @param supplier supplier
+     * @param <T>      result type
+     * @return supplier result
+     */
+    public static <T> T callAsBackgroundWork(Supplier<T> supplier)
+    {
+        boolean previous = IN_BACKGROUND_TASK.get();
+        IN_BACKGROUND_TASK.set(true);
+        try
+        {
+            return supplier.get();
+        }
+        finally
+        {
+            if (!previous)
+            {
+                IN_BACKGROUND_TASK.remove();
+            }
+        }
+    }
+
     private boolean isQueueEmpty()
     {
         return this.executor.getQueue().isEmpty();
@@ -343,7 +383,15 @@ public class BackgroundTaskProcessor
         @Override
         public Void call() throws Exception
         {
-            runTask();
+            IN_BACKGROUND_TASK.set(true);
+            try
+            {
+                runTask();
+            }
+            finally
+            {
+                IN_BACKGROUND_TASK.remove();
+            }
             return null;
         }
 
@@ -0,0 +1,198 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.tools;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Maps the elements of a stream with a CPU bound function, such as deserialization, using a bounded pool of threads.
+ * The input stream is consumed on the thread which consumes the output stream, while the function is applied to a
+ * bounded number of elements ahead of it on the pool. Results are returned in the order of the inputs. If the function
+ * throws an exception for any input, the exception is thrown when that result is reached in the output stream.
+ */
+public class ParallelMapper
+{
+    private static final int WINDOW_SIZE_MULTIPLIER = 4;
+
+    private final int parallelism;
+    private final ThreadPoolExecutor executor;
+
+    private ParallelMapper(int parallelism, String threadNamePrefix)
+    {
+        this.parallelism = Math.max(1, parallelism);
+        this.executor = (this.parallelism == 1) ? null : newExecutor(this.parallelism, threadNamePrefix);
+    }
+
+    public int getParallelism()
+    {
+        return this.parallelism;
+    }
+
+    /**
+     * Apply the function to each element of the input stream, in parallel, and stream the results in the order of the
+     * inputs. Closing the output stream cancels any calls still in flight and closes the input stream.
+     *
+     * @param inputs   input stream
+     * @param function function to apply
+     * @param <T>      input type
+     * @param <R>      result type
+     * @return stream of results
+     */
+    public <T, R> Stream<R> map(Stream<? extends T> inputs, Function<? super T, ? extends R> function)
+    {
+        if (this.executor == null)
+        {
+            return inputs.map(function);
+        }
+        return IOTools.streamCloseableSpliterator(new MapSpliterator<T, R>(inputs, function), false);
+    }
+
+    public static ParallelMapper newMapper(int parallelism, String threadNamePrefix)
+    {
+        return new ParallelMapper(parallelism, threadNamePrefix);
+    }
+
+    private static ThreadPoolExecutor newExecutor(int parallelism, String threadNamePrefix)
+    {
+        AtomicInteger threadCounter = new AtomicInteger(0);
+        ThreadFactory threadFactory = runnable ->
+        {
+            Thread thread = new Thread(runnable, threadNamePrefix + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private class MapSpliterator<T, R> implements Spliterator<R>, AutoCloseable
+    {
+        private final Stream<? extends T> inputStream;
+        private final Iterator<? extends T> inputs;
+        private final Function<? super T, ? extends R> function;
+        private final int windowSize;
+        private final Deque<Future<R>> inFlight;
+
+        private MapSpliterator(Stream<? extends T> inputStream, Function<? super T, ? extends R> function)
+        {
+            this.inputStream = inputStream;
+            this.inputs = inputStream.iterator();
+            this.function = function;
+            this.windowSize = ParallelMapper.this.parallelism * WINDOW_SIZE_MULTIPLIER;
+            this.inFlight = new ArrayDeque<>(this.windowSize);
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action)
+        {
+            fillWindow();
+            Future<R> next = this.inFlight.poll();
+            if (next == null)
+            {
+                return false;
+            }
+            action.accept(await(next));
+            return true;
+        }
+
+        @Override
+        public Spliterator<R> trySplit()
+        {
+            return null;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED;
+        }
+
+        @Override
+        public void close()
+        {
+            cancelInFlight();
+            this.inputStream.close();
+        }
+
+        private void fillWindow()
+        {
+            while ((this.inFlight.size() < this.windowSize) && this.inputs.hasNext())
+            {
+                T input = this.inputs.next();
+                this.inFlight.add(ParallelMapper.this.executor.submit(() -> this.function.apply(input)));
+            }
+        }
+
+        private void cancelInFlight()
+        {
+            this.inFlight.forEach(f -> f.cancel(true));
+            this.inFlight.clear();
+        }
+
+        private R await(Future<R> future)
+        {
+            try
+            {
+                return future.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                cancelInFlight();
+                throw new RuntimeException("Interrupted while waiting for result", e);
+            }
+            catch (CancellationException e)
+            {
+                cancelInFlight();
+                throw e;
+            }
+            catch (ExecutionException e)
+            {
+                cancelInFlight();
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error)
+                {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
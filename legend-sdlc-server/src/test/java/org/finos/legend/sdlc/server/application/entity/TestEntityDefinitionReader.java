@@ -0,0 +1,87 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.application.entity;
+
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.ws.rs.core.Response.Status;
+
+public class TestEntityDefinitionReader
+{
+    @Test
+    public void testReadNDJson()
+    {
+        String input = "{\"path\":\"model::A\",\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"package\":\"model\",\"name\":\"A\"}}\n" +
+                "\n" +
+                "{\"path\":\"model::B\",\"classifierPath\":\"meta::pure::metamodel::type::Enumeration\",\"content\":{\"package\":\"model\",\"name\":\"B\",\"values\":[\"X\",\"Y\"]}}\n";
+        List<Entity> entities;
+        try (Stream<Entity> stream = EntityDefinitionReader.readNDJson(toInputStream(input)))
+        {
+            entities = stream.collect(Collectors.toList());
+        }
+        Assert.assertEquals(2, entities.size());
+
+        Entity a = entities.get(0);
+        Assert.assertEquals("model::A", a.getPath());
+        Assert.assertEquals("meta::pure::metamodel::type::Class", a.getClassifierPath());
+        Assert.assertEquals("A", a.getContent().get("name"));
+
+        Entity b = entities.get(1);
+        Assert.assertEquals("model::B", b.getPath());
+        Assert.assertEquals("meta::pure::metamodel::type::Enumeration", b.getClassifierPath());
+        Assert.assertEquals(Arrays.asList("X", "Y"), b.getContent().get("values"));
+    }
+
+    @Test
+    public void testReadEmptyNDJson()
+    {
+        try (Stream<Entity> stream = EntityDefinitionReader.readNDJson(toInputStream("")))
+        {
+            Assert.assertEquals(0, stream.count());
+        }
+    }
+
+    @Test
+    public void testReadInvalidNDJson()
+    {
+        String input = "{\"path\":\"model::A\",\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"package\":\"model\",\"name\":\"A\"}}\n" +
+                "{\"path\":\"model::B\",,\"classifierPath\":\"meta::pure::metamodel::type::Class\"}\n" +
+                "{\"path\":\"model::C\"}\n";
+        try (Stream<Entity> stream = EntityDefinitionReader.readNDJson(toInputStream(input)))
+        {
+            Iterator<Entity> iterator = stream.iterator();
+            Assert.assertEquals("model::A", iterator.next().getPath());
+            LegendSDLCServerException e = Assert.assertThrows(LegendSDLCServerException.class, iterator::next);
+            Assert.assertEquals(Status.BAD_REQUEST, e.getStatus());
+            Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Invalid entity definition at line 2"));
+        }
+    }
+
+    private static InputStream toInputStream(String string)
+    {
+        return new ByteArrayInputStream(string.getBytes(StandardCharsets.UTF_8));
+    }
+}
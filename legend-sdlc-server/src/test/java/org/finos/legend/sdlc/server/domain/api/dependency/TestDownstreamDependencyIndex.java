@@ -0,0 +1,220 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.domain.api.dependency;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.impl.utility.Iterate;
+import org.eclipse.collections.impl.utility.ListIterate;
+import org.finos.legend.sdlc.domain.model.project.Project;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
+import org.finos.legend.sdlc.server.domain.api.project.ProjectApi;
+import org.finos.legend.sdlc.server.inmemory.backend.InMemoryBackend;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+public class TestDownstreamDependencyIndex
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testUpdateAndRemove()
+    {
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex();
+        Assert.assertEquals(Sets.mutable.empty(), index.getDownstreamProjects("A", p -> true));
+
+        index.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        index.update("C", "c1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0"), ProjectDependency.parseProjectDependency("B:1.0.0")));
+        Assert.assertEquals(Sets.mutable.with("B:b1", "C:c1"), toStrings(index.getDownstreamProjects("A", p -> true)));
+        Assert.assertEquals(Sets.mutable.with("C:c1"), toStrings(index.getDownstreamProjects("B", p -> true)));
+        Assert.assertTrue(index.isIndexed("B", "b1"));
+        Assert.assertFalse(index.isIndexed("B", "b2"));
+
+        index.update("C", "c2", Lists.mutable.with(ProjectDependency.parseProjectDependency("B:2.0.0")));
+        Assert.assertEquals(Sets.mutable.with("B:b1"), toStrings(index.getDownstreamProjects("A", p -> true)));
+        Assert.assertEquals(Sets.mutable.with("C:c2"), toStrings(index.getDownstreamProjects("B", p -> true)));
+
+        index.remove("B");
+        Assert.assertEquals(Sets.mutable.empty(), toStrings(index.getDownstreamProjects("A", p -> true)));
+        Assert.assertEquals(Sets.mutable.with("C:c2"), toStrings(index.getDownstreamProjects("B", p -> true)));
+    }
+
+    @Test
+    public void testVisibilityFilter()
+    {
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex();
+        index.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        index.update("C", "c1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        Assert.assertEquals(Sets.mutable.with("B:b1", "C:c1"), toStrings(index.getDownstreamProjects("A", p -> true)));
+        Assert.assertEquals(Sets.mutable.with("C:c1"), toStrings(index.getDownstreamProjects("A", "C"::equals)));
+        Assert.assertEquals(Sets.mutable.empty(), toStrings(index.getDownstreamProjects("A", p -> false)));
+    }
+
+    @Test
+    public void testVerification()
+    {
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex();
+        Assert.assertTrue(index.needsVerification("B"));
+        index.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        Assert.assertFalse(index.needsVerification("B"));
+
+        DownstreamDependencyIndex alwaysDueIndex = DownstreamDependencyIndex.newIndex(0L);
+        alwaysDueIndex.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        Assert.assertTrue(alwaysDueIndex.needsVerification("B"));
+
+        index.invalidate("B");
+        Assert.assertTrue(index.needsVerification("B"));
+        Assert.assertTrue(index.isIndexed("B", "b1"));
+    }
+
+    @Test
+    public void testPersistence() throws IOException
+    {
+        Path file = this.tempFolder.getRoot().toPath().resolve("index").resolve("downstream.idx");
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex(60_000L, file);
+        Assert.assertEquals(0, index.getProjectCount());
+
+        // nothing is written until the index changes
+        index.saveIfModified();
+        Assert.assertFalse(Files.exists(file));
+
+        index.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        index.update("C", "c1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0"), ProjectDependency.parseProjectDependency("B:1.0.0")));
+        index.update("D", "d1", null);
+        index.saveIfModified();
+        Assert.assertTrue(Files.exists(file));
+
+        DownstreamDependencyIndex loaded = DownstreamDependencyIndex.newIndex(60_000L, file);
+        Assert.assertEquals(3, loaded.getProjectCount());
+        Assert.assertEquals(Sets.mutable.with("B:b1", "C:c1"), toStrings(loaded.getDownstreamProjects("A", p -> true)));
+        Assert.assertEquals(Sets.mutable.with("C:c1"), toStrings(loaded.getDownstreamProjects("B", p -> true)));
+        Assert.assertTrue(loaded.isIndexed("D", "d1"));
+
+        // loaded projects must be verified before they are relied on
+        Assert.assertTrue(loaded.needsVerification("B"));
+        loaded.markVerified("B");
+        Assert.assertFalse(loaded.needsVerification("B"));
+
+        loaded.remove("C");
+        loaded.saveIfModified();
+        DownstreamDependencyIndex reloaded = DownstreamDependencyIndex.newIndex(60_000L, file);
+        Assert.assertEquals(Sets.mutable.with("B:b1"), toStrings(reloaded.getDownstreamProjects("A", p -> true)));
+    }
+
+    @Test
+    public void testCorruptFile() throws IOException
+    {
+        Path file = this.tempFolder.newFile("downstream.idx").toPath();
+        Files.write(file, new byte[]{0, 0, 0, 1, 0, 0, 0, 5, 0});
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex(60_000L, file);
+        Assert.assertEquals(0, index.getProjectCount());
+
+        index.update("B", "b1", Lists.mutable.with(ProjectDependency.parseProjectDependency("A:1.0.0")));
+        index.saveIfModified();
+        Assert.assertEquals(1, DownstreamDependencyIndex.newIndex(60_000L, file).getProjectCount());
+    }
+
+    @Test
+    public void testIncrementalRefresh()
+    {
+        InMemoryBackend backend = new InMemoryBackend();
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex();
+        DependenciesApiImpl dependenciesApi = new DependenciesApiImpl(backend.getProjectApi(), backend.getProjectConfigurationApi(), backend.getRevisionApi(), index, UpstreamDependencyResolver.newResolver(0));
+
+        backend.project("A").addVersionedClasses("1.0.0", "a1");
+        backend.project("B").addVersionedClasses("1.0.0", "b1");
+        backend.project("C").addVersionedClasses("1.0.0", "c1");
+        backend.project("B").addDependency("A:1.0.0");
+
+        Assert.assertEquals(Sets.mutable.with("B:rev~2"), toStrings(dependenciesApi.getDownstreamProjects("A")));
+        Assert.assertEquals(3, index.getProjectCount());
+
+        // C is not re-read until the refresh interval has passed
+        backend.project("C").addDependency("A:1.0.0");
+        Assert.assertEquals(Sets.mutable.with("B:rev~2"), toStrings(dependenciesApi.getDownstreamProjects("A")));
+
+        DependenciesApiImpl alwaysRefreshingApi = new DependenciesApiImpl(backend.getProjectApi(), backend.getProjectConfigurationApi(), backend.getRevisionApi(), DownstreamDependencyIndex.newIndex(0L), UpstreamDependencyResolver.newResolver(0));
+        Assert.assertEquals(Sets.mutable.with("B:rev~2", "C:rev~2"), toStrings(alwaysRefreshingApi.getDownstreamProjects("A")));
+
+        // an invalidated project is re-read on the next refresh
+        index.invalidate("C");
+        Assert.assertEquals(Sets.mutable.with("B:rev~2", "C:rev~2"), toStrings(dependenciesApi.getDownstreamProjects("A")));
+    }
+
+    @Test
+    public void testRefreshSavesIndex()
+    {
+        InMemoryBackend backend = new InMemoryBackend();
+        backend.project("A").addVersionedClasses("1.0.0", "a1");
+        backend.project("B").addVersionedClasses("1.0.0", "b1");
+        backend.project("B").addDependency("A:1.0.0");
+
+        Path file = this.tempFolder.getRoot().toPath().resolve("downstream.idx");
+        DependenciesApiImpl dependenciesApi = new DependenciesApiImpl(backend.getProjectApi(), backend.getProjectConfigurationApi(), backend.getRevisionApi(), DownstreamDependencyIndex.newIndex(60_000L, file), UpstreamDependencyResolver.newResolver(0));
+        Assert.assertEquals(Sets.mutable.with("B:rev~2"), toStrings(dependenciesApi.getDownstreamProjects("A")));
+
+        // a new index loaded from the file serves the same results
+        DownstreamDependencyIndex loaded = DownstreamDependencyIndex.newIndex(60_000L, file);
+        Assert.assertEquals(2, loaded.getProjectCount());
+        Assert.assertEquals(Sets.mutable.with("B:rev~2"), toStrings(new DependenciesApiImpl(backend.getProjectApi(), backend.getProjectConfigurationApi(), backend.getRevisionApi(), loaded, UpstreamDependencyResolver.newResolver(0)).getDownstreamProjects("A")));
+    }
+
+    @Test
+    public void testResultsRestrictedToVisibleProjects()
+    {
+        InMemoryBackend backend = new InMemoryBackend();
+        backend.project("A").addVersionedClasses("1.0.0", "a1");
+        backend.project("B").addVersionedClasses("1.0.0", "b1");
+        backend.project("C").addVersionedClasses("1.0.0", "c1");
+        backend.project("B").addDependency("A:1.0.0");
+        backend.project("C").addDependency("A:1.0.0");
+
+        DownstreamDependencyIndex index = DownstreamDependencyIndex.newIndex();
+        DependenciesApiImpl allProjectsApi = new DependenciesApiImpl(backend.getProjectApi(), backend.getProjectConfigurationApi(), backend.getRevisionApi(), index, UpstreamDependencyResolver.newResolver(0));
+        Assert.assertEquals(Sets.mutable.with("B:rev~2", "C:rev~2"), toStrings(allProjectsApi.getDownstreamProjects("A")));
+
+        // a user who cannot see C gets only B, and C stays in the index for others
+        DependenciesApiImpl restrictedApi = new DependenciesApiImpl(restrictProjects(backend.getProjectApi(), "A", "B"), backend.getProjectConfigurationApi(), backend.getRevisionApi(), index, UpstreamDependencyResolver.newResolver(0));
+        Assert.assertEquals(Sets.mutable.with("B:rev~2"), toStrings(restrictedApi.getDownstreamProjects("A")));
+        Assert.assertEquals(Sets.mutable.with("B:rev~2", "C:rev~2"), toStrings(allProjectsApi.getDownstreamProjects("A")));
+        Assert.assertEquals(3, index.getProjectCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ProjectApi restrictProjects(ProjectApi projectApi, String... visibleProjectIds)
+    {
+        Set<String> visible = Sets.mutable.with(visibleProjectIds);
+        return (ProjectApi) Proxy.newProxyInstance(ProjectApi.class.getClassLoader(), new Class<?>[]{ProjectApi.class}, (proxy, method, args) ->
+        {
+            Object result = method.invoke(projectApi, args);
+            return "getProjects".equals(method.getName()) ? ListIterate.select((List<Project>) result, p -> visible.contains(p.getProjectId())) : result;
+        });
+    }
+
+    private static Set<String> toStrings(Set<ProjectRevision> projectRevisions)
+    {
+        return Iterate.collect(projectRevisions, ProjectRevision::toProjectRevisionString, Sets.mutable.empty());
+    }
+}
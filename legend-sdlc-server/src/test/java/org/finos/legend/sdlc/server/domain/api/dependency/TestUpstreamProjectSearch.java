@@ -14,16 +14,23 @@
 
 package org.finos.legend.sdlc.server.domain.api.dependency;
 
+import org.eclipse.collections.api.bag.MutableBag;
+import org.eclipse.collections.api.factory.Bags;
+import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
 import org.eclipse.collections.api.set.MutableSet;
 import org.eclipse.collections.impl.utility.Iterate;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
 import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
 import org.finos.legend.sdlc.server.inmemory.backend.InMemoryBackend;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Collections;
+import javax.ws.rs.core.Response.Status;
 
 public class TestUpstreamProjectSearch
 {
@@ -117,6 +124,69 @@ public class TestUpstreamProjectSearch
         Assert.assertEquals(Sets.mutable.with("B:1.0.0", "C:1.0.0", "D:1.0.0", "E:1.0.0", "F:1.0.0"), toProjectRevisionStringSet(this.dependenciesApi.getProjectRevisionUpstreamProjects("A", revisionId("A"), true)));
     }
 
+    /*
+        Same graph as case3, resolved with cached project configurations
+
+        A
+         +-- B
+         |   +-- D
+         |       +-- E
+         |       +-- F
+         +-- C
+             +-- D*
+     */
+    @Test
+    public void testCachedResolution()
+    {
+        this.backend.project("A").addVersionedClasses("1.0.0", "a1");
+        this.backend.project("B").addVersionedClasses("1.0.0", "b1");
+        this.backend.project("C").addVersionedClasses("1.0.0", "c1");
+        this.backend.project("D").addVersionedClasses("1.0.0", "d1");
+        this.backend.project("E").addVersionedClasses("1.0.0", "e1");
+        this.backend.project("F").addVersionedClasses("1.0.0", "f1");
+
+        this.backend.project("A").addDependency("B:1.0.0");
+        this.backend.project("A").addDependency("C:1.0.0");
+        this.backend.project("B").addDependency("D:1.0.0");
+        this.backend.project("D").addDependency("E:1.0.0");
+        this.backend.project("D").addDependency("F:1.0.0");
+        this.backend.project("C").addDependency("D:1.0.0");
+
+        MutableBag<String> loaded = Bags.mutable.empty();
+        MutableBag<String> accessChecked = Bags.mutable.empty();
+        MutableList<Integer> levels = Lists.mutable.empty();
+        UpstreamDependencyResolver resolver = UpstreamDependencyResolver.newResolver(100);
+        ProjectConfiguration projectConfiguration = this.backend.getProjectConfigurationApi().getProjectRevisionProjectConfiguration("A", revisionId("A"));
+        for (int i = 0; i < 2; i++)
+        {
+            MutableSet<ProjectDependency> dependencies = resolver.resolveTransitive(projectConfiguration.getProjectDependencies(), ds ->
+            {
+                levels.add(ds.size());
+                ds.forEach(d -> loaded.add(d.toDependencyString()));
+                return this.backend.getProjectConfigurationApi().getVersionProjectConfigurations(ds);
+            }, projectIds ->
+            {
+                accessChecked.addAll(projectIds);
+                return projectIds;
+            });
+            Assert.assertEquals(Sets.mutable.with("B:1.0.0", "C:1.0.0", "D:1.0.0", "E:1.0.0", "F:1.0.0"), toProjectRevisionStringSet(dependencies));
+        }
+        // each level of the graph is loaded with a single call
+        Assert.assertEquals(Lists.mutable.with(2, 1, 2), levels);
+        // each configuration is only loaded once, even across resolutions
+        Assert.assertEquals(Bags.mutable.with("B:1.0.0", "C:1.0.0", "D:1.0.0", "E:1.0.0", "F:1.0.0"), loaded);
+        // access is checked once per project when cached configurations are used
+        Assert.assertEquals(Bags.mutable.with("B", "C", "D", "E", "F"), accessChecked);
+
+        // cached configurations are not returned to a caller without access
+        LegendSDLCServerException e = Assert.assertThrows(LegendSDLCServerException.class, () -> resolver.resolveTransitive(projectConfiguration.getProjectDependencies(), ds ->
+        {
+            throw new AssertionError("Unexpected load: " + ds.collect(ProjectDependency::toDependencyString));
+        }, projectIds -> projectIds.reject("D"::equals)));
+        Assert.assertEquals(Status.NOT_FOUND, e.getStatus());
+        Assert.assertEquals("Could not find project configuration for D:1.0.0", e.getMessage());
+    }
+
     private String revisionId(String projectId)
     {
         return this.backend.getRevisionApi().getProjectRevisionContext(projectId).getCurrentRevision().getId();
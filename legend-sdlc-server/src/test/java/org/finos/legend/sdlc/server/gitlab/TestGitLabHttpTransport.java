@@ -0,0 +1,195 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import com.squarespace.jersey2.guice.JerseyGuiceUtils;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.pool.PoolStats;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.set.MutableSet;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.TransportConfiguration;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.finos.legend.sdlc.server.tools.IOTools;
+import org.gitlab4j.api.Constants.Encoding;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.models.Commit;
+import org.gitlab4j.api.models.CommitAction;
+import org.gitlab4j.api.models.CommitAction.Action;
+import org.gitlab4j.api.models.User;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import javax.ws.rs.client.Client;
+import javax.ws.rs.core.Response;
+
+public class TestGitLabHttpTransport
+{
+    private HttpServer server;
+    private String url;
+    private final MutableSet<Integer> clientPorts = Sets.mutable.<Integer>empty().asSynchronized();
+    private final MutableList<String> authHeaders = Lists.mutable.<String>empty().asSynchronized();
+    private final MutableList<String> commitRequests = Lists.mutable.<String>empty().asSynchronized();
+
+    @BeforeClass
+    public static void setUpJersey()
+    {
+        JerseyGuiceUtils.install((s, serviceLocator) -> null);
+    }
+
+    @Before
+    public void startServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/api/v4/user", exchange ->
+        {
+            this.clientPorts.add(exchange.getRemoteAddress().getPort());
+            this.authHeaders.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            String token = exchange.getRequestHeaders().getFirst("Authorization").substring("Bearer ".length());
+            byte[] response = ("{\"id\":1,\"username\":\"" + token + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream stream = exchange.getResponseBody())
+            {
+                stream.write(response);
+            }
+        });
+        this.server.createContext("/api/v4/projects/1/repository/commits", exchange ->
+        {
+            this.commitRequests.add(exchange.getRequestHeaders().getFirst("Transfer-Encoding") + " " + new String(IOTools.readAllBytes(exchange.getRequestBody()), StandardCharsets.UTF_8));
+            byte[] response = "{\"id\":\"0123456789abcdef\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(201, response.length);
+            try (OutputStream stream = exchange.getResponseBody())
+            {
+                stream.write(response);
+            }
+        });
+        this.server.start();
+        this.url = "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer()
+    {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testSharedTransport() throws Exception
+    {
+        try (GitLabHttpTransport transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, 4, 2)))
+        {
+            Assert.assertTrue(transport.isShared());
+            Assert.assertNull(transport.getConnectionPoolStats(GitLabMode.PROD));
+
+            for (String token : Lists.mutable.with("token1", "token2", "token3", "token1"))
+            {
+                GitLabApi api = transport.newGitLabApi(GitLabMode.PROD, this.url, token);
+                User user = api.getUserApi().getCurrentUser();
+                Assert.assertEquals(token, user.getUsername());
+            }
+
+            Assert.assertEquals(Lists.mutable.with("Bearer token1", "Bearer token2", "Bearer token3", "Bearer token1"), this.authHeaders);
+            Assert.assertEquals("connections used: " + this.clientPorts, 1, this.clientPorts.size());
+
+            PoolStats stats = transport.getConnectionPoolStats(GitLabMode.PROD);
+            Assert.assertNotNull(stats);
+            Assert.assertEquals(4, stats.getMax());
+            Assert.assertEquals(0, stats.getLeased());
+            Assert.assertEquals(1, stats.getAvailable());
+            Assert.assertNull(transport.getConnectionPoolStats(GitLabMode.UAT));
+        }
+    }
+
+    @Test
+    public void testConnectionPoolSurvivesClosedClient() throws Exception
+    {
+        try (GitLabHttpTransport transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, 4, 2)))
+        {
+            Assert.assertEquals("token1", transport.newGitLabApi(GitLabMode.PROD, this.url, "token1").getUserApi().getCurrentUser().getUsername());
+
+            // closing a client closes its runtime and connector, which must not shut down the shared connection pool
+            Client client = transport.newHttpClient(GitLabMode.PROD);
+            Assert.assertNotNull(client);
+            try
+            {
+                Response response = client.target(this.url + "/api/v4/user").request().header("Authorization", "Bearer token2").get();
+                Assert.assertEquals(200, response.getStatus());
+                response.close();
+            }
+            finally
+            {
+                client.close();
+            }
+
+            Assert.assertEquals("token3", transport.newGitLabApi(GitLabMode.PROD, this.url, "token3").getUserApi().getCurrentUser().getUsername());
+            PoolStats stats = transport.getConnectionPoolStats(GitLabMode.PROD);
+            Assert.assertNotNull(stats);
+            Assert.assertEquals(0, stats.getLeased());
+            Assert.assertEquals(1, stats.getAvailable());
+            Assert.assertEquals("connections used: " + this.clientPorts, 1, this.clientPorts.size());
+        }
+    }
+
+    @Test
+    public void testStreamedCommit() throws Exception
+    {
+        try (GitLabHttpTransport transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, 4, 2)))
+        {
+            GitLabApi api = transport.newGitLabApi(GitLabMode.PROD, this.url, "token");
+            CommitAction action = new CommitAction().withAction(Action.CREATE).withFilePath("a.json").withEncoding(Encoding.BASE64).withContent("e30=");
+            Commit commit = api.getCommitsApi().createCommit(1, "master", "message", null, null, null, Lists.mutable.with(action));
+            Assert.assertEquals("0123456789abcdef", commit.getId());
+
+            Assert.assertEquals(1, this.commitRequests.size());
+            String request = this.commitRequests.get(0);
+            Assert.assertTrue(request, request.startsWith("chunked {"));
+            Assert.assertTrue(request, request.contains("\"content\":\"e30=\""));
+        }
+    }
+
+    @Test
+    public void testUnsharedTransport() throws Exception
+    {
+        try (GitLabHttpTransport transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(false, null, null)))
+        {
+            Assert.assertFalse(transport.isShared());
+            Assert.assertNull(transport.newHttpClient(GitLabMode.PROD));
+            GitLabApi api = transport.newGitLabApi(GitLabMode.PROD, this.url, "token");
+            Assert.assertEquals("token", api.getUserApi().getCurrentUser().getUsername());
+            Assert.assertNull(transport.getConnectionPoolStats(GitLabMode.PROD));
+        }
+    }
+
+    @Test
+    public void testClosedTransport() throws Exception
+    {
+        GitLabHttpTransport transport = GitLabHttpTransport.newTransport(null);
+        transport.close();
+        GitLabApi api = transport.newGitLabApi(GitLabMode.PROD, this.url, "token");
+        Assert.assertEquals("token", api.getUserApi().getCurrentUser().getUsername());
+        Assert.assertNull(transport.getConnectionPoolStats(GitLabMode.PROD));
+    }
+}
@@ -0,0 +1,122 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.impl.list.primitive.IntInterval;
+import org.finos.legend.sdlc.server.gitlab.GitLabRateLimiter.Priority;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestGitLabParallelFetcher
+{
+    @Test
+    public void testOrderedParallelFetch()
+    {
+        MutableList<Integer> inputs = IntInterval.oneTo(50).collect(i -> i, Lists.mutable.empty());
+        AtomicInteger concurrent = new AtomicInteger(0);
+        AtomicInteger maxConcurrent = new AtomicInteger(0);
+        try (GitLabParallelFetcher fetcher = GitLabParallelFetcher.newFetcher(4);
+             Stream<String> stream = fetcher.fetch(inputs, i ->
+             {
+                 maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                 try
+                 {
+                     Thread.sleep(2);
+                 }
+                 catch (InterruptedException e)
+                 {
+                     Thread.currentThread().interrupt();
+                 }
+                 concurrent.decrementAndGet();
+                 return "item" + i;
+             }))
+        {
+            Assert.assertEquals(inputs.collect(i -> "item" + i), stream.collect(Collectors.toList()));
+        }
+        Assert.assertTrue(String.valueOf(maxConcurrent.get()), maxConcurrent.get() <= 4);
+    }
+
+    @Test
+    public void testCallsRunConcurrently() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(3);
+        try (GitLabParallelFetcher fetcher = GitLabParallelFetcher.newFetcher(3);
+             Stream<Boolean> stream = fetcher.fetch(Lists.mutable.with(1, 2, 3), i ->
+             {
+                 latch.countDown();
+                 try
+                 {
+                     return latch.await(10, TimeUnit.SECONDS);
+                 }
+                 catch (InterruptedException e)
+                 {
+                     Thread.currentThread().interrupt();
+                     return false;
+                 }
+             }))
+        {
+            Assert.assertEquals(Lists.mutable.with(true, true, true), stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testException()
+    {
+        RuntimeException exception = new RuntimeException("fetch failed");
+        try (GitLabParallelFetcher fetcher = GitLabParallelFetcher.newFetcher(2);
+             Stream<Integer> stream = fetcher.fetch(Lists.mutable.with(1, 2, 3, 4), i ->
+             {
+                 if (i == 3)
+                 {
+                     throw exception;
+                 }
+                 return i;
+             }))
+        {
+            stream.collect(Collectors.toList());
+            Assert.fail("Expected exception");
+        }
+        catch (RuntimeException e)
+        {
+            Assert.assertSame(exception, e);
+        }
+    }
+
+    @Test
+    public void testPriorityPropagation()
+    {
+        try (GitLabParallelFetcher fetcher = GitLabParallelFetcher.newFetcher(2))
+        {
+            Assert.assertEquals(
+                    Lists.mutable.with(Priority.BACKGROUND, Priority.BACKGROUND, Priority.BACKGROUND),
+                    GitLabRateLimiter.callWithPriority(Priority.BACKGROUND, () ->
+                    {
+                        try (Stream<Priority> stream = fetcher.fetch(Lists.mutable.with(1, 2, 3), i -> GitLabRateLimiter.getCurrentPriority()))
+                        {
+                            return stream.collect(Collectors.toList());
+                        }
+                    }));
+            Assert.assertEquals(Priority.INTERACTIVE, GitLabRateLimiter.getCurrentPriority());
+        }
+    }
+}
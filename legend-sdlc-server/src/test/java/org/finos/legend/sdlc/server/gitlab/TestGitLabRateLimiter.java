@@ -0,0 +1,200 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.RateLimitConfiguration;
+import org.finos.legend.sdlc.server.gitlab.GitLabRateLimiter.Priority;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestGitLabRateLimiter
+{
+    private static final String USER = GitLabRateLimiter.getUserKey("Bearer token1", null);
+
+    private final AtomicLong clock = new AtomicLong(0L);
+
+    @Test
+    public void testBurstAndRefill()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 4, 0.0);
+        for (int i = 0; i < 4; i++)
+        {
+            Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        }
+        long wait = rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE);
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(100), wait);
+
+        // modes have independent buckets
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.UAT, USER, Priority.INTERACTIVE));
+
+        advanceMillis(100);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertNotEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+
+        advanceMillis(10_000);
+        Assert.assertEquals(4.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+    }
+
+    @Test
+    public void testBackgroundReserve()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 4, 0.5);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.BACKGROUND));
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.BACKGROUND));
+        Assert.assertNotEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.BACKGROUND));
+
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertNotEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testAdaptToRemaining()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 10, 0.0);
+
+        // 2 requests remaining over the next 4 seconds: the rate drops to 0.5 per second
+        rateLimiter.update(GitLabMode.PROD, USER, 200, 2, 4_000L);
+        Assert.assertEquals(2.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(2), rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+
+        // after the reset, the configured rate applies again
+        advanceMillis(5_000);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        advanceMillis(1_000);
+        Assert.assertEquals(10.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+    }
+
+    @Test
+    public void testThrottled()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 10, 0.0);
+        rateLimiter.update(GitLabMode.PROD, USER, 429, null, 3_000L);
+        Assert.assertEquals(0.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(3), rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+
+        advanceMillis(3_000);
+        Assert.assertEquals(0.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+        advanceMillis(100);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testHeaders()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 10, 0.0);
+        rateLimiter.update(GitLabMode.PROD, USER, 200, "3", null, null);
+        Assert.assertEquals(3.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+
+        rateLimiter.update(GitLabMode.PROD, USER, 200, "not a number", "also not a number", null);
+        Assert.assertEquals(3.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+
+        rateLimiter.update(GitLabMode.PROD, USER, 429, null, null, "2");
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(2), rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testRetryDelay()
+    {
+        Assert.assertEquals(-1L, GitLabRateLimiter.takeRetryDelayMillis());
+
+        // only recorded for responses which may be retried
+        GitLabRateLimiter.recordRetryDelay(200, null, "3");
+        Assert.assertEquals(-1L, GitLabRateLimiter.takeRetryDelayMillis());
+
+        GitLabRateLimiter.recordRetryDelay(429, null, "3");
+        Assert.assertEquals(3000L, GitLabRateLimiter.takeRetryDelayMillis());
+        Assert.assertEquals(-1L, GitLabRateLimiter.takeRetryDelayMillis());
+
+        long resetEpochSeconds = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()) + 30L;
+        GitLabRateLimiter.recordRetryDelay(503, Long.toString(resetEpochSeconds), null);
+        long delay = GitLabRateLimiter.takeRetryDelayMillis();
+        Assert.assertTrue(Long.toString(delay), (delay > 28_000L) && (delay <= 30_000L));
+    }
+
+    @Test
+    public void testBackgroundWorkPriority()
+    {
+        Assert.assertEquals(Priority.INTERACTIVE, GitLabRateLimiter.getCurrentPriority());
+        Assert.assertEquals(Priority.BACKGROUND, BackgroundTaskProcessor.callAsBackgroundWork(GitLabRateLimiter::getCurrentPriority));
+        Assert.assertEquals(Priority.INTERACTIVE, BackgroundTaskProcessor.callAsBackgroundWork(() -> GitLabRateLimiter.callWithPriority(Priority.INTERACTIVE, GitLabRateLimiter::getCurrentPriority)));
+        Assert.assertEquals(Priority.INTERACTIVE, GitLabRateLimiter.getCurrentPriority());
+    }
+
+    @Test
+    public void testUserBuckets()
+    {
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 2, 0.0);
+        String otherUser = GitLabRateLimiter.getUserKey(null, "token2");
+        Assert.assertNotEquals(USER, otherUser);
+        Assert.assertEquals(USER, GitLabRateLimiter.getUserKey("Bearer token1", "token2"));
+        Assert.assertNull(GitLabRateLimiter.getUserKey(null, null));
+
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+        Assert.assertNotEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+
+        // other users (and requests without credentials) are not affected
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, otherUser, Priority.INTERACTIVE));
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, null, Priority.INTERACTIVE));
+
+        // nor is a throttled user
+        rateLimiter.update(GitLabMode.PROD, USER, 429, null, 3_000L);
+        Assert.assertEquals(0.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+        Assert.assertEquals(1.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, otherUser), 0.0);
+    }
+
+    @Test
+    public void testMaxWaitDebtIsBounded()
+    {
+        // with no wait allowed, every request proceeds immediately
+        GitLabRateLimiter rateLimiter = newRateLimiter(10.0, 2, 0.0);
+        for (int i = 0; i < 100; i++)
+        {
+            rateLimiter.acquire(GitLabMode.PROD, USER, Priority.INTERACTIVE);
+        }
+
+        // but the requests beyond the burst only put the bucket one permit into debt
+        Assert.assertEquals(-1.0, rateLimiter.getAvailablePermits(GitLabMode.PROD, USER), 0.0);
+        advanceMillis(200);
+        Assert.assertEquals(0L, rateLimiter.tryAcquire(GitLabMode.PROD, USER, Priority.INTERACTIVE));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        Assert.assertNull(GitLabRateLimiter.newRateLimiter(null));
+        Assert.assertNull(GitLabRateLimiter.newRateLimiter(RateLimitConfiguration.defaultRateLimitConfiguration()));
+        Assert.assertNull(GitLabRateLimiter.newRateLimiter(RateLimitConfiguration.newRateLimitConfiguration(false, null, null, null, null)));
+        Assert.assertNotNull(GitLabRateLimiter.newRateLimiter(RateLimitConfiguration.newRateLimitConfiguration(true, null, null, null, null)));
+    }
+
+    private GitLabRateLimiter newRateLimiter(double requestsPerSecond, int burstSize, double backgroundReserve)
+    {
+        return new GitLabRateLimiter(RateLimitConfiguration.newRateLimitConfiguration(true, requestsPerSecond, burstSize, backgroundReserve, 0L), this.clock::get);
+    }
+
+    private void advanceMillis(long millis)
+    {
+        this.clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
@@ -0,0 +1,93 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.TransportConfiguration;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.gitlab4j.api.AbstractApi;
+import org.gitlab4j.api.Constants.TokenType;
+import org.gitlab4j.api.GitLabApi;
+import org.gitlab4j.api.GitLabApi.ApiVersion;
+import org.gitlab4j.api.GitLabApiClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Guards against the shared API client silently ceasing to be used, for example when a new version of gitlab4j adds
+ * an API getter or changes how APIs get their client.
+ */
+public class TestSharedClientGitLabApi
+{
+    private static final String URL = "http://localhost:1";
+
+    @Test
+    public void testEveryApiGetterIsOverridden()
+    {
+        MutableList<String> notOverridden = Lists.mutable.empty();
+        for (Method method : getApiGetters())
+        {
+            try
+            {
+                SharedClientGitLabApi.class.getDeclaredMethod(method.getName());
+            }
+            catch (NoSuchMethodException e)
+            {
+                notOverridden.add(method.getName());
+            }
+        }
+        Assert.assertEquals("API getters not overridden in " + SharedClientGitLabApi.class.getSimpleName(), Lists.mutable.empty(), notOverridden);
+    }
+
+    @Test
+    public void testEveryApiUsesSharedClient() throws Exception
+    {
+        GitLabApiClient sharedClient = new GitLabApiClient(ApiVersion.V4, URL, TokenType.OAUTH2_ACCESS, "token", null);
+        SharedClientGitLabApi gitLabApi = new SharedClientGitLabApi(URL, "token", sharedClient);
+        Assert.assertSame(sharedClient, gitLabApi.getSharedApiClient());
+
+        Method getApiClient = AbstractApi.class.getDeclaredMethod("getApiClient");
+        getApiClient.setAccessible(true);
+        MutableList<Method> getters = getApiGetters();
+        Assert.assertFalse(getters.isEmpty());
+        for (Method method : getters)
+        {
+            Object api = method.invoke(gitLabApi);
+            Assert.assertSame(method.getName(), sharedClient, getApiClient.invoke(api));
+        }
+    }
+
+    @Test
+    public void testTransportUsesSharedClient()
+    {
+        try (GitLabHttpTransport transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, 4, 2)))
+        {
+            GitLabApi gitLabApi = transport.newGitLabApi(GitLabMode.PROD, URL, "token");
+            Assert.assertTrue(gitLabApi.getClass().getName(), gitLabApi instanceof SharedClientGitLabApi);
+        }
+    }
+
+    private static MutableList<Method> getApiGetters()
+    {
+        return Lists.mutable.with(GitLabApi.class.getMethods()).select(m -> Modifier.isPublic(m.getModifiers()) &&
+                !Modifier.isStatic(m.getModifiers()) &&
+                (m.getParameterCount() == 0) &&
+                AbstractApi.class.isAssignableFrom(m.getReturnType()));
+    }
+}
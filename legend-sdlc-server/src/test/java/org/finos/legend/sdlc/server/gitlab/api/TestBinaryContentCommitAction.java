@@ -0,0 +1,86 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.eclipse.collections.api.factory.Lists;
+import org.gitlab4j.api.Constants.Encoding;
+import org.gitlab4j.api.models.CommitAction;
+import org.gitlab4j.api.models.CommitAction.Action;
+import org.gitlab4j.api.models.CommitPayload;
+import org.gitlab4j.api.utils.JacksonJson;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class TestBinaryContentCommitAction
+{
+    @Test
+    public void testSerialization() throws Exception
+    {
+        byte[] content = "{\"path\":\"model::A\",\"content\":{}}\n".getBytes(StandardCharsets.UTF_8);
+        String expectedContent = Base64.getEncoder().encodeToString(content);
+        CommitPayload payload = new CommitPayload()
+                .withBranch("master")
+                .withCommitMessage("message")
+                .withActions(Lists.mutable.with(
+                        new BinaryContentCommitAction().withBinaryContent(content).withAction(Action.CREATE).withFilePath("entities/model/A.json"),
+                        new BinaryContentCommitAction().withAction(Action.MOVE).withPreviousPath("entities/model/B.json").withFilePath("entities/model/C.json"),
+                        new CommitAction().withAction(Action.DELETE).withFilePath("entities/model/D.json")));
+
+        ObjectMapper mapper = new JacksonJson().getObjectMapper();
+        JsonNode actions = mapper.readTree(mapper.writeValueAsString(payload)).get("actions");
+        Assert.assertEquals(3, actions.size());
+
+        JsonNode create = actions.get(0);
+        Assert.assertEquals("create", create.get("action").asText());
+        Assert.assertEquals("entities/model/A.json", create.get("file_path").asText());
+        Assert.assertEquals("base64", create.get("encoding").asText());
+        Assert.assertEquals(expectedContent, create.get("content").asText());
+
+        JsonNode move = actions.get(1);
+        Assert.assertEquals("move", move.get("action").asText());
+        Assert.assertEquals("entities/model/B.json", move.get("previous_path").asText());
+        Assert.assertEquals("entities/model/C.json", move.get("file_path").asText());
+        Assert.assertFalse(move.has("content"));
+        Assert.assertFalse(move.has("encoding"));
+
+        Assert.assertEquals("delete", actions.get(2).get("action").asText());
+    }
+
+    @Test
+    public void testContent()
+    {
+        byte[] content = "some content".getBytes(StandardCharsets.UTF_8);
+        BinaryContentCommitAction action = new BinaryContentCommitAction().withBinaryContent(content);
+        Assert.assertTrue(BinaryContentCommitAction.hasContent(action));
+        Assert.assertEquals(Encoding.BASE64, action.getEncoding());
+        Assert.assertEquals(Base64.getEncoder().encodeToString(content), action.getContent());
+
+        BinaryContentCommitAction move = new BinaryContentCommitAction();
+        Assert.assertFalse(BinaryContentCommitAction.hasContent(move));
+        move.copyContentFrom(action);
+        Assert.assertSame(content, move.getBinaryContent());
+
+        BinaryContentCommitAction textMove = new BinaryContentCommitAction();
+        textMove.copyContentFrom(new CommitAction().withEncoding(Encoding.TEXT).withContent("text"));
+        Assert.assertNull(textMove.getBinaryContent());
+        Assert.assertEquals("text", textMove.getContent());
+        Assert.assertEquals(Encoding.TEXT, textMove.getEncoding());
+    }
+}
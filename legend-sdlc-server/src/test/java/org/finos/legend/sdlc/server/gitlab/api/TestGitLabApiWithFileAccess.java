@@ -0,0 +1,324 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab.api;
+
+import com.squarespace.jersey2.guice.JerseyGuiceUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.factory.Sets;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.MutableMap;
+import org.eclipse.collections.impl.utility.ListIterate;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectDependency;
+import org.finos.legend.sdlc.domain.model.revision.Revision;
+import org.finos.legend.sdlc.server.auth.LegendSDLCWebFilter;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.TransportConfiguration;
+import org.finos.legend.sdlc.server.gitlab.GitLabHttpTransport;
+import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
+import org.finos.legend.sdlc.server.gitlab.auth.TestGitLabSession;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabModeInfo;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider;
+import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.tools.IOTools;
+import org.gitlab4j.api.models.CommitAction;
+import org.gitlab4j.api.models.CommitAction.Action;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import javax.ws.rs.core.Response.Status;
+
+public class TestGitLabApiWithFileAccess
+{
+    private HttpServer server;
+    private GitLabHttpTransport transport;
+    private final MutableMap<String, String> files = Maps.mutable.<String, String>empty().asSynchronized();
+    private final MutableList<String> fileRequests = Lists.mutable.<String>empty().asSynchronized();
+    private final MutableList<String> fileInfoRequests = Lists.mutable.<String>empty().asSynchronized();
+    private final MutableList<String> commitRequests = Lists.mutable.<String>empty().asSynchronized();
+    private volatile String commitRejection;
+
+    @BeforeClass
+    public static void setUpJersey()
+    {
+        JerseyGuiceUtils.install((s, serviceLocator) -> null);
+    }
+
+    @Before
+    public void startServer() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        // projects 1 and 2 share the same files, but have different current commits
+        for (int gitLabId = 1; gitLabId <= 2; gitLabId++)
+        {
+            String filesPath = "/api/v4/projects/" + gitLabId + "/repository/files/";
+            this.server.createContext(filesPath, exchange ->
+            {
+                String filePath = exchange.getRequestURI().getPath().substring(filesPath.length());
+                String query = exchange.getRequestURI().getQuery();
+                boolean infoOnly = "HEAD".equals(exchange.getRequestMethod());
+                (infoOnly ? this.fileInfoRequests : this.fileRequests).add(filePath + " " + query);
+                // content may be given for a particular reference, as path@reference
+                String reference = query.replaceAll("^(?:.*&)?ref=([^&]*).*$", "$1");
+                String content = this.files.getIfAbsent(filePath + "@" + reference, () -> this.files.get(filePath));
+                if (infoOnly)
+                {
+                    // file information is returned in headers, with no body; the server does not keep the
+                    // connection open after a response with no body, so the client is told not to reuse it
+                    exchange.getResponseHeaders().add("Connection", "close");
+                    if (content != null)
+                    {
+                        exchange.getResponseHeaders().add("X-Gitlab-File-Path", filePath);
+                        exchange.getResponseHeaders().add("X-Gitlab-Last-Commit-Id", "last-" + filePath);
+                    }
+                    exchange.sendResponseHeaders((content == null) ? 404 : 200, -1);
+                    exchange.close();
+                }
+                else if (content == null)
+                {
+                    sendResponse(exchange, 404, "{\"message\":\"404 File Not Found\"}");
+                }
+                else
+                {
+                    sendResponse(exchange, 200, "{\"file_path\":\"" + filePath + "\",\"encoding\":\"base64\",\"content\":\"" + toBase64(content) + "\"}");
+                }
+            });
+            String currentCommitId = "p" + gitLabId + "rev1";
+            this.server.createContext("/api/v4/projects/" + gitLabId + "/repository/commits", exchange ->
+            {
+                if ("POST".equals(exchange.getRequestMethod()))
+                {
+                    this.commitRequests.add(new String(IOTools.readAllBytes(exchange.getRequestBody()), StandardCharsets.UTF_8));
+                    if (this.commitRejection == null)
+                    {
+                        sendResponse(exchange, 201, "{\"id\":\"rev2\",\"parent_ids\":[\"rev1\"]}");
+                    }
+                    else
+                    {
+                        sendResponse(exchange, 400, "{\"message\":\"" + this.commitRejection + "\"}");
+                    }
+                }
+                else if (exchange.getRequestURI().getPath().endsWith("/commits/master"))
+                {
+                    // current commit of the branch
+                    sendResponse(exchange, 200, "{\"id\":\"" + currentCommitId + "\"}");
+                }
+                else
+                {
+                    // current revision of the branch
+                    exchange.getResponseHeaders().add("X-Page", "1");
+                    exchange.getResponseHeaders().add("X-Per-Page", "1");
+                    exchange.getResponseHeaders().add("X-Total-Pages", "1");
+                    exchange.getResponseHeaders().add("X-Total", "1");
+                    sendResponse(exchange, 200, "[{\"id\":\"rev1\"}]");
+                }
+            });
+        }
+        this.server.start();
+        this.transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, null, null, 4, null));
+    }
+
+    @After
+    public void stopServer()
+    {
+        this.transport.close();
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testMoveWithoutContent()
+    {
+        this.files.put("entities/model/A.json", "content of A");
+        this.files.put("entities/model/B.json", "content of B");
+
+        Revision revision = newFileAccessProvider().getFileModificationContext("PROD-1", "w1", ProjectFileAccessProvider.WorkspaceAccessType.WORKSPACE, null).submit("move files", Lists.mutable.with(
+                ProjectFileOperation.moveFile("/entities/model/A.json", "/entities/other/A.json"),
+                ProjectFileOperation.moveFile("/entities/model/B.json", "/entities/other/B.json"),
+                ProjectFileOperation.moveFile("/entities/other/A.json", "/entities/other/C.json")));
+        Assert.assertEquals("rev2", revision.getId());
+
+        // content is fetched once for each file at the reference revision, and the last move takes its content from the first
+        Assert.assertEquals(Lists.mutable.with("entities/model/A.json ref=rev1", "entities/model/B.json ref=rev1"), this.fileRequests.sortThis());
+        Assert.assertEquals(1, this.commitRequests.size());
+        String commitRequest = this.commitRequests.get(0);
+        Assert.assertEquals(commitRequest, 2, countOccurrences(commitRequest, toBase64("content of A")));
+        Assert.assertEquals(commitRequest, 1, countOccurrences(commitRequest, toBase64("content of B")));
+
+        // files existing at the reference revision carry their last commit, so that GitLab rejects the commit if they have changed since
+        Assert.assertEquals(Lists.mutable.with("entities/model/A.json ref=rev1", "entities/model/B.json ref=rev1"), this.fileInfoRequests.sortThis());
+        Assert.assertEquals(commitRequest, 1, countOccurrences(commitRequest, "\"last_commit_id\":\"last-entities/model/A.json\""));
+        Assert.assertEquals(commitRequest, 1, countOccurrences(commitRequest, "\"last_commit_id\":\"last-entities/model/B.json\""));
+        Assert.assertEquals(commitRequest, 2, countOccurrences(commitRequest, "last_commit_id"));
+    }
+
+    @Test
+    public void testChangedFileConflict()
+    {
+        this.files.put("entities/model/A.json", "content of A");
+        this.commitRejection = "You are attempting to update a file that has changed since you started editing it.";
+
+        ProjectFileAccessProvider.FileModificationContext context = newFileAccessProvider().getFileModificationContext("PROD-1", "w1", ProjectFileAccessProvider.WorkspaceAccessType.WORKSPACE, "rev1");
+        MutableList<ProjectFileOperation> operations = Lists.mutable.with(
+                ProjectFileOperation.modifyFile("/entities/model/A.json", "new content of A"),
+                ProjectFileOperation.addFile("/entities/model/B.json", "content of B"));
+        LegendSDLCServerException e = Assert.assertThrows(LegendSDLCServerException.class, () -> context.submit("change files", operations));
+        Assert.assertEquals(Status.CONFLICT, e.getStatus());
+        Assert.assertEquals(Lists.mutable.with("entities/model/A.json ref=rev1"), this.fileInfoRequests);
+        Assert.assertEquals(1, this.commitRequests.size());
+        Assert.assertEquals(1, countOccurrences(this.commitRequests.get(0), "\"last_commit_id\":\"last-entities/model/A.json\""));
+    }
+
+    @Test
+    public void testMoveWithoutContentOfMissingFile()
+    {
+        this.files.put("entities/model/A.json", "content of A");
+
+        ProjectFileAccessProvider.FileModificationContext context = newFileAccessProvider().getFileModificationContext("PROD-1", "w1", ProjectFileAccessProvider.WorkspaceAccessType.WORKSPACE, null);
+        MutableList<ProjectFileOperation> operations = Lists.mutable.with(
+                ProjectFileOperation.moveFile("/entities/model/A.json", "/entities/other/A.json"),
+                ProjectFileOperation.moveFile("/entities/model/B.json", "/entities/other/B.json"));
+        LegendSDLCServerException e = Assert.assertThrows(LegendSDLCServerException.class, () -> context.submit("move files", operations));
+        Assert.assertEquals(Status.NOT_FOUND, e.getStatus());
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Unknown file entities/model/B.json at revision rev1 in project PROD-1"));
+        Assert.assertEquals(Lists.mutable.empty(), this.commitRequests);
+    }
+
+    @Test
+    public void testVersionProjectConfigurations()
+    {
+        this.files.put("project.json@release-1.0.0", "{\"projectId\":\"PROD-1\",\"projectStructureVersion\":{\"version\":11},\"groupId\":\"org.finos\",\"artifactId\":\"one\"}");
+        this.files.put("project.json@release-2.0.0", "{\"projectId\":\"PROD-1\",\"projectStructureVersion\":{\"version\":11},\"groupId\":\"org.finos\",\"artifactId\":\"two\"}");
+
+        GitLabProjectConfigurationApi api = new GitLabProjectConfigurationApi(newUserContext(), null, null, null, null);
+        List<ProjectConfiguration> configurations = api.getVersionProjectConfigurations(Lists.mutable.with(
+                ProjectDependency.parseProjectDependency("PROD-1:2.0.0"),
+                ProjectDependency.parseProjectDependency("PROD-1:1.0.0"),
+                ProjectDependency.parseProjectDependency("PROD-1:3.0.0")));
+
+        // configurations are returned in order; one which could not be fetched in parallel is got as for a single version
+        Assert.assertEquals(Lists.mutable.with("two", "one", null), ListIterate.collect(configurations, ProjectConfiguration::getArtifactId));
+        Assert.assertEquals(0, configurations.get(2).getProjectStructureVersion().getVersion());
+        Assert.assertEquals(Lists.mutable.with("project.json ref=release-1.0.0", "project.json ref=release-2.0.0", "project.json ref=release-3.0.0"), this.fileRequests.distinct().sortThis());
+    }
+
+    @Test
+    public void testProjectRevisionProjectConfigurations()
+    {
+        this.files.put("project.json@abc123", "{\"projectId\":\"PROD-1\",\"projectStructureVersion\":{\"version\":11},\"groupId\":\"org.finos\",\"artifactId\":\"one\"}");
+        this.files.put("project.json@def456", "{\"projectId\":\"PROD-1\",\"projectStructureVersion\":{\"version\":11},\"groupId\":\"org.finos\",\"artifactId\":\"two\"}");
+
+        GitLabProjectConfigurationApi api = new GitLabProjectConfigurationApi(newUserContext(), null, null, null, null);
+        Map<String, ProjectConfiguration> configurations = api.getProjectRevisionProjectConfigurations(Maps.mutable.with("PROD-1", "abc123", "PROD-2", "def456"));
+
+        Assert.assertEquals(Sets.mutable.with("PROD-1", "PROD-2"), configurations.keySet());
+        Assert.assertEquals("one", configurations.get("PROD-1").getArtifactId());
+        Assert.assertEquals("two", configurations.get("PROD-2").getArtifactId());
+        Assert.assertEquals(Lists.mutable.with("project.json ref=abc123", "project.json ref=def456"), this.fileRequests.distinct().sortThis());
+    }
+
+    @Test
+    public void testProjectCurrentRevisionIds()
+    {
+        GitLabRevisionApi api = new GitLabRevisionApi(newUserContext(), null, null);
+        Assert.assertEquals(Maps.mutable.with("PROD-1", "p1rev1", "PROD-2", "p2rev1"), api.getProjectCurrentRevisionIds(Lists.mutable.with("PROD-1", "PROD-2")));
+    }
+
+    @Test
+    public void testComputeCommitChunkEnds()
+    {
+        MutableList<CommitAction> commitActions = Lists.mutable.empty();
+        for (int i = 0; i < 10; i++)
+        {
+            commitActions.add(newCreateAction("file" + i, 1000));
+        }
+        long actionSize = BinaryContentCommitAction.getEncodedSize(commitActions.get(0));
+
+        // limited by count
+        Assert.assertArrayEquals(new int[]{4, 8, 10}, GitLabApiWithFileAccess.computeCommitChunkEnds(commitActions, 4, Long.MAX_VALUE));
+        // limited by size
+        Assert.assertArrayEquals(new int[]{3, 6, 9, 10}, GitLabApiWithFileAccess.computeCommitChunkEnds(commitActions, 100, (3 * actionSize) + 1));
+        // an action larger than the limit makes up a chunk on its own
+        commitActions.add(5, newCreateAction("large", 100_000));
+        Assert.assertArrayEquals(new int[]{3, 5, 6, 9, 11}, GitLabApiWithFileAccess.computeCommitChunkEnds(commitActions, 100, (3 * actionSize) + 1));
+        // no actions
+        Assert.assertArrayEquals(new int[0], GitLabApiWithFileAccess.computeCommitChunkEnds(Lists.mutable.empty(), 100, 100));
+    }
+
+    private ProjectFileAccessProvider newFileAccessProvider()
+    {
+        return new GitLabApiWithFileAccess(newUserContext(), null, null)
+        {
+        }.getProjectFileAccessProvider();
+    }
+
+    private GitLabUserContext newUserContext()
+    {
+        TestGitLabSession session = new TestGitLabSession("user");
+        session.setAccessToken("token");
+        session.setModeInfo(GitLabModeInfo.newModeInfo(GitLabMode.PROD, "http", this.server.getAddress().getHostString(), this.server.getAddress().getPort(), null, null, null));
+        TestHttpServletRequest httpRequest = new TestHttpServletRequest();
+        LegendSDLCWebFilter.setSessionAttributeOnServletRequest(httpRequest, session);
+        return new GitLabUserContext(httpRequest, null, this.transport);
+    }
+
+    private static void sendResponse(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream stream = exchange.getResponseBody())
+        {
+            stream.write(response);
+        }
+    }
+
+    private static String toBase64(String content)
+    {
+        return Base64.getEncoder().encodeToString(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int countOccurrences(String string, String substring)
+    {
+        int count = 0;
+        for (int index = string.indexOf(substring); index != -1; index = string.indexOf(substring, index + substring.length()))
+        {
+            count++;
+        }
+        return count;
+    }
+
+    private static CommitAction newCreateAction(String path, int size)
+    {
+        return new BinaryContentCommitAction()
+                .withBinaryContent(new byte[size])
+                .withAction(Action.CREATE)
+                .withFilePath(path);
+    }
+}
@@ -0,0 +1,346 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.gitlab.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.squarespace.jersey2.guice.JerseyGuiceUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.MutableMap;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.domain.model.project.configuration.ProjectConfiguration;
+import org.finos.legend.sdlc.domain.model.revision.Revision;
+import org.finos.legend.sdlc.server.auth.LegendSDLCWebFilter;
+import org.finos.legend.sdlc.server.error.LegendSDLCServerException;
+import org.finos.legend.sdlc.server.gitlab.GitLabConfiguration.TransportConfiguration;
+import org.finos.legend.sdlc.server.gitlab.GitLabHttpTransport;
+import org.finos.legend.sdlc.server.gitlab.auth.GitLabUserContext;
+import org.finos.legend.sdlc.server.gitlab.auth.TestGitLabSession;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabMode;
+import org.finos.legend.sdlc.server.gitlab.mode.GitLabModeInfo;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.finos.legend.sdlc.server.project.ProjectStructure;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileCache;
+import org.finos.legend.sdlc.server.project.cache.ProjectFileSnapshot;
+import org.finos.legend.sdlc.server.tools.BackgroundTaskProcessor;
+import org.finos.legend.sdlc.server.tools.IOTools;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.ws.rs.core.Response.Status;
+
+public class TestGitLabEntityApi
+{
+    private static final String PROJECT_PATH = "/api/v4/projects/1/repository/";
+    private static final String WORKSPACE_BRANCH = "workspace/user/w1";
+    private static final String CLASSIFIER_PATH = "meta::pure::metamodel::type::Class";
+    private static final ProjectStructure.EntitySourceDirectory SOURCE_DIRECTORY = ProjectStructure.getProjectStructure((ProjectConfiguration) null).getEntitySourceDirectories().get(0);
+
+    private HttpServer server;
+    private GitLabHttpTransport transport;
+    private BackgroundTaskProcessor backgroundTaskProcessor;
+    private ProjectFileCache cache;
+    private final MutableMap<String, String> branches = Maps.mutable.<String, String>empty().asSynchronized();
+    private final MutableList<String> branchRequests = Lists.mutable.<String>empty().asSynchronized();
+    private final MutableList<String> commitBranches = Lists.mutable.<String>empty().asSynchronized();
+    private final AtomicInteger commitCounter = new AtomicInteger(1);
+
+    @BeforeClass
+    public static void setUpJersey()
+    {
+        JerseyGuiceUtils.install((s, serviceLocator) -> null);
+    }
+
+    @Before
+    public void startServer() throws IOException
+    {
+        this.branches.put(WORKSPACE_BRANCH, "rev1");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext(PROJECT_PATH + "branches", this::handleBranchRequest);
+        this.server.createContext(PROJECT_PATH + "commits", this::handleCommitRequest);
+        this.server.createContext("/api/v4/projects/1/pipelines", exchange ->
+        {
+            // no pipelines to wait for before deleting the temporary branch
+            addPageHeaders(exchange, 0);
+            sendResponse(exchange, 200, "[]");
+        });
+        this.server.start();
+        this.transport = GitLabHttpTransport.newTransport(TransportConfiguration.newTransportConfiguration(null, null, null, 4, null));
+        this.backgroundTaskProcessor = new BackgroundTaskProcessor(1);
+        this.cache = ProjectFileCache.newCache(64L * 1024 * 1024);
+    }
+
+    @After
+    public void stopServer() throws InterruptedException
+    {
+        // let the temporary branch be deleted before the server stops
+        this.backgroundTaskProcessor.shutdown();
+        this.backgroundTaskProcessor.awaitTermination(30, TimeUnit.SECONDS);
+        this.transport.close();
+        this.server.stop(0);
+    }
+
+    @Test
+    public void testStreamedUpdateInMultipleCommits()
+    {
+        cacheEntities("rev1", IntStream.range(0, 1000).mapToObj(i -> newEntity(i, "old")));
+
+        // 0-199 are deleted, 200-399 are unchanged, 400-999 are modified and 1000-1199 are added: more changes than
+        // fit in a single commit
+        Stream<Entity> newEntities = IntStream.range(200, 1200).mapToObj(i -> newEntity(i, (i < 400) ? "old" : "new"));
+        Revision revision = newEntityApi().getWorkspaceEntityModificationContext("PROD-1", "w1").updateEntities(newEntities, true, "update entities");
+
+        Assert.assertEquals(2, this.commitBranches.size());
+        String tempBranch = this.commitBranches.get(0);
+        Assert.assertTrue(tempBranch, tempBranch.startsWith("tmp/user/w1/"));
+        Assert.assertEquals(Lists.mutable.with(tempBranch, tempBranch), this.commitBranches);
+        Assert.assertEquals("rev3", revision.getId());
+        Assert.assertEquals("rev3", this.branches.get(WORKSPACE_BRANCH));
+        Assert.assertTrue(this.branchRequests.toString(), this.branchRequests.contains("DELETE " + PROJECT_PATH + "branches/" + WORKSPACE_BRANCH));
+
+        // the files of the new revision are cached
+        ProjectFileSnapshot snapshot = this.cache.getSnapshot("PROD-1", "rev3");
+        Assert.assertNotNull(snapshot);
+        try
+        {
+            Assert.assertEquals(1000, snapshot.getFileCount());
+            Assert.assertNull(snapshot.getFile(getFilePath(0)));
+            Assert.assertArrayEquals(SOURCE_DIRECTORY.serializeToBytes(newEntity(200, "old")), snapshot.getFile(getFilePath(200)).getContentAsBytes());
+            Assert.assertArrayEquals(SOURCE_DIRECTORY.serializeToBytes(newEntity(400, "new")), snapshot.getFile(getFilePath(400)).getContentAsBytes());
+            Assert.assertArrayEquals(SOURCE_DIRECTORY.serializeToBytes(newEntity(1199, "new")), snapshot.getFile(getFilePath(1199)).getContentAsBytes());
+        }
+        finally
+        {
+            snapshot.release();
+        }
+    }
+
+    @Test
+    public void testStreamedUpdateWithLateValidationError()
+    {
+        cacheEntities("rev1", IntStream.range(0, 1000).mapToObj(i -> newEntity(i, "old")));
+
+        // enough valid changes for several commits, followed by an entity whose path does not match its content
+        Stream<Entity> newEntities = Stream.concat(
+                IntStream.range(0, 1200).mapToObj(i -> newEntity(i, "new")),
+                Stream.of(Entity.newEntity("model::Invalid", CLASSIFIER_PATH, newContent("model", "Other", "new"))));
+        LegendSDLCServerException e = Assert.assertThrows(LegendSDLCServerException.class, () -> newEntityApi().getWorkspaceEntityModificationContext("PROD-1", "w1").updateEntities(newEntities, true, "update entities"));
+        Assert.assertEquals(Status.BAD_REQUEST, e.getStatus());
+        Assert.assertTrue(e.getMessage(), e.getMessage().contains("Entity: model::Invalid; mismatch between entity path and package (\"model\") and name (\"Other\") properties"));
+
+        // nothing was pushed
+        Assert.assertEquals(Lists.mutable.empty(), this.commitBranches);
+        Assert.assertEquals(Lists.mutable.empty(), this.branchRequests);
+        Assert.assertEquals("rev1", this.branches.get(WORKSPACE_BRANCH));
+    }
+
+    @Test
+    public void testIsValidStoredEntityJson() throws IOException
+    {
+        assertValid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"_type\":\"class\",\"name\":\"A\",\"package\":\"model\",\"properties\":[{\"name\":\"x\"}]}}", "model::A");
+        assertValid("{\n  \"classifierPath\" : \"meta::pure::metamodel::type::Class\",\n  \"content\" : {\n    \"name\" : \"A\",\n    \"package\" : \"model::sub\"\n  }\n}\n", "model::sub::A");
+        assertValid("{\"content\":{\"name\":\"A\",\"package\":null},\"classifierPath\":\"meta::pure::metamodel::type::Class\"}", "A");
+
+        // path mismatch
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"name\":\"B\",\"package\":\"model\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"name\":\"A\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"package\":\"model\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"name\":\"A\",\"package\":\"model\",\"package\":\"other\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\",\"content\":{\"name\":1,\"package\":\"model\"}}", "model::A");
+
+        // missing, duplicate or extra properties
+        assertInvalid("{\"content\":{\"name\":\"A\",\"package\":\"model\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"meta::pure::metamodel::type::Class\"}", "model::A");
+        assertInvalid("{\"classifierPath\":null,\"content\":{\"name\":\"A\",\"package\":\"model\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"c\",\"classifierPath\":\"c\",\"content\":{\"name\":\"A\",\"package\":\"model\"}}", "model::A");
+        assertInvalid("{\"classifierPath\":\"c\",\"content\":{\"name\":\"A\",\"package\":\"model\"},\"extra\":1}", "model::A");
+
+        // malformed
+        assertInvalid("", "model::A");
+        assertInvalid("[]", "model::A");
+        assertInvalid("{\"classifierPath\":\"c\",\"content\":{\"name\":\"A\",\"package\":\"model\"}", "model::A");
+        assertInvalid("{\"classifierPath\":\"c\",\"content\":{\"name\":\"A\",\"package\":\"model\"}} {}", "model::A");
+    }
+
+    private static void assertValid(String json, String entityPath) throws IOException
+    {
+        Assert.assertTrue(json, GitLabEntityApi.isValidStoredEntityJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), entityPath));
+    }
+
+    private static void assertInvalid(String json, String entityPath) throws IOException
+    {
+        Assert.assertFalse(json, GitLabEntityApi.isValidStoredEntityJson(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), entityPath));
+    }
+
+    private GitLabEntityApi newEntityApi()
+    {
+        TestGitLabSession session = new TestGitLabSession("user");
+        session.setAccessToken("token");
+        session.setModeInfo(GitLabModeInfo.newModeInfo(GitLabMode.PROD, "http", this.server.getAddress().getHostString(), this.server.getAddress().getPort(), null, null, null));
+        TestHttpServletRequest httpRequest = new TestHttpServletRequest();
+        LegendSDLCWebFilter.setSessionAttributeOnServletRequest(httpRequest, session);
+        return new GitLabEntityApi(new GitLabUserContext(httpRequest, null, this.transport), this.backgroundTaskProcessor, this.cache);
+    }
+
+    private void cacheEntities(String revisionId, Stream<Entity> entities)
+    {
+        Stream<ProjectFile> files = entities.map(e -> ProjectFiles.newByteArrayProjectFile(getFilePath(e.getPath()), SOURCE_DIRECTORY.serializeToBytes(e)));
+        this.cache.cacheSnapshot("PROD-1", revisionId, files).release();
+    }
+
+    private void handleBranchRequest(HttpExchange exchange) throws IOException
+    {
+        String method = exchange.getRequestMethod();
+        this.branchRequests.add(method + " " + exchange.getRequestURI().getPath());
+        if ("POST".equals(method))
+        {
+            // parameters may be sent in the query or in the body
+            Map<String, String> params = parseForm(exchange.getRequestURI().getRawQuery());
+            params.putAll(parseForm(new String(IOTools.readAllBytes(exchange.getRequestBody()), StandardCharsets.UTF_8)));
+            String branchName = params.get("branch");
+            String commitId = params.get("ref");
+            this.branches.put(branchName, commitId);
+            sendResponse(exchange, 201, toBranchJson(branchName, commitId));
+            return;
+        }
+
+        String branchName = exchange.getRequestURI().getPath().substring((PROJECT_PATH + "branches/").length());
+        String commitId = "DELETE".equals(method) ? this.branches.remove(branchName) : this.branches.get(branchName);
+        if (commitId == null)
+        {
+            sendResponse(exchange, 404, "{\"message\":\"404 Branch Not Found\"}");
+        }
+        else if ("DELETE".equals(method))
+        {
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        }
+        else
+        {
+            sendResponse(exchange, 200, toBranchJson(branchName, commitId));
+        }
+    }
+
+    private void handleCommitRequest(HttpExchange exchange) throws IOException
+    {
+        String path = exchange.getRequestURI().getPath();
+        if ("POST".equals(exchange.getRequestMethod()))
+        {
+            String branchName = new ObjectMapper().readTree(IOTools.readAllBytes(exchange.getRequestBody())).get("branch").asText();
+            this.commitBranches.add(branchName);
+            String parentId = this.branches.get(branchName);
+            String commitId = "rev" + this.commitCounter.incrementAndGet();
+            this.branches.put(branchName, commitId);
+            sendResponse(exchange, 201, "{\"id\":\"" + commitId + "\",\"parent_ids\":[\"" + parentId + "\"]}");
+        }
+        else if (path.length() > (PROJECT_PATH + "commits/").length())
+        {
+            // single commit
+            sendResponse(exchange, 200, "{\"id\":\"" + path.substring((PROJECT_PATH + "commits/").length()) + "\"}");
+        }
+        else
+        {
+            // current revision of a branch
+            String commitId = this.branches.get(parseForm(exchange.getRequestURI().getRawQuery()).get("ref_name"));
+            addPageHeaders(exchange, 1);
+            sendResponse(exchange, 200, "[{\"id\":\"" + commitId + "\"}]");
+        }
+    }
+
+    private static Map<String, String> parseForm(String form) throws IOException
+    {
+        Map<String, String> params = Maps.mutable.empty();
+        if (form != null)
+        {
+            for (String param : form.split("&"))
+            {
+                int index = param.indexOf('=');
+                if (index != -1)
+                {
+                    params.put(URLDecoder.decode(param.substring(0, index), "UTF-8"), URLDecoder.decode(param.substring(index + 1), "UTF-8"));
+                }
+            }
+        }
+        return params;
+    }
+
+    private static void addPageHeaders(HttpExchange exchange, int total)
+    {
+        exchange.getResponseHeaders().add("X-Page", "1");
+        exchange.getResponseHeaders().add("X-Per-Page", "1");
+        exchange.getResponseHeaders().add("X-Total-Pages", "1");
+        exchange.getResponseHeaders().add("X-Total", String.valueOf(total));
+    }
+
+    private static String toBranchJson(String branchName, String commitId)
+    {
+        return "{\"name\":\"" + branchName + "\",\"commit\":{\"id\":\"" + commitId + "\"}}";
+    }
+
+    private static void sendResponse(HttpExchange exchange, int status, String body) throws IOException
+    {
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, response.length);
+        try (OutputStream stream = exchange.getResponseBody())
+        {
+            stream.write(response);
+        }
+    }
+
+    private static Entity newEntity(int i, String description)
+    {
+        return Entity.newEntity("model::E" + i, CLASSIFIER_PATH, newContent("model", "E" + i, description));
+    }
+
+    private static Map<String, ?> newContent(String pkg, String name, String description)
+    {
+        Map<String, Object> content = Maps.mutable.empty();
+        content.put("_type", "class");
+        content.put("package", pkg);
+        content.put("name", name);
+        content.put("description", description);
+        return content;
+    }
+
+    private static String getFilePath(int i)
+    {
+        return getFilePath("model::E" + i);
+    }
+
+    private static String getFilePath(String entityPath)
+    {
+        return SOURCE_DIRECTORY.entityPathToFilePath(entityPath);
+    }
+}
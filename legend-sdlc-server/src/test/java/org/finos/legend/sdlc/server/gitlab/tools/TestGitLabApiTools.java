@@ -14,6 +14,7 @@
 
 package org.finos.legend.sdlc.server.gitlab.tools;
 
+import org.finos.legend.sdlc.server.gitlab.GitLabRateLimiter;
 import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
 import org.gitlab4j.api.GitLabApiException;
 import org.junit.Assert;
@@ -23,6 +24,7 @@ import javax.ws.rs.core.Response.Status;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class TestGitLabApiTools
 {
@@ -50,7 +52,8 @@ public class TestGitLabApiTools
         Set<Status> retryableStatuses = EnumSet.of(Status.REQUEST_TIMEOUT, Status.BAD_GATEWAY, Status.SERVICE_UNAVAILABLE, Status.GATEWAY_TIMEOUT);
         for (Status status : Status.values())
         {
-            if (retryableStatuses.contains(status))
+            // 429 (Too Many Requests) is not in every version of the Status enum
+            if (retryableStatuses.contains(status) || (status.getStatusCode() == 429))
             {
                 Assert.assertTrue(status.toString(), GitLabApiTools.isRetryableGitLabApiException(new GitLabApiException("some message", status.getStatusCode())));
             }
@@ -195,6 +198,32 @@ public class TestGitLabApiTools
         }
     }
 
+    @Test
+    public void testCall_RetryWaitsForServerDelay() throws Exception
+    {
+        GitLabApiCallWithCounter<String> call = new GitLabApiCallWithCounter<String>()
+        {
+            @Override
+            protected String realCall() throws GitLabApiException
+            {
+                if (getCallCount() == 0)
+                {
+                    // as recorded by the transport from the Retry-After header of a throttled response
+                    GitLabRateLimiter.recordRetryDelay(429, null, "1");
+                    throw new GitLabApiException("Too many requests", 429);
+                }
+                return "success";
+            }
+        };
+
+        long start = System.nanoTime();
+        Assert.assertEquals("success", GitLabApiTools.callWithRetries(call, 2, 10L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        Assert.assertEquals(2, call.getCallCount());
+        Assert.assertTrue(Long.toString(elapsedMillis), elapsedMillis >= 1000L);
+        Assert.assertEquals(-1L, GitLabRateLimiter.takeRetryDelayMillis());
+    }
+
     @Test
     public void testCall_RetryableException_SuccessBeforeMaxRetries() throws Exception
     {
@@ -0,0 +1,114 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestCachingFileAccessContext
+{
+    private static final MutableList<ProjectFile> FILES = Lists.mutable.with(
+            ProjectFiles.newStringProjectFile("/project.json", "{}"),
+            ProjectFiles.newStringProjectFile("/entities/model/A.json", "a"),
+            ProjectFiles.newStringProjectFile("/entities/model/sub/B.json", "b"),
+            ProjectFiles.newStringProjectFile("/entities/model2/C.json", "c"),
+            ProjectFiles.newStringProjectFile("/entities/model-other/D.json", "d"),
+            ProjectFiles.newStringProjectFile("/entities/other/E.json", "e"),
+            ProjectFiles.newStringProjectFile("/src/F.java", "f"));
+
+    @Test
+    public void testDirectoryLookups()
+    {
+        CountingFileAccessContext delegate = new CountingFileAccessContext();
+        CachingFileAccessContext context = CachingFileAccessContext.wrap(delegate);
+
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/sub/B.json"), getPaths(context.getFilesInDirectory("/entities/model")));
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/sub/B.json", "/entities/other/E.json"), getPaths(context.getFilesInDirectories(Lists.mutable.with("entities/model/", "/entities/other"))));
+        Assert.assertEquals(Lists.mutable.with("/entities/model-other/D.json", "/entities/model/A.json", "/entities/model/sub/B.json", "/entities/model2/C.json", "/entities/other/E.json"), getPaths(context.getFilesInDirectory("/entities")));
+        Assert.assertEquals(FILES.collect(ProjectFile::getPath).sortThis(), getPaths(context.getFiles()));
+        Assert.assertEquals(Lists.mutable.empty(), getPaths(context.getFilesInDirectory("/entities/mod")));
+        Assert.assertEquals(Lists.mutable.with("/entities/model2/C.json"), context.getFilePathsInDirectory("/entities/model2").sorted().collect(Collectors.toList()));
+        Assert.assertEquals("b", context.getFile("entities/model/sub/B.json").getContentAsString());
+        Assert.assertNull(context.getFile("/entities/model/sub"));
+        Assert.assertEquals(1, delegate.fullLoadCount.get());
+        Assert.assertEquals(0, delegate.fileCount.get());
+    }
+
+    @Test
+    public void testFilesCachedBeforeFill()
+    {
+        CountingFileAccessContext delegate = new CountingFileAccessContext();
+        CachingFileAccessContext context = CachingFileAccessContext.wrap(delegate);
+
+        Assert.assertEquals("a", context.getFile("/entities/model/A.json").getContentAsString());
+        Assert.assertEquals("a", context.getFile("/entities/model/A.json").getContentAsString());
+        Assert.assertNull(context.getFile("/entities/model/Z.json"));
+        Assert.assertEquals(2, delegate.fileCount.get());
+        Assert.assertEquals(1, context.getCachedSize());
+
+        // listing paths does not fill the cache
+        Assert.assertEquals(Lists.mutable.with("/src/F.java"), context.getFilePathsInDirectory("/src").collect(Collectors.toList()));
+        Assert.assertEquals(0, delegate.fullLoadCount.get());
+
+        context.fillCache();
+        context.fillCache();
+        Assert.assertEquals(1, delegate.fullLoadCount.get());
+        Assert.assertEquals(FILES.sumOfInt(f -> f.getContentAsBytes().length), context.getCachedSize());
+        Assert.assertEquals("e", context.getFile("/entities/other/E.json").getContentAsString());
+        Assert.assertNull(context.getFile("/entities/model/Z.json"));
+        Assert.assertEquals(2, delegate.fileCount.get());
+    }
+
+    private static MutableList<String> getPaths(Stream<ProjectFile> files)
+    {
+        return Lists.mutable.withAll(files.map(ProjectFile::getPath).collect(Collectors.toList())).sortThis();
+    }
+
+    private static class CountingFileAccessContext extends AbstractFileAccessContext
+    {
+        private final AtomicInteger fullLoadCount = new AtomicInteger();
+        private final AtomicInteger fileCount = new AtomicInteger();
+
+        @Override
+        protected Stream<ProjectFile> getFilesInCanonicalDirectories(MutableList<String> directories)
+        {
+            if ((directories.size() == 1) && ProjectPaths.ROOT_DIRECTORY.equals(directories.get(0)))
+            {
+                this.fullLoadCount.incrementAndGet();
+            }
+            return FILES.stream().filter(f -> directories.anySatisfy(f.getPath()::startsWith));
+        }
+
+        @Override
+        protected Stream<String> getFilePathsInCanonicalDirectories(MutableList<String> directories)
+        {
+            return FILES.stream().map(ProjectFile::getPath).filter(p -> directories.anySatisfy(p::startsWith));
+        }
+
+        @Override
+        public ProjectFile getFile(String path)
+        {
+            this.fileCount.incrementAndGet();
+            return FILES.detect(f -> f.getPath().equals(path));
+        }
+    }
+}
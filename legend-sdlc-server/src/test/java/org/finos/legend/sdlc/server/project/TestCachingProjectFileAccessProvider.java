@@ -0,0 +1,181 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project;
+
+import org.eclipse.collections.api.list.MutableList;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.FileAccessContext;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.WorkspaceAccessType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class TestCachingProjectFileAccessProvider
+{
+    @Test
+    public void testContextsCachedPerKey()
+    {
+        CountingProvider delegate = new CountingProvider();
+        CachingProjectFileAccessProvider provider = CachingProjectFileAccessProvider.wrap(delegate);
+
+        FileAccessContext context = provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r1");
+        Assert.assertSame(context, provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r1"));
+        Assert.assertNotSame(context, provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r2"));
+        Assert.assertNotSame(context, provider.getFileAccessContext("P2", null, WorkspaceAccessType.WORKSPACE, "r1"));
+        Assert.assertEquals(3, delegate.contextCount.get());
+
+        // contexts for the current revision are never cached
+        provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, null);
+        provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, null);
+        Assert.assertEquals(5, delegate.contextCount.get());
+
+        provider.clearCache("P1", null, "r1");
+        Assert.assertNotSame(context, provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r1"));
+        Assert.assertEquals(6, delegate.contextCount.get());
+    }
+
+    @Test
+    public void testBounded()
+    {
+        // with no content loaded, each context has a fixed weight
+        CachingProjectFileAccessProvider provider = CachingProjectFileAccessProvider.wrap(new CountingProvider(), 2 * 1024);
+        for (int i = 0; i < 10; i++)
+        {
+            provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r" + i);
+        }
+        Assert.assertTrue(provider.getCachedContextCount() <= 2);
+    }
+
+    @Test
+    public void testBoundedByContentSize()
+    {
+        CountingProvider delegate = new CountingProvider()
+        {
+            @Override
+            public FileAccessContext getFileAccessContext(String projectId, String workspaceId, WorkspaceAccessType workspaceAccessType, String revisionId)
+            {
+                super.getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId);
+                return new AbstractFileAccessContext()
+                {
+                    @Override
+                    protected Stream<ProjectFile> getFilesInCanonicalDirectories(MutableList<String> directories)
+                    {
+                        return Stream.of(getFile("/entities/A.json"));
+                    }
+
+                    @Override
+                    protected Stream<String> getFilePathsInCanonicalDirectories(MutableList<String> directories)
+                    {
+                        return Stream.of("/entities/A.json");
+                    }
+
+                    @Override
+                    public ProjectFile getFile(String path)
+                    {
+                        return "/entities/A.json".equals(path) ? ProjectFiles.newByteArrayProjectFile(path, new byte[10_000]) : null;
+                    }
+                };
+            }
+        };
+        CachingProjectFileAccessProvider provider = CachingProjectFileAccessProvider.wrap(delegate, 25_000);
+
+        // contexts are weighed again as they load content, so the bound holds however many of them there are
+        for (int i = 0; i < 10; i++)
+        {
+            FileAccessContext context = provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r" + i);
+            Assert.assertEquals(1, context.getFiles().count());
+            Assert.assertTrue(provider.getCachedWeight() <= 25_000);
+        }
+        Assert.assertEquals(2, provider.getCachedContextCount());
+        Assert.assertTrue(provider.getCachedWeight() >= 20_000);
+
+        // files cached individually count too
+        provider.clearCache();
+        for (int i = 0; i < 10; i++)
+        {
+            Assert.assertNotNull(provider.getFileAccessContext("P1", null, WorkspaceAccessType.WORKSPACE, "r" + i).getFile("/entities/A.json"));
+            Assert.assertTrue(provider.getCachedWeight() <= 25_000);
+        }
+        Assert.assertEquals(2, provider.getCachedContextCount());
+    }
+
+    @Test
+    public void testSlowDelegateDoesNotBlockOtherKeys() throws Exception
+    {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+        CountingProvider delegate = new CountingProvider()
+        {
+            @Override
+            public FileAccessContext getFileAccessContext(String projectId, String workspaceId, WorkspaceAccessType workspaceAccessType, String revisionId)
+            {
+                if ("slow".equals(projectId))
+                {
+                    slowStarted.countDown();
+                    try
+                    {
+                        releaseSlow.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId);
+            }
+        };
+        CachingProjectFileAccessProvider provider = CachingProjectFileAccessProvider.wrap(delegate);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            Future<FileAccessContext> slow = executor.submit(() -> provider.getFileAccessContext("slow", null, WorkspaceAccessType.WORKSPACE, "r1"));
+            Assert.assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+            Assert.assertNotNull(provider.getFileAccessContext("fast", null, WorkspaceAccessType.WORKSPACE, "r1"));
+            Assert.assertFalse(slow.isDone());
+            releaseSlow.countDown();
+            Assert.assertNotNull(slow.get(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            releaseSlow.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CountingProvider extends InMemoryProjectFileAccessProvider
+    {
+        private final AtomicInteger contextCount = new AtomicInteger();
+
+        private CountingProvider()
+        {
+            super("author", "committer");
+        }
+
+        @Override
+        public FileAccessContext getFileAccessContext(String projectId, String workspaceId, WorkspaceAccessType workspaceAccessType, String revisionId)
+        {
+            this.contextCount.incrementAndGet();
+            return super.getFileAccessContext(projectId, workspaceId, workspaceAccessType, revisionId);
+        }
+    }
+}
@@ -15,8 +15,10 @@
 package org.finos.legend.sdlc.server.project;
 
 import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
 import org.eclipse.collections.api.list.ImmutableList;
 import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.serialization.DefaultJsonEntitySerializer;
 import org.finos.legend.sdlc.serialization.EntitySerializers;
 import org.finos.legend.sdlc.serialization.EntityTextSerializer;
 import org.finos.legend.sdlc.server.project.ProjectStructure.EntitySourceDirectory;
@@ -26,6 +28,8 @@ import org.junit.Test;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class TestEntitySourceDirectory
 {
@@ -96,6 +100,28 @@ public class TestEntitySourceDirectory
         }
     }
 
+    @Test
+    public void testCanonicalSerialization() throws IOException
+    {
+        // updateEntities relies on serialization being canonical to detect unchanged entities from their bytes
+        EntitySourceDirectory sourceDirectory = ProjectStructure.newEntitySourceDirectory("/src/main/legend", new DefaultJsonEntitySerializer(true));
+
+        Map<String, Object> content1 = new LinkedHashMap<>();
+        content1.put("_type", "class");
+        content1.put("name", "A");
+        content1.put("package", "model");
+        content1.put("multiplicity", Maps.mutable.with("lowerBound", 1, "upperBound", 1));
+        Map<String, Object> content2 = new LinkedHashMap<>();
+        content2.put("multiplicity", Maps.mutable.with("upperBound", 1, "lowerBound", 1));
+        content2.put("package", "model");
+        content2.put("name", "A");
+        content2.put("_type", "class");
+
+        byte[] serialized = sourceDirectory.serializeToBytes(Entity.newEntity("model::A", "meta::pure::metamodel::type::Class", content1));
+        Assert.assertArrayEquals(serialized, sourceDirectory.serializeToBytes(Entity.newEntity("model::A", "meta::pure::metamodel::type::Class", content2)));
+        Assert.assertArrayEquals(serialized, sourceDirectory.serializeToBytes(sourceDirectory.deserialize(serialized)));
+    }
+
     @Test
     public void testGetSerializer()
     {
@@ -0,0 +1,103 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestProjectFileOperationBuffer
+{
+    private static final MutableList<ProjectFileOperation> OPERATIONS = Lists.mutable.with(
+            ProjectFileOperation.addFile("/entities/model/A.json", "content of A"),
+            ProjectFileOperation.modifyFile("/entities/model/B.json", "new content of B"),
+            ProjectFileOperation.deleteFile("/entities/model/C.json"),
+            ProjectFileOperation.moveFile("/entities/model/D.json", "/entities/other/D.json"),
+            ProjectFileOperation.moveFile("/entities/model/E.json", "/entities/other/E.json", "new content of E"));
+
+    @Test
+    public void testInMemory() throws IOException
+    {
+        try (ProjectFileOperationBuffer buffer = ProjectFileOperationBuffer.newBuffer(1024))
+        {
+            addAll(buffer);
+            Assert.assertFalse(buffer.isOnDisk());
+            assertOperations(buffer);
+        }
+    }
+
+    @Test
+    public void testOnDisk() throws IOException
+    {
+        ProjectFileOperationBuffer buffer = ProjectFileOperationBuffer.newBuffer(64);
+        try
+        {
+            buffer.add(OPERATIONS.get(0));
+            Assert.assertFalse(buffer.isOnDisk());
+            addAll(buffer, OPERATIONS.subList(1, OPERATIONS.size()));
+            Assert.assertTrue(buffer.isOnDisk());
+            assertOperations(buffer);
+            // the operations can be read more than once
+            assertOperations(buffer);
+        }
+        finally
+        {
+            buffer.close();
+        }
+        // the temporary file is deleted on close
+        Assert.assertFalse(buffer.isOnDisk());
+    }
+
+    @Test
+    public void testEmpty() throws IOException
+    {
+        try (ProjectFileOperationBuffer buffer = ProjectFileOperationBuffer.newBuffer(0))
+        {
+            Assert.assertTrue(buffer.isEmpty());
+            try (Stream<ProjectFileOperation> stream = buffer.stream())
+            {
+                Assert.assertEquals(0, stream.count());
+            }
+        }
+    }
+
+    private static void addAll(ProjectFileOperationBuffer buffer) throws IOException
+    {
+        addAll(buffer, OPERATIONS);
+    }
+
+    private static void addAll(ProjectFileOperationBuffer buffer, Iterable<? extends ProjectFileOperation> operations) throws IOException
+    {
+        for (ProjectFileOperation operation : operations)
+        {
+            buffer.add(operation);
+        }
+    }
+
+    private static void assertOperations(ProjectFileOperationBuffer buffer) throws IOException
+    {
+        Assert.assertEquals(OPERATIONS.size(), buffer.size());
+        try (Stream<ProjectFileOperation> stream = buffer.stream())
+        {
+            // operations have no equals method, but their string forms identify them
+            Assert.assertEquals(OPERATIONS.collect(ProjectFileOperation::toString), stream.map(ProjectFileOperation::toString).collect(Collectors.toList()));
+        }
+    }
+}
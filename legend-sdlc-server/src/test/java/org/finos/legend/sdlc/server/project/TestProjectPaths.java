@@ -45,6 +45,21 @@ public class TestProjectPaths
         Assert.assertEquals("/abc/def/ghi/", ProjectPaths.canonicalizeDirectory("/abc/def/ghi/"));
     }
 
+    @Test
+    public void testCanonicalizeFile()
+    {
+        Assert.assertEquals("/", ProjectPaths.canonicalizeFile(""));
+        Assert.assertEquals("/", ProjectPaths.canonicalizeFile("/"));
+
+        Assert.assertEquals("/a", ProjectPaths.canonicalizeFile("a"));
+        Assert.assertEquals("/a", ProjectPaths.canonicalizeFile("/a"));
+        Assert.assertEquals("/a", ProjectPaths.canonicalizeFile("a/"));
+        Assert.assertEquals("/a", ProjectPaths.canonicalizeFile("/a/"));
+
+        Assert.assertEquals("/abc/def/ghi.json", ProjectPaths.canonicalizeFile("abc/def/ghi.json"));
+        Assert.assertEquals("/abc/def/ghi.json", ProjectPaths.canonicalizeFile("/abc/def/ghi.json"));
+    }
+
     @Test
     public void testCanonicalizeAndReduceDirectories()
     {
@@ -0,0 +1,185 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import io.prometheus.client.CollectorRegistry;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.api.map.MutableMap;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.finos.legend.sdlc.server.tools.IOTools;
+import org.finos.legend.sdlc.serialization.DefaultJsonEntitySerializer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+public class TestCompressedProjectFile
+{
+    private static final DefaultJsonEntitySerializer SERIALIZER = new DefaultJsonEntitySerializer();
+
+    @Test
+    public void testRoundTrip() throws IOException
+    {
+        byte[] content = SERIALIZER.serializeToBytes(newClassEntity("model::domain", "Person", "firstName", "lastName", "age", "address"));
+        CompressedProjectFile file = CompressedProjectFile.compress("/entities/model/domain/Person.json", content);
+        Assert.assertNotNull(file);
+        Assert.assertTrue(file.getCompressedSize() + " >= " + content.length, file.getCompressedSize() < (content.length / 3));
+
+        Assert.assertEquals("/entities/model/domain/Person.json", file.getPath());
+        Assert.assertArrayEquals(content, file.getContentAsBytes());
+        try (InputStream stream = file.getContentAsInputStream())
+        {
+            Assert.assertArrayEquals(content, IOTools.readAllBytes(stream));
+        }
+        Assert.assertEquals("model::domain::Person", SERIALIZER.deserialize(file.getContentAsInputStream()).getPath());
+    }
+
+    @Test
+    public void testDictionary() throws IOException
+    {
+        // small entity files are the common case, and without a dictionary there is too little content to find the
+        // repetition in; the dictionary should cut their compressed size by at least 40%
+        MutableList<Entity> entities = Lists.mutable.with(
+                newClassEntity("model::domain", "Person", "name"),
+                newClassEntity("model::domain", "Firm", "legalName", "address"),
+                newEnumerationEntity("model::domain", "Rating", "AAA", "AA", "A", "BBB"));
+        for (Entity entity : entities)
+        {
+            byte[] content = SERIALIZER.serializeToBytes(entity);
+            int withDictionary = deflate(content, CompressedProjectFile.DICTIONARY);
+            int withoutDictionary = deflate(content, null);
+            Assert.assertTrue(entity.getPath() + ": " + withDictionary + " vs " + withoutDictionary, withDictionary < (withoutDictionary * 0.6));
+            Assert.assertEquals(withDictionary, CompressedProjectFile.compress("/entities/file.json", content).getCompressedSize() - 1);
+        }
+    }
+
+    @Test
+    public void testDecompressionTimedForStreams() throws IOException
+    {
+        byte[] content = SERIALIZER.serializeToBytes(newClassEntity("model::domain", "Person", "firstName", "lastName"));
+        CompressedProjectFile file = CompressedProjectFile.compress("/entities/model/domain/Person.json", content);
+        double before = getDecompressionCount();
+        try (InputStream stream = file.getContentAsInputStream())
+        {
+            Assert.assertArrayEquals(content, IOTools.readAllBytes(stream));
+        }
+        Assert.assertEquals(before + 1.0, getDecompressionCount(), 0.0);
+    }
+
+    @Test
+    public void testNotCompressed()
+    {
+        // too small
+        Assert.assertNull(CompressedProjectFile.compress("/small.json", "{}".getBytes()));
+
+        // incompressible
+        byte[] random = new byte[4096];
+        new Random(42).nextBytes(random);
+        Assert.assertNull(CompressedProjectFile.compress("/random.bin", random));
+    }
+
+    @Test
+    public void testCompressedSnapshot() throws IOException
+    {
+        MutableList<ProjectFile> files = Lists.mutable.with(ProjectFiles.newStringProjectFile("/project.json", "{}"));
+        MutableMap<String, byte[]> contents = Maps.mutable.empty();
+        for (int i = 0; i < 20; i++)
+        {
+            String path = "/entities/model/domain/Class" + i + ".json";
+            byte[] content = SERIALIZER.serializeToBytes(newClassEntity("model::domain", "Class" + i, "prop" + i, "name", "id"));
+            files.add(ProjectFiles.newByteArrayProjectFile(path, content));
+            contents.put(path, content);
+        }
+
+        ProjectFileSnapshot snapshot = ProjectFileSnapshot.newSnapshot(files.stream(), null, true);
+        Assert.assertEquals(21, snapshot.getFileCount());
+        Assert.assertTrue(snapshot.getStoredSize() < (snapshot.getContentSize() / 3));
+        contents.forEachKeyValue((path, content) -> Assert.assertArrayEquals(path, content, snapshot.getFile(path).getContentAsBytes()));
+        Assert.assertEquals("{}", snapshot.getFile("/project.json").getContentAsString());
+
+        ProjectFileSnapshot uncompressed = ProjectFileSnapshot.newSnapshot(files.stream(), null, false);
+        Assert.assertEquals(uncompressed.getContentSize(), uncompressed.getStoredSize());
+        Assert.assertEquals(snapshot.getContentSize(), uncompressed.getContentSize());
+    }
+
+    private static int deflate(byte[] content, byte[] dictionary)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try
+        {
+            if (dictionary != null)
+            {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[content.length + 64];
+            int count = 0;
+            while (!deflater.finished())
+            {
+                count += deflater.deflate(buffer, count, buffer.length - count);
+            }
+            return count;
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    private static double getDecompressionCount()
+    {
+        Double count = CollectorRegistry.defaultRegistry.getSampleValue("sdlc_project_file_cache_decompression_seconds_count");
+        return (count == null) ? 0.0 : count;
+    }
+
+    private static Entity newEnumerationEntity(String pkg, String name, String... values)
+    {
+        MutableList<Object> valueList = Lists.mutable.empty();
+        for (String value : values)
+        {
+            valueList.add(Maps.mutable.with("value", value, "stereotypes", Lists.mutable.empty(), "taggedValues", Lists.mutable.empty()));
+        }
+        MutableMap<String, Object> content = Maps.mutable.with("_type", "Enumeration", "package", pkg, "name", name);
+        content.put("values", valueList);
+        content.put("stereotypes", Lists.mutable.empty());
+        content.put("taggedValues", Lists.mutable.empty());
+        return Entity.newEntity(pkg + "::" + name, "meta::pure::metamodel::type::Enumeration", content);
+    }
+
+    private static Entity newClassEntity(String pkg, String name, String... properties)
+    {
+        MutableList<Object> propertyList = Lists.mutable.empty();
+        for (String property : properties)
+        {
+            MutableMap<String, Object> propertyContent = Maps.mutable.with("name", property, "type", "String", "stereotypes", Lists.mutable.empty());
+            propertyContent.put("multiplicity", Maps.mutable.with("lowerBound", 1, "upperBound", 1));
+            propertyContent.put("taggedValues", Lists.mutable.with(Maps.mutable.with("tag", Maps.mutable.with("profile", "meta::pure::profiles::doc", "value", "doc"), "value", "The " + property + " of the " + name)));
+            propertyList.add(propertyContent);
+        }
+        MutableMap<String, Object> content = Maps.mutable.with("_type", "class", "package", pkg, "name", name);
+        content.put("properties", propertyList);
+        content.put("superTypes", Lists.mutable.with("meta::pure::metamodel::type::Any"));
+        content.put("constraints", Lists.mutable.empty());
+        return Entity.newEntity(pkg + "::" + name, "meta::pure::metamodel::type::Class", content);
+    }
+}
@@ -0,0 +1,257 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.finos.legend.sdlc.server.tools.IOTools;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestOffHeapSlabStore
+{
+    @Test
+    public void testReadAndWriteAcrossPages() throws IOException
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(160, 16);
+        OffHeapSlabStore.Segment segment = store.allocate(40);
+        Assert.assertNotNull(segment);
+        Assert.assertEquals(48L, store.getUsedSize());
+
+        byte[] first = "the quick brown fox ".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "jumps over the dog!!".getBytes(StandardCharsets.UTF_8);
+        segment.write(0, first);
+        segment.write(first.length, second);
+
+        Assert.assertArrayEquals(first, segment.read(0, first.length));
+        Assert.assertArrayEquals(second, segment.read(first.length, second.length));
+        Assert.assertEquals("brown fox jumps", new String(segment.read(10, 15), StandardCharsets.UTF_8));
+        try (InputStream stream = segment.newInputStream(4, 30))
+        {
+            Assert.assertEquals('q', stream.read());
+            Assert.assertEquals("uick brown fox jumps over the", new String(IOTools.readAllBytes(stream), StandardCharsets.UTF_8));
+            Assert.assertEquals(-1, stream.read());
+        }
+
+        try
+        {
+            segment.read(30, 20);
+            Assert.fail("Expected exception reading beyond the end of the segment");
+        }
+        catch (IndexOutOfBoundsException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAllocationLimit()
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(64, 16);
+        OffHeapSlabStore.Segment segment1 = store.allocate(40);
+        Assert.assertNotNull(segment1);
+        Assert.assertNull(store.allocate(17));
+        OffHeapSlabStore.Segment segment2 = store.allocate(16);
+        Assert.assertNotNull(segment2);
+        Assert.assertNull(store.allocate(1));
+        Assert.assertNotNull(store.allocate(0));
+        Assert.assertNull(store.allocate(100));
+        Assert.assertEquals(64L, store.getUsedSize());
+        Assert.assertEquals(64L, store.getAllocatedSize());
+    }
+
+    @Test
+    public void testPagesFreedOnLastRelease()
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(64, 16);
+        OffHeapSlabStore.Segment segment = store.allocate(64);
+        Assert.assertNotNull(segment);
+        Assert.assertNull(store.allocate(16));
+
+        Assert.assertTrue(segment.retain());
+        segment.release();
+        Assert.assertFalse(segment.isFreed());
+        Assert.assertEquals(64L, store.getUsedSize());
+
+        segment.release();
+        Assert.assertTrue(segment.isFreed());
+        Assert.assertFalse(segment.retain());
+        Assert.assertEquals(0L, store.getUsedSize());
+        try
+        {
+            segment.read(0, 1);
+            Assert.fail("Expected exception reading a freed segment");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        // the pages are reused
+        Assert.assertNotNull(store.allocate(64));
+        Assert.assertEquals(64L, store.getAllocatedSize());
+    }
+
+    @Test
+    public void testOffHeapSnapshot()
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileSnapshot snapshot = ProjectFileSnapshot.newSnapshot(newFiles(), store, false);
+        Assert.assertTrue(snapshot.isOffHeap());
+        Assert.assertEquals(3, snapshot.getFileCount());
+        Assert.assertEquals(35L, snapshot.getContentSize());
+        Assert.assertEquals("{\"name\":\"some long content\"}", snapshot.getFile("/entities/A.json").getContentAsString());
+        Assert.assertEquals("", snapshot.getFile("/entities/empty.json").getContentAsString());
+        Assert.assertEquals("{\"b\":2}", snapshot.getFile("entities/B.json").getContentAsString());
+        Assert.assertEquals(48L, store.getUsedSize());
+
+        // falls back to the heap if the store is full
+        ProjectFileSnapshot heapSnapshot = ProjectFileSnapshot.newSnapshot(newFiles(), OffHeapSlabStore.newStore(32, 16), false);
+        Assert.assertFalse(heapSnapshot.isOffHeap());
+        Assert.assertEquals("{\"b\":2}", heapSnapshot.getFile("entities/B.json").getContentAsString());
+    }
+
+    @Test
+    public void testCacheWithOffHeapStore() throws Exception
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileCache cache = ProjectFileCache.newCache(1024, null, store);
+        ProjectFileSnapshot snapshot = cache.getOrLoadSnapshot("PROJ-1", "c1", TestOffHeapSlabStore::newFiles);
+        Assert.assertTrue(snapshot.isOffHeap());
+        Assert.assertSame(snapshot, cache.getSnapshot("PROJ-1", "c1"));
+        snapshot.release();
+        snapshot.release();
+        Assert.assertEquals(48L, store.getUsedSize());
+
+        // memory is freed as soon as the snapshot is removed from the cache
+        cache.invalidate("PROJ-1", "c1");
+        Assert.assertEquals(0L, store.getUsedSize());
+    }
+
+    @Test
+    public void testSnapshotInUseIsNotFreed() throws Exception
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileCache cache = ProjectFileCache.newCache(1024, null, store);
+        ProjectFileSnapshot snapshot = cache.getOrLoadSnapshot("PROJ-1", "c1", TestOffHeapSlabStore::newFiles);
+        List<ProjectFile> files = snapshot.getFilesInCanonicalDirectories(Lists.fixedSize.with("/entities/")).collect(Collectors.toList());
+
+        cache.invalidate("PROJ-1", "c1");
+        Assert.assertNull(cache.getSnapshot("PROJ-1", "c1"));
+        Assert.assertEquals(48L, store.getUsedSize());
+        Assert.assertEquals("{\"b\":2}", snapshot.getFile("/entities/B.json").getContentAsString());
+
+        snapshot.release();
+        Assert.assertEquals(0L, store.getUsedSize());
+
+        // files handed out by the snapshot remain readable
+        Assert.assertEquals(3, files.size());
+        Assert.assertEquals("{\"name\":\"some long content\"}", files.stream().filter(f -> "/entities/A.json".equals(f.getPath())).findAny().get().getContentAsString());
+    }
+
+    @Test
+    public void testFileStreamHoldsContent()
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileSnapshot snapshot = ProjectFileSnapshot.newSnapshot(newFiles(), store, false);
+
+        // the stream keeps the content alive after the snapshot is released, until it is exhausted
+        Stream<ProjectFile> exhausted = snapshot.getFilesInCanonicalDirectories(Lists.fixedSize.with("/entities/"));
+        Stream<ProjectFile> abandoned = snapshot.getFilesInCanonicalDirectories(Lists.fixedSize.with("/entities/"));
+        snapshot.release();
+        Assert.assertEquals(48L, store.getUsedSize());
+        Assert.assertEquals(3, exhausted.map(ProjectFile::getContentAsString).collect(Collectors.toList()).size());
+        Assert.assertEquals(48L, store.getUsedSize());
+
+        // or closed
+        ProjectFile file = abandoned.findAny().get();
+        abandoned.close();
+        Assert.assertEquals(0L, store.getUsedSize());
+        Assert.assertNotNull(file.getContentAsString());
+    }
+
+    @Test
+    public void testDerivedSnapshotRetainsBaseContent() throws Exception
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileCache cache = ProjectFileCache.newCache(1024, null, store);
+        cache.getOrLoadSnapshot("PROJ-1", "c1", TestOffHeapSlabStore::newFiles).release();
+        cache.cacheDerivedSnapshot("PROJ-1", "c1", "c2", Lists.fixedSize.with(ProjectFileOperation.deleteFile("/entities/B.json"))).release();
+
+        cache.invalidate("PROJ-1", "c1");
+        Assert.assertEquals(48L, store.getUsedSize());
+        ProjectFileSnapshot derived = cache.getSnapshot("PROJ-1", "c2");
+        Assert.assertEquals("{\"name\":\"some long content\"}", derived.getFile("/entities/A.json").getContentAsString());
+        Assert.assertFalse(derived.fileExists("/entities/B.json"));
+
+        // the whole segment is retained, so it is all weighed, although one file was deleted
+        Assert.assertTrue(derived.isOffHeap());
+        Assert.assertEquals(2, derived.getOffHeapFileCount());
+        Assert.assertEquals(48L, derived.getStoredSize());
+        derived.release();
+
+        cache.invalidate("PROJ-1", "c2");
+        Assert.assertEquals(0L, store.getUsedSize());
+    }
+
+    @Test
+    public void testDerivedSnapshotResidency() throws Exception
+    {
+        OffHeapSlabStore store = OffHeapSlabStore.newStore(1024, 16);
+        ProjectFileCache cache = ProjectFileCache.newCache(1024, null, store);
+        ProjectFileSnapshot base = cache.getOrLoadSnapshot("PROJ-1", "c1", TestOffHeapSlabStore::newFiles);
+        Assert.assertEquals(3, base.getOffHeapFileCount());
+        base.release();
+
+        // new content is held on the heap, alongside the unchanged files held off-heap
+        ProjectFileSnapshot mixed = cache.cacheDerivedSnapshot("PROJ-1", "c1", "c2", Lists.fixedSize.with(ProjectFileOperation.modifyFile("/entities/B.json", "{\"b\":3}")));
+        Assert.assertTrue(mixed.isOffHeap());
+        Assert.assertEquals(2, mixed.getOffHeapFileCount());
+        Assert.assertEquals(48L + 7L, mixed.getStoredSize());
+        Assert.assertEquals("{\"b\":3}", mixed.getFile("/entities/B.json").getContentAsString());
+        mixed.release();
+
+        // once no file refers to the segment, it is not retained
+        ProjectFileSnapshot heap = cache.cacheDerivedSnapshot("PROJ-1", "c1", "c3", Lists.fixedSize.with(
+                ProjectFileOperation.modifyFile("/entities/A.json", "{\"a\":1}"),
+                ProjectFileOperation.deleteFile("/entities/empty.json"),
+                ProjectFileOperation.deleteFile("/entities/B.json")));
+        Assert.assertFalse(heap.isOffHeap());
+        Assert.assertEquals(0, heap.getOffHeapFileCount());
+        Assert.assertEquals(7L, heap.getStoredSize());
+        heap.release();
+
+        cache.invalidate("PROJ-1", "c1");
+        cache.invalidate("PROJ-1", "c2");
+        Assert.assertEquals(0L, store.getUsedSize());
+    }
+
+    private static Stream<ProjectFile> newFiles()
+    {
+        return Stream.of(
+                ProjectFiles.newStringProjectFile("/entities/A.json", "{\"name\":\"some long content\"}"),
+                ProjectFiles.newStringProjectFile("/entities/empty.json", ""),
+                ProjectFiles.newStringProjectFile("/entities/B.json", "{\"b\":2}"));
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.factory.Maps;
+import org.finos.legend.sdlc.domain.model.entity.Entity;
+import org.finos.legend.sdlc.server.project.config.ProjectFileCacheConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestParsedEntityCache
+{
+    @Test
+    public void testCacheHits()
+    {
+        ParsedEntityCache cache = ParsedEntityCache.newCache(1024 * 1024);
+        AtomicInteger deserializations = new AtomicInteger(0);
+        byte[] content = "{\"path\":\"model::A\"}".getBytes(StandardCharsets.UTF_8);
+
+        Entity entity1 = cache.getEntity("json", content, () -> newEntity("model::A", deserializations));
+        Entity entity2 = cache.getEntity("json", content.clone(), () -> newEntity("model::A", deserializations));
+        Assert.assertSame(entity1, entity2);
+        Assert.assertEquals(1, deserializations.get());
+        Assert.assertEquals("model::A", entity1.getPath());
+        Assert.assertEquals("meta::pure::metamodel::type::Class", entity1.getClassifierPath());
+
+        // different serializer or different content
+        Entity entity3 = cache.getEntity("pure", content, () -> newEntity("model::A", deserializations));
+        Assert.assertNotSame(entity1, entity3);
+        Entity entity4 = cache.getEntity("json", "{\"path\":\"model::B\"}".getBytes(StandardCharsets.UTF_8), () -> newEntity("model::B", deserializations));
+        Assert.assertEquals("model::B", entity4.getPath());
+        Assert.assertEquals(3, deserializations.get());
+        Assert.assertEquals(3, cache.getEntityCount());
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getEntityCount());
+    }
+
+    @Test
+    public void testImmutableContent()
+    {
+        ParsedEntityCache cache = ParsedEntityCache.newCache(1024 * 1024);
+        Entity entity = cache.getEntity("json", new byte[]{1, 2, 3}, () -> newEntity("model::A", new AtomicInteger()));
+        Map<String, ?> content = entity.getContent();
+        Assert.assertEquals("model::A", content.get("package"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> content.remove("package"));
+        List<?> properties = (List<?>) content.get("properties");
+        Assert.assertThrows(UnsupportedOperationException.class, properties::clear);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> property = (Map<String, Object>) properties.get(0);
+        Assert.assertEquals("name", property.get("name"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> property.put("name", "other"));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        ParsedEntityCache cache = ParsedEntityCache.newCache(0);
+        Assert.assertFalse(cache.isEnabled());
+        AtomicInteger deserializations = new AtomicInteger(0);
+        byte[] content = {1, 2, 3};
+        Entity entity1 = cache.getEntity("json", content, () -> newEntity("model::A", deserializations));
+        Entity entity2 = cache.getEntity("json", content, () -> newEntity("model::A", deserializations));
+        Assert.assertNotSame(entity1, entity2);
+        Assert.assertEquals(2, deserializations.get());
+        Assert.assertEquals(0, cache.getEntityCount());
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> ParsedEntityCache.newCache(-1));
+    }
+
+    @Test
+    public void testFromConfig()
+    {
+        Assert.assertTrue(ParsedEntityCache.fromConfig(null).isEnabled());
+        Assert.assertTrue(ParsedEntityCache.fromConfig(ProjectFileCacheConfiguration.defaultConfiguration()).isEnabled());
+        Assert.assertFalse(ParsedEntityCache.fromConfig(ProjectFileCacheConfiguration.newConfiguration(null, null, null, null, null, 0L)).isEnabled());
+    }
+
+    private static Entity newEntity(String path, AtomicInteger counter)
+    {
+        counter.incrementAndGet();
+        Map<String, Object> property = Maps.mutable.with("name", "name", "type", "String");
+        Map<String, Object> content = Maps.mutable.with("package", "model::A", "properties", Lists.mutable.with(property));
+        return Entity.newEntity(path, "meta::pure::metamodel::type::Class", content);
+    }
+}
@@ -0,0 +1,279 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.ImmutableList;
+import org.eclipse.collections.api.list.MutableList;
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFileOperation;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.finos.legend.sdlc.server.project.config.ProjectFileCacheConfiguration;
+import org.finos.legend.sdlc.server.tools.ThrowingSupplier;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestProjectFileCache
+{
+    @Test
+    public void testSnapshot()
+    {
+        ProjectFileSnapshot snapshot = ProjectFileSnapshot.newSnapshot(newFiles());
+        Assert.assertEquals(4, snapshot.getFileCount());
+        Assert.assertEquals(29L, snapshot.getContentSize());
+
+        Assert.assertTrue(snapshot.fileExists("/project.json"));
+        Assert.assertTrue(snapshot.fileExists("project.json"));
+        Assert.assertFalse(snapshot.fileExists("/pom.xml"));
+
+        ProjectFile file = snapshot.getFile("entities/model/A.json");
+        Assert.assertNotNull(file);
+        Assert.assertEquals("/entities/model/A.json", file.getPath());
+        Assert.assertEquals("{\"a\":1}", file.getContentAsString());
+        Assert.assertNull(snapshot.getFile("/entities/model/C.json"));
+
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/B.json", "/entities/other/C.json", "/project.json"), getPaths(snapshot, "/"));
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/B.json"), getPaths(snapshot, "/entities/model/"));
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/B.json", "/entities/other/C.json"), getPaths(snapshot, "/entities/model/", "/entities/other/"));
+        Assert.assertEquals(Lists.mutable.empty(), getPaths(snapshot, "/src/"));
+
+        Assert.assertEquals(
+                Lists.mutable.with("/entities/model/A.json", "/entities/model/B.json", "/entities/other/C.json"),
+                snapshot.getFilePathsInCanonicalDirectories(Lists.mutable.with("/entities/")).sorted().collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testCacheSnapshot()
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L);
+        Assert.assertTrue(cache.isEnabled());
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+
+        ProjectFileSnapshot snapshot = cache.cacheSnapshot("PROD-1", "abc123", newFiles());
+        Assert.assertSame(snapshot, cache.getSnapshot("PROD-1", "abc123"));
+        Assert.assertNull(cache.getSnapshot("PROD-1", "def456"));
+        Assert.assertNull(cache.getSnapshot("PROD-2", "abc123"));
+
+        cache.invalidate("PROD-1", "abc123");
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+
+        cache.cacheSnapshot("PROD-1", "abc123", newFiles());
+        cache.invalidateAll();
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+    }
+
+    @Test
+    public void testSharedContent()
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L * 1024L);
+        ProjectFileSnapshot snapshot1 = cache.cacheSnapshot("PROD-1", "abc123", newFiles());
+        Assert.assertEquals(snapshot1.getContentSize(), snapshot1.getStoredSize());
+
+        // unchanged files are shared, but still count towards the stored size of each snapshot
+        ProjectFileSnapshot snapshot2 = cache.cacheSnapshot("PROD-1", "def456", Stream.concat(
+                newFiles().filter(f -> !"/entities/model/B.json".equals(f.getPath())),
+                Stream.of(ProjectFiles.newStringProjectFile("/entities/model/B.json", "{\"b\":3}"))));
+        Assert.assertEquals(snapshot2.getContentSize(), snapshot2.getStoredSize());
+        Assert.assertSame(snapshot1.getFile("/entities/model/A.json"), snapshot2.getFile("/entities/model/A.json"));
+        Assert.assertNotSame(snapshot1.getFile("/entities/model/B.json"), snapshot2.getFile("/entities/model/B.json"));
+        Assert.assertEquals("{\"b\":3}", snapshot2.getFile("/entities/model/B.json").getContentAsString());
+
+        // the same content at a different path is not shared
+        ProjectFileSnapshot snapshot3 = cache.cacheSnapshot("PROD-2", "abc123", Stream.of(ProjectFiles.newStringProjectFile("/entities/model/A2.json", "{\"a\":1}")));
+        Assert.assertEquals(7L, snapshot3.getStoredSize());
+
+        // blob ids match git
+        Assert.assertEquals("ce013625030ba8dba906f756967f9e9ca394464a", ProjectFileContentPool.getBlobId("hello\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testSharedContentIsWeighed()
+    {
+        ProjectFileSnapshot probe = ProjectFileSnapshot.newSnapshot(newFiles());
+        long weight = probe.getStoredSize() + (64L * probe.getFileCount());
+        ProjectFileCache cache = ProjectFileCache.newCache(weight + (weight / 2));
+        cache.cacheSnapshot("PROD-1", "abc123", newFiles()).release();
+        cache.cacheSnapshot("PROD-1", "def456", newFiles()).release();
+
+        // the snapshots share all of their content, but each is weighed by all of it, so they do not both fit
+        Assert.assertFalse((cache.getSnapshot("PROD-1", "abc123") != null) && (cache.getSnapshot("PROD-1", "def456") != null));
+    }
+
+    @Test
+    public void testCacheDerivedSnapshot()
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L * 1024L);
+        List<ProjectFileOperation> operations = Lists.mutable.with(
+                ProjectFileOperation.modifyFile("/entities/model/A.json", "{\"a\":2}"),
+                ProjectFileOperation.deleteFile("/entities/model/B.json"),
+                ProjectFileOperation.moveFile("/entities/other/C.json", "/entities/model/C.json"),
+                ProjectFileOperation.addFile("/entities/model/D.json", "{\"d\":5}"));
+
+        // nothing is cached if the base snapshot is not cached
+        Assert.assertNull(cache.cacheDerivedSnapshot("PROD-1", "abc123", "def456", operations));
+        Assert.assertNull(cache.getSnapshot("PROD-1", "def456"));
+
+        ProjectFileSnapshot base = cache.cacheSnapshot("PROD-1", "abc123", newFiles());
+        ProjectFileSnapshot derived = cache.cacheDerivedSnapshot("PROD-1", "abc123", "def456", operations);
+        Assert.assertNotNull(derived);
+        Assert.assertSame(derived, cache.getSnapshot("PROD-1", "def456"));
+        Assert.assertEquals(Lists.mutable.with("/entities/model/A.json", "/entities/model/C.json", "/entities/model/D.json", "/project.json"), getPaths(derived, "/"));
+        Assert.assertEquals("{\"a\":2}", derived.getFile("/entities/model/A.json").getContentAsString());
+        Assert.assertEquals("{\"c\":3,\"d\":4}", derived.getFile("/entities/model/C.json").getContentAsString());
+        Assert.assertEquals("{\"d\":5}", derived.getFile("/entities/model/D.json").getContentAsString());
+        Assert.assertSame(base.getFile("/project.json"), derived.getFile("/project.json"));
+        ProjectFileSnapshot rebuilt = ProjectFileSnapshot.newSnapshot(derived.getFilesInCanonicalDirectories(Lists.mutable.with("/")));
+        Assert.assertEquals(rebuilt.getContentSize(), derived.getContentSize());
+        Assert.assertEquals(rebuilt.getStoredSize(), derived.getStoredSize());
+
+        // operations which are inconsistent with the base snapshot
+        Assert.assertNull(cache.cacheDerivedSnapshot("PROD-1", "abc123", "ghi789", Lists.mutable.with(ProjectFileOperation.deleteFile("/entities/model/X.json"))));
+        Assert.assertNull(cache.cacheDerivedSnapshot("PROD-1", "abc123", "ghi789", Lists.mutable.with(ProjectFileOperation.addFile("/project.json", "{}"))));
+        Assert.assertNull(cache.getSnapshot("PROD-1", "ghi789"));
+    }
+
+    @Test
+    public void testCachePathIndex()
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L * 1024L);
+        Assert.assertNull(cache.getPathIndex("PROD-1", "abc123"));
+
+        ImmutableList<String> paths = Lists.immutable.with("/project.json", "/entities/model/A.json", "/entities/other/C.json");
+        cache.cachePathIndex("PROD-1", "abc123", paths);
+        Assert.assertSame(paths, cache.getPathIndex("PROD-1", "abc123"));
+        Assert.assertNull(cache.getPathIndex("PROD-1", "def456"));
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+        Assert.assertEquals(
+                Lists.mutable.with("/entities/model/A.json"),
+                ProjectFileSnapshot.filterPathsInCanonicalDirectories(paths.stream(), Lists.mutable.with("/entities/model/")).collect(Collectors.toList()));
+
+        cache.invalidate("PROD-1", "abc123");
+        Assert.assertNull(cache.getPathIndex("PROD-1", "abc123"));
+
+        ProjectFileCache disabledCache = ProjectFileCache.newCache(0L);
+        disabledCache.cachePathIndex("PROD-1", "abc123", paths);
+        Assert.assertNull(disabledCache.getPathIndex("PROD-1", "abc123"));
+    }
+
+    @Test
+    public void testCoalescedLoad() throws Exception
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L * 1024L);
+        AtomicInteger loadCount = new AtomicInteger(0);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        ThrowingSupplier<Stream<ProjectFile>, InterruptedException> loader = () ->
+        {
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            releaseLoad.await();
+            return newFiles();
+        };
+
+        int threadCount = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try
+        {
+            List<Future<ProjectFileSnapshot>> futures = Lists.mutable.empty();
+            futures.add(executor.submit(() -> cache.getOrLoadSnapshot("PROD-1", "abc123", loader)));
+            Assert.assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < threadCount; i++)
+            {
+                futures.add(executor.submit(() -> cache.getOrLoadSnapshot("PROD-1", "abc123", loader)));
+            }
+            releaseLoad.countDown();
+
+            ProjectFileSnapshot snapshot = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<ProjectFileSnapshot> future : futures)
+            {
+                Assert.assertSame(snapshot, future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, loadCount.get());
+        Assert.assertNotNull(cache.getSnapshot("PROD-1", "abc123"));
+    }
+
+    @Test
+    public void testFailedLoad()
+    {
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L * 1024L);
+        IOException exception = new IOException("download failed");
+        try
+        {
+            cache.getOrLoadSnapshot("PROD-1", "abc123", () ->
+            {
+                throw exception;
+            });
+            Assert.fail("Expected exception");
+        }
+        catch (IOException e)
+        {
+            Assert.assertSame(exception, e);
+        }
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+    }
+
+    @Test
+    public void testDisabledCache()
+    {
+        ProjectFileCache cache = ProjectFileCache.fromConfig(ProjectFileCacheConfiguration.newConfiguration(0L));
+        Assert.assertFalse(cache.isEnabled());
+
+        ProjectFileSnapshot snapshot = cache.cacheSnapshot("PROD-1", "abc123", newFiles());
+        Assert.assertEquals(4, snapshot.getFileCount());
+        Assert.assertNull(cache.getSnapshot("PROD-1", "abc123"));
+    }
+
+    @Test
+    public void testDefaultConfiguration()
+    {
+        ProjectFileCache cache = ProjectFileCache.fromConfig(null);
+        Assert.assertTrue(cache.isEnabled());
+        Assert.assertEquals(ProjectFileCacheConfiguration.defaultConfiguration().getMaxSize(), cache.getMaxSize());
+    }
+
+    private static Stream<ProjectFile> newFiles()
+    {
+        return Stream.of(
+                ProjectFiles.newStringProjectFile("/project.json", "{}"),
+                ProjectFiles.newStringProjectFile("/entities/model/A.json", "{\"a\":1}"),
+                ProjectFiles.newStringProjectFile("/entities/model/B.json", "{\"b\":2}"),
+                ProjectFiles.newStringProjectFile("entities/other/C.json", "{\"c\":3,\"d\":4}"));
+    }
+
+    private static MutableList<String> getPaths(ProjectFileSnapshot snapshot, String... directories)
+    {
+        return snapshot.getFilesInCanonicalDirectories(Lists.mutable.with(directories))
+                .map(ProjectFile::getPath)
+                .sorted()
+                .collect(Collectors.toCollection(Lists.mutable::empty));
+    }
+}
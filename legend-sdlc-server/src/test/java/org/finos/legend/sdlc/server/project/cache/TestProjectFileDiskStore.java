@@ -0,0 +1,200 @@
+// Copyright 2021 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.project.cache;
+
+import org.finos.legend.sdlc.server.project.ProjectFileAccessProvider.ProjectFile;
+import org.finos.legend.sdlc.server.project.ProjectFiles;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class TestProjectFileDiskStore
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGet() throws IOException
+    {
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), 1024L);
+        Assert.assertNull(store.getSnapshot("PROJ-1", "c1"));
+
+        store.putSnapshot("PROJ-1", "c1", ProjectFileSnapshot.newSnapshot(newFiles("1")));
+        Assert.assertTrue(store.containsSnapshot("PROJ-1", "c1"));
+        Assert.assertFalse(store.containsSnapshot("PROJ-1", "c2"));
+        Assert.assertFalse(store.containsSnapshot("PROJ-2", "c1"));
+
+        ProjectFileSnapshot snapshot = store.getSnapshot("PROJ-1", "c1");
+        Assert.assertNotNull(snapshot);
+        Assert.assertEquals(4, snapshot.getFileCount());
+        Assert.assertEquals("{}", snapshot.getFile("/project.json").getContentAsString());
+        Assert.assertEquals("{\"a\":1}", snapshot.getFile("/entities/model/A.json").getContentAsString());
+        Assert.assertEquals("", snapshot.getFile("/entities/model/empty.json").getContentAsString());
+        Assert.assertEquals("{\"v\":\"1\"}", snapshot.getFile("/entities/model/V.json").getContentAsString());
+    }
+
+    @Test
+    public void testContentSharedBetweenSnapshots() throws IOException
+    {
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), 1024L);
+        store.putSnapshot("PROJ-1", "c1", ProjectFileSnapshot.newSnapshot(newFiles("1")));
+        long sizeAfterFirst = store.getTotalSize();
+        Assert.assertEquals(ProjectFileSnapshot.newSnapshot(newFiles("1")).getContentSize(), sizeAfterFirst);
+
+        // only the changed file adds to the size of the store
+        store.putSnapshot("PROJ-1", "c2", ProjectFileSnapshot.newSnapshot(newFiles("2")));
+        Assert.assertEquals(sizeAfterFirst + "{\"v\":\"2\"}".length(), store.getTotalSize());
+        Assert.assertEquals(2, store.getSnapshotCount());
+        Assert.assertEquals(5L, countContentFiles());
+    }
+
+    @Test
+    public void testEviction() throws IOException
+    {
+        long snapshotSize = ProjectFileSnapshot.newSnapshot(newFiles("1")).getContentSize();
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), snapshotSize + 20L);
+        store.putSnapshot("PROJ-1", "c1", ProjectFileSnapshot.newSnapshot(newFiles("1")));
+        store.putSnapshot("PROJ-1", "c2", ProjectFileSnapshot.newSnapshot(newFiles("2")));
+        Assert.assertEquals(2, store.getSnapshotCount());
+
+        // access c1 so that c2 is the least recently used
+        Assert.assertNotNull(store.getSnapshot("PROJ-1", "c1"));
+        store.putSnapshot("PROJ-1", "c3", ProjectFileSnapshot.newSnapshot(newFiles("3")));
+        store.putSnapshot("PROJ-1", "c4", ProjectFileSnapshot.newSnapshot(newFiles("4")));
+        Assert.assertTrue(store.getTotalSize() <= store.getMaxSize());
+        Assert.assertFalse(store.containsSnapshot("PROJ-1", "c2"));
+        Assert.assertNull(store.getSnapshot("PROJ-1", "c2"));
+        Assert.assertTrue(store.containsSnapshot("PROJ-1", "c4"));
+
+        // content of evicted snapshots is removed, but shared content is kept
+        Assert.assertEquals(store.getSnapshotCount() + 3L, countContentFiles());
+        for (String revisionId : new String[]{"c1", "c3", "c4"})
+        {
+            if (store.containsSnapshot("PROJ-1", revisionId))
+            {
+                Assert.assertEquals("{\"a\":1}", store.getSnapshot("PROJ-1", revisionId).getFile("/entities/model/A.json").getContentAsString());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception
+    {
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), 4096L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++)
+            {
+                String version = Integer.toString(i % 8);
+                futures.add(executor.submit(() -> store.putSnapshot("PROJ-1", "c" + version, ProjectFileSnapshot.newSnapshot(newFiles(version)))));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // each snapshot is stored once, and shared content is only counted once
+        Assert.assertEquals(8, store.getSnapshotCount());
+        Assert.assertEquals(ProjectFileSnapshot.newSnapshot(newFiles("0")).getContentSize() + (7L * "{\"v\":\"0\"}".length()), store.getTotalSize());
+        Assert.assertEquals(11L, countContentFiles());
+        for (int i = 0; i < 8; i++)
+        {
+            Assert.assertEquals("{\"v\":\"" + i + "\"}", store.getSnapshot("PROJ-1", "c" + i).getFile("/entities/model/V.json").getContentAsString());
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException
+    {
+        Path directory = this.tempFolder.getRoot().toPath();
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(directory, 1024L);
+        store.putSnapshot("PROJ-1", "c1", ProjectFileSnapshot.newSnapshot(newFiles("1")));
+        store.putSnapshot("PROJ-2", "c2", ProjectFileSnapshot.newSnapshot(newFiles("2")));
+
+        ProjectFileDiskStore reopened = ProjectFileDiskStore.open(directory, 1024L);
+        Assert.assertEquals(2, reopened.getSnapshotCount());
+        Assert.assertEquals(store.getTotalSize(), reopened.getTotalSize());
+        Assert.assertEquals("{\"v\":\"2\"}", reopened.getSnapshot("PROJ-2", "c2").getFile("/entities/model/V.json").getContentAsString());
+    }
+
+    @Test
+    public void testCacheUsesDiskStoreForPersistentRevisions() throws Exception
+    {
+        ProjectFileDiskStore store = ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), 1024L);
+        AtomicInteger loadCount = new AtomicInteger();
+        ProjectFileCache cache = ProjectFileCache.newCache(1024L, store);
+        cache.getOrLoadSnapshot("PROJ-1", "c1", true, () ->
+        {
+            loadCount.incrementAndGet();
+            return newFiles("1");
+        });
+        cache.getOrLoadSnapshot("PROJ-1", "c2", false, () ->
+        {
+            loadCount.incrementAndGet();
+            return newFiles("2");
+        });
+        Assert.assertEquals(2, loadCount.get());
+        Assert.assertTrue(store.containsSnapshot("PROJ-1", "c1"));
+        Assert.assertFalse(store.containsSnapshot("PROJ-1", "c2"));
+
+        // a new cache (as after a restart) is served from the disk store
+        ProjectFileCache newCache = ProjectFileCache.newCache(1024L, ProjectFileDiskStore.open(this.tempFolder.getRoot().toPath(), 1024L));
+        Assert.assertNull(newCache.getSnapshot("PROJ-1", "c1"));
+        ProjectFileSnapshot snapshot = newCache.getOrLoadSnapshot("PROJ-1", "c1", true, () ->
+        {
+            loadCount.incrementAndGet();
+            return newFiles("1");
+        });
+        Assert.assertEquals(2, loadCount.get());
+        Assert.assertEquals(4, snapshot.getFileCount());
+        Assert.assertSame(snapshot, newCache.getSnapshot("PROJ-1", "c1"));
+    }
+
+    private long countContentFiles() throws IOException
+    {
+        try (Stream<Path> stream = Files.walk(this.tempFolder.getRoot().toPath().resolve("content")))
+        {
+            return stream.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static Stream<ProjectFile> newFiles(String version)
+    {
+        return Stream.of(
+                ProjectFiles.newStringProjectFile("/project.json", "{}"),
+                ProjectFiles.newStringProjectFile("/entities/model/A.json", "{\"a\":1}"),
+                ProjectFiles.newStringProjectFile("/entities/model/empty.json", ""),
+                ProjectFiles.newStringProjectFile("/entities/model/V.json", "{\"v\":\"" + version + "\"}"));
+    }
+}
@@ -0,0 +1,58 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.resources;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+
+public class TestEntitiesResource extends AbstractLegendSDLCServerResourceTest
+{
+    @Test
+    public void testGetWorkspaceEntities()
+    {
+        this.backend.project("A").addClasses("w1", "a1", "a2");
+
+        Response response = this.clientFor("/api/projects/A/workspaces/w1/entities").request().get();
+        Assert.assertEquals(200, response.getStatus());
+
+        List<Map<String, Object>> entities = response.readEntity(new GenericType<List<Map<String, Object>>>()
+        {
+        });
+        Assert.assertEquals(2, entities.size());
+        Assert.assertEquals("A::a1,A::a2", entities.stream().map(e -> (String) e.get("path")).sorted().collect(Collectors.joining(",")));
+        entities.forEach(entity ->
+        {
+            Assert.assertEquals("meta::pure::metamodel::type::Class", entity.get("classifierPath"));
+            Map<?, ?> content = (Map<?, ?>) entity.get("content");
+            Assert.assertEquals(entity.get("path"), content.get("package") + "::" + content.get("name"));
+        });
+    }
+
+    @Test
+    public void testGetWorkspaceEntitiesWithClassifierFilter()
+    {
+        this.backend.project("A").addClasses("w1", "a1");
+
+        Response response = this.clientFor("/api/projects/A/workspaces/w1/entities").queryParam("classifierPath", "meta::pure::metamodel::function::ConcreteFunctionDefinition").request().get();
+        Assert.assertEquals(200, response.getStatus());
+        Assert.assertEquals("[]", response.readEntity(String.class));
+    }
+}
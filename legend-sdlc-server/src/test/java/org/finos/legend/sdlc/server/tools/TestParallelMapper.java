@@ -0,0 +1,107 @@
+// Copyright 2020 Goldman Sachs
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//      http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package org.finos.legend.sdlc.server.tools;
+
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.MutableList;
+import org.eclipse.collections.impl.list.primitive.IntInterval;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class TestParallelMapper
+{
+    @Test
+    public void testOrderedParallelMap()
+    {
+        ParallelMapper mapper = ParallelMapper.newMapper(4, "test-mapper");
+        MutableList<Integer> inputs = IntInterval.oneTo(200).collect(i -> i, Lists.mutable.empty());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger concurrent = new AtomicInteger(0);
+        AtomicInteger maxConcurrent = new AtomicInteger(0);
+        try (Stream<String> stream = mapper.map(inputs.stream(), i ->
+        {
+            threads.add(Thread.currentThread().getName());
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try
+            {
+                Thread.sleep(1);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            concurrent.decrementAndGet();
+            return "item" + i;
+        }))
+        {
+            Assert.assertEquals(inputs.collect(i -> "item" + i), stream.collect(Collectors.toList()));
+        }
+        Assert.assertTrue(String.valueOf(maxConcurrent.get()), maxConcurrent.get() <= 4);
+        Assert.assertTrue(threads.toString(), threads.stream().allMatch(t -> t.startsWith("test-mapper-")));
+    }
+
+    @Test
+    public void testErrorAtPosition()
+    {
+        ParallelMapper mapper = ParallelMapper.newMapper(4, "test-mapper");
+        MutableList<Integer> results = Lists.mutable.empty();
+        try (Stream<Integer> stream = mapper.map(IntStream.rangeClosed(1, 100).boxed(), i ->
+        {
+            if (i == 37)
+            {
+                throw new IllegalStateException("error at " + i);
+            }
+            return i;
+        }))
+        {
+            stream.forEach(results::add);
+            Assert.fail("Expected exception");
+        }
+        catch (IllegalStateException e)
+        {
+            Assert.assertEquals("error at 37", e.getMessage());
+        }
+        Assert.assertEquals(IntInterval.oneTo(36).collect(i -> i, Lists.mutable.empty()), results);
+    }
+
+    @Test
+    public void testCloseClosesInput()
+    {
+        ParallelMapper mapper = ParallelMapper.newMapper(2, "test-mapper");
+        AtomicBoolean closed = new AtomicBoolean(false);
+        try (Stream<Integer> stream = mapper.map(IntStream.rangeClosed(1, 100).boxed().onClose(() -> closed.set(true)), i -> i * 2))
+        {
+            Assert.assertEquals(Lists.mutable.with(2, 4, 6), stream.limit(3).collect(Collectors.toList()));
+        }
+        Assert.assertTrue(closed.get());
+    }
+
+    @Test
+    public void testSingleThreaded()
+    {
+        ParallelMapper mapper = ParallelMapper.newMapper(1, "test-mapper");
+        Assert.assertEquals(1, mapper.getParallelism());
+        String thisThread = Thread.currentThread().getName();
+        Assert.assertEquals(Lists.mutable.with(thisThread, thisThread), mapper.map(Stream.of(1, 2), i -> Thread.currentThread().getName()).collect(Collectors.toList()));
+    }
+}